@@ -19,6 +19,7 @@
 
 package org.eclipse.om2m.comm.coap;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.SocketException;
 import java.net.URI;
@@ -33,9 +34,11 @@ import org.apache.commons.logging.LogFactory;
 import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.commons.utils.JsonMapper;
 import org.eclipse.om2m.core.service.SclService;
 
 import ch.ethz.inf.vs.californium.coap.CoAP;
+import ch.ethz.inf.vs.californium.coap.MediaTypeRegistry;
 import ch.ethz.inf.vs.californium.coap.OptionSet;
 import ch.ethz.inf.vs.californium.coap.Request;
 import ch.ethz.inf.vs.californium.coap.Response;
@@ -130,6 +133,14 @@ class CoapMessageDeliverer implements MessageDeliverer {
 
        String base = "";
        String representation = request.getPayloadString();
+       // Convert JSON resource representations to XML, other contents are kept as is
+       boolean isJsonRequest = options.getContentFormat() == MediaTypeRegistry.APPLICATION_JSON;
+       if (isJsonRequest && !representation.isEmpty()) {
+           String xml = JsonMapper.getInstance().jsonToXml(representation);
+           if (xml != null) {
+               representation = xml;
+           }
+       }
 
        requestIndication.setBase(base);
        requestIndication.setTargetID(targetID);
@@ -183,7 +194,7 @@ class CoapMessageDeliverer implements MessageDeliverer {
        boolean isEmptyResponse=false;
 
        // check if we have a payload
-       if(responseConfirm.getRepresentation()==null || responseConfirm.getRepresentation().isEmpty()){
+       if(!responseConfirm.hasRepresentation()){
            isEmptyResponse=true;
        }
 
@@ -239,13 +250,27 @@ class CoapMessageDeliverer implements MessageDeliverer {
        Response response= new Response(resCode);
 
 
-if(responseConfirm.getRepresentation()!=null){
+if(!isEmptyResponse){
        //filling in the fields of the Coap response
-    	   response.setPayload(responseConfirm.getRepresentation());
+    	   // The Accept option selects the representation, JSON requests get JSON by default.
+    	   // Raw representations such as contentInstance contents keep their XML content format
+    	   boolean isJsonResponse = (options.hasAccept() ? options.getAccept() == MediaTypeRegistry.APPLICATION_JSON : isJsonRequest)
+    	           && responseConfirm.hasJsonRepresentation();
+    	   ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    	   try {
+    	       if (isJsonResponse) {
+    	           responseConfirm.writeJsonRepresentation(payload);
+    	       } else {
+    	           responseConfirm.writeRepresentation(payload);
+    	       }
+    	   } catch (IOException e) {
+    	       LOGGER.error("Error writing the CoAP response payload", e);
+    	   }
+    	   response.setPayload(payload.toByteArray());
+    	   response.getOptions().setContentFormat(isJsonResponse ? MediaTypeRegistry.APPLICATION_JSON : MediaTypeRegistry.APPLICATION_XML);
 }
 
        response.setMID(mid);
-       //request.getOptions().setContentFormat(MediaTypeRegistry.TEXT_XML);
        if (!(token== null)){
     	   response.setToken(token);
        }
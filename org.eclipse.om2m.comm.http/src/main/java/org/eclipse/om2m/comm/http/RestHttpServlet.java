@@ -21,7 +21,7 @@ package org.eclipse.om2m.comm.http;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -39,6 +39,7 @@ import org.apache.commons.logging.LogFactory;
 import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.commons.utils.JsonMapper;
 import org.eclipse.om2m.core.service.SclService;
 
 /**
@@ -76,6 +77,14 @@ public class RestHttpServlet extends HttpServlet {
         } catch (IOException e) {
             LOGGER.error("Error reading httpServletRequest InputStream",e);
         }
+        //Convert JSON resource representations to XML, other contents are kept as is
+        boolean isJsonRequest = isJson(httpServletRequest.getContentType());
+        if (isJsonRequest && !representation.isEmpty()) {
+            String xml = JsonMapper.getInstance().jsonToXml(representation);
+            if (xml != null) {
+                representation = xml;
+            }
+        }
         requestIndication.setRepresentation(representation);
         //Get the method
         String httpMethod = httpServletRequest.getMethod();
@@ -105,10 +114,10 @@ public class RestHttpServlet extends HttpServlet {
         }else{
             responseConfirm = new ResponseConfirm(StatusCode.STATUS_SERVICE_UNAVAILABLE, "SCL service not installed");
         }
-        boolean isEmptyResponse=false;
-        if(responseConfirm.getRepresentation()==null || responseConfirm.getRepresentation().isEmpty()){
-            isEmptyResponse=true;
-        }
+        boolean isEmptyResponse = !responseConfirm.hasRepresentation();
+        // Raw representations such as contentInstance contents keep their XML content type
+        boolean isJsonResponse = acceptsJson(httpServletRequest.getHeader("Accept"), isJsonRequest)
+                && (isEmptyResponse || responseConfirm.hasJsonRepresentation());
         int statusCode = getHttpStatusCode(responseConfirm.getStatusCode(),isEmptyResponse);
 
         if (statusCode == 201) {
@@ -117,19 +126,20 @@ public class RestHttpServlet extends HttpServlet {
             }
         }
         if (statusCode != 204){
-            httpServletResponse.setContentType("application/xml");
+            httpServletResponse.setContentType(isJsonResponse ? "application/json" : "application/xml");
         }
         httpServletResponse.setStatus(statusCode);
-        String body = responseConfirm.getRepresentation();
-        PrintWriter out = null;
-        try {
-            out = httpServletResponse.getWriter();
-        } catch (IOException e) {
-            LOGGER.error("Error reading httpServletResponse Writer",e);
+        if (!isEmptyResponse) {
+            // Representations are encoded in UTF-8
+            OutputStream out = httpServletResponse.getOutputStream();
+            if (isJsonResponse) {
+                responseConfirm.writeJsonRepresentation(out);
+            } else {
+                responseConfirm.writeRepresentation(out);
+            }
+            out.close();
         }
-        out.println(body);
-        out.close();
-        LOGGER.info(httpResponseToString(statusCode,body));
+        LOGGER.info(httpResponseToString(statusCode));
     }
 
     /**
@@ -185,6 +195,60 @@ public class RestHttpServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Checks whether a media type is JSON.
+     * @param mediaType - media type, possibly with parameters
+     * @return true for application/json and the media types with the +json suffix
+     */
+    public static boolean isJson(String mediaType) {
+        if (mediaType == null) {
+            return false;
+        }
+        mediaType = mediaType.toLowerCase();
+        return mediaType.contains("/json") || mediaType.contains("+json");
+    }
+
+    /**
+     * Selects the JSON or the XML response representation from the HTTP Accept header.
+     * @param accept - Accept header, possibly null
+     * @param isJsonRequest - whether the request representation is JSON
+     * @return true if JSON is preferred, or accepted as much as XML for a JSON request
+     */
+    public static boolean acceptsJson(String accept, boolean isJsonRequest) {
+        if (accept == null) {
+            return isJsonRequest;
+        }
+        float json = 0;
+        float xml = 0;
+        float any = 0;
+        for (String range : accept.toLowerCase().split(",")) {
+            String[] parameters = range.split(";");
+            float quality = 1;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Float.parseFloat(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            String mediaType = parameters[0].trim();
+            if (isJson(mediaType)) {
+                json = Math.max(json, quality);
+            } else if (mediaType.endsWith("/xml") || mediaType.endsWith("+xml")) {
+                xml = Math.max(xml, quality);
+            } else if (mediaType.equals("*/*") || mediaType.equals("application/*")) {
+                any = Math.max(any, quality);
+            }
+        }
+        // Media ranges only apply to the formats not listed
+        json = json > 0 ? json : any;
+        xml = xml > 0 ? xml : any;
+        return json > xml || (json == xml && isJsonRequest);
+    }
+
     /**
      * Converts a standard HTTP status code into a  {@link StatusCode} object.
      * @param statusCode - protocol-independent status code.
@@ -225,8 +289,8 @@ public class RestHttpServlet extends HttpServlet {
                 ", Authorization=" + auth+", queryString=" + query + "]";
     }
 
-    public static String httpResponseToString(int statusCode, String rep){
-        return "HttpResponse [statusCode=" + statusCode /*+ ", representation=" + rep*/ + "]";
+    public static String httpResponseToString(int statusCode){
+        return "HttpResponse [statusCode=" + statusCode + "]";
     }
 
     public static SclService getScl() {
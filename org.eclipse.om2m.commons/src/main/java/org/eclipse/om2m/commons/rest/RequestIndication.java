@@ -29,6 +29,9 @@ import org.eclipse.om2m.commons.utils.XmlMapper;
 /**
  *
  * Defines a generic, protocol-independent object to provide request information to the SCL.
+ * A request built from a resource or a notify keeps that object and marshals it only when its
+ * representation is first needed, so the object must not be modified once handed over. Within the
+ * JVM the SCL copies the object instead of marshalling it.
  *  @author <ul>
  *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.com ></li>
  *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
@@ -45,6 +48,8 @@ public class RequestIndication {
     private String targetID;
     /** resource representation */
     private String representation;
+    /** Resource or notify not marshalled yet */
+    private Object resource;
     /** Issuer Requesting Entity */
     private String requestingEntity;
     /** Request parameters */
@@ -82,7 +87,7 @@ public class RequestIndication {
     public RequestIndication(String method, String targetID, String requestingEntity, Resource resource) {
         this.method = method;
         this.targetID = targetID;
-        this.representation = XmlMapper.getInstance().objectToXml(resource);
+        this.resource = resource;
         this.requestingEntity = requestingEntity;
     }
 
@@ -127,10 +132,13 @@ public class RequestIndication {
     }
 
     /**
-     * Gets the current representation.
+     * Gets the current representation, marshalling the resource the first time.
      * @return representation
      */
     public String getRepresentation() {
+        if (representation == null && resource != null) {
+            representation = XmlMapper.getInstance().objectToXml(resource);
+        }
         return representation;
     }
 
@@ -140,6 +148,7 @@ public class RequestIndication {
      */
     public void setRepresentation(String representation) {
         this.representation = representation;
+        this.resource = null;
     }
 
     /**
@@ -147,7 +156,8 @@ public class RequestIndication {
      * @param resource
      */
     public void setRepresentation(Resource resource) {
-        this.representation = XmlMapper.getInstance().objectToXml(resource);
+        this.representation = null;
+        this.resource = resource;
     }
 
     /**
@@ -155,7 +165,24 @@ public class RequestIndication {
      * @param notify
      */
     public void setRepresentation(Notify notify) {
-        this.representation = XmlMapper.getInstance().objectToXml(notify);
+        this.representation = null;
+        this.resource = notify;
+    }
+
+    /**
+     * Gets the resource or the notify the request was built from.
+     * @return resource or notify, null if the request was built from a representation
+     */
+    public Object getResource() {
+        return resource;
+    }
+
+    /**
+     * Checks whether the request carries a representation, without marshalling it.
+     * @return true if the request has a resource or a non empty representation
+     */
+    public boolean hasRepresentation() {
+        return resource != null || (representation != null && !representation.isEmpty());
     }
 
     /**
@@ -223,7 +250,7 @@ public class RequestIndication {
     public String toString() {
         return "RequestIndication [method=" + method + ", base=" + base
                 + ", targetID=" + targetID + ", representation="
-                + representation + ", requestingEntity=" + requestingEntity
+                + (representation != null ? representation : resource) + ", requestingEntity=" + requestingEntity
                 + ", protocol=" + protocol +"]";
     }
 }
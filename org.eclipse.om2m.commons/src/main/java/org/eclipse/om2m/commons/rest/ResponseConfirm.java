@@ -19,23 +19,41 @@
  ******************************************************************************/
 package org.eclipse.om2m.commons.rest;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.Resource;
 import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.commons.utils.JsonMapper;
+import org.eclipse.om2m.commons.utils.ResourceCopier;
 import org.eclipse.om2m.commons.utils.XmlMapper;
 
 /**
  *  Defines a generic, protocol-independent object to assist the SCL in sending a response to the client.
+ *  A response built from a resource or an error info keeps that object and marshals it only when its
+ *  representation is first needed, so the object must not be modified once handed over. A resource
+ *  still shared with the storage is copied by {@link #detach()} before the lock guarding it is released.
  *  @author <ul>
  *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.com ></li>
  *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
  *         </ul>
  */
 public class ResponseConfirm {
+    /** Maximum number of distinct error info representations kept */
+    private static final int MAX_ERROR_REPRESENTATIONS = 256;
+    /** Representations of the error infos already marshalled, by status code and additional info */
+    private static final ConcurrentMap<String, String> ERROR_REPRESENTATIONS = new ConcurrentHashMap<String, String>();
     /** Response status code */
     private StatusCode statusCode;
     /** Resource representation */
     private String representation;
+    /** Resource or error info not marshalled yet */
+    private Object resource;
+    /** JSON representation converted from a resource XML representation */
+    private String jsonRepresentation;
     /** Created resource uri */
     private String resourceURI;
 
@@ -69,7 +87,7 @@ public class ResponseConfirm {
     public ResponseConfirm(StatusCode statusCode, Resource resource) {
         super();
         this.statusCode = statusCode;
-        this.representation = XmlMapper.getInstance().objectToXml(resource);
+        this.resource = resource;
         this.resourceURI = resource.getUri();
     }
 
@@ -80,7 +98,7 @@ public class ResponseConfirm {
     public ResponseConfirm(ErrorInfo errorInfo) {
         super();
         this.statusCode = errorInfo.getStatusCode();
-        this.representation = XmlMapper.getInstance().objectToXml(errorInfo);
+        this.resource = errorInfo;
     }
 
     /**
@@ -116,10 +134,46 @@ public class ResponseConfirm {
     }
 
     /**
-     * Gets the current representation
+     * Gets a copy of the resource or the error info the response was built from. The resource may
+     * be the one held by the SCL, so callers within the JVM get their own copy instead of parsing
+     * the representation.
+     * @return copy of the resource or error info, null if the response was built from a representation
+     */
+    public Object getResource() {
+        return ResourceCopier.copy(resource);
+    }
+
+    /**
+     * Replaces the resource the response was built from by a copy, so that it is marshalled as it is
+     * now even if the stored instance is modified afterwards. Error infos and representations are
+     * kept as they are.
+     */
+    public void detach() {
+        if (resource != null && !(resource instanceof ErrorInfo)) {
+            resource = ResourceCopier.copy(resource);
+        }
+    }
+
+    /**
+     * Checks whether the response carries a representation, without marshalling it.
+     * @return true if the response has a non empty representation
+     */
+    public boolean hasRepresentation() {
+        return resource != null || (representation != null && !representation.isEmpty());
+    }
+
+    /**
+     * Gets the current representation, marshalling the resource the first time.
      * @return representation
      */
     public String getRepresentation() {
+        if (representation == null && resource != null) {
+            if (resource instanceof ErrorInfo) {
+                representation = errorRepresentation((ErrorInfo) resource);
+            } else {
+                representation = XmlMapper.getInstance().objectToXml(resource);
+            }
+        }
         return representation;
     }
 
@@ -129,12 +183,79 @@ public class ResponseConfirm {
      */
     public void setRepresentation(String representation) {
         this.representation = representation;
+        this.resource = null;
+        this.jsonRepresentation = null;
+    }
+
+    /**
+     * Checks whether the response has a JSON representation. Only resources and resource XML
+     * representations have one; any other representation, such as a contentInstance content,
+     * is kept as is.
+     * @return true if the response has a JSON representation
+     */
+    public boolean hasJsonRepresentation() {
+        if (resource != null) {
+            return true;
+        }
+        if (jsonRepresentation == null && representation != null && representation.trim().startsWith("<")) {
+            jsonRepresentation = JsonMapper.getInstance().xmlToJson(representation);
+        }
+        return jsonRepresentation != null;
+    }
+
+    /**
+     * Writes the representation encoded in UTF-8. A resource not marshalled yet is marshalled
+     * straight to the stream.
+     * @param outputStream - stream to write the representation to
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeRepresentation(OutputStream outputStream) throws IOException {
+        if (representation == null && resource != null && !(resource instanceof ErrorInfo)) {
+            XmlMapper.getInstance().marshal(resource, outputStream);
+        } else if (getRepresentation() != null) {
+            outputStream.write(representation.getBytes("UTF-8"));
+        }
+    }
+
+    /**
+     * Writes the JSON representation encoded in UTF-8. A resource is marshalled straight to the
+     * stream, a resource XML representation is converted and any other representation is written
+     * as is (see {@link #hasJsonRepresentation()}).
+     * @param outputStream - stream to write the representation to
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeJsonRepresentation(OutputStream outputStream) throws IOException {
+        if (resource != null) {
+            JsonMapper.getInstance().marshal(resource, outputStream);
+        } else if (hasJsonRepresentation()) {
+            outputStream.write(jsonRepresentation.getBytes("UTF-8"));
+        } else if (representation != null) {
+            outputStream.write(representation.getBytes("UTF-8"));
+        }
+    }
+
+    /**
+     * Gets the representation of an error info, marshalling it only the first time the same
+     * error is returned.
+     * @param errorInfo - error info
+     * @return error info representation
+     */
+    private static String errorRepresentation(ErrorInfo errorInfo) {
+        String key = errorInfo.getStatusCode() + " " + errorInfo.getAdditionalInfo();
+        String representation = ERROR_REPRESENTATIONS.get(key);
+        if (representation == null) {
+            representation = XmlMapper.getInstance().objectToXml(errorInfo);
+            if (representation != null && ERROR_REPRESENTATIONS.size() < MAX_ERROR_REPRESENTATIONS) {
+                ERROR_REPRESENTATIONS.putIfAbsent(key, representation);
+            }
+        }
+        return representation;
     }
 
     @Override
     public String toString() {
         return "ResponseConfirm [statusCode=" + statusCode
-                + ", representation=" + representation + ", resourceURI="
+                + ", representation=" + (representation != null ? representation : resource) + ", resourceURI="
                 + resourceURI + "]";
     }
 }
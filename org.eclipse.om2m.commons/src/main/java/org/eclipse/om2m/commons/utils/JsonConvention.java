@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.annotation.XmlAnyElement;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSeeAlso;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlValue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.Resource;
+
+/**
+ * Describes how the XML representations of the resources map to JSON:
+ * <ul>
+ * <li>a representation is an object with a single member named after the root element</li>
+ * <li>an element holding only text is a string, any other element is an object</li>
+ * <li>attributes are members prefixed with "@" placed before the elements, the text of an
+ * element having attributes is the "$" member</li>
+ * <li>the elements of a resource list are arrays, even when holding a single element</li>
+ * <li>namespace prefixes are dropped, except "xsi" for the attributes of that namespace</li>
+ * </ul>
+ * The list elements and the attribute namespaces are found once from the annotations of the
+ * resource classes.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.com ></li>
+ *         </ul>
+ */
+class JsonConvention {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(JsonConvention.class);
+    /** Namespace of the resource elements */
+    static final String M2M_NAMESPACE = "http://uri.etsi.org/m2m";
+    /** Namespace of the contentType attribute */
+    static final String XMIME_NAMESPACE = "http://www.w3.org/2005/05/xmlmime";
+    /** Prefix of the attribute members */
+    static final char ATTRIBUTE = '@';
+    /** Member holding the text of an element having attributes */
+    static final String TEXT = "$";
+    /** Prefix of the attribute members of the xsi namespace */
+    static final String XSI_ATTRIBUTE = "@xsi:";
+    /** Namespace prefixes declared on the root element */
+    static final String[] PREFIXES = { "om2m", "xmime", "xsi" };
+    /** Namespaces declared on the root element */
+    static final String[] NAMESPACES = { M2M_NAMESPACE, XMIME_NAMESPACE, XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI };
+
+    private static final String DEFAULT_NAME = "##default";
+
+    /** Convention of the resource package */
+    private static final JsonConvention convention = new JsonConvention();
+
+    /** Root element names */
+    private final Set<String> rootElements = new HashSet<String>();
+    /** Names of the elements written as arrays */
+    private final Set<String> arrays = new HashSet<String>();
+    /** Attribute namespaces by attribute name, by element name */
+    private final Map<String, Map<String, String>> attributeNamespaces = new HashMap<String, Map<String, String>>();
+    /** Classes already inspected */
+    private final Set<Class<?>> visited = new HashSet<Class<?>>();
+
+    private JsonConvention() {
+        InputStream index = Resource.class.getResourceAsStream("jaxb.index");
+        if (index == null) {
+            LOGGER.error("jaxb.index not found, resource lists are written as single elements");
+            return;
+        }
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(index, "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        Class<?> type = Class.forName(Resource.class.getPackage().getName() + "." + line);
+                        XmlRootElement root = type.getAnnotation(XmlRootElement.class);
+                        if (root != null) {
+                            String name = DEFAULT_NAME.equals(root.name()) ? decapitalize(type.getSimpleName()) : root.name();
+                            rootElements.add(name);
+                            inspect(name, type);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error reading jaxb.index", e);
+        } catch (ClassNotFoundException e) {
+            LOGGER.error("Resource class listed in jaxb.index not found", e);
+        }
+        visited.clear();
+    }
+
+    /** Gets the convention of the resource package. */
+    static JsonConvention getInstance() {
+        return convention;
+    }
+
+    /**
+     * Checks whether an element name is the root element of a resource representation.
+     * @param name - element name
+     * @return true if a resource class has this root element
+     */
+    boolean isRootElement(String name) {
+        return rootElements.contains(name);
+    }
+
+    /**
+     * Checks whether an element is a resource list element, written as an array.
+     * @param name - element name
+     * @return true if the element is written as an array
+     */
+    boolean isArray(String name) {
+        return arrays.contains(name);
+    }
+
+    /**
+     * Gets the namespace of an attribute.
+     * @param element - name of the element holding the attribute
+     * @param attribute - attribute name
+     * @return attribute namespace, empty if unqualified
+     */
+    String getAttributeNamespace(String element, String attribute) {
+        Map<String, String> namespaces = attributeNamespaces.get(element);
+        String namespace = namespaces == null ? null : namespaces.get(attribute);
+        return namespace == null ? XMLConstants.NULL_NS_URI : namespace;
+    }
+
+    /**
+     * Records the lists and the attributes of an element and of the elements it holds.
+     * @param element - element name
+     * @param type - class bound to the element
+     */
+    private void inspect(String element, Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                XmlAttribute attribute = field.getAnnotation(XmlAttribute.class);
+                if (attribute != null) {
+                    String name = DEFAULT_NAME.equals(attribute.name()) ? field.getName() : attribute.name();
+                    Map<String, String> namespaces = attributeNamespaces.get(element);
+                    if (namespaces == null) {
+                        namespaces = new HashMap<String, String>();
+                        attributeNamespaces.put(element, namespaces);
+                    }
+                    namespaces.put(name, DEFAULT_NAME.equals(attribute.namespace()) ? XMLConstants.NULL_NS_URI : attribute.namespace());
+                }
+            }
+        }
+        if (!visited.add(type)) {
+            return;
+        }
+        XmlSeeAlso seeAlso = type.getAnnotation(XmlSeeAlso.class);
+        if (seeAlso != null) {
+            for (Class<?> subclass : seeAlso.value()) {
+                inspect(element, subclass);
+            }
+        }
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                        || field.isAnnotationPresent(XmlTransient.class) || field.isAnnotationPresent(XmlAttribute.class)
+                        || field.isAnnotationPresent(XmlValue.class) || field.isAnnotationPresent(XmlAnyElement.class)) {
+                    continue;
+                }
+                XmlElement annotation = field.getAnnotation(XmlElement.class);
+                String name = annotation == null || DEFAULT_NAME.equals(annotation.name()) ? field.getName() : annotation.name();
+                Class<?> fieldType = field.getType();
+                if (Collection.class.isAssignableFrom(fieldType)) {
+                    arrays.add(name);
+                    Type generic = field.getGenericType();
+                    if (!(generic instanceof ParameterizedType)) {
+                        continue;
+                    }
+                    Type item = ((ParameterizedType) generic).getActualTypeArguments()[0];
+                    if (!(item instanceof Class)) {
+                        continue;
+                    }
+                    fieldType = (Class<?>) item;
+                }
+                if (fieldType.getPackage() == Resource.class.getPackage() && !fieldType.isEnum()) {
+                    inspect(name, fieldType);
+                }
+            }
+        }
+    }
+
+    /** Gets the default JAXB element name of a class. */
+    private static String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Converts resource JSON representation to resource Java Object and vice versa, and converts
+ * between the JSON and XML representations. The JSON representation follows the {@link JsonConvention}.
+ * Resources are marshalled and unmarshalled by JAXB through streaming readers and writers of JSON,
+ * so they follow the same mapping and the same schema validation as the XML representations.
+ *
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.com ></li>
+ *         </ul>
+ */
+public class JsonMapper {
+    /** JsonMapper Logger */
+    private static Log LOGGER = LogFactory.getLog(JsonMapper.class);
+    /** Encoding of the JSON representations */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /** JsonMapper Singleton */
+    private static JsonMapper jsonMapper = new JsonMapper();
+    /** Mapping of the XML representation to JSON */
+    private final JsonConvention convention = JsonConvention.getInstance();
+    /** Factory of the XML readers used to convert XML representations */
+    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    /** Factory of the XML writers used to convert JSON representations */
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    /** Marshaller of the current thread */
+    private final ThreadLocal<Marshaller> marshallers = new ThreadLocal<Marshaller>() {
+        @Override
+        protected Marshaller initialValue() {
+            try {
+                return XmlMapper.getInstance().getContext().createMarshaller();
+            } catch (JAXBException e) {
+                LOGGER.error("Create JAXB marshaller error!", e);
+                return null;
+            }
+        }
+    };
+    /** Unmarshaller of the current thread */
+    private final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<Unmarshaller>() {
+        @Override
+        protected Unmarshaller initialValue() {
+            try {
+                return XmlMapper.getInstance().getContext().createUnmarshaller();
+            } catch (JAXBException e) {
+                LOGGER.error("Create JAXB unmarshaller error!", e);
+                return null;
+            }
+        }
+    };
+
+    /** Constructor. */
+    private JsonMapper() {
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /** Gets JsonMapper instance*/
+    public static JsonMapper getInstance() {
+        return jsonMapper;
+    }
+
+    /**
+     * Converts a resource Java object into resource JSON representation.
+     * @param object - resource Java object
+     * @return resource JSON representation
+     */
+    public String objectToJson(Object object) {
+        StringWriter writer = new StringWriter();
+        try {
+            marshallers.get().marshal(object, new JsonStreamWriter(writer, convention));
+            return writer.toString();
+        } catch (JAXBException e) {
+            LOGGER.error("JAXB marshalling error!", e);
+        }
+        return null;
+    }
+
+    /**
+     * Writes the resource JSON representation of a resource Java object, encoded in UTF-8, without
+     * building it in memory first.
+     * @param object - resource Java object
+     * @param outputStream - stream to write the representation to
+     * @throws IOException if the stream cannot be written or the object cannot be marshalled, part
+     * of the representation being possibly written already
+     */
+    public void marshal(Object object, OutputStream outputStream) throws IOException {
+        Writer writer = new OutputStreamWriter(outputStream, UTF_8);
+        try {
+            marshallers.get().marshal(object, new JsonStreamWriter(writer, convention));
+        } catch (JAXBException e) {
+            IOException cause = ioException(e);
+            if (cause != null) {
+                throw cause;
+            }
+            LOGGER.error("JAXB marshalling error!", e);
+            throw new IOException("JAXB marshalling error", e);
+        }
+    }
+
+    /**
+     * Converts a resource JSON representation into resource Java object.
+     * @param representation - resource JSON representation
+     * @return resource Java object
+     */
+    public Object jsonToObject(String representation) {
+        return unmarshal(new StringReader(representation));
+    }
+
+    /**
+     * Converts a resource JSON representation into resource Java object, validating it against an
+     * xsd file in the same parse.
+     * @param representation - resource JSON representation
+     * @param xsd - xsd file of the resource representation
+     * @return resource Java object
+     * @throws SAXException if the representation is not well-formed or not valid
+     */
+    public Object jsonToObject(String representation, String xsd) throws SAXException {
+        return unmarshal(new StringReader(representation), xsd);
+    }
+
+    /**
+     * Reads a resource Java object from a stream holding its resource JSON representation, encoded
+     * in UTF-8.
+     * @param inputStream - stream holding the resource JSON representation
+     * @return resource Java object
+     */
+    public Object unmarshal(InputStream inputStream) {
+        return unmarshal(new InputStreamReader(inputStream, UTF_8));
+    }
+
+    /**
+     * Reads a resource Java object from a stream holding its resource JSON representation, encoded
+     * in UTF-8, validating it against an xsd file in the same parse.
+     * @param inputStream - stream holding the resource JSON representation
+     * @param xsd - xsd file of the resource representation
+     * @return resource Java object
+     * @throws SAXException if the representation is not well-formed or not valid
+     */
+    public Object unmarshal(InputStream inputStream, String xsd) throws SAXException {
+        return unmarshal(new InputStreamReader(inputStream, UTF_8), xsd);
+    }
+
+    /**
+     * Converts a resource JSON representation into resource XML representation, without binding it
+     * to a resource Java object.
+     * @param representation - resource JSON representation
+     * @return resource XML representation, null if the representation is not well-formed or its
+     * root is not a resource element
+     */
+    public String jsonToXml(String representation) {
+        JsonStreamReader reader = new JsonStreamReader(new StringReader(representation), convention);
+        try {
+            if (reader.next() != XMLStreamReader.START_ELEMENT || !convention.isRootElement(reader.getLocalName())) {
+                return null;
+            }
+            StringWriter xml = new StringWriter();
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(xml);
+            writer.writeStartDocument("UTF-8", "1.0");
+            copy(reader, writer);
+            writer.writeEndDocument();
+            writer.close();
+            return xml.toString();
+        } catch (XMLStreamException e) {
+            LOGGER.debug("Not a resource JSON representation: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Converts a resource XML representation into resource JSON representation, without binding it
+     * to a resource Java object.
+     * @param representation - resource XML representation
+     * @return resource JSON representation, null if the representation is not well-formed or its
+     * root is not a resource element
+     */
+    public String xmlToJson(String representation) {
+        StringWriter json = new StringWriter();
+        try {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(representation));
+            if (reader.nextTag() != XMLStreamReader.START_ELEMENT || !convention.isRootElement(reader.getLocalName())) {
+                return null;
+            }
+            JsonStreamWriter writer = new JsonStreamWriter(json, convention);
+            writer.writeStartDocument();
+            copy(reader, writer);
+            // Content after the root element must be well-formed too
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            writer.writeEndDocument();
+            reader.close();
+            return json.toString();
+        } catch (XMLStreamException e) {
+            LOGGER.debug("Not a resource XML representation: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private Object unmarshal(Reader reader) {
+        try {
+            Unmarshaller unmarshaller = unmarshallers.get();
+            unmarshaller.setSchema(null);
+            return unmarshaller.unmarshal(new JsonStreamReader(reader, convention));
+        } catch (JAXBException e) {
+            LOGGER.error("JAXB unmarshalling error!", e);
+        }
+        return null;
+    }
+
+    private Object unmarshal(Reader reader, String xsd) throws SAXException {
+        try {
+            Unmarshaller unmarshaller = unmarshallers.get();
+            unmarshaller.setSchema(XmlValidator.getInstance().getSchema(xsd));
+            return unmarshaller.unmarshal(new JsonStreamReader(reader, convention));
+        } catch (UnmarshalException e) {
+            // Parsing errors are reported by the JSON reader, validation errors by the schema
+            Throwable cause = e.getLinkedException() != null ? e.getLinkedException() : e;
+            if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            }
+            throw new SAXException(cause.getMessage(), e);
+        } catch (JAXBException e) {
+            LOGGER.error("JAXB unmarshalling error!", e);
+        }
+        return null;
+    }
+
+    /**
+     * Copies an element and its content from a reader to a writer.
+     * @param reader - reader positioned on the start of the element
+     * @param writer - writer of the element
+     */
+    private static void copy(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        int depth = 0;
+        do {
+            switch (reader.getEventType()) {
+            case XMLStreamReader.START_ELEMENT:
+                writer.writeStartElement(nonNull(reader.getPrefix()), reader.getLocalName(), nonNull(reader.getNamespaceURI()));
+                for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                    writer.writeNamespace(nonNull(reader.getNamespacePrefix(i)), reader.getNamespaceURI(i));
+                }
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    String namespace = nonNull(reader.getAttributeNamespace(i));
+                    if (namespace.isEmpty()) {
+                        writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                    } else {
+                        writer.writeAttribute(nonNull(reader.getAttributePrefix(i)), namespace, reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                    }
+                }
+                depth++;
+                break;
+            case XMLStreamReader.END_ELEMENT:
+                writer.writeEndElement();
+                depth--;
+                break;
+            case XMLStreamReader.CHARACTERS:
+            case XMLStreamReader.CDATA:
+            case XMLStreamReader.SPACE:
+                writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                break;
+            default:
+                break;
+            }
+        } while (depth > 0 && reader.next() != XMLStreamReader.END_DOCUMENT);
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+
+    /** Gets the stream error a marshalling failed on, null if it did not fail on the stream. */
+    private static IOException ioException(JAXBException e) {
+        Throwable cause = e.getLinkedException();
+        while (cause != null && !(cause instanceof IOException)) {
+            cause = cause.getCause();
+        }
+        return (IOException) cause;
+    }
+}
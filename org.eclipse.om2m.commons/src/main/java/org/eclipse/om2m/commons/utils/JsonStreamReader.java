@@ -0,0 +1,694 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads a JSON representation as the XML events of the representation it stands for, following the
+ * {@link JsonConvention}. Unmarshalling a resource from it parses the JSON representation as the
+ * resource is built, without building a JSON tree or the XML document first. Attribute members
+ * must come before the element members of their object, as attributes come before the content of
+ * an XML element.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.com ></li>
+ *         </ul>
+ */
+class JsonStreamReader implements XMLStreamReader, NamespaceContext, Location {
+    /** JSON object, the document or an element */
+    private static final int OBJECT = 0;
+    /** JSON array of elements */
+    private static final int ARRAY = 1;
+    /** No event queued */
+    private static final int NONE = 0;
+    /** Text then end of the element queued */
+    private static final int TEXT = 1;
+    /** End of the element queued */
+    private static final int END = 2;
+
+    private final Reader reader;
+    private final JsonConvention convention;
+    private final char[] buffer = new char[4096];
+    private int position;
+    private int limit;
+    /** Number of characters read before the buffer */
+    private int consumed;
+    private int line = 1;
+    /** Offset of the current line */
+    private int lineStart;
+
+    /** Open JSON objects and arrays, with their element name and number of members read */
+    private int[] types = new int[16];
+    private String[] names = new String[16];
+    private int[] counts = new int[16];
+    private int depth = -1;
+    /** Depth of the current element */
+    private int elementDepth;
+    /** Element member read while looking for attributes */
+    private String pendingName;
+    private int queued = NONE;
+
+    private int eventType = START_DOCUMENT;
+    /** Depth of the element started or ended by the event */
+    private int eventDepth;
+    private String localName;
+    private char[] text = new char[256];
+    private int textLength;
+    private int attributeCount;
+    private String[] attributeNames = new String[4];
+    private String[] attributeNamespaces = new String[4];
+    private String[] attributePrefixes = new String[4];
+    private String[] attributeValues = new String[4];
+
+    /**
+     * Creates a reader.
+     * @param reader - reader of the JSON representation
+     * @param convention - mapping of the JSON representation to XML
+     */
+    JsonStreamReader(Reader reader, JsonConvention convention) {
+        this.reader = reader;
+        this.convention = convention;
+    }
+
+    public int next() throws XMLStreamException {
+        if (queued == TEXT) {
+            queued = END;
+            return eventType = CHARACTERS;
+        }
+        if (queued == END) {
+            queued = NONE;
+            return endElement();
+        }
+        if (eventType == END_DOCUMENT) {
+            throw new NoSuchElementException("End of the JSON document reached");
+        }
+        if (depth < 0) {
+            if (read() != '{') {
+                throw error("Expected a JSON object");
+            }
+            push(OBJECT, null);
+        }
+        while (true) {
+            if (types[depth] == ARRAY) {
+                int c = peek();
+                if (c == ']') {
+                    position++;
+                    depth--;
+                    continue;
+                }
+                if (counts[depth]++ > 0) {
+                    if (c != ',') {
+                        throw error("Expected ',' or ']'");
+                    }
+                    position++;
+                }
+                if (startElement(names[depth])) {
+                    return eventType;
+                }
+                continue;
+            }
+            String name = pendingName;
+            pendingName = null;
+            if (name == null) {
+                int c = read();
+                if (c == '}') {
+                    if (depth == 0) {
+                        depth--;
+                        return eventType = END_DOCUMENT;
+                    }
+                    return endElement();
+                }
+                if (counts[depth]++ > 0) {
+                    if (c != ',') {
+                        throw error("Expected ',' or '}'");
+                    }
+                    c = read();
+                }
+                name = readName(c);
+            }
+            if (name.charAt(0) == JsonConvention.ATTRIBUTE) {
+                throw error("Attribute " + name + " after the elements of " + names[depth]);
+            }
+            if (JsonConvention.TEXT.equals(name) && names[depth] != null) {
+                if (readScalar()) {
+                    return eventType = CHARACTERS;
+                }
+                continue;
+            }
+            if (peek() == '[') {
+                position++;
+                push(ARRAY, name);
+                continue;
+            }
+            if (startElement(name)) {
+                return eventType;
+            }
+        }
+    }
+
+    /**
+     * Starts the element of a member value, reading its attributes or its text.
+     * @return false if the value is null, standing for no element
+     */
+    private boolean startElement(String name) throws XMLStreamException {
+        int c = peek();
+        if (c == '{') {
+            position++;
+            push(OBJECT, name);
+            readAttributes(name);
+        } else if (readScalar()) {
+            attributeCount = 0;
+            queued = textLength > 0 ? TEXT : END;
+            push(OBJECT, name);
+        } else {
+            return false;
+        }
+        localName = name;
+        eventDepth = ++elementDepth;
+        eventType = START_ELEMENT;
+        return true;
+    }
+
+    private int endElement() {
+        localName = names[depth--];
+        attributeCount = 0;
+        eventDepth = elementDepth--;
+        return eventType = END_ELEMENT;
+    }
+
+    /** Reads the attribute members of an element object, up to its first element member. */
+    private void readAttributes(String element) throws XMLStreamException {
+        attributeCount = 0;
+        while (true) {
+            int c = read();
+            if (c == '}') {
+                queued = END;
+                return;
+            }
+            if (counts[depth]++ > 0) {
+                if (c != ',') {
+                    throw error("Expected ',' or '}'");
+                }
+                c = read();
+            }
+            String name = readName(c);
+            if (name.charAt(0) != JsonConvention.ATTRIBUTE) {
+                pendingName = name;
+                return;
+            }
+            if (!readScalar()) {
+                continue;
+            }
+            if (attributeCount == attributeNames.length) {
+                int length = attributeCount * 2;
+                attributeNames = Arrays.copyOf(attributeNames, length);
+                attributeNamespaces = Arrays.copyOf(attributeNamespaces, length);
+                attributePrefixes = Arrays.copyOf(attributePrefixes, length);
+                attributeValues = Arrays.copyOf(attributeValues, length);
+            }
+            if (name.startsWith(JsonConvention.XSI_ATTRIBUTE)) {
+                attributeNames[attributeCount] = name.substring(JsonConvention.XSI_ATTRIBUTE.length());
+                attributeNamespaces[attributeCount] = XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI;
+            } else {
+                attributeNames[attributeCount] = name.substring(1);
+                attributeNamespaces[attributeCount] = convention.getAttributeNamespace(element, attributeNames[attributeCount]);
+            }
+            attributePrefixes[attributeCount] = getPrefix(attributeNamespaces[attributeCount]);
+            attributeValues[attributeCount] = new String(text, 0, textLength);
+            attributeCount++;
+        }
+    }
+
+    /** Reads a member name and the following colon. */
+    private String readName(int c) throws XMLStreamException {
+        if (c != '"') {
+            throw error("Expected a member name");
+        }
+        readString();
+        if (textLength == 0) {
+            throw error("Empty member name");
+        }
+        if (read() != ':') {
+            throw error("Expected ':'");
+        }
+        return new String(text, 0, textLength);
+    }
+
+    /**
+     * Reads a string, number or boolean value as text.
+     * @return false if the value is null
+     */
+    private boolean readScalar() throws XMLStreamException {
+        int c = read();
+        textLength = 0;
+        if (c == '"') {
+            readString();
+        } else if (c == 'n') {
+            expect("ull");
+            return false;
+        } else if (c == 't') {
+            expect("rue");
+            append("true");
+        } else if (c == 'f') {
+            expect("alse");
+            append("false");
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            append((char) c);
+            while ((c = peekChar()) == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+                append((char) c);
+                position++;
+            }
+        } else {
+            throw error(c == '{' || c == '[' ? "Expected a text value" : "Unexpected character");
+        }
+        return true;
+    }
+
+    /** Reads a string after its opening quote into the text buffer. */
+    private void readString() throws XMLStreamException {
+        textLength = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                throw error("Unterminated string");
+            }
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    break;
+                }
+                position++;
+            }
+            append(buffer, start, position - start);
+            if (position == limit) {
+                continue;
+            }
+            char c = buffer[position++];
+            if (c == '"') {
+                return;
+            }
+            if (c != '\\') {
+                throw error("Control character in string");
+            }
+            c = nextChar();
+            switch (c) {
+            case '"': case '\\': case '/': append(c); break;
+            case 'b': append('\b'); break;
+            case 'f': append('\f'); break;
+            case 'n': append('\n'); break;
+            case 'r': append('\r'); break;
+            case 't': append('\t'); break;
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(nextChar(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    code = code * 16 + digit;
+                }
+                append((char) code);
+                break;
+            default:
+                throw error("Invalid escape");
+            }
+        }
+    }
+
+    private void expect(String literal) throws XMLStreamException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (nextChar() != literal.charAt(i)) {
+                throw error("Unexpected literal");
+            }
+        }
+    }
+
+    private void append(char c) {
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, textLength * 2);
+        }
+        text[textLength++] = c;
+    }
+
+    private void append(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            append(value.charAt(i));
+        }
+    }
+
+    private void append(char[] chars, int start, int length) {
+        if (textLength + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+        }
+        System.arraycopy(chars, start, text, textLength, length);
+        textLength += length;
+    }
+
+    private void push(int type, String name) {
+        if (++depth == types.length) {
+            types = Arrays.copyOf(types, depth * 2);
+            names = Arrays.copyOf(names, depth * 2);
+            counts = Arrays.copyOf(counts, depth * 2);
+        }
+        types[depth] = type;
+        names[depth] = name;
+        counts[depth] = 0;
+    }
+
+    /** Gets the next character which is not whitespace, without consuming it. */
+    private int peek() throws XMLStreamException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[position];
+            if (c == '\n') {
+                line++;
+                lineStart = consumed + position + 1;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+            position++;
+        }
+    }
+
+    /** Consumes the next character which is not whitespace. */
+    private int read() throws XMLStreamException {
+        int c = peek();
+        if (c < 0) {
+            throw error("Unexpected end of the JSON document");
+        }
+        position++;
+        return c;
+    }
+
+    private int peekChar() throws XMLStreamException {
+        return position == limit && !fill() ? -1 : buffer[position];
+    }
+
+    private char nextChar() throws XMLStreamException {
+        if (position == limit && !fill()) {
+            throw error("Unexpected end of the JSON document");
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws XMLStreamException {
+        try {
+            consumed += limit;
+            position = 0;
+            limit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+            return limit > 0;
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    private XMLStreamException error(String message) {
+        return new XMLStreamException(message, this);
+    }
+
+    public boolean hasNext() {
+        return eventType != END_DOCUMENT;
+    }
+
+    public int nextTag() throws XMLStreamException {
+        int event = next();
+        while (event == CHARACTERS && isWhiteSpace()) {
+            event = next();
+        }
+        if (event != START_ELEMENT && event != END_ELEMENT) {
+            throw error("Expected an element");
+        }
+        return event;
+    }
+
+    public String getElementText() throws XMLStreamException {
+        if (eventType != START_ELEMENT) {
+            throw error("Not at the start of an element");
+        }
+        StringBuilder content = new StringBuilder();
+        while (next() == CHARACTERS) {
+            content.append(text, 0, textLength);
+        }
+        if (eventType != END_ELEMENT) {
+            throw error("Element " + localName + " holds elements");
+        }
+        return content.toString();
+    }
+
+    public void require(int type, String namespaceURI, String localName) throws XMLStreamException {
+        if (type != eventType || (namespaceURI != null && !namespaceURI.equals(getNamespaceURI()))
+                || (localName != null && !localName.equals(getLocalName()))) {
+            throw error("Unexpected event");
+        }
+    }
+
+    public void close() throws XMLStreamException {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    public int getEventType() {
+        return eventType;
+    }
+
+    public boolean isStartElement() {
+        return eventType == START_ELEMENT;
+    }
+
+    public boolean isEndElement() {
+        return eventType == END_ELEMENT;
+    }
+
+    public boolean isCharacters() {
+        return eventType == CHARACTERS;
+    }
+
+    public boolean isWhiteSpace() {
+        if (eventType != CHARACTERS) {
+            return false;
+        }
+        for (int i = 0; i < textLength; i++) {
+            if (!Character.isWhitespace(text[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean hasName() {
+        return eventType == START_ELEMENT || eventType == END_ELEMENT;
+    }
+
+    public QName getName() {
+        return new QName(JsonConvention.M2M_NAMESPACE, localName, JsonConvention.PREFIXES[0]);
+    }
+
+    public String getLocalName() {
+        return localName;
+    }
+
+    public String getNamespaceURI() {
+        return hasName() ? JsonConvention.M2M_NAMESPACE : null;
+    }
+
+    public String getPrefix() {
+        return hasName() ? JsonConvention.PREFIXES[0] : null;
+    }
+
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+
+    public QName getAttributeName(int index) {
+        return new QName(attributeNamespaces[index], attributeNames[index], attributePrefixes[index]);
+    }
+
+    public String getAttributeNamespace(int index) {
+        return attributeNamespaces[index];
+    }
+
+    public String getAttributeLocalName(int index) {
+        return attributeNames[index];
+    }
+
+    public String getAttributePrefix(int index) {
+        return attributePrefixes[index];
+    }
+
+    public String getAttributeType(int index) {
+        return "CDATA";
+    }
+
+    public String getAttributeValue(int index) {
+        return attributeValues[index];
+    }
+
+    public String getAttributeValue(String namespaceURI, String localName) {
+        for (int i = 0; i < attributeCount; i++) {
+            if (attributeNames[i].equals(localName) && (namespaceURI == null || namespaceURI.equals(attributeNamespaces[i]))) {
+                return attributeValues[i];
+            }
+        }
+        return null;
+    }
+
+    public boolean isAttributeSpecified(int index) {
+        return true;
+    }
+
+    /** The namespaces of the convention are declared on the root element. */
+    public int getNamespaceCount() {
+        return hasName() && eventDepth == 1 ? JsonConvention.NAMESPACES.length : 0;
+    }
+
+    public String getNamespacePrefix(int index) {
+        return JsonConvention.PREFIXES[index];
+    }
+
+    public String getNamespaceURI(int index) {
+        return JsonConvention.NAMESPACES[index];
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        return this;
+    }
+
+    public String getNamespaceURI(String prefix) {
+        for (int i = 0; i < JsonConvention.PREFIXES.length; i++) {
+            if (JsonConvention.PREFIXES[i].equals(prefix)) {
+                return JsonConvention.NAMESPACES[i];
+            }
+        }
+        return XMLConstants.NULL_NS_URI.equals(prefix) ? XMLConstants.NULL_NS_URI : null;
+    }
+
+    public String getPrefix(String namespaceURI) {
+        for (int i = 0; i < JsonConvention.NAMESPACES.length; i++) {
+            if (JsonConvention.NAMESPACES[i].equals(namespaceURI)) {
+                return JsonConvention.PREFIXES[i];
+            }
+        }
+        return XMLConstants.DEFAULT_NS_PREFIX;
+    }
+
+    public Iterator<String> getPrefixes(String namespaceURI) {
+        return Collections.singletonList(getPrefix(namespaceURI)).iterator();
+    }
+
+    public boolean hasText() {
+        return eventType == CHARACTERS;
+    }
+
+    public String getText() {
+        return new String(text, 0, textLength);
+    }
+
+    public char[] getTextCharacters() {
+        return text;
+    }
+
+    public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) {
+        int count = Math.max(Math.min(length, textLength - sourceStart), 0);
+        System.arraycopy(text, sourceStart, target, targetStart, count);
+        return count;
+    }
+
+    public int getTextStart() {
+        return 0;
+    }
+
+    public int getTextLength() {
+        return textLength;
+    }
+
+    public Location getLocation() {
+        return this;
+    }
+
+    public int getLineNumber() {
+        return line;
+    }
+
+    public int getColumnNumber() {
+        return consumed + position - lineStart + 1;
+    }
+
+    public int getCharacterOffset() {
+        return consumed + position;
+    }
+
+    public String getPublicId() {
+        return null;
+    }
+
+    public String getSystemId() {
+        return null;
+    }
+
+    public Object getProperty(String name) {
+        return null;
+    }
+
+    public String getEncoding() {
+        return null;
+    }
+
+    public String getVersion() {
+        return null;
+    }
+
+    public boolean isStandalone() {
+        return false;
+    }
+
+    public boolean standaloneSet() {
+        return false;
+    }
+
+    public String getCharacterEncodingScheme() {
+        return null;
+    }
+
+    public String getPITarget() {
+        return null;
+    }
+
+    public String getPIData() {
+        return null;
+    }
+}
@@ -0,0 +1,411 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes the JSON representation of the XML events it receives, following the {@link JsonConvention}.
+ * Marshalling a resource to it writes the JSON representation as the resource is traversed, without
+ * building the XML document or a JSON tree first. Only the text of the element being written is
+ * held until the element ends, and the output is handed to the underlying writer in blocks.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.com ></li>
+ *         </ul>
+ */
+class JsonStreamWriter implements XMLStreamWriter {
+    /** Element whose value is not started yet */
+    private static final int PENDING = 0;
+    /** Element written as an object */
+    private static final int OBJECT = 1;
+
+    /** Element being written */
+    private static final class Frame {
+        private String name;
+        private int state;
+        /** True until a member is written in the object */
+        private boolean empty;
+        /** Name of the array of elements open in the object, null if none */
+        private String array;
+        private final StringBuilder text = new StringBuilder();
+
+        private void reset(String name, int state) {
+            this.name = name;
+            this.state = state;
+            this.empty = true;
+            this.array = null;
+            this.text.setLength(0);
+        }
+    }
+
+    private final Writer writer;
+    private final JsonConvention convention;
+    /** Output not handed to the writer yet */
+    private final char[] output = new char[1024];
+    private int outputLength;
+    /** Characters of the string being written */
+    private char[] chars = new char[256];
+    /** Elements being written, the document object first */
+    private Frame[] frames = new Frame[16];
+    private int depth = -1;
+
+    /**
+     * Creates a writer.
+     * @param writer - writer of the JSON representation
+     * @param convention - mapping of the XML representation to JSON
+     */
+    JsonStreamWriter(Writer writer, JsonConvention convention) {
+        this.writer = writer;
+        this.convention = convention;
+    }
+
+    public void writeStartDocument() throws XMLStreamException {
+        if (depth < 0) {
+            push(null, OBJECT);
+            write('{');
+        }
+    }
+
+    public void writeStartDocument(String version) throws XMLStreamException {
+        writeStartDocument();
+    }
+
+    public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+        writeStartDocument();
+    }
+
+    public void writeEndDocument() throws XMLStreamException {
+        while (depth > 0) {
+            writeEndElement();
+        }
+        if (depth == 0) {
+            closeArray(frames[0]);
+            write('}');
+            depth--;
+        }
+        flush();
+    }
+
+    public void writeStartElement(String localName) throws XMLStreamException {
+        writeStartDocument();
+        Frame parent = frames[depth];
+        startObject(parent);
+        writeText(parent);
+        if (localName.equals(parent.array)) {
+            write(',');
+        } else {
+            closeArray(parent);
+            member(parent, localName);
+            // A representation holds a single root element
+            if (depth > 0 && convention.isArray(localName)) {
+                write('[');
+                parent.array = localName;
+            }
+        }
+        push(localName, PENDING);
+    }
+
+    public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+        writeStartElement(localName);
+    }
+
+    public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        writeStartElement(localName);
+    }
+
+    public void writeEmptyElement(String localName) throws XMLStreamException {
+        writeStartElement(localName);
+        writeEndElement();
+    }
+
+    public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+        writeEmptyElement(localName);
+    }
+
+    public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        writeEmptyElement(localName);
+    }
+
+    public void writeEndElement() throws XMLStreamException {
+        if (depth <= 0) {
+            throw new XMLStreamException("No element to end");
+        }
+        Frame frame = frames[depth--];
+        if (frame.state == PENDING) {
+            string(frame.text);
+        } else {
+            writeText(frame);
+            closeArray(frame);
+            write('}');
+        }
+    }
+
+    public void writeAttribute(String localName, String value) throws XMLStreamException {
+        writeAttribute(XMLConstants.NULL_NS_URI, localName, value);
+    }
+
+    public void writeAttribute(String prefix, String namespaceURI, String localName, String value) throws XMLStreamException {
+        writeAttribute(namespaceURI, localName, value);
+    }
+
+    public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+        if (depth <= 0) {
+            throw new XMLStreamException("No element to add the attribute " + localName + " to");
+        }
+        Frame frame = frames[depth];
+        startObject(frame);
+        if (XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(namespaceURI)) {
+            member(frame, JsonConvention.XSI_ATTRIBUTE + localName);
+        } else {
+            member(frame, JsonConvention.ATTRIBUTE + localName);
+        }
+        string(value);
+    }
+
+    public void writeNamespace(String prefix, String namespaceURI) {
+        // Namespaces are implied by the convention
+    }
+
+    public void writeDefaultNamespace(String namespaceURI) {
+        // Namespaces are implied by the convention
+    }
+
+    public void writeCharacters(String text) {
+        if (depth > 0) {
+            frames[depth].text.append(text);
+        }
+    }
+
+    public void writeCharacters(char[] text, int start, int len) {
+        if (depth > 0) {
+            frames[depth].text.append(text, start, len);
+        }
+    }
+
+    public void writeCData(String data) {
+        writeCharacters(data);
+    }
+
+    public void writeComment(String data) {
+        // Not represented in JSON
+    }
+
+    public void writeProcessingInstruction(String target) {
+        // Not represented in JSON
+    }
+
+    public void writeProcessingInstruction(String target, String data) {
+        // Not represented in JSON
+    }
+
+    public void writeDTD(String dtd) {
+        // Not represented in JSON
+    }
+
+    public void writeEntityRef(String name) {
+        // Not represented in JSON
+    }
+
+    public String getPrefix(String uri) {
+        for (int i = 0; i < JsonConvention.NAMESPACES.length; i++) {
+            if (JsonConvention.NAMESPACES[i].equals(uri)) {
+                return JsonConvention.PREFIXES[i];
+            }
+        }
+        return null;
+    }
+
+    public void setPrefix(String prefix, String uri) {
+        // Namespaces are implied by the convention
+    }
+
+    public void setDefaultNamespace(String uri) {
+        // Namespaces are implied by the convention
+    }
+
+    public void setNamespaceContext(NamespaceContext context) {
+        // Namespaces are implied by the convention
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        return null;
+    }
+
+    public Object getProperty(String name) {
+        throw new IllegalArgumentException(name);
+    }
+
+    public void flush() throws XMLStreamException {
+        writeOutput();
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    public void close() throws XMLStreamException {
+        flush();
+    }
+
+    private void push(String name, int state) {
+        if (++depth == frames.length) {
+            Frame[] grown = new Frame[frames.length * 2];
+            System.arraycopy(frames, 0, grown, 0, frames.length);
+            frames = grown;
+        }
+        if (frames[depth] == null) {
+            frames[depth] = new Frame();
+        }
+        frames[depth].reset(name, state);
+    }
+
+    /** Writes an element not started yet as an object. */
+    private void startObject(Frame frame) throws XMLStreamException {
+        if (frame.state == PENDING) {
+            write('{');
+            frame.state = OBJECT;
+        }
+    }
+
+    /** Writes the text held by an object element as its text member, unless whitespace between elements. */
+    private void writeText(Frame frame) throws XMLStreamException {
+        if (frame.text.length() > 0) {
+            if (!isWhitespace(frame.text)) {
+                closeArray(frame);
+                member(frame, JsonConvention.TEXT);
+                string(frame.text);
+            }
+            frame.text.setLength(0);
+        }
+    }
+
+    private void closeArray(Frame frame) throws XMLStreamException {
+        if (frame.array != null) {
+            write(']');
+            frame.array = null;
+        }
+    }
+
+    /** Writes the name of the next member of an object. */
+    private void member(Frame frame, String name) throws XMLStreamException {
+        if (!frame.empty) {
+            write(',');
+        }
+        frame.empty = false;
+        string(name);
+        write(':');
+    }
+
+    private void string(String value) throws XMLStreamException {
+        int length = value.length();
+        value.getChars(0, length, chars(length), 0);
+        string(length);
+    }
+
+    private void string(StringBuilder value) throws XMLStreamException {
+        int length = value.length();
+        value.getChars(0, length, chars(length), 0);
+        string(length);
+    }
+
+    /** Gets the buffer of the string being written. */
+    private char[] chars(int length) {
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        return chars;
+    }
+
+    /** Writes the string held by the first characters of the buffer, escaped. */
+    private void string(int length) throws XMLStreamException {
+        write('"');
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c < 0x20 || c == '"' || c == '\\' || c == '\u2028' || c == '\u2029') {
+                write(chars, start, i - start);
+                write('\\');
+                switch (c) {
+                case '"': write('"'); break;
+                case '\\': write('\\'); break;
+                case '\n': write('n'); break;
+                case '\r': write('r'); break;
+                case '\t': write('t'); break;
+                default:
+                    String code = String.format("u%04x", (int) c);
+                    write(code.toCharArray(), 0, code.length());
+                }
+                start = i + 1;
+            }
+        }
+        write(chars, start, length - start);
+        write('"');
+    }
+
+    private void write(char c) throws XMLStreamException {
+        if (outputLength == output.length) {
+            writeOutput();
+        }
+        output[outputLength++] = c;
+    }
+
+    private void write(char[] text, int start, int length) throws XMLStreamException {
+        if (outputLength + length > output.length) {
+            writeOutput();
+            if (length > output.length) {
+                try {
+                    writer.write(text, start, length);
+                } catch (IOException e) {
+                    throw new XMLStreamException(e);
+                }
+                return;
+            }
+        }
+        System.arraycopy(text, start, output, outputLength, length);
+        outputLength += length;
+    }
+
+    /** Hands the output to the writer. */
+    private void writeOutput() throws XMLStreamException {
+        try {
+            writer.write(output, 0, outputLength);
+            outputLength = 0;
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    private static boolean isWhitespace(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
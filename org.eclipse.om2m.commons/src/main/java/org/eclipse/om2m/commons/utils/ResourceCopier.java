@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.w3c.dom.Node;
+
+/**
+ * Deep copies resources field by field. Immutable values and objects the copier does not know how
+ * to instantiate are shared with the copy. Used by the storage engines and by the requests and
+ * responses passing resource objects within the JVM.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public final class ResourceCopier {
+    /** Copyable fields per class, null entries mark classes that are shared */
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<Class<?>, Field[]>();
+    /** Marks shared classes in {@link #FIELDS} */
+    private static final Field[] SHARED = new Field[0];
+
+    private ResourceCopier() {
+    }
+
+    /**
+     * Returns a deep copy of an object.
+     * @param object - object to copy
+     * @return copy of the object
+     */
+    public static <T> T copy(T object) {
+        return copy(object, new IdentityHashMap<Object, Object>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T object, Map<Object, Object> copies) {
+        if (object == null || isImmutable(object)) {
+            return object;
+        }
+        Object copy = copies.get(object);
+        if (copy != null) {
+            return (T) copy;
+        }
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            int length = Array.getLength(object);
+            copy = Array.newInstance(type.getComponentType(), length);
+            copies.put(object, copy);
+            if (type.getComponentType().isPrimitive()) {
+                System.arraycopy(object, 0, copy, 0, length);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    Array.set(copy, i, copy(Array.get(object, i), copies));
+                }
+            }
+        } else if (object instanceof Collection) {
+            Collection<Object> collection = (Collection<Object>) newInstance(type);
+            if (collection == null) {
+                collection = new ArrayList<Object>();
+            }
+            copies.put(object, collection);
+            for (Object element : (Collection<Object>) object) {
+                collection.add(copy(element, copies));
+            }
+            copy = collection;
+        } else if (object instanceof Map) {
+            Map<Object, Object> map = (Map<Object, Object>) newInstance(type);
+            if (map == null) {
+                map = new LinkedHashMap<Object, Object>();
+            }
+            copies.put(object, map);
+            for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) object).entrySet()) {
+                map.put(copy(entry.getKey(), copies), copy(entry.getValue(), copies));
+            }
+            copy = map;
+        } else if (object instanceof Node) {
+            copy = ((Node) object).cloneNode(true);
+        } else if (object instanceof XMLGregorianCalendar) {
+            copy = ((XMLGregorianCalendar) object).clone();
+        } else {
+            Field[] fields = fields(type);
+            if (fields == SHARED) {
+                return object;
+            }
+            copy = newInstance(type);
+            copies.put(object, copy);
+            try {
+                for (Field field : fields) {
+                    field.set(copy, copy(field.get(object), copies));
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot copy " + type.getName(), e);
+            }
+        }
+        return (T) copy;
+    }
+
+    /**
+     * Estimates the heap size of an object with the objects it references.
+     * @param object - object to weigh
+     * @return estimated size in bytes
+     */
+    public static long weigh(Object object) {
+        return weigh(object, new IdentityHashMap<Object, Object>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long weigh(Object object, Map<Object, Object> weighed) {
+        if (object == null || weighed.put(object, object) != null) {
+            return 0;
+        }
+        if (object instanceof String) {
+            return 40 + 2 * ((String) object).length();
+        }
+        if (isImmutable(object) || object instanceof Node || object instanceof XMLGregorianCalendar) {
+            return 32;
+        }
+        Class<?> type = object.getClass();
+        long weight = 16;
+        if (type.isArray()) {
+            int length = Array.getLength(object);
+            if (type.getComponentType() == byte.class) {
+                return weight + length;
+            }
+            if (type.getComponentType().isPrimitive()) {
+                return weight + (long) length * 8;
+            }
+            for (int i = 0; i < length; i++) {
+                weight += 8 + weigh(Array.get(object, i), weighed);
+            }
+        } else if (object instanceof Collection) {
+            for (Object element : (Collection<Object>) object) {
+                weight += 24 + weigh(element, weighed);
+            }
+        } else if (object instanceof Map) {
+            for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) object).entrySet()) {
+                weight += 32 + weigh(entry.getKey(), weighed) + weigh(entry.getValue(), weighed);
+            }
+        } else {
+            Field[] fields = fields(type);
+            try {
+                for (Field field : fields) {
+                    weight += 8 + weigh(field.get(object), weighed);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot weigh " + type.getName(), e);
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Checks whether an object can be shared between a resource and its copy.
+     */
+    private static boolean isImmutable(Object object) {
+        return object instanceof String || object instanceof Number || object instanceof Boolean
+                || object instanceof Character || object instanceof Enum || object instanceof Class
+                || object instanceof javax.xml.datatype.Duration;
+    }
+
+    /**
+     * Returns the instance fields of a class and its superclasses, or {@link #SHARED} when the
+     * class cannot be instantiated by the copier.
+     */
+    private static Field[] fields(Class<?> type) {
+        Field[] fields = FIELDS.get(type);
+        if (fields == null) {
+            if (type.getName().startsWith("java.") || newInstance(type) == null) {
+                fields = SHARED;
+            } else {
+                ArrayList<Field> list = new ArrayList<Field>();
+                for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                    for (Field field : c.getDeclaredFields()) {
+                        if (!Modifier.isStatic(field.getModifiers())) {
+                            field.setAccessible(true);
+                            list.add(field);
+                        }
+                    }
+                }
+                fields = list.toArray(new Field[list.size()]);
+            }
+            FIELDS.put(type, fields);
+        }
+        return fields;
+    }
+
+    /**
+     * Instantiates a class through its no-argument constructor.
+     * @return the new instance, or null if the class has no usable constructor
+     */
+    private static Object newInstance(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (Exception e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -20,18 +20,28 @@
 package org.eclipse.om2m.commons.utils;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.xml.sax.SAXException;
 /**
  * Converts resource XML representation to resource Java Object and vice versa.
+ * Marshallers and unmarshallers are not thread safe and costly to create, so each thread keeps its
+ * own and reuses it for every conversion.
  *
  * @author <ul>
  *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
@@ -41,12 +51,46 @@ import org.apache.commons.logging.LogFactory;
 public class XmlMapper {
     /** XmlMapper Logger */
     private static Log LOGGER = LogFactory.getLog(XmlMapper.class);
+    /** Indents the XML representations when true, writes them on a single line otherwise */
+    private static final boolean FORMATTED_OUTPUT = Boolean.parseBoolean(System.getProperty("org.eclipse.om2m.xmlFormattedOutput", "true"));
+    /** Initial size of the per thread marshalling buffer */
+    private static final int BUFFER_SIZE = 1024;
+    /** Largest per thread marshalling buffer kept between two conversions */
+    private static final int MAX_BUFFER_SIZE = 64 * 1024;
     /** XmlMapper Singleton */
     private static XmlMapper xmlMapper = new XmlMapper();
     /** Entry point to the JAXB API*/
     private JAXBContext ctx;
     /** Resource package name used for JAXBContext instantiation*/
     private String resourcePackage = "org.eclipse.om2m.commons.resource";
+    /** Marshaller of the current thread */
+    private final ThreadLocal<Marshaller> marshallers = new ThreadLocal<Marshaller>() {
+        @Override
+        protected Marshaller initialValue() {
+            try {
+                Marshaller marshaller = ctx.createMarshaller();
+                marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, FORMATTED_OUTPUT);
+                return marshaller;
+            } catch (JAXBException e) {
+                LOGGER.error("Create JAXB marshaller error!", e);
+                return null;
+            }
+        }
+    };
+    /** Unmarshaller of the current thread */
+    private final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<Unmarshaller>() {
+        @Override
+        protected Unmarshaller initialValue() {
+            try {
+                return ctx.createUnmarshaller();
+            } catch (JAXBException e) {
+                LOGGER.error("Create JAXB unmarshaller error!", e);
+                return null;
+            }
+        }
+    };
+    /** Marshalling buffer of the current thread, used to build the String representations */
+    private final ThreadLocal<Buffer> buffers = new ThreadLocal<Buffer>();
 
     /** Constructor.
      * Creates new Instance of JAXBContext based on package.
@@ -64,25 +108,69 @@ public class XmlMapper {
         return xmlMapper;
     }
 
+    /** Gets the JAXB context of the resource package, shared with the {@link JsonMapper}. */
+    JAXBContext getContext() {
+        return ctx;
+    }
+
     /**
      * Converts a resource Java object into resource XML representation.
      * @param object - resource Java object
      * @return resource XML representation
      */
     public String objectToXml(Object object) {
+        Buffer buffer = buffer();
         try {
-            Marshaller marshaller = ctx.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            OutputStream outputStream = new ByteArrayOutputStream();
-            marshaller.marshal(object, outputStream);
+            marshallers.get().marshal(object, buffer);
+            return buffer.toString("UTF-8");
+        } catch (JAXBException e) {
+            LOGGER.error("JAXB marshalling error!", e);
+        } catch (UnsupportedEncodingException e) {
+            LOGGER.error("JAXB marshalling error!", e);
+        } finally {
+            release(buffer);
+        }
+        return null;
+    }
 
-            return outputStream.toString();
+    /**
+     * Converts a resource Java object into resource XML representation encoded in UTF-8.
+     * @param object - resource Java object
+     * @return buffer holding the resource XML representation
+     */
+    public ByteBuffer marshal(Object object) {
+        Buffer buffer = buffer();
+        try {
+            marshallers.get().marshal(object, buffer);
+            return ByteBuffer.wrap(buffer.toByteArray());
         } catch (JAXBException e) {
             LOGGER.error("JAXB marshalling error!", e);
+        } finally {
+            release(buffer);
         }
         return null;
     }
 
+    /**
+     * Writes the resource XML representation of a resource Java object, encoded in UTF-8, without
+     * building it in memory first.
+     * @param object - resource Java object
+     * @param outputStream - stream to write the representation to
+     * @throws IOException if the stream cannot be written or the object cannot be marshalled, part
+     * of the representation being possibly written already
+     */
+    public void marshal(Object object, OutputStream outputStream) throws IOException {
+        try {
+            marshallers.get().marshal(object, outputStream);
+        } catch (JAXBException e) {
+            if (e.getLinkedException() instanceof IOException) {
+                throw (IOException) e.getLinkedException();
+            }
+            LOGGER.error("JAXB marshalling error!", e);
+            throw new IOException("JAXB marshalling error", e);
+        }
+    }
+
     /**
      * Converts a resource XML representation data into resource Java object.
      * @param representation - resource XML representation
@@ -90,13 +178,140 @@ public class XmlMapper {
      */
 
     public Object xmlToObject(String representation) {
-        StringReader stringReader = new StringReader(representation);
+        return unmarshal(new StreamSource(new StringReader(representation)));
+    }
+
+    /**
+     * Converts a resource XML representation data into resource Java object, validating it against
+     * an xsd file in the same parse.
+     * @param representation - resource XML representation
+     * @param xsd - xsd file of the resource representation
+     * @return resource Java object
+     * @throws SAXException if the representation is not well-formed or not valid
+     */
+    public Object xmlToObject(String representation, String xsd) throws SAXException {
+        return unmarshal(new StreamSource(new StringReader(representation)), xsd);
+    }
+
+    /**
+     * Reads a resource Java object from a stream holding its resource XML representation.
+     * @param inputStream - stream holding the resource XML representation
+     * @return resource Java object
+     */
+    public Object unmarshal(InputStream inputStream) {
+        return unmarshal(new StreamSource(inputStream));
+    }
+
+    /**
+     * Reads a resource Java object from a stream holding its resource XML representation, validating
+     * it against an xsd file in the same parse.
+     * @param inputStream - stream holding the resource XML representation
+     * @param xsd - xsd file of the resource representation
+     * @return resource Java object
+     * @throws SAXException if the representation is not well-formed or not valid
+     */
+    public Object unmarshal(InputStream inputStream, String xsd) throws SAXException {
+        return unmarshal(new StreamSource(inputStream), xsd);
+    }
+
+    /**
+     * Reads a resource Java object from a buffer holding its resource XML representation.
+     * @param buffer - buffer holding the resource XML representation
+     * @return resource Java object
+     */
+    public Object unmarshal(ByteBuffer buffer) {
+        return unmarshal(new StreamSource(new ByteBufferInputStream(buffer)));
+    }
+
+    private Object unmarshal(Source source) {
         try {
-            Unmarshaller unmarshaller = ctx.createUnmarshaller();
-            return unmarshaller.unmarshal(stringReader);
+            Unmarshaller unmarshaller = unmarshallers.get();
+            unmarshaller.setSchema(null);
+            return unmarshaller.unmarshal(source);
         } catch (JAXBException e) {
             LOGGER.error("JAXB unmarshalling error!", e);
         }
         return null;
     }
+
+    private Object unmarshal(Source source, String xsd) throws SAXException {
+        try {
+            Unmarshaller unmarshaller = unmarshallers.get();
+            unmarshaller.setSchema(XmlValidator.getInstance().getSchema(xsd));
+            return unmarshaller.unmarshal(source);
+        } catch (UnmarshalException e) {
+            // Parsing and validation errors are reported by the parser
+            if (e.getLinkedException() instanceof SAXException) {
+                throw (SAXException) e.getLinkedException();
+            }
+            throw new SAXException(e.getMessage(), e);
+        } catch (JAXBException e) {
+            LOGGER.error("JAXB unmarshalling error!", e);
+        }
+        return null;
+    }
+
+    /**
+     * Takes the marshalling buffer of the current thread. A nested conversion finding it taken
+     * gets a buffer of its own.
+     */
+    private Buffer buffer() {
+        Buffer buffer = buffers.get();
+        if (buffer == null) {
+            return new Buffer();
+        }
+        buffers.remove();
+        return buffer;
+    }
+
+    /** Gives the marshalling buffer back to the current thread, unless it has grown too large. */
+    private void release(Buffer buffer) {
+        if (buffer.capacity() <= MAX_BUFFER_SIZE) {
+            buffer.reset();
+            buffers.set(buffer);
+        }
+    }
+
+    /** Reusable output buffer. */
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(BUFFER_SIZE);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+
+    /** Reads the remaining bytes of a buffer without copying them. */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
 }
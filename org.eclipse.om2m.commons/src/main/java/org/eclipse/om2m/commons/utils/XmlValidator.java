@@ -21,6 +21,7 @@ package org.eclipse.om2m.commons.utils;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,6 +33,7 @@ import javax.xml.validation.Validator;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
 import org.xml.sax.SAXException;
 
@@ -46,6 +48,26 @@ import org.xml.sax.SAXException;
 public class XmlValidator {
     /** XmlValidator Logger */
     private static Log LOGGER = LogFactory.getLog(XmlValidator.class);
+    /**
+     * XSD files of the resource representations, the files they include are loaded with them.
+     * locationContainer.xsd, contentInstances.xsd, mgmtObj.xsd and parameters.xsd use XSD 1.1
+     * content models that the XSD 1.0 schema factory rejects, they are left out.
+     */
+    private static final String[] XSD_FILES = {
+        "sclBase.xsd", "scls.xsd", "scl.xsd",
+        "accessRights.xsd", "accessRight.xsd", "accessRightAnnc.xsd",
+        "applications.xsd", "application.xsd", "applicationAnnc.xsd",
+        "containers.xsd", "container.xsd", "containerAnnc.xsd", "locationContainerAnnc.xsd",
+        "contentInstance.xsd",
+        "subscriptions.xsd", "subscription.xsd",
+        "groups.xsd", "group.xsd", "groupAnnc.xsd", "membersContent.xsd",
+        "notificationChannels.xsd", "notificationChannel.xsd",
+        "m2mPocs.xsd", "m2mPoc.xsd",
+        "attachedDevices.xsd", "attachedDevice.xsd",
+        "mgmtObjs.xsd", "mgmtCmd.xsd",
+        "execInstances.xsd", "execInstance.xsd",
+        "discovery.xsd", "notify.xsd", "responseNotify.xsd", "errorInfo.xsd", "connectionParamSet.xsd"
+    };
     /** XmlValidator Singleton */
     private static XmlValidator xmlValidator = new XmlValidator();
     /** Provides a factory API that enables applications to configure and obtain a SAX based parser to parse XML documents.*/
@@ -69,29 +91,35 @@ public class XmlValidator {
         SchemaFactory schemaFactory = SchemaFactory.newInstance("http://www.w3.org/2001/XMLSchema");
 
         // Create all required schemas based on xsd files when starting and add them to the schemas map to enhance response time performance.
-        try {
-            schemas.put("sclBase.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/sclBase.xsd")));
-            schemas.put("accessRights.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/accessRights.xsd")));
-            schemas.put("accessRight.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/accessRight.xsd")));
-            schemas.put("accessRightAnnc.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/accessRightAnnc.xsd")));
-            schemas.put("scls.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/scls.xsd")));
-            schemas.put("scl.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/scl.xsd")));
-            schemas.put("applications.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/applications.xsd")));
-            schemas.put("application.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/application.xsd")));
-            schemas.put("applicationAnnc.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/applicationAnnc.xsd")));
-            schemas.put("containers.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/containers.xsd")));
-            schemas.put("container.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/container.xsd")));
-            schemas.put("containerAnnc.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/containerAnnc.xsd")));
-            schemas.put("contentInstance.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/contentInstance.xsd")));
-            schemas.put("subscription.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/subscription.xsd")));
-            schemas.put("groups.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/groups.xsd")));
-            schemas.put("group.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/group.xsd")));
-            schemas.put("groupAnnc.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/groupAnnc.xsd")));
-            schemas.put("attachedDevices.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/attachedDevices.xsd")));
-            schemas.put("mgmtObjs.xsd", schemaFactory.newSchema(FrameworkUtil.getBundle(XmlValidator.class).getResource(xsdPath+"/mgmtObjs.xsd")));
-        } catch (SAXException e) {
-            LOGGER.error("Error reading XSD shemas", e);
+        for (String xsd : XSD_FILES) {
+            try {
+                schemas.put(xsd, schemaFactory.newSchema(getResource(xsdPath+"/"+xsd)));
+            } catch (SAXException e) {
+                LOGGER.error("Error reading XSD shema " + xsd, e);
+            }
+        }
+    }
+
+    /**
+     * Gets a resource xsd file from the bundle, or from the class path outside the OSGi framework.
+     */
+    private static URL getResource(String path) {
+        Bundle bundle = FrameworkUtil.getBundle(XmlValidator.class);
+        return bundle != null ? bundle.getResource(path) : XmlValidator.class.getClassLoader().getResource(path);
+    }
+
+    /**
+     * Gets the schema of an xsd file.
+     * @param xsd - xsd file
+     * @return the schema, shared by the threads
+     * @throws IllegalArgumentException if the xsd file is not a resource representation xsd file
+     */
+    public Schema getSchema(String xsd) {
+        Schema schema = schemas.get(xsd);
+        if (schema == null) {
+            throw new IllegalArgumentException("XSD not found: " + xsd);
         }
+        return schema;
     }
 
     /**
@@ -102,7 +130,7 @@ public class XmlValidator {
      * @throws IOException
      */
     public void validate(String representaion, String xsd) throws SAXException, IOException{
-            Validator validator = schemas.get(xsd).newValidator();
+            Validator validator = getSchema(xsd).newValidator();
             validator.validate(new StreamSource(new StringReader(representaion)));
     }
 
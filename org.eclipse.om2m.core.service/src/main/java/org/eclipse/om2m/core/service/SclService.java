@@ -19,6 +19,8 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.service;
 
+import java.util.concurrent.Future;
+
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 
@@ -36,4 +38,12 @@ public interface SclService {
      * @return ResponseConfirm
      */
     public ResponseConfirm doRequest(RequestIndication requestIndication);
+
+    /**
+     * Sends a RequestIndication object to the SCL without waiting for its handling. The request
+     * is handled by the SCL worker threads, the returned Future gives the ResponseConfirm object.
+     * @param requestIndication
+     * @return Future of the ResponseConfirm
+     */
+    public Future<ResponseConfirm> doRequestAsync(RequestIndication requestIndication);
 }
@@ -35,7 +35,6 @@ import org.eclipse.om2m.commons.resource.PermissionFlagType;
 import org.eclipse.om2m.commons.resource.PermissionHolderType;
 import org.eclipse.om2m.commons.resource.PermissionListType;
 import org.eclipse.om2m.commons.resource.PermissionType;
-import org.eclipse.om2m.commons.resource.Resource;
 import org.eclipse.om2m.commons.resource.Scl;
 import org.eclipse.om2m.commons.resource.SclBase;
 import org.eclipse.om2m.commons.resource.SearchStrings;
@@ -48,11 +47,15 @@ import org.eclipse.om2m.commons.utils.XmlValidator;
 import org.eclipse.om2m.core.comm.RestClient;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.controller.InterworkingProxyController;
+import org.eclipse.om2m.core.dao.CollectionCounters;
+import org.eclipse.om2m.core.dao.CommitCoordinator;
 import org.eclipse.om2m.core.dao.DAO;
 import org.eclipse.om2m.core.dao.DAOFactory;
-import org.eclipse.om2m.core.dao.DBClientConnection;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.eclipse.om2m.core.replication.ReplicationManager;
+import org.eclipse.om2m.core.retention.RetentionEngine;
 import org.eclipse.om2m.core.router.Router;
+import org.eclipse.om2m.core.router.SubtreeLockManager;
 import org.eclipse.om2m.core.service.SclService;
 import org.eclipse.om2m.ipu.service.IpuService;
 import org.osgi.framework.BundleActivator;
@@ -60,9 +63,6 @@ import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
 import org.osgi.util.tracker.ServiceTracker;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-
 /**
  *  Manages the starting and stopping of the bundle.
  *  @author <ul>
@@ -140,6 +140,14 @@ public class Activator implements BundleActivator {
     }
 
     public void stop(BundleContext bundleContext) throws Exception {
+        // Store exact collection aggregates, so that the next start reads them instead of counting
+        if(Constants.DB_WAL.isEmpty() || ReplicationManager.getInstance().isWritable()){
+            CollectionCounters counters = CollectionCounters.getInstance();
+            counters.loadAll();
+            CommitCoordinator.getInstance().commit();
+            CommitCoordinator.getInstance().flush();
+            counters.close();
+        }
     }
 
     /**
@@ -147,8 +155,15 @@ public class Activator implements BundleActivator {
      * and send scl registration request if it is not a NSCL.
      */
     public static void initScl() {
+            // A hot standby keeps the database of the leader SCL until it takes over
+            boolean standby = false;
+            if(!Constants.DB_WAL.isEmpty()){
+                DAOFactory.getStorageEngine();
+                standby = !ReplicationManager.getInstance().isWritable();
+            }
+
             // Init SCL if reset = true
-            if(Constants.RESET){
+            if(Constants.RESET && !standby){
                 // Clear SCL DataBase
                 LOGGER.info("Clear SCL DataBase");
                 clearDB();
@@ -170,11 +185,29 @@ public class Activator implements BundleActivator {
             LOGGER.info("Init XmlValidator");
             XmlValidator.getInstance();
 
+            if(standby){
+                LOGGER.info("Follow the leader SCL as hot standby");
+                ReplicationManager.getInstance().follow(DAOFactory.getStorageEngine(), new Runnable(){
+                    public void run(){
+                        startScl();
+                    }
+                });
+            }else{
+                startScl();
+            }
+        }
+
+    /**
+     * Starts the retention sweeps and the registration of a GSCL, once the SCL accepts writes.
+     */
+        public static void startScl(){
+            // Start the retention sweeps
+            RetentionEngine.getInstance().schedule(Constants.RETENTION_PERIOD);
+
             // Manage registration in the case of a GSCL
             if("GSCL".equals(Constants.SCL_TYPE)){
                  registerScl();
             }
-
         }
 
     /**
@@ -182,12 +215,8 @@ public class Activator implements BundleActivator {
      */
         public static void clearDB(){
             // Delete all objects from database
-            ObjectContainer db = DBClientConnection.getInstance();
             try{
-                ObjectSet<Resource> result=db.queryByExample(Resource.class);
-                while(result.hasNext()) {
-                    DBClientConnection.getInstance().delete(result.next());
-                }
+                DAOFactory.getStorageEngine().clear();
             }catch(Exception e){
                 LOGGER.error("Error clearDB",e);
                 registerScl();
@@ -271,44 +300,48 @@ public class Activator implements BundleActivator {
                         }
                     }
                   //Create an NSCL Scl resource
-                	Router.readWriteLock.readLock().lock();
-
-                    LOGGER.info("Create NSCL registration on GSCL");
-                    Scl nscl = new Scl();
-                    nscl.setUri(Constants.SCL_ID+""+"/scls/"+Constants.NSCL_ID);
-                    nscl.setSclId(Constants.NSCL_ID);
-                    nscl.setAccessRightID(Constants.SCL_ID+"/accessRights/"+Constants.ADMIN_PROFILE_ID);
-                    nscl.setCreationTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
-                    nscl.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
-                    SearchStrings searchStrings = new SearchStrings();
-                    searchStrings.getSearchString().add(Constants.SEARCH_STRING_RES_TYPE+nscl.getClass().getSimpleName());
-                    searchStrings.getSearchString().add(Constants.SEARCH_STRING_RES_ID+Constants.NSCL_ID);
-                    nscl.setSearchStrings(searchStrings);
-                    AnyURIList pocs = new AnyURIList();
-                    pocs.getReference().add("http://"+Constants.NSCL_IP+":"+Constants.NSCL_PORT+Constants.NSCL_CONTEXT);
-                    //pocs.getReference().add("coap://"+Constants.NSCL_IP+":"+Constants.NSCL_COAP_PORT/*+Constants.SCL_CONTEXT*/);
-
-                    nscl.setPocs(pocs);
-                    nscl.setLink(Constants.NSCL_ID);
-                    nscl.setMgmtProtocolType(MgmtProtocolType.OMA_DM);
-                    nscl.setOnlineStatus(OnlineStatus.ONLINE);
-                    nscl.setServerCapability(true);
-                    // Set References
-                    nscl.setContainersReference(nscl.getUri()+"/containers");
-                    nscl.setGroupsReference(nscl.getUri()+"/groups");
-                    nscl.setApplicationsReference(nscl.getUri()+"/applications");
-                    nscl.setAccessRightsReference(nscl.getUri()+"/accessRights");
-                    nscl.setSubscriptionsReference(nscl.getUri()+"/subscriptions");
-                    nscl.setMgmtObjsReference(nscl.getUri()+"/mgmtObjs");
-                    nscl.setNotificationChannelsReference(nscl.getUri()+"/notificationChannels");
-                    nscl.setM2MPocsReference(nscl.getUri()+"/m2mPocs");
-                    nscl.setAttachedDevicesReference(nscl.getUri()+"/attachedDevices");
-
-                    // Store scl
-                    DAOFactory.getSclDAO().create(nscl);
-
-                    LOGGER.info("NSCL is successfully registred on GSCL");
-                    Router.readWriteLock.readLock().unlock();
+                    String nsclUri = Constants.SCL_ID+"/scls/"+Constants.NSCL_ID;
+                    SubtreeLockManager.getInstance().lockShared(nsclUri);
+                    try{
+
+                        LOGGER.info("Create NSCL registration on GSCL");
+                        Scl nscl = new Scl();
+                        nscl.setUri(Constants.SCL_ID+""+"/scls/"+Constants.NSCL_ID);
+                        nscl.setSclId(Constants.NSCL_ID);
+                        nscl.setAccessRightID(Constants.SCL_ID+"/accessRights/"+Constants.ADMIN_PROFILE_ID);
+                        nscl.setCreationTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
+                        nscl.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
+                        SearchStrings searchStrings = new SearchStrings();
+                        searchStrings.getSearchString().add(Constants.SEARCH_STRING_RES_TYPE+nscl.getClass().getSimpleName());
+                        searchStrings.getSearchString().add(Constants.SEARCH_STRING_RES_ID+Constants.NSCL_ID);
+                        nscl.setSearchStrings(searchStrings);
+                        AnyURIList pocs = new AnyURIList();
+                        pocs.getReference().add("http://"+Constants.NSCL_IP+":"+Constants.NSCL_PORT+Constants.NSCL_CONTEXT);
+                        //pocs.getReference().add("coap://"+Constants.NSCL_IP+":"+Constants.NSCL_COAP_PORT/*+Constants.SCL_CONTEXT*/);
+
+                        nscl.setPocs(pocs);
+                        nscl.setLink(Constants.NSCL_ID);
+                        nscl.setMgmtProtocolType(MgmtProtocolType.OMA_DM);
+                        nscl.setOnlineStatus(OnlineStatus.ONLINE);
+                        nscl.setServerCapability(true);
+                        // Set References
+                        nscl.setContainersReference(nscl.getUri()+"/containers");
+                        nscl.setGroupsReference(nscl.getUri()+"/groups");
+                        nscl.setApplicationsReference(nscl.getUri()+"/applications");
+                        nscl.setAccessRightsReference(nscl.getUri()+"/accessRights");
+                        nscl.setSubscriptionsReference(nscl.getUri()+"/subscriptions");
+                        nscl.setMgmtObjsReference(nscl.getUri()+"/mgmtObjs");
+                        nscl.setNotificationChannelsReference(nscl.getUri()+"/notificationChannels");
+                        nscl.setM2MPocsReference(nscl.getUri()+"/m2mPocs");
+                        nscl.setAttachedDevicesReference(nscl.getUri()+"/attachedDevices");
+
+                        // Store scl
+                        DAOFactory.getSclDAO().create(nscl);
+
+                        LOGGER.info("NSCL is successfully registred on GSCL");
+                    }finally{
+                        SubtreeLockManager.getInstance().unlockShared(nsclUri);
+                    }
                 }
             }.start();
         }
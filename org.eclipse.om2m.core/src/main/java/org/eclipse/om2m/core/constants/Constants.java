@@ -47,6 +47,16 @@ public class Constants {
     public static final long EXPIRATION_TIME = 999999999;
     /** Default ContentInstances collection maximum number of instance. */
     public static final Long MAX_NBR_OF_INSTANCES = Long.valueOf(System.getProperty("org.eclipse.om2m.maxNrOfInstances","10"));
+    /** Period in ms of the sweeps evicting the contentInstances beyond the container limits. */
+    public static final long RETENTION_PERIOD = Long.parseLong(System.getProperty("org.eclipse.om2m.retentionPeriod","1000"));
+    /** Maximum number of contentInstances evicted from a container by a sweep, the rest being left to the next one. */
+    public static final int RETENTION_BATCH = Integer.parseInt(System.getProperty("org.eclipse.om2m.retentionBatch","1000"));
+    /** Default number of latest contentInstances of a container kept out of the archives, -1 for no limit. */
+    public static final long TIER_NR_OF_INSTANCES = Long.parseLong(System.getProperty("org.eclipse.om2m.tierNrOfInstances","-1"));
+    /** Default age in seconds beyond which the contentInstances of a container are archived, -1 for no limit. */
+    public static final long TIER_INSTANCE_AGE = Long.parseLong(System.getProperty("org.eclipse.om2m.tierInstanceAge","-1"));
+    /** Minimum number of contentInstances moved to an archive at once. */
+    public static final int TIER_BATCH = Integer.parseInt(System.getProperty("org.eclipse.om2m.tierBatch","256"));
 
     //SclBase communication properties
     /** SclBase default communication protocol. */
@@ -76,11 +86,65 @@ public class Constants {
     //Remote Data base specific parameters
     /** Database file name. (Required only for embeded data base)*/
     public static final String DB_FILE = System.getProperty("org.eclipse.om2m.dbFile","db");
+    /** Storage engine used by the DAOs: "db4o" (default) or "memory". */
+    public static final String DB_ENGINE = System.getProperty("org.eclipse.om2m.dbEngine","db4o");
+    /** Whether the contentInstances are kept in append-only segments with the db4o engine, false to keep them in the database. */
+    public static final boolean DB_SEGMENTS_ENABLED = Boolean.parseBoolean(System.getProperty("org.eclipse.om2m.dbSegmentsEnabled","true"));
+    /** Directory of the append-only segments storing the contentInstances with the db4o engine. */
+    public static final String DB_SEGMENTS = System.getProperty("org.eclipse.om2m.dbSegments",DB_FILE+"-segments");
+    /** Maximum number of segment files kept open, the least recently used ones being closed beyond it. */
+    public static final int DB_SEGMENTS_OPEN_FILES = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbSegmentsOpenFiles","256"));
+    /** Directory of the content-addressed store of the contentInstance payloads with the db4o engine. */
+    public static final String DB_BLOBS = System.getProperty("org.eclipse.om2m.dbBlobs",DB_FILE+"-blobs");
+    /** Payload size in bytes from which a contentInstance payload is stored once by content hash, -1 to keep the payloads in the segments. */
+    public static final int DB_BLOB_THRESHOLD = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbBlobThreshold","128"));
+    /** Whether the stored payloads are deflated when it makes them smaller. */
+    public static final boolean DB_BLOB_COMPRESSION = Boolean.parseBoolean(System.getProperty("org.eclipse.om2m.dbBlobCompression","true"));
+    /** Number of db4o databases the application and remote SCL subtrees are sharded into, 1 to keep a single database. */
+    public static final int DB_SHARDS = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbShards","1"));
+    /** Directory of the shard databases and of the subtree assignments with the db4o engine. */
+    public static final String DB_SHARDS_DIRECTORY = System.getProperty("org.eclipse.om2m.dbShardsDirectory",DB_FILE+"-shards");
+    /** Maximum number of resources kept by the read-through cache in front of the storage engine, 0 to disable it. */
+    public static final int DB_CACHE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbCacheSize","10000"));
+    /** Maximum estimated heap size in bytes of the resources kept by the read-through cache. */
+    public static final long DB_CACHE_WEIGHT = Long.parseLong(System.getProperty("org.eclipse.om2m.dbCacheWeight","67108864"));
+    /** Time in ms after which a read session acquired outside a request is reported as leaked and closed. */
+    public static final long DB_SESSION_TIMEOUT = Long.parseLong(System.getProperty("org.eclipse.om2m.dbSessionTimeout","60000"));
+    /** Write-ahead log directory shared with the hot-standby SCL processes, empty to disable the replication. */
+    public static final String DB_WAL = System.getProperty("org.eclipse.om2m.dbWal","");
+    /** Size in bytes beyond which a write-ahead log file is rolled. */
+    public static final long DB_WAL_FILE_SIZE = Long.parseLong(System.getProperty("org.eclipse.om2m.dbWalFileSize","67108864"));
+    /** Number of write-ahead log files kept for the standbys. */
+    public static final int DB_WAL_FILES = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbWalFiles","8"));
+    /** Delay in ms between the polls of the write-ahead log by a standby. */
+    public static final long DB_WAL_POLL = Long.parseLong(System.getProperty("org.eclipse.om2m.dbWalPoll","10"));
     
     //DB Defragment period
-    /** DB Defragment period in ms. */
+    /** DB online compaction period in ms, -1 to disable it. */
     public static final int DB_DEFRAGMENT_PERIOD = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbDefragmentPeriod","-1"));
 
+    //DB commits
+    /** Commit durability: "sync" (each write commits), "batch" (writes wait for a group commit) or "async" (group commits in background). */
+    public static final String DB_COMMIT_MODE = System.getProperty("org.eclipse.om2m.dbCommitMode","async");
+    /** Maximum delay in ms before pending writes are committed in async mode, i.e. its loss window. */
+    public static final long DB_COMMIT_DELAY = Long.parseLong(System.getProperty("org.eclipse.om2m.dbCommitDelay","10"));
+    /** Number of pending writes committed without waiting for the delay in async mode. */
+    public static final int DB_COMMIT_BATCH = Integer.parseInt(System.getProperty("org.eclipse.om2m.dbCommitBatch","512"));
+
+    //Resource subtree locking
+    /** Number of lock stripes shared by resource subtrees. */
+    public static final int LOCK_STRIPES = Integer.parseInt(System.getProperty("org.eclipse.om2m.lockStripes","64"));
+
+    //Request handling threads
+    /** Maximum number of threads handling asynchronous local requests. */
+    public static final int REQUEST_THREADS = Integer.parseInt(System.getProperty("org.eclipse.om2m.requestThreads","16"));
+    /** Maximum number of asynchronous local requests waiting for a thread. */
+    public static final int REQUEST_QUEUE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.requestQueueSize","1024"));
+    /** Maximum number of threads handling asynchronous retargeted requests. */
+    public static final int RETARGET_THREADS = Integer.parseInt(System.getProperty("org.eclipse.om2m.retargetThreads","32"));
+    /** Maximum number of asynchronous retargeted requests waiting for a thread. */
+    public static final int RETARGET_QUEUE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.om2m.retargetQueueSize","1024"));
+
     //Rest Method names
     /** Retrieve method name. */
     public static final String METHOD_RETREIVE = "RETRIEVE";
@@ -110,6 +174,10 @@ public class Constants {
     public static final String SEARCH_STRING_RES_TYPE = "ResourceType/";
     /** Search String resource id prefix. */
     public static final String SEARCH_STRING_RES_ID = "ResourceID/";
+    /** Search String prefix of the number of latest contentInstances of a container kept out of the archives. */
+    public static final String SEARCH_STRING_TIER_NR_OF_INSTANCES = "TierNrOfInstances/";
+    /** Search String prefix of the age in seconds beyond which the contentInstances of a container are archived. */
+    public static final String SEARCH_STRING_TIER_INSTANCE_AGE = "TierInstanceAge/";
     
 
 }
@@ -24,7 +24,7 @@ public class APocController extends Controller{
             requestIndication.setTargetID(targetID);
             return new RestClient().sendRequest(requestIndication);
         }else{
-            InterworkingProxyController IPUController= new InterworkingProxyController();
+            Controller IPUController= ControllerRegistry.getInstance().getController(InterworkingProxyController.class);
             return IPUController.doCreate(requestIndication);
         }
     }
@@ -46,7 +46,7 @@ public class APocController extends Controller{
             LOGGER.info(targetID);
             return new RestClient().sendRequest(requestIndication);
         }else{
-            Controller IPUController= new InterworkingProxyController();
+            Controller IPUController= ControllerRegistry.getInstance().getController(InterworkingProxyController.class);
             return IPUController.doRetrieve(requestIndication);
 
         }
@@ -67,7 +67,7 @@ public class APocController extends Controller{
             requestIndication.setTargetID(targetID);
             return new RestClient().sendRequest(requestIndication);
         }else{
-            Controller IPUController= new InterworkingProxyController();
+            Controller IPUController= ControllerRegistry.getInstance().getController(InterworkingProxyController.class);
             return IPUController.doUpdate(requestIndication);
         }
     }
@@ -86,7 +86,7 @@ public class APocController extends Controller{
             requestIndication.setTargetID(targetID);
             return new RestClient().sendRequest(requestIndication);
         }else{
-            Controller IPUController= new InterworkingProxyController();
+            Controller IPUController= ControllerRegistry.getInstance().getController(InterworkingProxyController.class);
             return IPUController.doDelete(requestIndication);
         }
     }
@@ -104,7 +104,7 @@ public class APocController extends Controller{
             requestIndication.setTargetID(targetID);
             return new RestClient().sendRequest(requestIndication);
         }else{
-            Controller IPUController= new InterworkingProxyController();
+            Controller IPUController= ControllerRegistry.getInstance().getController(InterworkingProxyController.class);
             return IPUController.doExecute(requestIndication);
         }
 
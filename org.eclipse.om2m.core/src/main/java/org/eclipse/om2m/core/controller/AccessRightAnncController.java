@@ -25,10 +25,10 @@ import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -68,18 +68,19 @@ public class AccessRightAnncController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"accessRightAnnc.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        AccessRightAnnc accessRightAnnc;
+        try {
+            accessRightAnnc = readResource(requestIndication, AccessRightAnnc.class, "accessRightAnnc.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        AccessRightAnnc accessRightAnnc = (AccessRightAnnc) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // Check the Id uniqueness
-        if (accessRightAnnc.getId() != null && DAOFactory.getApplicationAnncDAO().find(requestIndication.getTargetID()+"/"+accessRightAnnc.getId()) != null) {
+        if (accessRightAnnc.getId() != null && DAOFactory.getApplicationAnncDAO().exists(requestIndication.getTargetID()+"/"+accessRightAnnc.getId())) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"ApplicationAnncId Conflit")) ;
         }
         // Generate the id it it does not exist
@@ -107,7 +108,7 @@ public class AccessRightAnncController extends Controller {
             accessRightAnnc.setExpirationTime(getNewExpirationTime(Constants.EXPIRATION_TIME));
         }
         // Set AccessRightID from the Parent if it's null or nonexistent
-        if (DAOFactory.getAccessRightDAO().find(accessRightAnnc.getAccessRightID()) == null) {
+        if (!DAOFactory.getAccessRightDAO().exists(accessRightAnnc.getAccessRightID())) {
             accessRightAnnc.setAccessRightID(accessRights.getAccessRightID());
         }
         // Notify the subscribers
@@ -174,16 +175,17 @@ public class AccessRightAnncController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"accessRightAnnc.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        AccessRightAnnc accessRightAnncNew;
+        try {
+            accessRightAnncNew = readResource(requestIndication, AccessRightAnnc.class, "accessRightAnnc.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        AccessRightAnnc accessRightAnncNew = (AccessRightAnnc) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // The Update of the Id is NP
         if (accessRightAnncNew.getId() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"ContainerAnncId UPDATE is Not Permitted")) ;
@@ -206,7 +208,7 @@ public class AccessRightAnncController extends Controller {
             accessRightAnnc.setExpirationTime(accessRightAnncNew.getExpirationTime());
         }
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(accessRightAnncNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(accessRightAnncNew.getAccessRightID())) {
             accessRightAnnc.setAccessRightID(accessRightAnncNew.getAccessRightID());
         }
         // Set searchStrings
@@ -29,11 +29,11 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.announcer.Announcer;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -77,19 +77,20 @@ public class AccessRightController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"accessRight.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        AccessRight accessRight;
+        try {
+            accessRight = readResource(requestIndication, AccessRight.class, "accessRight.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Generate the Object from the XML Representation
-        AccessRight accessRight = (AccessRight) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // Checks on Attributes
         // Check the Id uniqueness
-        if (accessRight.getId() != null && DAOFactory.getAccessRightDAO().find(requestIndication.getTargetID()+"/"+accessRight.getId()) != null) {
+        if (accessRight.getId() != null && DAOFactory.getAccessRightDAO().exists(requestIndication.getTargetID()+"/"+accessRight.getId())) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"Access Right Id Conflit")) ;
         }
         // Generate the Id if does not exist
@@ -219,16 +220,17 @@ public class AccessRightController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         //Check XML Validity
-        errorResponse= checkMessageSyntax(requestIndication.getRepresentation(),"accessRight.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        AccessRight accessRightNew;
+        try {
+            accessRightNew = readResource(requestIndication, AccessRight.class, "accessRight.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        AccessRight accessRightNew = (AccessRight) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // The Update of the accessRightId is NP
         if (accessRightNew.getId() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"accessRightId is not Permitted")) ;
@@ -27,10 +27,10 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -120,16 +120,17 @@ public class AccessRightsController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"accessRights.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        AccessRights accessRightsNew;
+        try {
+            accessRightsNew = readResource(requestIndication, AccessRights.class, "accessRights.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        AccessRights accessRightsNew = (AccessRights) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // accessRightCollection Must be NP
         if (accessRightsNew.getAccessRightCollection() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"AccessRightCollection UPDATE is Not Permitted")) ;
@@ -152,7 +153,7 @@ public class AccessRightsController extends Controller {
         }
         // Storage
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(accessRightsNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(accessRightsNew.getAccessRightID())) {
             accessRights.setAccessRightID(accessRightsNew.getAccessRightID());
         }
         // Set LastModifiedTime
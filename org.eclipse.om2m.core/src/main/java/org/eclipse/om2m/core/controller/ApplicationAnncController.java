@@ -25,10 +25,10 @@ import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -71,18 +71,19 @@ public class ApplicationAnncController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"applicationAnnc.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        ApplicationAnnc applicationAnnc;
+        try {
+            applicationAnnc = readResource(requestIndication, ApplicationAnnc.class, "applicationAnnc.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        ApplicationAnnc applicationAnnc = (ApplicationAnnc) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // Check the Id uniqueness
-        if (applicationAnnc.getId() != null && DAOFactory.getApplicationAnncDAO().find(requestIndication.getTargetID()+"/"+applicationAnnc.getId()) != null) {
+        if (applicationAnnc.getId() != null && DAOFactory.getApplicationAnncDAO().exists(requestIndication.getTargetID()+"/"+applicationAnnc.getId())) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"ApplicationAnncId Conflit")) ;
         }
         // Generate the id it it does not exist
@@ -122,7 +123,7 @@ public class ApplicationAnncController extends Controller {
             applicationAnnc.setExpirationTime(getNewExpirationTime(Constants.EXPIRATION_TIME));
         }
         // Set AccessRightID from the Parent if it's null or nonexistent
-        if (DAOFactory.getAccessRightDAO().find(applicationAnnc.getAccessRightID()) == null) {
+        if (!DAOFactory.getAccessRightDAO().exists(applicationAnnc.getAccessRightID())) {
             applicationAnnc.setAccessRightID(applications.getAccessRightID());
         }
         // Set References
@@ -200,16 +201,17 @@ public class ApplicationAnncController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"applicationAnnc.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        ApplicationAnnc applicationAnncNew;
+        try {
+            applicationAnncNew = readResource(requestIndication, ApplicationAnnc.class, "applicationAnnc.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        ApplicationAnnc applicationAnncNew = (ApplicationAnnc) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // AppAnncId update is NP
         if (applicationAnncNew.getId() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"ApplicationAnncId UPDATE is Not Permitted")) ;
@@ -244,7 +246,7 @@ public class ApplicationAnncController extends Controller {
             applicationAnnc.setExpirationTime(applicationAnncNew.getExpirationTime());
         }
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(applicationAnncNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(applicationAnncNew.getAccessRightID())) {
             applicationAnnc.setAccessRightID(applicationAnncNew.getAccessRightID());
         }
         // Set searchStrings
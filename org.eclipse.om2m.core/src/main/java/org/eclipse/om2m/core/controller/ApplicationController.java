@@ -29,11 +29,11 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.announcer.Announcer;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -83,18 +83,19 @@ public class ApplicationController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY"));
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"application.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Application application;
+        try {
+            application = readResource(requestIndication, Application.class, "application.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        Application application = (Application) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // Check the AppId uniqueness
-        if (application.getAppId() != null && DAOFactory.getApplicationDAO().find(requestIndication.getTargetID()+"/"+application.getAppId()) != null) {
+        if (application.getAppId() != null && DAOFactory.getApplicationDAO().exists(requestIndication.getTargetID()+"/"+application.getAppId())) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"ApplicationId Conflit"));
         }
         if (application.getAppId() == null || application.getAppId().isEmpty()) {
@@ -141,12 +142,12 @@ public class ApplicationController extends Controller {
             application.setExpirationTime(getNewExpirationTime(Constants.EXPIRATION_TIME));
         }
         // Set AccessRightID from the Parent if it's null or nonexistent
-        if (DAOFactory.getAccessRightDAO().find(application.getAccessRightID()) == null) {
+        if (!DAOFactory.getAccessRightDAO().exists(application.getAccessRightID())) {
             application.setAccessRightID(applications.getAccessRightID());
         }
         if (application.getAPoCPaths() != null) {
             for (int i = 0; i<application.getAPoCPaths().getAPoCPath().size(); i++) {
-                if (DAOFactory.getAccessRightDAO().find(application.getAPoCPaths().getAPoCPath().get(i).getAccessRightID()) == null) {
+                if (!DAOFactory.getAccessRightDAO().exists(application.getAPoCPaths().getAPoCPath().get(i).getAccessRightID())) {
                     application.getAPoCPaths().getAPoCPath().get(i).setAccessRightID(application.getAccessRightID());
                 }
             }
@@ -262,16 +263,17 @@ public class ApplicationController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY"));
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"application.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Application applicationNew;
+        try {
+            applicationNew = readResource(requestIndication, Application.class, "application.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        Application applicationNew = (Application) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         //The Update of the AppId is NP
         if (applicationNew.getAppId() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"AppId UPDATE is Not Permitted"));
@@ -310,7 +312,7 @@ public class ApplicationController extends Controller {
         }
         // Storage
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(applicationNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(applicationNew.getAccessRightID())) {
             application.setAccessRightID(applicationNew.getAccessRightID());
         }
         // Set Expiration Time (could be null)
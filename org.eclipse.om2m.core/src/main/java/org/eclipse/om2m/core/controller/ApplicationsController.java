@@ -27,10 +27,10 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -120,16 +120,17 @@ public class ApplicationsController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"applications.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Applications applicationsNew;
+        try {
+            applicationsNew = readResource(requestIndication, Applications.class, "applications.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        Applications applicationsNew = (Applications) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // ApplicationCollection Must be NP
         if (applicationsNew.getApplicationCollection().getNamedReference() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Application Collection UPDATE is Not Permitted")) ;
@@ -156,7 +157,7 @@ public class ApplicationsController extends Controller {
         }
         // Storage
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(applicationsNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(applicationsNew.getAccessRightID())) {
             applications.setAccessRightID(applicationsNew.getAccessRightID());
         }
         // Set LastModifiedTime
@@ -27,10 +27,10 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -117,16 +117,17 @@ public class AttachedDevicesController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"attachedDevices.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        AttachedDevices attachedDevicesNew;
+        try {
+            attachedDevicesNew = readResource(requestIndication, AttachedDevices.class, "attachedDevices.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        AttachedDevices attachedDevicesNew = (AttachedDevices) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // attachedDeviceCollection Must be NP
         if (attachedDevicesNew.getAttachedDeviceCollection() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"AccessRightCollection UPDATE is Not Permitted")) ;
@@ -145,7 +146,7 @@ public class AttachedDevicesController extends Controller {
         }
         // Storage
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(attachedDevicesNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(attachedDevicesNew.getAccessRightID())) {
             attachedDevices.setAccessRightID(attachedDevicesNew.getAccessRightID());
         }
         // Set LastModifiedTime
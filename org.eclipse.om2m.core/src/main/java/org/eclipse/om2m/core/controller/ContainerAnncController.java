@@ -25,10 +25,10 @@ import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -68,18 +68,19 @@ public class ContainerAnncController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"containerAnnc.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        ContainerAnnc containerAnnc;
+        try {
+            containerAnnc = readResource(requestIndication, ContainerAnnc.class, "containerAnnc.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        ContainerAnnc containerAnnc = (ContainerAnnc) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // Check the Id uniqueness
-        if (containerAnnc.getId() != null && DAOFactory.getContainerAnncDAO().find(requestIndication.getTargetID()+"/"+containerAnnc.getId()) != null) {
+        if (containerAnnc.getId() != null && DAOFactory.getContainerAnncDAO().exists(requestIndication.getTargetID()+"/"+containerAnnc.getId())) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"ContainerAnncId Conflit")) ;
         }
         // Generate the id if it does not exist
@@ -108,7 +109,7 @@ public class ContainerAnncController extends Controller {
             containerAnnc.setExpirationTime(getNewExpirationTime(Constants.EXPIRATION_TIME));
         }
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(containerAnnc.getAccessRightID()) == null) {
+        if (!DAOFactory.getAccessRightDAO().exists(containerAnnc.getAccessRightID())) {
             containerAnnc.setAccessRightID(containers.getAccessRightID());
         }
 
@@ -177,16 +178,17 @@ public class ContainerAnncController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse= checkMessageSyntax(requestIndication.getRepresentation(),"containerAnnc.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        ContainerAnnc containerAnncNew;
+        try {
+            containerAnncNew = readResource(requestIndication, ContainerAnnc.class, "containerAnnc.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        ContainerAnnc containerAnncNew = (ContainerAnnc) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // The Update of the ConAnncId is NP
         if (containerAnncNew.getId() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"ContainerAnncId UPDATE is Not Permitted")) ;
@@ -209,7 +211,7 @@ public class ContainerAnncController extends Controller {
             containerAnnc.setExpirationTime(containerAnncNew.getExpirationTime());
         }
         // Set AccessRightID from the Parent if it's null or nonexistent
-        if (DAOFactory.getAccessRightDAO().find(containerAnncNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(containerAnncNew.getAccessRightID())) {
             containerAnnc.setAccessRightID(containerAnncNew.getAccessRightID());
         }
         // Set searchStrings
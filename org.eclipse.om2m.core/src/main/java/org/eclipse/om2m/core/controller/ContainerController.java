@@ -29,11 +29,11 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.announcer.Announcer;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -80,16 +80,17 @@ public class ContainerController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"container.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Container container;
+        try {
+            container = readResource(requestIndication, Container.class, "container.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        Container container = (Container) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // Check ExpirationTime
         if (container.getExpirationTime() != null && !checkExpirationTime(container.getExpirationTime())) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Expiration Time is Out of Date")) ;
@@ -112,7 +113,7 @@ public class ContainerController extends Controller {
         }
         // Storage
         // Check uniqueness and Set id if it's not available
-        if (container.getId() == null || container.getId().isEmpty() || DAOFactory.getContainerDAO().find(requestIndication.getTargetID()+"/"+container.getId()) != null) {
+        if (container.getId() == null || container.getId().isEmpty() || DAOFactory.getContainerDAO().exists(requestIndication.getTargetID()+"/"+container.getId())) {
             container.setId(generateId("CONT_",""));
         }
         // Set URI
@@ -123,7 +124,7 @@ public class ContainerController extends Controller {
             container.setExpirationTime(getNewExpirationTime(Constants.EXPIRATION_TIME));
         }
         // Set AccessRightID from the Parent if it's null or nonexistent
-        if (DAOFactory.getAccessRightDAO().find(container.getAccessRightID()) == null) {
+        if (!DAOFactory.getAccessRightDAO().exists(container.getAccessRightID())) {
             container.setAccessRightID(containers.getAccessRightID());
         }
         // Set searchString if it's null
@@ -233,17 +234,18 @@ public class ContainerController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"container.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Container containerNew;
+        try {
+            containerNew = readResource(requestIndication, Container.class, "container.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
         // Construct New Resource
-        Container containerNew = (Container) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         //The Update of the ContainerId is NP
         if (containerNew.getId() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"AppId UPDATE is Not Permitted")) ;
@@ -274,7 +276,7 @@ public class ContainerController extends Controller {
             container.setExpirationTime(containerNew.getExpirationTime());
         }
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(containerNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(containerNew.getAccessRightID())) {
             container.setAccessRightID(containerNew.getAccessRightID());
         }
         // Set searchStrings
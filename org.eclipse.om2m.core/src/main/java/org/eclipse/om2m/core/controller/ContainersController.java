@@ -27,10 +27,10 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -126,16 +126,17 @@ public class ContainersController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"containers.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Containers containersNew;
+        try {
+            containersNew = readResource(requestIndication, Containers.class, "containers.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        Containers containersNew = (Containers) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // ContainerCollection Must be NP
         if (containersNew.getContainerCollection() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Container Collection UPDATE is Not Permitted")) ;
@@ -166,7 +167,7 @@ public class ContainersController extends Controller {
         }
         // Storage
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(containersNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(containersNew.getAccessRightID())) {
             containers.setAccessRightID(containersNew.getAccessRightID());
         }
         // Set LastModifiedTime
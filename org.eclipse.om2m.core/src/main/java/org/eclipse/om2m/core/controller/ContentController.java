@@ -29,6 +29,7 @@ import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
+import org.eclipse.om2m.core.dao.Projection;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -75,7 +76,7 @@ public class ContentController extends Controller {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND,contentInstancesURI+" does not exist")) ;
         }
         // Check AccessRight
-        Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split("/contentInstances")[0]);
+        Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split("/contentInstances")[0], Projection.ACCESS);
         errorResponse = checkAccessRight(container.getAccessRightID(), requestIndication.getRequestingEntity(), Constants.AR_READ);
         if (errorResponse != null) {
             return errorResponse;
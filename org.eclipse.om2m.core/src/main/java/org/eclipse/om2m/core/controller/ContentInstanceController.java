@@ -30,12 +30,13 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAO;
 import org.eclipse.om2m.core.dao.DAOFactory;
+import org.eclipse.om2m.core.dao.Projection;
 import org.eclipse.om2m.core.notifier.Notifier;
-import org.eclipse.om2m.core.router.Router;
+import org.eclipse.om2m.core.retention.RetentionEngine;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -74,23 +75,23 @@ public class ContentInstanceController extends Controller {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND,requestIndication.getTargetID()+" does not exist")) ;
         }
         // Check AccessRight
-        Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split("/contentInstances")[0]);
+        Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split("/contentInstances")[0], Projection.ACCESS);
         errorResponse = checkAccessRight(container.getAccessRightID(), requestIndication.getRequestingEntity(), Constants.AR_CREATE);
         if (errorResponse != null) {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Create a Content if its a direct content Creation with contentInstance
-        if (checkMessageSyntax(requestIndication.getRepresentation(),"contentInstance.xsd") != null) {
+        try {
+            contentInstance = readResource(requestIndication, ContentInstance.class, "contentInstance.xsd");
+        } catch (SAXException e) {
             Base64Binary content = new Base64Binary();
             content.setContentType("application/xml");
             content.setValue(requestIndication.getRepresentation().getBytes());
             contentInstance.setContent(content);
-        } else {
-            contentInstance = (ContentInstance) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         }
         //Check on attributes
         // href Must be NP
@@ -115,7 +116,7 @@ public class ContentInstanceController extends Controller {
         }
         // Check uniqueness and Set id if it is not available
         if (contentInstance.getId() == null || contentInstance.getId().isEmpty()
-                || DAOFactory.getContentInstanceDAO().find(requestIndication.getTargetID()+"/"+contentInstance.getId()) != null) {
+                || DAOFactory.getContentInstanceDAO().exists(requestIndication.getTargetID()+"/"+contentInstance.getId())) {
             contentInstance.setId(generateId("CI_",""));
         }
         // Set URI
@@ -139,20 +140,8 @@ public class ContentInstanceController extends Controller {
 
         //Store contentInstance
         DAOFactory.getContentInstanceDAO().create(contentInstance);
-     // delete the oldest contentInstance if the CurrentNrOfInstances reaches MaxNrOfInstances
-        if (contentInstances.getCurrentNrOfInstances() > container.getMaxNrOfInstances()-1) {
-            final String oldestCI = requestIndication.getTargetID()+"/oldest";
-            new Thread(){
-                public void run(){
-                	Router.readWriteLock.readLock().lock();
-
-	                    ContentInstance contentInstanceOldest = DAOFactory.getContentInstanceDAO().find(oldestCI);
-	                    //Delete the oldest contentInstance
-	                    DAOFactory.getContentInstanceDAO().delete(contentInstanceOldest);
-	                	Router.readWriteLock.readLock().unlock();
-                }
-            }.start();
-        }
+        // Evict the oldest contentInstances beyond the container limits in background
+        RetentionEngine.getInstance().written(requestIndication.getTargetID());
 
 
         // Response
@@ -179,7 +168,7 @@ public class ContentInstanceController extends Controller {
         ResponseConfirm errorResponse = new ResponseConfirm();
 
         // Check AccessRight
-        Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split("/contentInstances")[0]);
+        Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split("/contentInstances")[0], Projection.ACCESS);
         errorResponse = checkAccessRight(container.getAccessRightID(), requestIndication.getRequestingEntity(), Constants.AR_READ);
         if (errorResponse != null) {
             return errorResponse;
@@ -232,7 +221,7 @@ public class ContentInstanceController extends Controller {
         }
 
         // Check AccessRight
-        Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split("/contentInstances")[0]);
+        Container container = DAOFactory.getContainerDAO().find(requestIndication.getTargetID().split("/contentInstances")[0], Projection.ACCESS);
         errorResponse = checkAccessRight(container.getAccessRightID(), requestIndication.getRequestingEntity(), Constants.AR_DELETE);
         if (errorResponse != null) {
             return errorResponse;
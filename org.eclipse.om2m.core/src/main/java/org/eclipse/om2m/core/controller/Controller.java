@@ -19,7 +19,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.controller;
 
-import java.io.IOException;
 import java.security.SecureRandom;
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -40,7 +39,8 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlValidator;
+import org.eclipse.om2m.commons.utils.ResourceCopier;
+import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.xml.sax.SAXException;
@@ -94,22 +94,36 @@ public abstract class Controller {
     public abstract ResponseConfirm doExecute (RequestIndication requestIndication);
 
     /**
-     * Checks the validity of the resource representation syntax based on the xsd schema verification
-     * @param resourceRepresentation - the XML representation of the resource
-     * @param xsd - XML Schema Definition
-     * @return the error with a specific status code if the representation is wrong otherwise null
+     * Reads the resource of a request. A resource object passed within the JVM is copied, so that
+     * the caller keeps its own, instead of being marshalled and parsed back. A representation is
+     * checked against its xsd schema while {@link XmlMapper} parses it.
+     * @param requestIndication - The generic request holding the resource.
+     * @param type - expected resource class
+     * @param xsd - xsd file of the resource representation
+     * @return the resource
+     * @throws SAXException if the representation is not well-formed or not valid, or if the
+     *         resource object is not of the expected class
      */
-    public ResponseConfirm checkMessageSyntax(String resourceRepresentation, String xsd) {
-        try {
-            XmlValidator.getInstance().validate(resourceRepresentation, xsd);
-        } catch (SAXException e) {
-            LOGGER.debug("Resource representation syntax error",e);
-            return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource representation syntax error: "+e.getMessage())) ;
-        } catch (IOException e) {
-            LOGGER.debug("XSD not found",e);
-            return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"XSD not found: "+e.getMessage())) ;
+    public <T> T readResource(RequestIndication requestIndication, Class<T> type, String xsd) throws SAXException {
+        Object resource = requestIndication.getResource();
+        if (resource != null) {
+            if (!type.isInstance(resource)) {
+                throw new SAXException("Expected "+type.getSimpleName()+" resource instead of "+resource.getClass().getSimpleName());
+            }
+            return type.cast(ResourceCopier.copy(resource));
         }
-        return null;
+        return type.cast(XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation(), xsd));
+    }
+
+    /**
+     * Returns the error of a resource representation whose syntax is wrong. Representations are
+     * checked against their xsd schema while {@link XmlMapper} parses them.
+     * @param e - the parse or xsd schema validation error
+     * @return the error with a specific status code
+     */
+    public ResponseConfirm syntaxError(SAXException e) {
+        LOGGER.debug("Resource representation syntax error",e);
+        return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource representation syntax error: "+e.getMessage())) ;
     }
 
     /**
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.controller;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds one shared instance of each resource controller. Controllers keep no per-request state,
+ * so a single instance of each can serve all requests concurrently.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class ControllerRegistry {
+    /** Shared registry */
+    private static final ControllerRegistry registry = new ControllerRegistry();
+    /** Controller instances by class, read-only once built */
+    private final Map<Class<? extends Controller>, Controller> controllers = new LinkedHashMap<Class<? extends Controller>, Controller>();
+
+    private ControllerRegistry() {
+        register(new SclBaseController());
+        register(new SclsController());
+        register(new SclController());
+        register(new ApplicationsController());
+        register(new ApplicationController());
+        register(new ApplicationAnncController());
+        register(new APocController());
+        register(new InterworkingProxyController());
+        register(new ContainersController());
+        register(new ContainerController());
+        register(new ContainerAnncController());
+        register(new LocationContainerController());
+        register(new LocationContainerAnncController());
+        register(new ContentInstancesController());
+        register(new ContentInstanceController());
+        register(new ContentController());
+        register(new SubscriptionsController());
+        register(new SubscriptionController());
+        register(new AccessRightsController());
+        register(new AccessRightController());
+        register(new AccessRightAnncController());
+        register(new GroupsController());
+        register(new GroupController());
+        register(new GroupAnncController());
+        register(new MembersContentController());
+        register(new DiscoveryController());
+        register(new MgmtObjsController());
+        register(new MgmtObjController());
+        register(new MgmtCmdController());
+        register(new ParametersController());
+        register(new ExecInstancesController());
+        register(new ExecInstanceController());
+        register(new AttachedDevicesController());
+        register(new AttachedDeviceController());
+        register(new NotificationChannelsController());
+        register(new NotificationChannelController());
+        register(new M2MPocsController());
+        register(new M2MPocController());
+        register(new NotifyController());
+        register(new MetricsController());
+    }
+
+    private void register(Controller controller) {
+        controllers.put(controller.getClass(), controller);
+    }
+
+    /** Gets the shared controller registry. */
+    public static ControllerRegistry getInstance() {
+        return registry;
+    }
+
+    /**
+     * Gets the shared instance of a resource controller.
+     * @param type - controller class
+     * @return the controller instance otherwise null if not registered
+     */
+    public <T extends Controller> T getController(Class<T> type) {
+        return type.cast(controllers.get(type));
+    }
+
+    /** Gets all the registered controllers in registration order. */
+    public Collection<Controller> getControllers() {
+        return Collections.unmodifiableCollection(controllers.values());
+    }
+}
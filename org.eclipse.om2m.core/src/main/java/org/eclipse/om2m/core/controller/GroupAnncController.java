@@ -25,10 +25,10 @@ import org.eclipse.om2m.commons.resource.Groups;
 import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -68,18 +68,19 @@ public class GroupAnncController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"groupAnnc.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        GroupAnnc groupAnnc;
+        try {
+            groupAnnc = readResource(requestIndication, GroupAnnc.class, "groupAnnc.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        GroupAnnc groupAnnc = (GroupAnnc) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // Check the Id uniqueness
-        if (groupAnnc.getId() != null && DAOFactory.getApplicationAnncDAO().find(requestIndication.getTargetID()+"/"+groupAnnc.getId()) != null) {
+        if (groupAnnc.getId() != null && DAOFactory.getApplicationAnncDAO().exists(requestIndication.getTargetID()+"/"+groupAnnc.getId())) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"ApplicationAnncId Conflit")) ;
         }
         // Generate the id it it does not exist
@@ -107,7 +108,7 @@ public class GroupAnncController extends Controller {
             groupAnnc.setExpirationTime(getNewExpirationTime(Constants.EXPIRATION_TIME));
         }
         // Set AccessRightID from the Parent if it's null or nonexistent
-        if (DAOFactory.getAccessRightDAO().find(groupAnnc.getAccessRightID()) == null) {
+        if (!DAOFactory.getAccessRightDAO().exists(groupAnnc.getAccessRightID())) {
             groupAnnc.setAccessRightID(groups.getAccessRightID());
         }
         // Notify the subscribers
@@ -174,16 +175,17 @@ public class GroupAnncController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"groupAnnc.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        GroupAnnc groupAnncNew;
+        try {
+            groupAnncNew = readResource(requestIndication, GroupAnnc.class, "groupAnnc.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        GroupAnnc groupAnncNew = (GroupAnnc) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // The Update of the Id is NP
         if (groupAnncNew.getId() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"GroupAnncId UPDATE is Not Permitted")) ;
@@ -206,7 +208,7 @@ public class GroupAnncController extends Controller {
             groupAnnc.setExpirationTime(groupAnncNew.getExpirationTime());
         }
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(groupAnncNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(groupAnncNew.getAccessRightID())) {
             groupAnnc.setAccessRightID(groupAnncNew.getAccessRightID());
         }
         // Set searchStrings
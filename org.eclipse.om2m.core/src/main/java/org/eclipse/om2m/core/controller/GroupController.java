@@ -29,11 +29,11 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.announcer.Announcer;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -81,18 +81,19 @@ public class GroupController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"group.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Group group;
+        try {
+            group = readResource(requestIndication, Group.class, "group.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        Group group = (Group) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // Check the Id uniqueness
-        if (group.getId() != null && DAOFactory.getGroupDAO().find(requestIndication.getTargetID()+"/"+group.getId()) != null) {
+        if (group.getId() != null && DAOFactory.getGroupDAO().exists(requestIndication.getTargetID()+"/"+group.getId())) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"GroupId Conflit")) ;
         }
         if (group.getId() == null || group.getId().isEmpty()) {
@@ -262,16 +263,17 @@ public class GroupController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"group.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Group groupNew;
+        try {
+            groupNew = readResource(requestIndication, Group.class, "group.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        Group groupNew = (Group) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
 
         //The Update of the Id is NP
         if (groupNew.getId() != null) {
@@ -330,7 +332,7 @@ public class GroupController extends Controller {
             group.setExpirationTime(groupNew.getExpirationTime());
         }
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(groupNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(groupNew.getAccessRightID())) {
             group.setAccessRightID(groupNew.getAccessRightID());
         }
         // Set SearchStrings
@@ -27,10 +27,10 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -120,16 +120,17 @@ public class GroupsController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"groups.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Groups groupsNew;
+        try {
+            groupsNew = readResource(requestIndication, Groups.class, "groups.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        Groups groupsNew = (Groups) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
 
         // GroupCollection Must be NP
         if (groupsNew.getGroupCollection() != null) {
@@ -153,7 +154,7 @@ public class GroupsController extends Controller {
         }
         // Storage
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(groupsNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(groupsNew.getAccessRightID())) {
             groups.setAccessRightID(groupsNew.getAccessRightID());
         }
         // Set LastModifiedTime
@@ -25,6 +25,7 @@ import org.eclipse.om2m.commons.resource.Base64Binary;
 import org.eclipse.om2m.commons.resource.ErrorInfo;
 import org.eclipse.om2m.commons.resource.Group;
 import org.eclipse.om2m.commons.resource.MembersContentResponses;
+import org.eclipse.om2m.commons.resource.Resource;
 import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.resource.MembersContentResponses.Status;
 import org.eclipse.om2m.commons.rest.RequestIndication;
@@ -73,7 +74,12 @@ public class MembersContentController extends Controller {
                 memberRequestIndication.setMethod(requestIndication.getMethod());
                 memberRequestIndication.setTargetID(memberReference);
                 memberRequestIndication.setRequestingEntity(requestIndication.getRequestingEntity());
-                memberRequestIndication.setRepresentation(requestIndication.getRepresentation());
+                if (requestIndication.getResource() instanceof Resource) {
+                    // Members handled within the JVM copy the resource object
+                    memberRequestIndication.setRepresentation((Resource) requestIndication.getResource());
+                } else {
+                    memberRequestIndication.setRepresentation(requestIndication.getRepresentation());
+                }
 
                 Thread thread = new Thread(){
                     public void run() {
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.controller;
+
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.ErrorInfo;
+import org.eclipse.om2m.commons.resource.SclBase;
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.commons.rest.RequestIndication;
+import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.dao.DAOFactory;
+import org.eclipse.om2m.core.metrics.RequestMetrics;
+
+/**
+ * Implements the Retrieve method of the read-only metrics resource ({@code <sclId>/metrics})
+ * giving the Router request metrics as oBIX XML, or in the text scrape format with the
+ * {@code format=text} parameter. Access is granted with the SclBase access right.
+ *
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.com ></li>
+ *         </ul>
+ */
+public class MetricsController extends Controller {
+    /** Text scrape format parameter value */
+    public static final String FORMAT_TEXT = "text";
+
+    /**
+     * Creates metrics resource: not allowed.
+     * @param requestIndication - The generic request to handle.
+     * @return The generic returned response.
+     */
+    public ResponseConfirm doCreate (RequestIndication requestIndication) {
+        return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_METHOD_NOT_ALLOWED,"Metrics CREATE method is not allowed"));
+    }
+
+    /**
+     * Retrieves the request metrics.
+     * @param requestIndication - The generic request to handle.
+     * @return The generic returned response.
+     */
+    public ResponseConfirm doRetrieve (RequestIndication requestIndication) {
+        SclBase sclBase = DAOFactory.getSclBaseDAO().find(Constants.SCL_ID);
+        if (sclBase == null) {
+            return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND,Constants.SCL_ID+" does not exist"));
+        }
+        // Check AccessRight
+        ResponseConfirm errorResponse = checkAccessRight(sclBase.getAccessRightID(), requestIndication.getRequestingEntity(), Constants.AR_READ);
+        if (errorResponse != null) {
+            return errorResponse;
+        }
+        List<String> formats = requestIndication.getParameters() == null ? null : requestIndication.getParameters().get("format");
+        if (formats != null && formats.contains(FORMAT_TEXT)) {
+            return new ResponseConfirm(StatusCode.STATUS_OK, RequestMetrics.getInstance().toText());
+        }
+        return new ResponseConfirm(StatusCode.STATUS_OK, RequestMetrics.getInstance().toObix(requestIndication.getTargetID()));
+    }
+
+    /**
+     * Updates metrics resource: not allowed.
+     * @param requestIndication - The generic request to handle.
+     * @return The generic returned response.
+     */
+    public ResponseConfirm doUpdate (RequestIndication requestIndication) {
+        return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_METHOD_NOT_ALLOWED,"Metrics UPDATE method is not allowed"));
+    }
+
+    /**
+     * Deletes metrics resource: not allowed.
+     * @param requestIndication - The generic request to handle.
+     * @return The generic returned response.
+     */
+    public ResponseConfirm doDelete (RequestIndication requestIndication) {
+        return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_METHOD_NOT_ALLOWED,"Metrics DELETE method is not allowed"));
+    }
+
+    /**
+     * Executes metrics resource: not allowed.
+     * @param requestIndication - The generic request to handle.
+     * @return The generic returned response.
+     */
+    public ResponseConfirm doExecute (RequestIndication requestIndication) {
+        return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_METHOD_NOT_ALLOWED,"Metrics EXECUTE method is not allowed"));
+    }
+}
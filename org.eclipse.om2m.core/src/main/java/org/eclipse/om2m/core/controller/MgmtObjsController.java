@@ -27,10 +27,10 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -120,16 +120,17 @@ public class MgmtObjsController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"mgmtObjs.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        MgmtObjs mgmtObjsNew;
+        try {
+            mgmtObjsNew = readResource(requestIndication, MgmtObjs.class, "mgmtObjs.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks attributes
-        MgmtObjs mgmtObjsNew = (MgmtObjs) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         //mgmtObjCollection Must be NP
         if (mgmtObjsNew.getMgmtObjCollection() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"MgmtObj Collection UPDATE is Not Permitted")) ;
@@ -152,7 +153,7 @@ public class MgmtObjsController extends Controller {
         }
         //Storage
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(mgmtObjsNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(mgmtObjsNew.getAccessRightID())) {
             mgmtObjs.setAccessRightID(mgmtObjsNew.getAccessRightID());
         }
         // Set LastModifiedTime
@@ -27,10 +27,10 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -136,16 +136,17 @@ public class SclBaseController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"sclBase.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        SclBase sclBaseNew;
+        try {
+            sclBaseNew = readResource(requestIndication, SclBase.class, "sclBase.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Check Attributes
-        SclBase sclBaseNew = (SclBase) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // Scls References Must be NP
         if (sclBaseNew.getSclsReference() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"sclsReference UPDATE is Not Permitted")) ;
@@ -185,7 +186,7 @@ public class SclBaseController extends Controller {
 
         // Storage
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(sclBaseNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(sclBaseNew.getAccessRightID())) {
             sclBase.setAccessRightID(sclBaseNew.getAccessRightID());
         }
         if (sclBaseNew.getSearchStrings() != null) {
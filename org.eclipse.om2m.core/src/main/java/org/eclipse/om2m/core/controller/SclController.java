@@ -33,11 +33,11 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.comm.RestClient;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 
 /**
@@ -101,18 +101,18 @@ public class SclController extends Controller {
         }
         
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"scl.xsd");
-        if (errorResponse != null) {
-        	
-            return errorResponse;
+        Scl scl;
+        try {
+            scl = readResource(requestIndication, Scl.class, "scl.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         
         // Checks on attributes
-        Scl scl = (Scl) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // SclId is Mandatory
         if (scl.getSclId() == null) {
         	
@@ -120,7 +120,7 @@ public class SclController extends Controller {
         }
 
         // Check the Id uniqueness
-        if (DAOFactory.getSclDAO().find(requestIndication.getTargetID()+"/"+scl.getSclId()) != null) {       
+        if (DAOFactory.getSclDAO().exists(requestIndication.getTargetID()+"/"+scl.getSclId())) {       
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"SclId Conflit")) ;
         }
         // Check ExpirationTime
@@ -201,7 +201,7 @@ public class SclController extends Controller {
             scl.setExpirationTime(getNewExpirationTime(Constants.EXPIRATION_TIME));
         }
         // Set AccessRightID from the Parent if it's null or nonexistent
-        if (DAOFactory.getAccessRightDAO().find(scl.getAccessRightID()) == null) {
+        if (!DAOFactory.getAccessRightDAO().exists(scl.getAccessRightID())) {
             scl.setAccessRightID(scls.getAccessRightID());
         }
         // Set searchString if it's null
@@ -335,17 +335,18 @@ public class SclController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse= checkMessageSyntax(requestIndication.getRepresentation(),"scl.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Scl sclNew;
+        try {
+            sclNew = readResource(requestIndication, Scl.class, "scl.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks attributes
         // Construct New Resource
-        Scl sclNew = (Scl) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // The Update of the SclId is NP
         if (sclNew.getSclId() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"SclId UPDATE is Not Permitted")) ;
@@ -425,7 +426,7 @@ public class SclController extends Controller {
             scl.setExpirationTime(sclNew.getExpirationTime());
         }
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(sclNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(sclNew.getAccessRightID())) {
             scl.setAccessRightID(sclNew.getAccessRightID());
         }
         // Set searchStrings from New Scl if it exists
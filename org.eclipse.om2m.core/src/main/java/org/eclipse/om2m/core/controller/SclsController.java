@@ -28,10 +28,10 @@ import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
 import org.eclipse.om2m.core.notifier.Notifier;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -122,16 +122,17 @@ public class SclsController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         //XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"scls.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Scls sclsNew;
+        try {
+            sclsNew = readResource(requestIndication, Scls.class, "scls.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Check Attributes
-        Scls sclsNew = (Scls) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // sclCollection Must be NP
         if (sclsNew.getSclCollection().getNamedReference() != null) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Scl Collection UPDATE is Not Permitted")) ;
@@ -155,7 +156,7 @@ public class SclsController extends Controller {
 
         // Storage
         // Set accessRightID if it exists
-        if (DAOFactory.getAccessRightDAO().find(sclsNew.getAccessRightID()) != null) {
+        if (DAOFactory.getAccessRightDAO().exists(sclsNew.getAccessRightID())) {
             scls.setAccessRightID(sclsNew.getAccessRightID());
         }
         // Notify the subscribers
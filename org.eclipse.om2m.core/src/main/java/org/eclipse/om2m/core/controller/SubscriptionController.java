@@ -29,9 +29,10 @@ import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.commons.utils.DateConverter;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
+import org.eclipse.om2m.core.dao.Projection;
+import org.xml.sax.SAXException;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -77,16 +78,17 @@ public class SubscriptionController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse = checkMessageSyntax(requestIndication.getRepresentation(),"subscription.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Subscription subscription;
+        try {
+            subscription = readResource(requestIndication, Subscription.class, "subscription.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Checks on attributes
-        Subscription subscription = (Subscription) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
         // Check ExpirationTime
         if (subscription.getExpirationTime() != null && !checkExpirationTime(subscription.getExpirationTime())) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Expiration Time CREATE is Out of Date")) ;
@@ -113,7 +115,7 @@ public class SubscriptionController extends Controller {
         }
         // Storage
         // Check the Id uniqueness
-        if (subscription.getId() != null && DAOFactory.getSubscriptionDAO().find(requestIndication.getTargetID()+"/"+subscription.getId()) != null) {
+        if (subscription.getId() != null && DAOFactory.getSubscriptionDAO().exists(requestIndication.getTargetID()+"/"+subscription.getId())) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_CONFLICT,"SubscriptionId Conflit")) ;
         }
         if (subscription.getId() == null || subscription.getId().isEmpty()) {
@@ -203,16 +205,17 @@ public class SubscriptionController extends Controller {
             return errorResponse;
         }
         // Check Resource Representation
-        if (requestIndication.getRepresentation() == null) {
+        if (!requestIndication.hasRepresentation()) {
             return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Resource Representation is EMPTY")) ;
         }
         // Check XML Validity
-        errorResponse= checkMessageSyntax(requestIndication.getRepresentation(),"subscription.xsd");
-        if (errorResponse != null) {
-            return errorResponse;
+        Subscription subscriptionNew;
+        try {
+            subscriptionNew = readResource(requestIndication, Subscription.class, "subscription.xsd");
+        } catch (SAXException e) {
+            return syntaxError(e);
         }
         // Check attributes
-        Subscription subscriptionNew = (Subscription) XmlMapper.getInstance().xmlToObject(requestIndication.getRepresentation());
 
         // SubscriptionId UPDATE is NP
         if (subscriptionNew.getId() != null) {
@@ -333,7 +336,7 @@ public class SubscriptionController extends Controller {
          // Return Container AccessRightID if ContentInstances resource is the parent
          if (subscriptionsUri.contains("contentInstances")) {
              parentSubsUri = subscriptionsUri.split("/contentInstances")[0];
-             return DAOFactory.getResourceDAO().find(parentSubsUri).getAccessRightID();
+             return DAOFactory.getResourceDAO().find(parentSubsUri, Projection.ACCESS).getAccessRightID();
          }
          parentSubsUri = subscriptionsUri.split("/subscriptions")[0];
 
@@ -345,6 +348,6 @@ public class SubscriptionController extends Controller {
          }
 
          // Return parent AccessRightID for other resources
-         return DAOFactory.getResourceDAO().find(parentSubsUri).getAccessRightID();
+         return DAOFactory.getResourceDAO().find(parentSubsUri, Projection.ACCESS).getAccessRightID();
     }
 }
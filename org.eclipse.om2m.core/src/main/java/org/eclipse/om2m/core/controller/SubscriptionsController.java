@@ -27,6 +27,7 @@ import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
+import org.eclipse.om2m.core.dao.Projection;
 
 /**
  * Implements Create, Retrieve, Update, Delete and Execute methods to handle
@@ -122,7 +123,7 @@ public class SubscriptionsController extends Controller {
         // Return Container AccessRightID if ContentInstances resource is the parent
         if (subscriptionsUri.contains("contentInstances")) {
             parentSubsUri = subscriptionsUri.split("/contentInstances")[0];
-            return DAOFactory.getResourceDAO().find(parentSubsUri).getAccessRightID();
+            return DAOFactory.getResourceDAO().find(parentSubsUri, Projection.ACCESS).getAccessRightID();
         }
         parentSubsUri = subscriptionsUri.split("/subscriptions")[0];
 
@@ -134,6 +135,6 @@ public class SubscriptionsController extends Controller {
         }
 
         // Return parent AccessRightID for other resources
-        return DAOFactory.getResourceDAO().find(parentSubsUri).getAccessRightID();
+        return DAOFactory.getResourceDAO().find(parentSubsUri, Projection.ACCESS).getAccessRightID();
     }
 }
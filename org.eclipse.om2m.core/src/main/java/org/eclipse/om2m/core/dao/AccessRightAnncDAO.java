@@ -25,9 +25,6 @@ import org.eclipse.om2m.commons.resource.AccessRightAnnc;
 import org.eclipse.om2m.commons.resource.AccessRights;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link AccessRightAnnc} resource persistence.
  *
@@ -47,15 +44,9 @@ public class AccessRightAnncDAO extends DAO<AccessRightAnnc> {
     public void create(AccessRightAnnc resource) {
         // Store the created resource
         DB.store(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AccessRights.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<AccessRights> result = query.execute();
+        AccessRights accessRights = DB.find(AccessRights.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        AccessRights accessRights = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         accessRights.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(accessRights);
@@ -68,18 +59,7 @@ public class AccessRightAnncDAO extends DAO<AccessRightAnnc> {
      * @return The requested {@link AccessRightAnnc} resource otherwise null
      */
     public AccessRightAnnc find(String uri) {
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AccessRightAnnc.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<AccessRightAnnc> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(AccessRightAnnc.class, uri);
     }
 
     /**
@@ -98,15 +78,9 @@ public class AccessRightAnncDAO extends DAO<AccessRightAnnc> {
     public void update(AccessRightAnnc resource) {
         // Store the updated resource
         DB.store(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AccessRights.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<AccessRights> result = query.execute();
+        AccessRights accessRights = DB.find(AccessRights.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        AccessRights accessRights = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         accessRights.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(accessRights);
@@ -131,15 +105,9 @@ public class AccessRightAnncDAO extends DAO<AccessRightAnnc> {
     public void lazyDelete (AccessRightAnnc resource) {
         // Delete the resource
         DB.delete(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AccessRights.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<AccessRights> result = query.execute();
+        AccessRights accessRights = DB.find(AccessRights.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        AccessRights accessRights = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         accessRights.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(accessRights);
@@ -26,9 +26,6 @@ import org.eclipse.om2m.commons.resource.AccessRights;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link AccessRight} resource persistence.
  *
@@ -53,15 +50,9 @@ public class AccessRightDAO extends DAO<AccessRight> {
         subscriptions.setUri(resource.getSubscriptionsReference());
         DAOFactory.getSubscriptionsDAO().create(subscriptions);
         
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AccessRights.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<AccessRights> result = query.execute();
+        AccessRights accessRights = DB.find(AccessRights.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        AccessRights accessRights = result.get(0);
         
         // Update the lastModifiedTime attribute of the parent
         
@@ -77,18 +68,17 @@ public class AccessRightDAO extends DAO<AccessRight> {
      * @return The requested {@link AccessRight} resource otherwise null
      */
     public AccessRight find(String uri) {
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AccessRight.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<AccessRight> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(AccessRight.class, uri);
+    }
+
+    /**
+     * Retrieves the {@link AccessRight} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link AccessRight} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link AccessRight} resource otherwise null
+     */
+    public AccessRight find(String uri, Projection projection) {
+        return DB.find(AccessRight.class, uri, projection);
     }
 
     /**
@@ -107,15 +97,9 @@ public class AccessRightDAO extends DAO<AccessRight> {
     public void update(AccessRight resource) {
         // Store the updated resource
         DB.store(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AccessRights.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<AccessRights> result = query.execute();
+        AccessRights accessRights = DB.find(AccessRights.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        AccessRights accessRights = result.get(0);
         accessRights.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(accessRights);
         // Validate the current transaction
@@ -142,15 +126,9 @@ public class AccessRightDAO extends DAO<AccessRight> {
         DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
         // Delete the resource
         DB.delete(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AccessRights.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<AccessRights> result = query.execute();
+        AccessRights accessRights = DB.find(AccessRights.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        AccessRights accessRights = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         accessRights.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(accessRights);
@@ -19,16 +19,14 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.AccessRight;
 import org.eclipse.om2m.commons.resource.AccessRightAnnc;
 import org.eclipse.om2m.commons.resource.AccessRights;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link AccessRights} collection resource persistence.
  *
@@ -65,34 +63,31 @@ public class AccessRightsDAO extends DAO<AccessRights> {
         AccessRights accessRights = lazyFind(uri);
 
         if(accessRights != null){
-        	ObjectContainer session = DB.ext().openSession();
-
-            // Find AccessRight sub-resources and add their references
-            Query queryAccessRight = session.query();
-            queryAccessRight.constrain(AccessRight.class);
-            queryAccessRight.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<AccessRight> resultAccessRight = queryAccessRight.execute();
-            accessRights.getAccessRightCollection().getNamedReference().clear();
-
-            for (int i = 0; i < resultAccessRight.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultAccessRight.get(i).getId());
-                reference.setValue(resultAccessRight.get(i).getUri());
-                accessRights.getAccessRightCollection().getNamedReference().add(reference);
-            }
-
-            // Find AccessRightAnnc sub-resources Resources and add their references
-            accessRights.getAccessRightAnncCollection().getNamedReference().clear();
-            Query queryAccessRightAnnc = session.query();
-            queryAccessRightAnnc.constrain(AccessRightAnnc.class);
-            queryAccessRightAnnc.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<AccessRightAnnc> resultAccessRightAnnc = queryAccessRightAnnc.execute();
-
-            for (int i = 0; i < resultAccessRightAnnc.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultAccessRightAnnc.get(i).getId());
-                reference.setValue(resultAccessRightAnnc.get(i).getUri());
-                accessRights.getAccessRightAnncCollection().getNamedReference().add(reference);
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                // Find AccessRight sub-resources and add their references
+                List<AccessRight> resultAccessRight = session.findByPrefix(AccessRight.class, uri, Projection.ACCESS);
+                accessRights.getAccessRightCollection().getNamedReference().clear();
+
+                for (int i = 0; i < resultAccessRight.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultAccessRight.get(i).getId());
+                    reference.setValue(resultAccessRight.get(i).getUri());
+                    accessRights.getAccessRightCollection().getNamedReference().add(reference);
+                }
+
+                // Find AccessRightAnnc sub-resources Resources and add their references
+                accessRights.getAccessRightAnncCollection().getNamedReference().clear();
+                List<AccessRightAnnc> resultAccessRightAnnc = session.findByPrefix(AccessRightAnnc.class, uri, Projection.ACCESS);
+
+                for (int i = 0; i < resultAccessRightAnnc.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultAccessRightAnnc.get(i).getId());
+                    reference.setValue(resultAccessRightAnnc.get(i).getUri());
+                    accessRights.getAccessRightAnncCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return accessRights;
@@ -104,19 +99,12 @@ public class AccessRightsDAO extends DAO<AccessRights> {
      * @return The requested {@link AccessRights} collection resource otherwise null
      */
     public AccessRights lazyFind(String uri) {
-        // Create the query based on the uri constraint
-    	ObjectContainer session = DB.ext().openSession();
-        Query query = session.query();
-        query.constrain(AccessRights.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<AccessRights> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(AccessRights.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -151,20 +139,14 @@ public class AccessRightsDAO extends DAO<AccessRights> {
         DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
 
         // Delete accessRight sub-resources
-        Query queryAccessRight = DB.query();
-        queryAccessRight.constrain(AccessRight.class);
-        queryAccessRight.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<AccessRight> resultAccessRight = queryAccessRight.execute();
+        List<AccessRight> resultAccessRight = DB.findByPrefix(AccessRight.class, resource.getUri());
 
         for (int i = 0; i < resultAccessRight.size(); i++) {
             DAOFactory.getAccessRightDAO().lazyDelete(resultAccessRight.get(i));
         }
 
         // Delete accessRightAnnc sub-resources
-        Query queryAccessRightAnnc = DB.query();
-        queryAccessRightAnnc.constrain(AccessRightAnnc.class);
-        queryAccessRightAnnc.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<AccessRightAnnc> resultAccessRightAnnc = queryAccessRightAnnc.execute();
+        List<AccessRightAnnc> resultAccessRightAnnc = DB.findByPrefix(AccessRightAnnc.class, resource.getUri());
 
         for (int i = 0; i < resultAccessRightAnnc.size(); i++) {
             DAOFactory.getAccessRightAnncDAO().lazyDelete(resultAccessRightAnnc.get(i));
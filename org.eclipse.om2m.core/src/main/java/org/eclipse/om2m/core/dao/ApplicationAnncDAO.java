@@ -28,9 +28,6 @@ import org.eclipse.om2m.commons.resource.Containers;
 import org.eclipse.om2m.commons.resource.Groups;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link ApplicationAnnc} resource persistence.
  *
@@ -71,15 +68,9 @@ public class ApplicationAnncDAO extends DAO<ApplicationAnnc> {
         groups.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         groups.setAccessRightID(resource.getAccessRightID());
         DAOFactory.getGroupsDAO().create(groups);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Applications.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Applications> result = query.execute();
+        Applications applications = DB.find(Applications.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Applications applications = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         applications.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(applications);
@@ -92,18 +83,17 @@ public class ApplicationAnncDAO extends DAO<ApplicationAnnc> {
      * @return The requested {@link ApplicationAnnc} resource otherwise null
      */
     public ApplicationAnnc find(String uri) {
-        // Create the query based on the uri constraint
-        Query queryApplicationAnnc = DB.query();
-        queryApplicationAnnc.constrain(ApplicationAnnc.class);
-        queryApplicationAnnc.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<ApplicationAnnc> result = queryApplicationAnnc.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(ApplicationAnnc.class, uri);
+    }
+
+    /**
+     * Retrieves the {@link ApplicationAnnc} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link ApplicationAnnc} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link ApplicationAnnc} resource otherwise null
+     */
+    public ApplicationAnnc find(String uri, Projection projection) {
+        return DB.find(ApplicationAnnc.class, uri, projection);
     }
 
     /**
@@ -122,15 +112,9 @@ public class ApplicationAnncDAO extends DAO<ApplicationAnnc> {
     public void update(ApplicationAnnc resource) {
         // Store the updated resource
         DB.store(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Applications.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Applications> result = query.execute();
+        Applications applications = DB.find(Applications.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Applications applications = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         applications.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(applications);
@@ -161,15 +145,9 @@ public class ApplicationAnncDAO extends DAO<ApplicationAnnc> {
         DAOFactory.getGroupsDAO().lazyDelete(DAOFactory.getGroupsDAO().lazyFind(resource.getGroupsReference()));
         // Delete the resource
         DB.delete(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Applications.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Applications> result = query.execute();
+        Applications applications = DB.find(Applications.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Applications applications = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         applications.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(applications);
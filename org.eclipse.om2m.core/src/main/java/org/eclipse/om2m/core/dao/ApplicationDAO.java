@@ -30,9 +30,6 @@ import org.eclipse.om2m.commons.resource.NotificationChannels;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Application} resource persistence.
  *
@@ -85,15 +82,9 @@ public class ApplicationDAO extends DAO<Application> {
         //notificationChannels.setLastModifiedTime(resource);
         DAOFactory.getNotificationChannelsDAO().create(notificationChannels);
         
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Applications.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getAppId())[0]);
-        // Store all the founded resources
-        ObjectSet<Applications> result = query.execute();
+        Applications applications = DB.find(Applications.class, resource.getUri().split("/"+resource.getAppId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Applications applications = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         applications.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(applications);
@@ -108,18 +99,17 @@ public class ApplicationDAO extends DAO<Application> {
      * @return The requested {@link Application} resource otherwise null
      */
     public Application find(String uri) {
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Application.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Application> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(Application.class, uri);
+    }
+
+    /**
+     * Retrieves the {@link Application} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link Application} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link Application} resource otherwise null
+     */
+    public Application find(String uri, Projection projection) {
+        return DB.find(Application.class, uri, projection);
     }
 
     /**
@@ -138,15 +128,9 @@ public class ApplicationDAO extends DAO<Application> {
     public void update(Application resource) {
         // Store the updated resource
         DB.store(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Applications.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getAppId())[0]);
-        // Store all the founded resources
-        ObjectSet<Applications> result = query.execute();
+        Applications applications = DB.find(Applications.class, resource.getUri().split("/"+resource.getAppId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Applications applications = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         applications.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(applications);
@@ -172,27 +156,11 @@ public class ApplicationDAO extends DAO<Application> {
      * @param resource - The {@link Application} resource to delete
      */
     public void lazyDelete(Application resource) {
-        // Delete accessRights
-        DAOFactory.getAccessRightsDAO().lazyDelete(DAOFactory.getAccessRightsDAO().lazyFind(resource.getAccessRightsReference()));
-        // Delete containers
-        DAOFactory.getContainersDAO().lazyDelete(DAOFactory.getContainersDAO().lazyFind(resource.getContainersReference()));
-        // Delete groups
-        DAOFactory.getGroupsDAO().lazyDelete(DAOFactory.getGroupsDAO().lazyFind(resource.getGroupsReference()));
-        // Delete subscriptions
-        DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
-        // Delete notificationsChannels
-        DAOFactory.getNotificationChannelsDAO().lazyDelete(DAOFactory.getNotificationChannelsDAO().lazyFind(resource.getNotificationChannelsReference()));
-        // Delete the resource
-        DB.delete(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Applications.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getAppId())[0]);
-        // Store all the founded resources
-        ObjectSet<Applications> result = query.execute();
+        // Delete the resource with its accessRights, containers, groups, subscriptions and notificationsChannels
+        lazyDeleteSubtree(resource.getUri());
+        Applications applications = DB.find(Applications.class, resource.getUri().split("/"+resource.getAppId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Applications applications = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         applications.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(applications);
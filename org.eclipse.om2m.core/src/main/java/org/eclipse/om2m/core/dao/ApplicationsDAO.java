@@ -19,6 +19,8 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.Application;
 import org.eclipse.om2m.commons.resource.ApplicationAnnc;
 import org.eclipse.om2m.commons.resource.Applications;
@@ -26,10 +28,6 @@ import org.eclipse.om2m.commons.resource.MgmtObjs;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Applications} collection resource persistence.
  *
@@ -74,33 +72,30 @@ public class ApplicationsDAO extends DAO<Applications> {
         Applications applications = lazyFind(uri);
 
         if(applications != null) {
-        	ObjectContainer session = DB.ext().openSession();
-
-            // Find Application sub-resources and add their references
-            applications.getApplicationCollection().getNamedReference().clear();
-            Query queryApplication = session.query();
-            queryApplication.constrain(Application.class);
-            queryApplication.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<Application> resultApplication = queryApplication.execute();
-
-            for (int i=0; i<resultApplication.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultApplication.get(i).getAppId());
-                reference.setValue(resultApplication.get(i).getUri());
-                applications.getApplicationCollection().getNamedReference().add(reference);
-            }
-            // Find ApplicationAnnc sub-resources and add their references
-            applications.getApplicationAnncCollection().getNamedReference().clear();
-            Query queryApplicationAnnc = session.query();
-            queryApplicationAnnc.constrain(ApplicationAnnc.class);
-            queryApplicationAnnc.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<ApplicationAnnc> resultApplicationAnnc = queryApplicationAnnc.execute();
-
-            for (int i = 0; i < resultApplicationAnnc.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultApplicationAnnc.get(i).getId());
-                reference.setValue(resultApplicationAnnc.get(i).getUri());
-                applications.getApplicationAnncCollection().getNamedReference().add(reference);
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                // Find Application sub-resources and add their references
+                applications.getApplicationCollection().getNamedReference().clear();
+                List<Application> resultApplication = session.findByPrefix(Application.class, uri, Projection.ACCESS);
+
+                for (int i=0; i<resultApplication.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultApplication.get(i).getAppId());
+                    reference.setValue(resultApplication.get(i).getUri());
+                    applications.getApplicationCollection().getNamedReference().add(reference);
+                }
+                // Find ApplicationAnnc sub-resources and add their references
+                applications.getApplicationAnncCollection().getNamedReference().clear();
+                List<ApplicationAnnc> resultApplicationAnnc = session.findByPrefix(ApplicationAnnc.class, uri, Projection.ACCESS);
+
+                for (int i = 0; i < resultApplicationAnnc.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultApplicationAnnc.get(i).getId());
+                    reference.setValue(resultApplicationAnnc.get(i).getUri());
+                    applications.getApplicationAnncCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return applications;
@@ -112,20 +107,12 @@ public class ApplicationsDAO extends DAO<Applications> {
      * @return The requested {@link Applications} collection resource otherwise null
      */
     public Applications lazyFind(String uri) {
-        // Create the query based on the uri constraint
-    	ObjectContainer session = DB.ext().openSession();
-
-        Query query = session.query();
-        query.constrain(Applications.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Applications> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(Applications.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -161,19 +148,13 @@ public class ApplicationsDAO extends DAO<Applications> {
         DAOFactory.getMgmtObjsDAO().lazyDelete(DAOFactory.getMgmtObjsDAO().lazyFind(resource.getMgmtObjsReference()));
 
         // Delete application sub-resources
-        Query queryApplication = DB.query();
-        queryApplication.constrain(Application.class);
-        queryApplication.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<Application> resultApplication = queryApplication.execute();
+        List<Application> resultApplication = DB.findByPrefix(Application.class, resource.getUri());
 
         for (int i = 0; i < resultApplication.size(); i++) {
             DAOFactory.getApplicationDAO().lazyDelete(resultApplication.get(i));
         }
         // Delete applicationAnnc sub-resources
-        Query queryApplicationAnnc = DB.query();
-        queryApplicationAnnc.constrain(ApplicationAnnc.class);
-        queryApplicationAnnc.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<ApplicationAnnc> resultApplicationAnnc = queryApplicationAnnc.execute();
+        List<ApplicationAnnc> resultApplicationAnnc = DB.findByPrefix(ApplicationAnnc.class, resource.getUri());
 
         for (int i = 0; i < resultApplicationAnnc.size(); i++) {
             DAOFactory.getApplicationAnncDAO().lazyDelete(resultApplicationAnnc.get(i));
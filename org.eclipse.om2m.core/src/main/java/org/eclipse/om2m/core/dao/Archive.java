@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+
+/**
+ * Immutable compressed file holding old {@link ContentInstance} resources of one contentInstances
+ * collection, in creation order. The records are deflated by blocks of about 64 KB, followed by an
+ * index of the blocks and of the instance names and content sizes. Only the header is read when the archive is opened:
+ * the index is loaded on the first access, and a block is inflated when one of its instances is read.
+ * The large payloads stay in the {@link BlobStore}, the records referring to them by hash.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+class Archive {
+    /** File signature */
+    private static final int MAGIC = 0x4f4d4132;
+    /** Uncompressed size beyond which a block is closed */
+    private static final int BLOCK_SIZE = 1 << 16;
+    /** Footer: index offset and signature */
+    private static final int FOOTER = 12;
+
+    /** Archive file */
+    private final File file;
+    /** Uri of the contentInstances collection */
+    private final String uri;
+    /** Rank of the archive among the ones of its collection */
+    private final long number;
+    /** Store of the large payloads, null if the records keep them */
+    private final BlobStore blobs;
+    /** Instance names in creation order, null until the index is loaded */
+    private String[] names;
+    /** Creation rank by instance name */
+    private Map<String, Integer> ranks;
+    /** Block and offset in the inflated block of each instance */
+    private int[] recordBlocks;
+    private int[] recordOffsets;
+    /** Content size of each instance */
+    private long[] contentSizes;
+    /** File offset, compressed and inflated lengths of each block */
+    private long[] blockOffsets;
+    private int[] blockLengths;
+    private int[] blockSizes;
+    /** Last inflated block */
+    private int inflatedBlock = -1;
+    private ByteBuffer inflated;
+
+    private Archive(File file, String uri, long number, BlobStore blobs) {
+        this.file = file;
+        this.uri = uri;
+        this.number = number;
+        this.blobs = blobs;
+    }
+
+    /**
+     * Writes an archive, replacing the file only once it is complete and forced to the disk.
+     * @param file - archive file
+     * @param uri - uri of the contentInstances collection
+     * @param number - rank of the archive among the ones of its collection
+     * @param contentInstances - instances to archive, in creation order
+     * @param blobs - store of the large payloads, null to keep them in the records
+     * @return the written archive
+     * @throws IOException if the file cannot be written
+     */
+    static Archive write(File file, String uri, long number, List<ContentInstance> contentInstances, BlobStore blobs)
+            throws IOException {
+        File target = new File(file.getPath() + ".tmp");
+        FileOutputStream stream = new FileOutputStream(target);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            Segment.putString(out, uri);
+            out.writeLong(number);
+            List<long[]> blocks = new ArrayList<long[]>();
+            ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE * 2);
+            DataOutputStream records = new DataOutputStream(block);
+            int count = contentInstances.size();
+            String[] names = new String[count];
+            int[] recordBlocks = new int[count];
+            int[] recordOffsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                ContentInstance contentInstance = contentInstances.get(i);
+                if (block.size() >= BLOCK_SIZE) {
+                    blocks.add(writeBlock(out, block));
+                }
+                names[i] = contentInstance.getUri().substring(contentInstance.getUri().lastIndexOf('/') + 1);
+                recordBlocks[i] = blocks.size();
+                recordOffsets[i] = block.size();
+                Segment.putString(records, names[i]);
+                Segment.encode(records, contentInstance, blobs);
+            }
+            if (block.size() > 0) {
+                blocks.add(writeBlock(out, block));
+            }
+            long indexOffset = out.size();
+            out.writeInt(blocks.size());
+            for (long[] written : blocks) {
+                out.writeLong(written[0]);
+                out.writeInt((int) written[1]);
+                out.writeInt((int) written[2]);
+            }
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                Segment.putString(out, names[i]);
+                out.writeInt(recordBlocks[i]);
+                out.writeInt(recordOffsets[i]);
+                Long contentSize = contentInstances.get(i).getContentSize();
+                out.writeLong(contentSize != null ? contentSize : 0);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+            stream.getFD().sync();
+        } finally {
+            stream.close();
+        }
+        if (!target.renameTo(file)) {
+            target.delete();
+            throw new IOException("Cannot rename " + target + " to " + file);
+        }
+        return new Archive(file, uri, number, blobs);
+    }
+
+    /**
+     * Opens an archive, reading its header only.
+     * @param file - archive file
+     * @param blobs - store of the large payloads, null if the records keep them
+     * @return the opened archive
+     * @throws IOException if the file cannot be read or is not an archive
+     */
+    static Archive open(File file, BlobStore blobs) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            if (in.length() < 4 || in.readInt() != MAGIC) {
+                throw new IOException(file + " is not an archive");
+            }
+            byte[] uri = new byte[in.readInt()];
+            in.readFully(uri);
+            return new Archive(file, new String(uri, "UTF-8"), in.readLong(), blobs);
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Returns the uri of the contentInstances collection. */
+    String getUri() {
+        return uri;
+    }
+
+    /** Returns the rank of the archive among the ones of its collection. */
+    long getNumber() {
+        return number;
+    }
+
+    /**
+     * Returns the number of archived instances.
+     * @throws IOException if the index cannot be read
+     */
+    synchronized int size() throws IOException {
+        index();
+        return names.length;
+    }
+
+    /**
+     * Returns the name of an archived instance.
+     * @param rank - creation rank of the instance
+     * @throws IOException if the index cannot be read
+     */
+    synchronized String name(int rank) throws IOException {
+        index();
+        return names[rank];
+    }
+
+    /**
+     * Returns the content size of an archived instance, from the index.
+     * @param rank - creation rank of the instance
+     * @throws IOException if the index cannot be read
+     */
+    synchronized long contentSize(int rank) throws IOException {
+        index();
+        return contentSizes[rank];
+    }
+
+    /**
+     * Returns the creation rank of an archived instance.
+     * @param name - instance name
+     * @return the rank, -1 if the instance is not archived here
+     * @throws IOException if the index cannot be read
+     */
+    synchronized int rank(String name) throws IOException {
+        index();
+        Integer rank = ranks.get(name);
+        return rank != null ? rank.intValue() : -1;
+    }
+
+    /**
+     * Reads an archived instance.
+     * @param rank - creation rank of the instance
+     * @return the archived instance
+     * @throws IOException if the archive cannot be read
+     */
+    synchronized ContentInstance read(int rank) throws IOException {
+        index();
+        ByteBuffer buffer = block(recordBlocks[rank]);
+        buffer.position(recordOffsets[rank]);
+        String name = Segment.getString(buffer);
+        ContentInstance contentInstance = Segment.decode(buffer, blobs);
+        contentInstance.setUri(uri + "/" + name);
+        return contentInstance;
+    }
+
+    /**
+     * Reads the hash of the payload of an archived instance kept in the blob store.
+     * @param rank - creation rank of the instance
+     * @return the hash otherwise null
+     * @throws IOException if the archive cannot be read
+     */
+    synchronized byte[] reference(int rank) throws IOException {
+        if (blobs == null) {
+            return null;
+        }
+        index();
+        ByteBuffer buffer = block(recordBlocks[rank]);
+        buffer.position(recordOffsets[rank]);
+        Segment.skipBytes(buffer);
+        return Segment.reference(buffer);
+    }
+
+    /**
+     * Deletes the archive file.
+     * @throws IOException if the file cannot be deleted
+     */
+    synchronized void destroy() throws IOException {
+        inflated = null;
+        if (!file.delete() && file.exists()) {
+            throw new IOException("Cannot delete " + file);
+        }
+    }
+
+    /**
+     * Deflates a block of records to the archive.
+     * @return the file offset, compressed and inflated lengths of the block
+     */
+    private static long[] writeBlock(DataOutputStream out, ByteArrayOutputStream block) throws IOException {
+        byte[] bytes = block.toByteArray();
+        block.reset();
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            long offset = out.size();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return new long[] {offset, out.size() - offset, bytes.length};
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Loads the index of the archive, once.
+     */
+    private void index() throws IOException {
+        if (names != null) {
+            return;
+        }
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            long length = in.length();
+            in.seek(length - FOOTER);
+            long indexOffset = in.readLong();
+            if (in.readInt() != MAGIC || indexOffset < 0 || indexOffset > length - FOOTER) {
+                throw new IOException(file + " is corrupted");
+            }
+            byte[] bytes = new byte[(int) (length - FOOTER - indexOffset)];
+            in.seek(indexOffset);
+            in.readFully(bytes);
+            ByteBuffer index = ByteBuffer.wrap(bytes);
+            int blocks = index.getInt();
+            blockOffsets = new long[blocks];
+            blockLengths = new int[blocks];
+            blockSizes = new int[blocks];
+            for (int b = 0; b < blocks; b++) {
+                blockOffsets[b] = index.getLong();
+                blockLengths[b] = index.getInt();
+                blockSizes[b] = index.getInt();
+            }
+            int count = index.getInt();
+            String[] loaded = new String[count];
+            ranks = new HashMap<String, Integer>(count * 2);
+            recordBlocks = new int[count];
+            recordOffsets = new int[count];
+            contentSizes = new long[count];
+            for (int i = 0; i < count; i++) {
+                loaded[i] = Segment.getString(index);
+                recordBlocks[i] = index.getInt();
+                recordOffsets[i] = index.getInt();
+                contentSizes[i] = index.getLong();
+                ranks.put(loaded[i], i);
+            }
+            names = loaded;
+        } catch (RuntimeException e) {
+            throw new IOException(file + " is corrupted", e);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Inflates a block, keeping the last one for the reads of its neighbor instances.
+     */
+    private ByteBuffer block(int block) throws IOException {
+        if (inflatedBlock != block) {
+            byte[] compressed = new byte[blockLengths[block]];
+            RandomAccessFile in = new RandomAccessFile(file, "r");
+            try {
+                in.seek(blockOffsets[block]);
+                in.readFully(compressed);
+            } finally {
+                in.close();
+            }
+            byte[] bytes = new byte[blockSizes[block]];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                int length = 0;
+                while (length < bytes.length && !inflater.finished()) {
+                    length += inflater.inflate(bytes, length, bytes.length - length);
+                    if (inflater.needsInput()) {
+                        break;
+                    }
+                }
+                if (length != bytes.length) {
+                    throw new IOException(file + " is corrupted at block " + block);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(file + " is corrupted at block " + block, e);
+            } finally {
+                inflater.end();
+            }
+            inflated = ByteBuffer.wrap(bytes);
+            inflatedBlock = block;
+        }
+        return inflated.duplicate();
+    }
+}
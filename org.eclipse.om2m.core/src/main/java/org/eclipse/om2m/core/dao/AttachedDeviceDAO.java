@@ -27,9 +27,6 @@ import org.eclipse.om2m.commons.resource.MgmtObjs;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link AttachedDevice} resource persistence.
  *
@@ -59,15 +56,9 @@ public class AttachedDeviceDAO extends DAO<AttachedDevice> {
         Subscriptions subscriptions = new Subscriptions();
         subscriptions.setUri(resource.getSubscriptionsReference());
         DAOFactory.getSubscriptionsDAO().create(subscriptions);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AttachedDevices.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<AttachedDevices> result = query.execute();
+        AttachedDevices attachedDevices = DB.find(AttachedDevices.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        AttachedDevices attachedDevices = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         attachedDevices.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(attachedDevices);
@@ -81,18 +72,7 @@ public class AttachedDeviceDAO extends DAO<AttachedDevice> {
      * @return The requested {@link AttachedDevice} resource otherwise null
      */
     public AttachedDevice find(String uri) {
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AttachedDevice.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<AttachedDevice> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(AttachedDevice.class, uri);
     }
 
     /**
@@ -111,15 +91,9 @@ public class AttachedDeviceDAO extends DAO<AttachedDevice> {
     public void update(AttachedDevice resource) {
         // Store the updated resource
         DB.store(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AttachedDevices.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<AttachedDevices> result = query.execute();
+        AttachedDevices attachedDevices = DB.find(AttachedDevices.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        AttachedDevices attachedDevices = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         attachedDevices.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(attachedDevices);
@@ -147,15 +121,9 @@ public class AttachedDeviceDAO extends DAO<AttachedDevice> {
         DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
         //delete mgmtObjs
         DAOFactory.getMgmtObjsDAO().lazyDelete(DAOFactory.getMgmtObjsDAO().lazyFind(resource.getMgmtObjsReference()));
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(AttachedDevices.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<AttachedDevices> result = query.execute();
+        AttachedDevices attachedDevices = DB.find(AttachedDevices.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        AttachedDevices attachedDevices = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         attachedDevices.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(attachedDevices);
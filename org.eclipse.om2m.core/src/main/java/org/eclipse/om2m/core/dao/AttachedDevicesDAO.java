@@ -19,15 +19,13 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.AttachedDevice;
 import org.eclipse.om2m.commons.resource.AttachedDevices;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link AttachedDevices} collection resource persistence.
  *
@@ -64,20 +62,20 @@ public class AttachedDevicesDAO extends DAO<AttachedDevices> {
         AttachedDevices attachedDevices = lazyFind(uri);
 
         if(attachedDevices != null){
-        	ObjectContainer session = DB.ext().openSession();
-
-            // Find AttachedDevice sub-resources and add their references
-            Query query = session.query();
-            query.constrain(AttachedDevice.class);
-            query.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<AttachedDevice> result = query.execute();
-            attachedDevices.getAttachedDeviceCollection().getNamedReference().clear();
-
-            for (int i = 0; i < result.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(result.get(i).getId());
-                reference.setValue(result.get(i).getUri());
-                attachedDevices.getAttachedDeviceCollection().getNamedReference().add(reference);
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                // Find AttachedDevice sub-resources and add their references
+                List<AttachedDevice> result = session.findByPrefix(AttachedDevice.class, uri, Projection.ACCESS);
+                attachedDevices.getAttachedDeviceCollection().getNamedReference().clear();
+
+                for (int i = 0; i < result.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(result.get(i).getId());
+                    reference.setValue(result.get(i).getUri());
+                    attachedDevices.getAttachedDeviceCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return attachedDevices;
@@ -89,20 +87,12 @@ public class AttachedDevicesDAO extends DAO<AttachedDevices> {
      * @return The requested {@link AttachedDevices} collection resource otherwise null
      */
     public AttachedDevices lazyFind(String uri) {
-        // Create the query based on the uri constraint
-    	ObjectContainer session = DB.ext().openSession();
-
-        Query query = session.query();
-        query.constrain(AttachedDevices.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<AttachedDevices> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(AttachedDevices.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -136,10 +126,7 @@ public class AttachedDevicesDAO extends DAO<AttachedDevices> {
         DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
 
         // Delete attachedDevice sub-resources
-        Query query = DB.query();
-        query.constrain(AttachedDevice.class);
-        query.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<AttachedDevice> result = query.execute();
+        List<AttachedDevice> result = DB.findByPrefix(AttachedDevice.class, resource.getUri());
 
         for (int i = 0; i < result.size(); i++) {
             DAOFactory.getAttachedDeviceDAO().lazyDelete(result.get(i));
@@ -0,0 +1,447 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Content-addressed store of the contentInstance payloads, keyed by their SHA-256 hash, so that the
+ * payloads posted repeatedly are stored once. The blobs and their reference count changes are
+ * appended to a single file, optionally deflated, and a blob is dropped once no instance refers to
+ * it. The payloads are released by the segments only once the records dropping them are forced, and
+ * the file is rewritten with the live blobs, by {@link #compact()}, once the dead records take most
+ * of it.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class BlobStore {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(BlobStore.class);
+    /** File signature */
+    private static final int MAGIC = 0x4f4d4231;
+    /** Record storing a blob */
+    private static final byte BLOB = 1;
+    /** Record changing the reference count of a blob */
+    private static final byte REFERENCE = 2;
+    /** Size of a blob hash */
+    static final int HASH_SIZE = 32;
+    /** Record header: payload length, type and hash */
+    private static final int RECORD_HEADER = 5 + HASH_SIZE;
+    /** Blob record header: compression, inflated length and reference count */
+    private static final int BLOB_HEADER = RECORD_HEADER + 13;
+    /** Reference record size */
+    private static final int REFERENCE_SIZE = RECORD_HEADER + 4;
+    /** Size below which the file is never rewritten */
+    private static final long REWRITE_THRESHOLD = 1 << 20;
+
+    /** Blob file */
+    private final File file;
+    /** Payload size from which the payloads are stored here, -1 to store none */
+    private final int threshold;
+    /** Whether the blobs are deflated when it makes them smaller */
+    private final boolean compress;
+    private FileChannel channel;
+    /** End of the last complete record */
+    private long size;
+    /** Bytes of the live blob records */
+    private long liveBytes;
+    /** Live blobs by hash */
+    private final Map<ByteBuffer, Blob> blobs = new HashMap<ByteBuffer, Blob>();
+    /** Whether appended records are not forced to the disk yet */
+    private boolean dirty;
+    /** Read-only mapping of a window of the file while its records are replayed */
+    private MappedByteBuffer map;
+    /** File offset of the mapped window */
+    private long mapOffset;
+
+    /**
+     * Location and reference count of a live blob.
+     */
+    private static class Blob {
+        long offset;
+        int length;
+        int inflatedLength;
+        boolean compressed;
+        long references;
+    }
+
+    /**
+     * Opens the blob file of a directory, creating them if needed.
+     * @param directory - blob store directory
+     * @param threshold - payload size from which the payloads are stored here, -1 to store none
+     * @param compress - whether the blobs are deflated when it makes them smaller
+     */
+    public BlobStore(File directory, int threshold, boolean compress) {
+        this.threshold = threshold;
+        this.compress = compress;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + directory);
+        }
+        this.file = new File(directory, "blobs");
+        try {
+            open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open " + file, e);
+        }
+        LOGGER.info(blobs.size() + " contentInstance payloads opened in " + directory);
+    }
+
+    /**
+     * Checks whether a payload is stored here rather than in its instance record.
+     * @param value - payload
+     * @return true if the payload reaches the threshold
+     */
+    boolean accepts(byte[] value) {
+        return threshold >= 0 && value != null && value.length >= threshold;
+    }
+
+    /**
+     * Stores a payload referred to by a new instance.
+     * @param value - payload
+     * @return the hash referring to the payload
+     * @throws IOException if the record cannot be appended
+     */
+    synchronized byte[] put(byte[] value) throws IOException {
+        byte[] hash = hash(value);
+        Blob blob = blobs.get(ByteBuffer.wrap(hash));
+        if (blob != null) {
+            blob.references++;
+            appendReference(hash, 1);
+            return hash;
+        }
+        byte[] data = compress ? deflate(value) : null;
+        blob = new Blob();
+        blob.compressed = data != null && data.length < value.length;
+        if (!blob.compressed) {
+            data = value;
+        }
+        blob.inflatedLength = value.length;
+        blob.length = data.length;
+        blob.references = 1;
+        blob.offset = appendBlob(hash, blob, data);
+        blobs.put(ByteBuffer.wrap(hash), blob);
+        liveBytes += BLOB_HEADER + blob.length;
+        return hash;
+    }
+
+    /**
+     * Reads a payload.
+     * @param hash - hash referring to the payload
+     * @return the payload
+     * @throws IOException if the payload is missing or cannot be read
+     */
+    synchronized byte[] get(byte[] hash) throws IOException {
+        Blob blob = blobs.get(ByteBuffer.wrap(hash));
+        if (blob == null) {
+            throw new IOException("Missing blob " + hex(hash) + " in " + file);
+        }
+        ByteBuffer data = ByteBuffer.allocate(blob.length);
+        while (data.hasRemaining()) {
+            if (channel.read(data, blob.offset + data.position()) < 0) {
+                throw new IOException("Truncated blob " + hex(hash) + " in " + file);
+            }
+        }
+        return blob.compressed ? inflate(data.array(), blob.inflatedLength) : data.array();
+    }
+
+    /**
+     * Releases the payload of a deleted instance, dropped once no instance refers to it.
+     * @param hash - hash referring to the payload
+     * @throws IOException if the record cannot be appended
+     */
+    synchronized void release(byte[] hash) throws IOException {
+        Blob blob = blobs.get(ByteBuffer.wrap(hash));
+        if (blob == null) {
+            return;
+        }
+        appendReference(hash, -1);
+        if (--blob.references <= 0) {
+            blobs.remove(ByteBuffer.wrap(hash));
+            liveBytes -= BLOB_HEADER + blob.length;
+        }
+    }
+
+    /** Returns the number of stored payloads. */
+    public synchronized int getCount() {
+        return blobs.size();
+    }
+
+    /** Returns the size in bytes of the blob file. */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Forces the appended records to the disk.
+     */
+    public synchronized void force() {
+        if (dirty) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot synchronize " + file, e);
+            }
+            dirty = false;
+        }
+    }
+
+    /**
+     * Rewrites the blob file with the live blobs once the dead records take most of it.
+     */
+    public synchronized void compact() {
+        if (size > REWRITE_THRESHOLD && liveBytes < size / 2) {
+            try {
+                rewrite();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot rewrite " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Closes the blob file.
+     */
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.error("Cannot close " + file, e);
+        }
+    }
+
+    /**
+     * Opens the blob file and replays its records, reading their headers from windows of the file. A
+     * record truncated by a crash is discarded.
+     */
+    private void open() throws IOException {
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        long fileSize = channel.size();
+        if (fileSize == 0) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            header.putInt(MAGIC).flip();
+            channel.write(header, 0);
+            size = 4;
+            return;
+        }
+        if (fileSize < 4 || window(0, 4).getInt() != MAGIC) {
+            throw new IOException(file + " is not a blob store");
+        }
+        size = 4;
+        while (fileSize - size >= RECORD_HEADER) {
+            long offset = size;
+            int length = window(offset, 4).getInt();
+            if (length < RECORD_HEADER - 4 || length > fileSize - offset - 4) {
+                break;
+            }
+            // Only the record header is read, the blob is read on demand
+            ByteBuffer buffer = window(offset + 4, Math.min(length, BLOB_HEADER - 4));
+            byte type = buffer.get();
+            if (length < (type == BLOB ? BLOB_HEADER : REFERENCE_SIZE) - 4) {
+                break;
+            }
+            byte[] hash = new byte[HASH_SIZE];
+            buffer.get(hash);
+            ByteBuffer key = ByteBuffer.wrap(hash);
+            if (type == BLOB) {
+                Blob blob = new Blob();
+                blob.compressed = buffer.get() != 0;
+                blob.inflatedLength = buffer.getInt();
+                blob.references = buffer.getLong();
+                blob.offset = offset + BLOB_HEADER;
+                blob.length = length + 4 - BLOB_HEADER;
+                Blob replaced = blobs.put(key, blob);
+                if (replaced != null) {
+                    liveBytes -= BLOB_HEADER + replaced.length;
+                }
+                liveBytes += BLOB_HEADER + blob.length;
+            } else {
+                Blob blob = blobs.get(key);
+                if (blob != null) {
+                    blob.references += buffer.getInt();
+                    if (blob.references <= 0) {
+                        blobs.remove(key);
+                        liveBytes -= BLOB_HEADER + blob.length;
+                    }
+                }
+            }
+            size = offset + 4 + length;
+        }
+        map = null;
+        if (size < fileSize) {
+            channel.truncate(size);
+        }
+    }
+
+    /**
+     * Returns a buffer positioned at a file offset, mapping a window of the file holding the given
+     * number of bytes from there if the current one does not.
+     */
+    private ByteBuffer window(long offset, int length) throws IOException {
+        if (map == null || offset < mapOffset || offset + length > mapOffset + map.capacity()) {
+            long end = Math.min(channel.size(), offset + Math.max(length, Segment.WINDOW));
+            map = channel.map(FileChannel.MapMode.READ_ONLY, offset, end - offset);
+            mapOffset = offset;
+        }
+        ByteBuffer buffer = map.duplicate();
+        buffer.position((int) (offset - mapOffset));
+        return buffer;
+    }
+
+    private long appendBlob(byte[] hash, Blob blob, byte[] data) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(BLOB_HEADER + data.length);
+        record.putInt(record.capacity() - 4).put(BLOB).put(hash);
+        record.put((byte) (blob.compressed ? 1 : 0)).putInt(blob.inflatedLength).putLong(blob.references);
+        record.put(data).flip();
+        return append(record) + BLOB_HEADER;
+    }
+
+    private void appendReference(byte[] hash, int delta) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(REFERENCE_SIZE);
+        record.putInt(REFERENCE_SIZE - 4).put(REFERENCE).put(hash).putInt(delta).flip();
+        append(record);
+    }
+
+    /**
+     * Appends a record.
+     * @return the offset of the record
+     */
+    private long append(ByteBuffer record) throws IOException {
+        long offset = size;
+        long position = size;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        size = position;
+        dirty = true;
+        return offset;
+    }
+
+    /**
+     * Copies the live blobs with their reference count to a new file replacing the current one.
+     */
+    private void rewrite() throws IOException {
+        File target = new File(file.getPath() + ".tmp");
+        FileChannel out = new RandomAccessFile(target, "rw").getChannel();
+        try {
+            out.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(4);
+            header.putInt(MAGIC).flip();
+            long position = out.write(header, 0);
+            for (Map.Entry<ByteBuffer, Blob> entry : blobs.entrySet()) {
+                Blob blob = entry.getValue();
+                ByteBuffer record = ByteBuffer.allocate(BLOB_HEADER);
+                record.putInt(BLOB_HEADER + blob.length - 4).put(BLOB).put(entry.getKey().array());
+                record.put((byte) (blob.compressed ? 1 : 0)).putInt(blob.inflatedLength).putLong(blob.references).flip();
+                while (record.hasRemaining()) {
+                    position += out.write(record, position);
+                }
+                long copied = 0;
+                while (copied < blob.length) {
+                    copied += channel.transferTo(blob.offset + copied, blob.length - copied, out.position(position + copied));
+                }
+                blob.offset = position;
+                position += blob.length;
+            }
+            out.force(true);
+            size = position;
+        } finally {
+            out.close();
+        }
+        channel.close();
+        if (!target.renameTo(file)) {
+            file.delete();
+            if (!target.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        }
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        dirty = false;
+    }
+
+    private static byte[] hash(byte[] value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] value) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(value);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(value.length);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate(byte[] data, int length) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] value = new byte[length];
+            int inflated = 0;
+            while (inflated < length && !inflater.finished() && !inflater.needsInput()) {
+                inflated += inflater.inflate(value, inflated, length - inflated);
+            }
+            if (inflated != length) {
+                throw new IOException("Corrupted blob in " + file);
+            }
+            return value;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted blob in " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String hex(byte[] hash) {
+        StringBuilder text = new StringBuilder(hash.length * 2);
+        for (int i = 0; i < hash.length; i++) {
+            text.append(Character.forDigit((hash[i] >> 4) & 0xf, 16)).append(Character.forDigit(hash[i] & 0xf, 16));
+        }
+        return text.toString();
+    }
+}
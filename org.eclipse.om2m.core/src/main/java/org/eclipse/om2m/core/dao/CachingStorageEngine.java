@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.Resource;
+
+/**
+ * {@link StorageEngine} reading the resources through a {@link ResourceCache}. The resources found by
+ * uri are cached until they are stored or deleted again, so that the parents resolved on each request
+ * are no longer queried. ContentInstances are left to the underlying engine, which reads them from
+ * their segments.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class CachingStorageEngine implements StorageEngine {
+    /** Engine storing the resources */
+    private final StorageEngine engine;
+    /** Cache of the resources found by uri */
+    private final ResourceCache cache;
+
+    /**
+     * Creates an engine reading through a cache.
+     * @param engine - engine storing the resources
+     * @param cache - cache of the resources found by uri
+     */
+    public CachingStorageEngine(StorageEngine engine, ResourceCache cache) {
+        this.engine = engine;
+        this.cache = cache;
+    }
+
+    public void store(Resource resource) {
+        engine.store(resource);
+        cache.invalidate(resource.getUri());
+    }
+
+    public void delete(Resource resource) {
+        engine.delete(resource);
+        cache.invalidate(resource.getUri());
+    }
+
+    public void deleteSubtree(String uri) {
+        engine.deleteSubtree(uri);
+        cache.invalidateSubtree(uri);
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri) {
+        if (ContentInstance.class.isAssignableFrom(type)) {
+            return engine.find(type, uri);
+        }
+        T resource = cache.get(type, uri);
+        if (resource == null) {
+            long version = cache.version();
+            resource = engine.find(type, uri);
+            if (!(resource instanceof ContentInstance)) {
+                cache.put(resource, version);
+            }
+        }
+        return resource;
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+        if (projection == Projection.FULL) {
+            return find(type, uri);
+        }
+        // A cached resource holds every projection, a projected one is not cached
+        T resource = ContentInstance.class.isAssignableFrom(type) ? null : cache.get(type, uri);
+        return resource != null ? resource : engine.find(type, uri, projection);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+        return engine.findByPrefix(type, prefix);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+        return engine.findByPrefix(type, prefix, projection);
+    }
+
+    public <T extends Resource> T findOldest(Class<T> type, String prefix) {
+        return engine.findOldest(type, prefix);
+    }
+
+    public <T extends Resource> T findLatest(Class<T> type, String prefix) {
+        return engine.findLatest(type, prefix);
+    }
+
+    public <T extends Resource> List<T> findOldest(Class<T> type, String prefix, int count) {
+        return engine.findOldest(type, prefix, count);
+    }
+
+    public int deleteOldest(Class<? extends Resource> type, String prefix, int count) {
+        int deleted = engine.deleteOldest(type, prefix, count);
+        if (deleted > 0 && !ContentInstance.class.isAssignableFrom(type)) {
+            cache.invalidateSubtree(prefix);
+        }
+        return deleted;
+    }
+
+    public long[] countInstances(String uri) {
+        return engine.countInstances(uri);
+    }
+
+    public StorageSession openSession() {
+        return engine.openSession();
+    }
+
+    public void commit() {
+        engine.commit();
+    }
+
+    public void clear() {
+        engine.clear();
+        cache.clear();
+    }
+
+    public void close() {
+        cache.clear();
+        engine.close();
+    }
+}
@@ -0,0 +1,433 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+
+/**
+ * Archived {@link ContentInstance} resources of one contentInstances collection, older than the ones
+ * of its {@link Segment}. The {@link Archive} files are immutable: the deleted instances are listed in
+ * a deletions file, and an archive is deleted with its entries once all its instances are.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+class ColdTier {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Uri of the contentInstances collection */
+    private final String uri;
+    /** File listing the deleted instances, one archive number and instance name by line */
+    private final File deletionsFile;
+    /** Archives, oldest first */
+    private final List<Archive> archives = new ArrayList<Archive>();
+    /** Deleted instance names by archive number */
+    private final Map<Long, Set<String>> deleted = new HashMap<Long, Set<String>>();
+    /** Rank in the oldest archive before which all the instances are deleted */
+    private int head;
+    /** Highest archive number in use, including the deletions left by a crash */
+    private long lastNumber;
+    /** Appends to the deletions file, opened on the first deletion */
+    private FileOutputStream deletions;
+    /** Whether appended deletions are not forced to the disk yet */
+    private boolean dirty;
+    /** Store of the large payloads, null if the records keep them */
+    private final BlobStore blobs;
+    /** Hashes of the payloads of the deleted instances, released once the deletions are forced */
+    private final List<byte[]> released = new ArrayList<byte[]>();
+
+    /**
+     * Creates the tier of a collection, loading its deletions.
+     * @param deletionsFile - file listing the deleted instances
+     * @param uri - uri of the contentInstances collection
+     * @param blobs - store of the large payloads, null if the records keep them
+     * @throws IOException if the deletions cannot be read
+     */
+    ColdTier(File deletionsFile, String uri, BlobStore blobs) throws IOException {
+        this.deletionsFile = deletionsFile;
+        this.uri = uri;
+        this.blobs = blobs;
+        if (deletionsFile.exists()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(deletionsFile), UTF8));
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    if (tab != -1) {
+                        long number = Long.parseLong(line.substring(0, tab));
+                        deletedNames(number).add(line.substring(tab + 1));
+                        lastNumber = Math.max(lastNumber, number);
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /** Returns the uri of the contentInstances collection. */
+    String getUri() {
+        return uri;
+    }
+
+    /**
+     * Adds an archive, newer than the ones of the tier unless they are being opened.
+     * @param archive - archive of the collection
+     */
+    synchronized void add(Archive archive) {
+        int index = archives.size();
+        while (index > 0 && archives.get(index - 1).getNumber() > archive.getNumber()) {
+            index--;
+        }
+        archives.add(index, archive);
+        lastNumber = Math.max(lastNumber, archive.getNumber());
+        if (index == 0) {
+            head = 0;
+        }
+    }
+
+    /** Returns the number of the next archive, never one of a deleted archive. */
+    synchronized long nextNumber() {
+        return lastNumber + 1;
+    }
+
+    /** Returns the newest archive, null if there is none. */
+    synchronized Archive newest() {
+        return archives.isEmpty() ? null : archives.get(archives.size() - 1);
+    }
+
+    /**
+     * Reads an archived instance.
+     * @param name - instance name
+     * @return the archived instance otherwise null
+     * @throws IOException if an archive cannot be read
+     */
+    synchronized ContentInstance get(String name) throws IOException {
+        for (Archive archive : archives) {
+            int rank = archive.rank(name);
+            if (rank != -1) {
+                return isDeleted(archive, name) ? null : archive.read(rank);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the archived instances in creation order.
+     * @param prefix - name prefix of the instances to read, empty for all of them
+     * @return the archived instances
+     * @throws IOException if an archive cannot be read
+     */
+    synchronized List<ContentInstance> list(String prefix) throws IOException {
+        List<ContentInstance> result = new ArrayList<ContentInstance>();
+        for (Archive archive : archives) {
+            for (int rank = 0; rank < archive.size(); rank++) {
+                String name = archive.name(rank);
+                if (name.startsWith(prefix) && !isDeleted(archive, name)) {
+                    result.add(archive.read(rank));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the oldest archived instance.
+     * @return the first created instance otherwise null
+     * @throws IOException if the archive cannot be read
+     */
+    synchronized ContentInstance first() throws IOException {
+        if (archives.isEmpty()) {
+            return null;
+        }
+        // The archives whose instances are all deleted are deleted
+        Archive oldest = archives.get(0);
+        while (isDeleted(oldest, oldest.name(head))) {
+            head++;
+        }
+        return oldest.read(head);
+    }
+
+    /**
+     * Reads the oldest archived instances, in creation order.
+     * @param max - maximum number of instances to read
+     * @return the first created instances
+     * @throws IOException if an archive cannot be read
+     */
+    synchronized List<ContentInstance> oldest(int max) throws IOException {
+        List<ContentInstance> result = new ArrayList<ContentInstance>();
+        for (int index = 0; index < archives.size() && result.size() < max; index++) {
+            Archive archive = archives.get(index);
+            for (int rank = index == 0 ? head : 0; rank < archive.size() && result.size() < max; rank++) {
+                if (!isDeleted(archive, archive.name(rank))) {
+                    result.add(archive.read(rank));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the archived instances and sums their content sizes from the archive indexes, without
+     * reading the instances.
+     * @return the number of instances and the sum of their content sizes
+     * @throws IOException if an archive index cannot be read
+     */
+    synchronized long[] count() throws IOException {
+        long[] counted = new long[2];
+        for (int index = 0; index < archives.size(); index++) {
+            Archive archive = archives.get(index);
+            for (int rank = index == 0 ? head : 0; rank < archive.size(); rank++) {
+                if (!isDeleted(archive, archive.name(rank))) {
+                    counted[0]++;
+                    counted[1] += archive.contentSize(rank);
+                }
+            }
+        }
+        return counted;
+    }
+
+    /**
+     * Reads the latest archived instance.
+     * @return the last created instance otherwise null
+     * @throws IOException if the archive cannot be read
+     */
+    synchronized ContentInstance last() throws IOException {
+        for (int index = archives.size() - 1; index >= 0; index--) {
+            Archive archive = archives.get(index);
+            for (int rank = archive.size() - 1; rank >= 0; rank--) {
+                if (!isDeleted(archive, archive.name(rank))) {
+                    return archive.read(rank);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Deletes an archived instance.
+     * @param name - instance name
+     * @return true if the instance was archived
+     * @throws IOException if the deletion cannot be written
+     */
+    synchronized boolean delete(String name) throws IOException {
+        for (int index = 0; index < archives.size(); index++) {
+            Archive archive = archives.get(index);
+            int rank = archive.rank(name);
+            if (rank == -1) {
+                continue;
+            }
+            Set<String> names = deletedNames(archive.getNumber());
+            if (!names.add(name)) {
+                return false;
+            }
+            release(archive, rank);
+            if (names.size() < archive.size()) {
+                if (deletions == null) {
+                    deletions = new FileOutputStream(deletionsFile, true);
+                }
+                deletions.write((archive.getNumber() + "\t" + name + "\n").getBytes(UTF8));
+                dirty = true;
+            } else {
+                archives.remove(index);
+                deleted.remove(archive.getNumber());
+                if (index == 0) {
+                    head = 0;
+                }
+                archive.destroy();
+                rewriteDeletions();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Deletes the oldest archived instances, appending their deletions at once.
+     * @param count - number of instances to delete
+     * @return number of deleted instances
+     * @throws IOException if the deletions cannot be written
+     */
+    synchronized int deleteOldest(int count) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        boolean destroyed = false;
+        int deletedCount = 0;
+        while (deletedCount < count && !archives.isEmpty()) {
+            Archive archive = archives.get(0);
+            Set<String> names = deletedNames(archive.getNumber());
+            for (int rank = head; rank < archive.size() && deletedCount < count; rank++) {
+                String name = archive.name(rank);
+                if (names.add(name)) {
+                    release(archive, rank);
+                    lines.append(archive.getNumber()).append('\t').append(name).append('\n');
+                    deletedCount++;
+                }
+            }
+            if (names.size() < archive.size()) {
+                break;
+            }
+            archives.remove(0);
+            deleted.remove(archive.getNumber());
+            head = 0;
+            archive.destroy();
+            destroyed = true;
+        }
+        if (destroyed) {
+            rewriteDeletions();
+        } else if (lines.length() > 0) {
+            if (deletions == null) {
+                deletions = new FileOutputStream(deletionsFile, true);
+            }
+            deletions.write(lines.toString().getBytes(UTF8));
+            dirty = true;
+        }
+        return deletedCount;
+    }
+
+    /**
+     * Forces the appended deletions to the disk, then releases the payloads of the deleted instances.
+     * @throws IOException if the file cannot be synchronized
+     */
+    synchronized void force() throws IOException {
+        if (dirty) {
+            deletions.getChannel().force(false);
+            dirty = false;
+        }
+        releaseForced();
+    }
+
+    /**
+     * Closes the deletions file.
+     * @throws IOException if the file cannot be closed
+     */
+    synchronized void close() throws IOException {
+        if (deletions != null) {
+            deletions.close();
+            deletions = null;
+        }
+        dirty = false;
+    }
+
+    /**
+     * Deletes the archives and the deletions file, releasing the payloads of their instances.
+     * @throws IOException if a file cannot be deleted
+     */
+    synchronized void destroy() throws IOException {
+        close();
+        for (Archive archive : archives) {
+            for (int rank = 0; rank < archive.size(); rank++) {
+                byte[] reference = !isDeleted(archive, archive.name(rank)) ? archive.reference(rank) : null;
+                if (reference != null) {
+                    released.add(reference);
+                }
+            }
+            archive.destroy();
+        }
+        archives.clear();
+        deleted.clear();
+        if (!deletionsFile.delete() && deletionsFile.exists()) {
+            throw new IOException("Cannot delete " + deletionsFile);
+        }
+        releaseForced();
+    }
+
+    /**
+     * Queues the release of the payload of a deleted archived instance.
+     */
+    private void release(Archive archive, int rank) throws IOException {
+        byte[] reference = archive.reference(rank);
+        if (reference != null) {
+            released.add(reference);
+        }
+    }
+
+    /**
+     * Releases the payloads of the instances whose deletion is on the disk.
+     */
+    private void releaseForced() throws IOException {
+        for (Iterator<byte[]> references = released.iterator(); references.hasNext();) {
+            blobs.release(references.next());
+            references.remove();
+        }
+    }
+
+    private boolean isDeleted(Archive archive, String name) {
+        Set<String> names = deleted.get(archive.getNumber());
+        return names != null && names.contains(name);
+    }
+
+    private Set<String> deletedNames(long number) {
+        Set<String> names = deleted.get(number);
+        if (names == null) {
+            names = new HashSet<String>();
+            deleted.put(number, names);
+        }
+        return names;
+    }
+
+    /**
+     * Rewrites the deletions file without the entries of the deleted archives.
+     */
+    private void rewriteDeletions() throws IOException {
+        close();
+        if (deleted.isEmpty()) {
+            if (!deletionsFile.delete() && deletionsFile.exists()) {
+                throw new IOException("Cannot delete " + deletionsFile);
+            }
+            return;
+        }
+        File target = new File(deletionsFile.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(target);
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (Map.Entry<Long, Set<String>> entry : deleted.entrySet()) {
+                for (String name : entry.getValue()) {
+                    lines.append(entry.getKey()).append('\t').append(name).append('\n');
+                }
+            }
+            out.write(lines.toString().getBytes(UTF8));
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!target.renameTo(deletionsFile)) {
+            deletionsFile.delete();
+            if (!target.renameTo(deletionsFile)) {
+                throw new IOException("Cannot rename " + target + " to " + deletionsFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.utils.DateConverter;
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * Keeps the aggregates of the {@link ContentInstances} collections (currentNrOfInstances,
+ * currentByteSize and lastModifiedTime) in memory, so that adding or deleting an instance does not
+ * rewrite its parent. The aggregates are overlaid on the collections read from the storage, and written
+ * back to the storage by {@link #flush()} with each group commit. After a clean shutdown, marked by
+ * {@link #close()}, the aggregates stored in a collection are exact and are read when it is first used;
+ * otherwise they are counted from the indexes of the engine.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class CollectionCounters {
+
+    /**
+     * Lazily creates the counters of the shared storage engine.
+     */
+    private static class CollectionCountersHolder {
+        private static final CollectionCounters COUNTERS = new CollectionCounters(DAOFactory.getStorageEngine(),
+                new File(Constants.DB_FILE + "-counters"));
+    }
+
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(CollectionCounters.class);
+    /** Storage of the collections and their instances */
+    private final StorageEngine engine;
+    /** File marking a clean shutdown, null to always count the instances */
+    private final File marker;
+    /** Whether the storage was closed cleanly, so that the stored aggregates are exact */
+    private final boolean clean;
+    /** Collections changed by replicated writes, whose stored aggregates are counted again */
+    private final Set<String> stale = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    /** Whether the aggregates of every collection were loaded since the last replicated write */
+    private volatile boolean complete;
+    /** Aggregates by collection uri */
+    private final Map<String, Counters> counters = new ConcurrentHashMap<String, Counters>();
+
+    /**
+     * Aggregates of a collection.
+     */
+    private static final class Counters {
+        final AtomicLong instances = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        volatile String lastModifiedTime;
+        /** Whether the aggregates were read or counted from the storage */
+        volatile boolean loaded;
+        /** Whether the aggregates changed since the last flush */
+        final AtomicBoolean dirty = new AtomicBoolean();
+    }
+
+    /**
+     * Creates the counters of the collections stored by an engine.
+     * @param engine - storage of the collections and their instances
+     */
+    public CollectionCounters(StorageEngine engine) {
+        this(engine, null);
+    }
+
+    /**
+     * Creates the counters of the collections stored by an engine, reading the stored aggregates if the
+     * engine was closed cleanly. The marker is consumed, so that a crash leaves no marker behind.
+     * @param engine - storage of the collections and their instances
+     * @param marker - file marking a clean shutdown, null to always count the instances
+     */
+    public CollectionCounters(StorageEngine engine, File marker) {
+        this.engine = engine;
+        this.marker = marker;
+        this.clean = marker != null && marker.delete();
+    }
+
+    /**
+     * Returns the counters of the storage engine shared by the DAOs.
+     * @return {@link CollectionCounters} instance
+     */
+    public static CollectionCounters getInstance() {
+        return CollectionCountersHolder.COUNTERS;
+    }
+
+    /**
+     * Counts instances added to or deleted from a collection, and updates its lastModifiedTime. It must
+     * be called before the instances are stored or deleted, so that a rebuild does not count them twice.
+     * @param uri - collection uri
+     * @param instances - number of added instances, negative when deleted
+     * @param bytes - size of the added contents, negative when deleted
+     */
+    public void add(String uri, long instances, long bytes) {
+        Counters aggregates = load(uri);
+        if (aggregates != null) {
+            aggregates.instances.addAndGet(instances);
+            aggregates.bytes.addAndGet(bytes);
+            aggregates.lastModifiedTime = DateConverter.toXMLGregorianCalendar(new Date()).toString();
+            aggregates.dirty.set(true);
+        }
+    }
+
+    /**
+     * Overlays the current aggregates on a collection read from the storage.
+     * @param contentInstances - collection to update, possibly null
+     * @return the updated collection
+     */
+    public ContentInstances apply(ContentInstances contentInstances) {
+        Counters aggregates = contentInstances != null ? load(contentInstances.getUri()) : null;
+        if (aggregates != null) {
+            contentInstances.setCurrentNrOfInstances(aggregates.instances.get());
+            contentInstances.setCurrentByteSize(aggregates.bytes.get());
+            contentInstances.setLastModifiedTime(aggregates.lastModifiedTime);
+        }
+        return contentInstances;
+    }
+
+    /**
+     * Forgets the aggregates of a created or deleted collection.
+     * @param uri - collection uri
+     */
+    public void remove(String uri) {
+        counters.remove(uri);
+    }
+
+    /**
+     * Forgets the aggregates of a collection changed by replicated writes, so that they are counted from
+     * its instances rather than read from the storage.
+     * @param uri - collection uri
+     */
+    public void invalidate(String uri) {
+        complete = false;
+        stale.add(uri);
+        counters.remove(uri);
+    }
+
+    /**
+     * Forgets the aggregates of the collections of a deleted subtree.
+     * @param uri - subtree root uri
+     */
+    public void removeSubtree(String uri) {
+        for (String collection : counters.keySet()) {
+            if (collection.equals(uri) || collection.startsWith(uri + "/")) {
+                counters.remove(collection);
+            }
+        }
+    }
+
+    /**
+     * Stores the aggregates changed since the last flush in their collections, without committing.
+     */
+    public void flush() {
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            Counters aggregates = entry.getValue();
+            if (aggregates.dirty.compareAndSet(true, false)) {
+                ContentInstances contentInstances = engine.find(ContentInstances.class, entry.getKey());
+                if (contentInstances == null) {
+                    counters.remove(entry.getKey());
+                    continue;
+                }
+                contentInstances.setCurrentNrOfInstances(aggregates.instances.get());
+                contentInstances.setCurrentByteSize(aggregates.bytes.get());
+                contentInstances.setLastModifiedTime(aggregates.lastModifiedTime);
+                engine.store(contentInstances);
+            }
+        }
+    }
+
+    /**
+     * Loads the aggregates of the collections not used yet whose stored aggregates may be wrong, so that
+     * the next flush makes all the stored aggregates exact. It is called before the last commit.
+     */
+    public void loadAll() {
+        if (marker == null || clean && stale.isEmpty()) {
+            return;
+        }
+        complete = true;
+        for (ContentInstances contentInstances : engine.findByPrefix(ContentInstances.class, "", Projection.ACCESS)) {
+            load(contentInstances.getUri());
+        }
+    }
+
+    /**
+     * Marks the shutdown as clean once the last flush is committed, so that the next start reads the
+     * stored aggregates. No marker is written while aggregates are still to be flushed.
+     */
+    public void close() {
+        if (marker == null || !complete && !(clean && stale.isEmpty())) {
+            return;
+        }
+        for (Counters aggregates : counters.values()) {
+            if (aggregates.dirty.get()) {
+                return;
+            }
+        }
+        try {
+            if (!marker.createNewFile()) {
+                LOGGER.warn("Clean shutdown already marked by " + marker);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot mark the clean shutdown in " + marker, e);
+        }
+    }
+
+    /**
+     * Counts contentInstances and sums their content sizes.
+     * @param contentInstances - instances to count
+     * @return the number of instances and the sum of their content sizes
+     */
+    static long[] count(List<ContentInstance> contentInstances) {
+        long[] counted = new long[2];
+        for (ContentInstance contentInstance : contentInstances) {
+            counted[0]++;
+            counted[1] += contentInstance.getContentSize() != null ? contentInstance.getContentSize() : 0;
+        }
+        return counted;
+    }
+
+    /**
+     * Returns the aggregates of a collection, read or counted from the storage when first used.
+     * @param uri - collection uri
+     * @return the aggregates, null if the collection is not stored
+     */
+    private Counters load(String uri) {
+        Counters aggregates = counters.get(uri);
+        if (aggregates == null) {
+            synchronized (counters) {
+                aggregates = counters.get(uri);
+                if (aggregates == null) {
+                    aggregates = new Counters();
+                    counters.put(uri, aggregates);
+                }
+            }
+        }
+        if (!aggregates.loaded) {
+            synchronized (aggregates) {
+                if (!aggregates.loaded) {
+                    ContentInstances contentInstances = engine.find(ContentInstances.class, uri);
+                    if (contentInstances == null) {
+                        counters.remove(uri);
+                        return null;
+                    }
+                    Long instances = contentInstances.getCurrentNrOfInstances();
+                    Long bytes = contentInstances.getCurrentByteSize();
+                    if (!clean || stale.contains(uri) || instances == null || bytes == null) {
+                        long[] counted = engine.countInstances(uri);
+                        // Store the counted aggregates with the next flush when they differ
+                        aggregates.dirty.set(!Long.valueOf(counted[0]).equals(instances) || !Long.valueOf(counted[1]).equals(bytes));
+                        instances = counted[0];
+                        bytes = counted[1];
+                    }
+                    aggregates.instances.set(instances);
+                    aggregates.bytes.set(bytes);
+                    aggregates.lastModifiedTime = contentInstances.getLastModifiedTime();
+                    aggregates.loaded = true;
+                }
+            }
+        }
+        return aggregates;
+    }
+}
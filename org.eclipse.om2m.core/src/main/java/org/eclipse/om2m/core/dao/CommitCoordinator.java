@@ -0,0 +1,343 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.router.SubtreeLockManager;
+
+/**
+ * Groups the commits requested by the DAOs. A single committer thread validates all the writes
+ * pending since the previous commit with one storage commit. The durability mode decides whether
+ * writers wait:
+ * <ul>
+ * <li>{@link Durability#SYNC}: each writer commits by itself, as before grouping</li>
+ * <li>{@link Durability#BATCH}: writers wait for the group commit covering their write. The
+ * committer starts as soon as writes are pending, so a group gathers the writes done while the
+ * previous commit ran.</li>
+ * <li>{@link Durability#ASYNC}: writers return at once. The committer lingers until a configured
+ * number of writes is pending or a configured delay expires, so writes are lost if the node stops
+ * within that delay.</li>
+ * </ul>
+ * When the storage commit fails, the writers waiting for it get the failure and their commits are
+ * not counted as validated.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class CommitCoordinator {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(CommitCoordinator.class);
+
+    /**
+     * Commit durability modes.
+     */
+    public enum Durability {
+        SYNC, BATCH, ASYNC;
+
+        /**
+         * Returns the durability mode of a name, ASYNC when unknown.
+         * @param value - mode name
+         * @return durability mode
+         */
+        public static Durability fromValue(String value) {
+            for (Durability durability : values()) {
+                if (durability.name().equalsIgnoreCase(value)) {
+                    return durability;
+                }
+            }
+            LOGGER.error("Unknown commit mode " + value + ", using async");
+            return ASYNC;
+        }
+    }
+
+    /**
+     * Lazily creates the coordinator of the shared storage engine.
+     */
+    private static class CommitCoordinatorHolder {
+        private static final CommitCoordinator COORDINATOR = new CommitCoordinator(
+                DAOFactory.getStorageEngine(), CollectionCounters.getInstance(),
+                Durability.fromValue(Constants.DB_COMMIT_MODE), Constants.DB_COMMIT_DELAY, Constants.DB_COMMIT_BATCH);
+    }
+
+    /**
+     * Commits validated by the same storage commit.
+     */
+    private static class Group {
+        /** Whether the storage commit of the group ran */
+        boolean done;
+        /** Storage commit failure, null if the group was committed */
+        RuntimeException failure;
+    }
+
+    /** Committed storage */
+    private final StorageEngine engine;
+    /** Aggregates flushed with each commit, possibly null */
+    private final CollectionCounters counters;
+    /** Durability mode */
+    private final Durability durability;
+    /** Maximum delay before pending writes are committed in async mode, in ns */
+    private final long maxDelay;
+    /** Number of pending writes committed without waiting for the delay */
+    private final int maxBatch;
+    /** Guards the sequences below */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Signals the committer that writes are pending */
+    private final Condition pending = lock.newCondition();
+    /** Signals the writers that a group commit completed */
+    private final Condition done = lock.newCondition();
+    /** Number of requested commits */
+    private long requested;
+    /** Number of requested commits a group commit ran for, successfully or not */
+    private long decided;
+    /** Number of requested commits validated by a group commit */
+    private long committed;
+    /** Number of requested commits a flush waits for */
+    private long flushed;
+    /** Number of commits run on the storage */
+    private long commits;
+    /** Group gathering the commits requested since the committer last took the pending ones */
+    private Group group = new Group();
+    /** Group of the last requested commit */
+    private Group last = group;
+
+    /**
+     * Creates a commit coordinator and starts its committer thread.
+     * @param engine - committed storage
+     * @param durability - durability mode
+     * @param maxDelay - maximum delay before pending writes are committed in async mode, in ms
+     * @param maxBatch - number of pending writes committed without waiting for the delay
+     */
+    public CommitCoordinator(StorageEngine engine, Durability durability, long maxDelay, int maxBatch) {
+        this(engine, null, durability, maxDelay, maxBatch);
+    }
+
+    /**
+     * Creates a commit coordinator flushing collection aggregates, and starts its committer thread.
+     * @param engine - committed storage
+     * @param counters - aggregates stored before each commit, possibly null
+     * @param durability - durability mode
+     * @param maxDelay - maximum delay before pending writes are committed in async mode, in ms
+     * @param maxBatch - number of pending writes committed without waiting for the delay
+     */
+    public CommitCoordinator(StorageEngine engine, CollectionCounters counters, Durability durability, long maxDelay, int maxBatch) {
+        this.engine = engine;
+        this.counters = counters;
+        this.durability = durability;
+        this.maxDelay = TimeUnit.MILLISECONDS.toNanos(maxDelay);
+        this.maxBatch = Math.max(1, maxBatch);
+        if (durability != Durability.SYNC) {
+            Thread committer = new Thread("om2m-committer") {
+                public void run() {
+                    while (true) {
+                        groupCommit();
+                    }
+                }
+            };
+            committer.setDaemon(true);
+            committer.start();
+        }
+    }
+
+    /**
+     * Returns the coordinator of the storage engine shared by the DAOs.
+     * @return {@link CommitCoordinator} instance
+     */
+    public static CommitCoordinator getInstance() {
+        return CommitCoordinatorHolder.COORDINATOR;
+    }
+
+    /**
+     * Requests the validation of the writes done so far.
+     * @throws RuntimeException in sync and batch modes, if the storage commit failed
+     */
+    public void commit() {
+        if (durability == Durability.SYNC) {
+            lock.lock();
+            try {
+                requested++;
+            } finally {
+                lock.unlock();
+            }
+            commitStorage();
+            lock.lock();
+            try {
+                committed++;
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        lock.lock();
+        try {
+            long ticket = ++requested;
+            long waiting = ticket - decided;
+            last = group;
+            // Wake the committer when it idles, or when it lingers on a full batch
+            if (waiting == 1 || waiting >= maxBatch) {
+                pending.signal();
+            }
+            if (durability == Durability.BATCH) {
+                awaitCommitted(last);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all the commits requested so far are validated.
+     * @throws IllegalStateException if the storage commit of the last requested commit failed
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            if (durability != Durability.SYNC && requested > decided) {
+                flushed = requested;
+                pending.signal();
+                awaitCommitted(last);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits the writes done so far on the calling thread, for a maintenance task holding the node
+     * quiesced: the committer would wait for the node to resume before committing them.
+     * @throws RuntimeException if the storage commit failed
+     */
+    public void commitQuiesced() {
+        commitStorage();
+    }
+
+    /**
+     * Returns the number of commits requested by the writers.
+     * @return number of requested commits
+     */
+    public long getRequested() {
+        lock.lock();
+        try {
+            return requested;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of commits actually run on the storage.
+     * @return number of storage commits
+     */
+    public long getCommits() {
+        lock.lock();
+        try {
+            return durability == Durability.SYNC ? committed : commits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the storage commit of a group ran. Must be called holding the lock.
+     * @throws IllegalStateException if the storage commit failed
+     */
+    private void awaitCommitted(Group waited) {
+        while (!waited.done) {
+            done.awaitUninterruptibly();
+        }
+        if (waited.failure != null) {
+            throw new IllegalStateException("Transaction commit failed", waited.failure);
+        }
+    }
+
+    /**
+     * Waits for pending writes, in async mode lingers until the batch is full, the delay expires or
+     * a flush is requested, then validates all of them with a single storage commit.
+     */
+    private void groupCommit() {
+        long target;
+        Group committing;
+        lock.lock();
+        try {
+            while (requested == decided) {
+                pending.awaitUninterruptibly();
+            }
+            long deadline = System.nanoTime() + maxDelay;
+            long left = durability == Durability.ASYNC ? maxDelay : 0;
+            while (requested - decided < maxBatch && flushed <= decided && left > 0) {
+                try {
+                    left = pending.awaitNanos(left);
+                } catch (InterruptedException e) {
+                    left = deadline - System.nanoTime();
+                }
+            }
+            target = requested;
+            committing = group;
+            group = new Group();
+        } finally {
+            lock.unlock();
+        }
+        RuntimeException failure = null;
+        try {
+            commitStorage();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        lock.lock();
+        try {
+            if (failure == null) {
+                committed += target - decided;
+                commits++;
+            }
+            decided = target;
+            committing.failure = failure;
+            committing.done = true;
+            done.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits the storage, preventing maintenance tasks from replacing it meanwhile.
+     * @throws RuntimeException if the storage commit failed
+     */
+    private void commitStorage() {
+        SubtreeLockManager.getInstance().lockSharedNode();
+        try {
+            if (counters != null) {
+                counters.flush();
+            }
+            engine.commit();
+            LOGGER.debug("Transaction committed successfully");
+        } catch (RuntimeException e) {
+            LOGGER.error("Transaction commit failed", e);
+            throw e;
+        } finally {
+            SubtreeLockManager.getInstance().unlockSharedNode();
+        }
+    }
+}
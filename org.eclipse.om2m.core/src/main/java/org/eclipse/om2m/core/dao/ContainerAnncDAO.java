@@ -25,9 +25,6 @@ import org.eclipse.om2m.commons.resource.ContainerAnnc;
 import org.eclipse.om2m.commons.resource.Containers;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link ContainerAnnc} resource persistence.
  *
@@ -46,15 +43,9 @@ public class ContainerAnncDAO extends DAO<ContainerAnnc> {
     public void create(ContainerAnnc resource) {
         // Store the created resource
         DB.store(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
@@ -68,18 +59,17 @@ public class ContainerAnncDAO extends DAO<ContainerAnnc> {
      * @return The requested {@link ContainerAnnc} resource otherwise null
      */
     public ContainerAnnc find(String uri) {
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(ContainerAnnc.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<ContainerAnnc> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(ContainerAnnc.class, uri);
+    }
+
+    /**
+     * Retrieves the {@link ContainerAnnc} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link ContainerAnnc} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link ContainerAnnc} resource otherwise null
+     */
+    public ContainerAnnc find(String uri, Projection projection) {
+        return DB.find(ContainerAnnc.class, uri, projection);
     }
 
     /**
@@ -98,15 +88,9 @@ public class ContainerAnncDAO extends DAO<ContainerAnnc> {
     public void update(ContainerAnnc resource) {
         // Store the updated resource
         DB.store(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
@@ -131,15 +115,9 @@ public class ContainerAnncDAO extends DAO<ContainerAnnc> {
     public void lazyDelete(ContainerAnnc resource) {
         // Delete the resource
         DB.delete(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
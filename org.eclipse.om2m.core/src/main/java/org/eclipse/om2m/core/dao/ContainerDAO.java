@@ -27,9 +27,6 @@ import org.eclipse.om2m.commons.resource.ContentInstances;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Container} resource persistence.
  *
@@ -60,15 +57,9 @@ public class ContainerDAO extends DAO<Container> {
         Subscriptions subscriptions = new Subscriptions();
         subscriptions.setUri(resource.getSubscriptionsReference());
         DAOFactory.getSubscriptionsDAO().create(subscriptions);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
@@ -82,18 +73,17 @@ public class ContainerDAO extends DAO<Container> {
      * @return The requested {@link Container} resource otherwise null
      */
     public Container find(String uri){
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Container.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Container> result=query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(Container.class, uri);
+    }
+
+    /**
+     * Retrieves the {@link Container} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link Container} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link Container} resource otherwise null
+     */
+    public Container find(String uri, Projection projection) {
+        return DB.find(Container.class, uri, projection);
     }
 
     /**
@@ -112,15 +102,9 @@ public class ContainerDAO extends DAO<Container> {
     public void update(Container resource) {
         // Store the updated resource
         DB.store(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
@@ -144,22 +128,12 @@ public class ContainerDAO extends DAO<Container> {
      * @param resource - The {@link Container} resource to delete
      */
     public void lazyDelete(Container resource){
-        //delete subscriptions
-        DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
-        //delete contentInstances
-        DAOFactory.getContentInstancesDAO().lazyDelete(DAOFactory.getContentInstancesDAO().lazyFind(resource.getContentInstancesReference()));
-        // Delete the resource
-        DB.delete(resource);
+        // Delete the resource with its subscriptions and contentInstances
+        lazyDeleteSubtree(resource.getUri());
 
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
@@ -19,6 +19,8 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.Container;
 import org.eclipse.om2m.commons.resource.ContainerAnnc;
 import org.eclipse.om2m.commons.resource.Containers;
@@ -27,10 +29,6 @@ import org.eclipse.om2m.commons.resource.LocationContainerAnnc;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Containers} collection resource persistence.
  *
@@ -67,62 +65,53 @@ public class ContainersDAO extends DAO<Containers> {
         Containers containers = lazyFind(uri);
 
         if(containers != null) {
-        	ObjectContainer session = DB.ext().openSession();
-
-            // Find Container sub-resources and add their references
-            containers.getContainerCollection().getNamedReference().clear();
-            Query queryContainer = session.query();
-            queryContainer.constrain(Container.class);
-            queryContainer.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<Container> resultContainer = queryContainer.execute();
-
-            for (int i = 0; i < resultContainer.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultContainer.get(i).getId());
-                reference.setValue(resultContainer.get(i).getUri());
-                containers.getContainerCollection().getNamedReference().add(reference);
-            }
-
-            // Find ContainerAnnc sub-resources and add their references
-            containers.getContainerAnncCollection().getNamedReference().clear();
-            Query queryContainerAnnc = session.query();
-            queryContainerAnnc.constrain(ContainerAnnc.class);
-            queryContainerAnnc.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<ContainerAnnc> resultContainerAnnc = queryContainerAnnc.execute();
-
-            for (int i = 0; i < resultContainerAnnc.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultContainerAnnc.get(i).getId());
-                reference.setValue(resultContainerAnnc.get(i).getUri());
-                containers.getContainerAnncCollection().getNamedReference().add(reference);
-            }
-
-            // Find LocationContainer sub-resources and add their references
-            containers.getLocationContainerCollection().getNamedReference().clear();
-            Query queryLocationContainer = session.query();
-            queryLocationContainer.constrain(LocationContainer.class);
-            queryLocationContainer.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<LocationContainer> resultLocationContainer = queryLocationContainer.execute();
-
-            for (int i = 0; i < resultLocationContainer.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultLocationContainer.get(i).getId());
-                reference.setValue(resultLocationContainer.get(i).getUri());
-                containers.getLocationContainerCollection().getNamedReference().add(reference);
-            }
-
-            // Find LocationContainerAnnc sub-resources and add their references
-            containers.getLocationContainerAnncCollection().getNamedReference().clear();
-            Query queryLocationContainerAnnc = session.query();
-            queryLocationContainerAnnc.constrain(LocationContainerAnnc.class);
-            queryLocationContainerAnnc.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<LocationContainerAnnc> resultLocationContainerAnnc = queryLocationContainerAnnc.execute();
-
-            for (int i = 0; i < resultLocationContainerAnnc.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultLocationContainerAnnc.get(i).getId());
-                reference.setValue(resultLocationContainerAnnc.get(i).getUri());
-                containers.getLocationContainerAnncCollection().getNamedReference().add(reference);
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                // Find Container sub-resources and add their references
+                containers.getContainerCollection().getNamedReference().clear();
+                List<Container> resultContainer = session.findByPrefix(Container.class, uri, Projection.ACCESS);
+
+                for (int i = 0; i < resultContainer.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultContainer.get(i).getId());
+                    reference.setValue(resultContainer.get(i).getUri());
+                    containers.getContainerCollection().getNamedReference().add(reference);
+                }
+
+                // Find ContainerAnnc sub-resources and add their references
+                containers.getContainerAnncCollection().getNamedReference().clear();
+                List<ContainerAnnc> resultContainerAnnc = session.findByPrefix(ContainerAnnc.class, uri, Projection.ACCESS);
+
+                for (int i = 0; i < resultContainerAnnc.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultContainerAnnc.get(i).getId());
+                    reference.setValue(resultContainerAnnc.get(i).getUri());
+                    containers.getContainerAnncCollection().getNamedReference().add(reference);
+                }
+
+                // Find LocationContainer sub-resources and add their references
+                containers.getLocationContainerCollection().getNamedReference().clear();
+                List<LocationContainer> resultLocationContainer = session.findByPrefix(LocationContainer.class, uri, Projection.ACCESS);
+
+                for (int i = 0; i < resultLocationContainer.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultLocationContainer.get(i).getId());
+                    reference.setValue(resultLocationContainer.get(i).getUri());
+                    containers.getLocationContainerCollection().getNamedReference().add(reference);
+                }
+
+                // Find LocationContainerAnnc sub-resources and add their references
+                containers.getLocationContainerAnncCollection().getNamedReference().clear();
+                List<LocationContainerAnnc> resultLocationContainerAnnc = session.findByPrefix(LocationContainerAnnc.class, uri, Projection.ACCESS);
+
+                for (int i = 0; i < resultLocationContainerAnnc.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultLocationContainerAnnc.get(i).getId());
+                    reference.setValue(resultLocationContainerAnnc.get(i).getUri());
+                    containers.getLocationContainerAnncCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return containers;
@@ -134,20 +123,12 @@ public class ContainersDAO extends DAO<Containers> {
      * @return The requested {@link Containers} collection resource otherwise null
      */
     public Containers lazyFind (String uri) {
-        // Create the query based on the uri constraint
-    	ObjectContainer session = DB.ext().openSession();
-
-        Query query = session.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(Containers.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -181,40 +162,28 @@ public class ContainersDAO extends DAO<Containers> {
         DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
 
         // Delete Container sub-resources
-        Query queryContainer = DB.query();
-        queryContainer.constrain(Container.class);
-        queryContainer.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<Container> resultContainer = queryContainer.execute();
+        List<Container> resultContainer = DB.findByPrefix(Container.class, resource.getUri());
 
         for (int i = 0; i < resultContainer.size(); i++) {
             DAOFactory.getContainerDAO().lazyDelete(resultContainer.get(i));
         }
 
         // Delete ContainerAnnc sub-resources
-        Query queryContainerAnnc = DB.query();
-        queryContainerAnnc.constrain(ContainerAnnc.class);
-        queryContainerAnnc.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<ContainerAnnc> resultContainerAnnc = queryContainerAnnc.execute();
+        List<ContainerAnnc> resultContainerAnnc = DB.findByPrefix(ContainerAnnc.class, resource.getUri());
 
         for (int i = 0; i < resultContainerAnnc.size(); i++) {
             DAOFactory.getContainerAnncDAO().lazyDelete(resultContainerAnnc.get(i));
         }
 
         // Delete locationContainer sub-resources
-        Query queryLocationContainer = DB.query();
-        queryLocationContainer.constrain(LocationContainer.class);
-        queryLocationContainer.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<LocationContainer> resultLocationContainer = queryLocationContainer.execute();
+        List<LocationContainer> resultLocationContainer = DB.findByPrefix(LocationContainer.class, resource.getUri());
 
         for (int i = 0; i < resultLocationContainer.size(); i++) {
             DAOFactory.getLocationContainerDAO().lazyDelete(resultLocationContainer.get(i));
         }
 
         // Delete locationContainerAnnc sub-resources
-        Query queryLocationContainerAnnc = DB.query();
-        queryLocationContainerAnnc.constrain(LocationContainerAnnc.class);
-        queryLocationContainerAnnc.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<LocationContainerAnnc> resultLocationContainerAnnc = queryLocationContainerAnnc.execute();
+        List<LocationContainerAnnc> resultLocationContainerAnnc = DB.findByPrefix(LocationContainerAnnc.class, resource.getUri());
 
         for (int i = 0; i < resultLocationContainerAnnc.size(); i++) {
             DAOFactory.getLocationContainerAnncDAO().lazyDelete(resultLocationContainerAnnc.get(i));
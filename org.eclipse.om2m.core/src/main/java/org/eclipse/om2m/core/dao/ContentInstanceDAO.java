@@ -19,14 +19,9 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import java.util.Date;
+import java.util.List;
 
 import org.eclipse.om2m.commons.resource.ContentInstance;
-import org.eclipse.om2m.commons.resource.ContentInstances;
-import org.eclipse.om2m.commons.utils.DateConverter;
-
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
 
 /**
  * Implements CRUD Methods for {@link ContentInstance} resource persistence.
@@ -44,26 +39,10 @@ public class ContentInstanceDAO extends DAO<ContentInstance> {
      * @param resource - The {@link ContentInstance} resource to create
      */
     public void create(ContentInstance resource) {
+        // Increment the currentInstances and add ContentSize to currentSize of the ContentInstances
+        CollectionCounters.getInstance().add(resource.getUri().split("/"+resource.getId())[0], 1, resource.getContentSize());
     	 // Store the created resource
         DB.store(resource);
-        // Update the lastModifiedTime attribute of the parent
-        Query query = DB.query();
-        query.constrain(ContentInstances.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<ContentInstances> result = query.execute();
-		// Retrieve the first element corresponding to the researched resource
-		// if result is not empty
-		ContentInstances contentInstances = result.get(0);
-
-		contentInstances.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
-		// Add ContentSize to currentSize of the ContentInstances
-		contentInstances.setCurrentByteSize(contentInstances.getCurrentByteSize() + resource.getContentSize());
-		// Increment the currentInstances
-		contentInstances.setCurrentNrOfInstances(contentInstances.getCurrentNrOfInstances() + 1);
-		// Update
-		DB.store(contentInstances);
-
 		// Validate the current transaction
 		commit();    
     }
@@ -74,36 +53,12 @@ public class ContentInstanceDAO extends DAO<ContentInstance> {
      * @return The requested {@link ContentInstance} resource otherwise null
      */
     public ContentInstance find(String uri) {
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(ContentInstance.class);
-
         if("latest".equals(uri.split("contentInstances/")[1])){
-            query.descend("uri").constrain(uri.replaceAll("/latest/*", "")).startsWith(true);
-            ObjectSet<ContentInstance> result=query.execute();
-
-            if (!result.isEmpty()) {
-                return result.get(result.size()-1);
-            }
-
+            return DB.findLatest(ContentInstance.class, uri.replaceAll("/latest/*", ""));
         }else if ("oldest".equals(uri.split("contentInstances/")[1])){
-            query.descend("uri").constrain(uri.replaceAll("/oldest/*", "")).startsWith(true);
-            ObjectSet<ContentInstance> result=query.execute();
-
-            if (!result.isEmpty()) {
-                return result.get(0);
-            }
-        }else {
-            // Store all the founded resources
-            query.descend("uri").constrain(uri);
-            ObjectSet<ContentInstance> result = query.execute();
-            // Retrieve the first element corresponding to the researched resource if result is not empty
-            if (!result.isEmpty()) {
-                return result.get(0);
-            }
+            return DB.findOldest(ContentInstance.class, uri.replaceAll("/oldest/*", ""));
         }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(ContentInstance.class, uri);
     }
 
     /**
@@ -120,19 +75,10 @@ public class ContentInstanceDAO extends DAO<ContentInstance> {
      * @param resource - The {@link ContentInstance} the updated resource
      */
     public void update(ContentInstance resource) {
+        // Update the lastModifiedTime attribute of the parent
+        CollectionCounters.getInstance().add(resource.getUri().split("/"+resource.getId())[0], 0, 0);
         // Store the updated resource
         DB.store(resource);
-        // Update the lastModifiedTime attribute of the parent
-        Query query = DB.query();
-        query.constrain(ContentInstances.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<ContentInstances> result = query.execute();
-		// Retrieve the first element corresponding to the researched resource
-		// if result is not empty
-		ContentInstances contentInstances = result.get(0);
-        contentInstances.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
-        DB.store(contentInstances);
         // Validate the current transaction
         commit();
     }
@@ -153,24 +99,36 @@ public class ContentInstanceDAO extends DAO<ContentInstance> {
      * @param resource - The {@link ContentInstance} resource to delete
      */
     public void lazyDelete(ContentInstance resource){
-    	// Update the lastModifiedTime attribute of the parent
-        Query query = DB.query();
-        query.constrain(ContentInstances.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<ContentInstances> result = query.execute();
-        // Update Parent
-        ContentInstances contentInstances = result.get(0);
-        // Update the lastModifiedTime attribute of the parent
-        contentInstances.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
-        //subtract ContentSize to currentSize of the ContentInstances
-        contentInstances.setCurrentByteSize(contentInstances.getCurrentByteSize()-resource.getContentSize());
-        //Decrement the currentInstances
-        contentInstances.setCurrentNrOfInstances(contentInstances.getCurrentNrOfInstances()-1);
-
-        //DAOFactory.getContentInstancesDAO().update(contentInstances);
-        DB.store(contentInstances);
+        //Decrement the currentInstances and subtract ContentSize to currentSize of the ContentInstances
+        CollectionCounters.getInstance().add(resource.getUri().split("/"+resource.getId())[0], -1, -resource.getContentSize());
         // Delete the resource
         DB.delete(resource);
     }
+
+    /**
+     * Retrieves the oldest {@link ContentInstance} resources of a collection from the Database
+     * @param uri - uri of the contentInstances collection
+     * @param count - maximum number of resources to retrieve
+     * @return The first created {@link ContentInstance} resources, oldest first
+     */
+    public List<ContentInstance> findOldest(String uri, int count) {
+        return DB.findOldest(ContentInstance.class, uri, count);
+    }
+
+    /**
+     * Deletes the oldest {@link ContentInstance} resources of a collection from the DataBase at once, without
+     * validating the transaction
+     * @param uri - uri of the contentInstances collection
+     * @param oldest - The first created {@link ContentInstance} resources of the collection to delete, oldest first
+     */
+    public void lazyDeleteOldest(String uri, List<ContentInstance> oldest){
+        long size = 0;
+        for (ContentInstance resource : oldest) {
+            size += resource.getContentSize() != null ? resource.getContentSize() : 0;
+        }
+        //Decrement the currentInstances and subtract ContentSize to currentSize of the ContentInstances
+        CollectionCounters.getInstance().add(uri, -oldest.size(), -size);
+        // Delete the resources
+        DB.deleteOldest(ContentInstance.class, uri, oldest.size());
+    }
 }
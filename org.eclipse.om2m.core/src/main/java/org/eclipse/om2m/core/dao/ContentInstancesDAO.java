@@ -19,14 +19,12 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.ContentInstance;
 import org.eclipse.om2m.commons.resource.ContentInstances;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link ContentInstances} collection resource persistence.
  *
@@ -48,6 +46,8 @@ public class ContentInstancesDAO extends DAO<ContentInstances> {
         resource.setSubscriptionsReference(resource.getUri()+"/subscriptions");
         // Store the created resource
         DB.store(resource);
+        // Forget the aggregates of a previous collection with the same uri
+        CollectionCounters.getInstance().remove(resource.getUri());
 
         // Subscriptions
         Subscriptions subscriptions = new Subscriptions();
@@ -64,15 +64,16 @@ public class ContentInstancesDAO extends DAO<ContentInstances> {
         ContentInstances contentInstances = lazyFind(uri);
 
         if(contentInstances != null){
-        	ObjectContainer session = DB.ext().openSession();
-            // Find contentInstance sub-resources and add their references
-            Query query = session.query();
-            query.constrain(ContentInstance.class);
-            query.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<ContentInstance> result = query.execute();
-            contentInstances.getContentInstanceCollection().getContentInstance().clear();
-            for(int i = 0; i < result.size(); i++) {
-                contentInstances.getContentInstanceCollection().getContentInstance().add(result.get(i));
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                // Find contentInstance sub-resources and add their references
+                List<ContentInstance> result = session.findByPrefix(ContentInstance.class, uri);
+                contentInstances.getContentInstanceCollection().getContentInstance().clear();
+                for(int i = 0; i < result.size(); i++) {
+                    contentInstances.getContentInstanceCollection().getContentInstance().add(result.get(i));
+                }
+            } finally {
+                session.close();
             }
         }
         return contentInstances;
@@ -87,22 +88,13 @@ public class ContentInstancesDAO extends DAO<ContentInstances> {
      */
     public ContentInstances lazyFind(String uri) {
 
-    	ObjectContainer session = DB.ext().openSession();
-
-        // Create the query based on the uri constraint
-        Query query = session.query();
-        query.constrain(ContentInstances.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<ContentInstances> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            // Overlay the aggregates counted in memory
+            return CollectionCounters.getInstance().apply(session.find(ContentInstances.class, uri));
+        } finally {
+            session.close();
         }
-
-        // Return null if the resource is not found
-        return null;
-        
     }
 
     /**
@@ -132,19 +124,7 @@ public class ContentInstancesDAO extends DAO<ContentInstances> {
      * @Param the {@link ContentInstances} collection resource to delete
      */
     public void lazyDelete(ContentInstances resource){
-        // Delete subscriptions
-        DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
-        // Delete contentInstance sub-resources
-        Query query = DB.query();
-        query.constrain(ContentInstance.class);
-        query.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<ContentInstance> resultContentInstance = query.execute();
-
-        for (int i = 0; i < resultContentInstance.size(); i++) {
-            DAOFactory.getContentInstanceDAO().lazyDelete(resultContentInstance.get(i));
-        }
-
-        // Delete the resource
-        DB.delete(resource);
+        // Delete the resource with its subscriptions and contentInstance sub-resources
+        lazyDeleteSubtree(resource.getUri());
     }
 }
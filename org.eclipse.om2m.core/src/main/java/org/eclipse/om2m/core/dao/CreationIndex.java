@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Creation order of the contentInstances of each indexed collection. The instance uris of a collection
+ * are linked from its oldest to its latest instance: creations append to the tail, updates keep their
+ * rank and deletions unlink in constant time, so that the head and the tail of a collection are read
+ * in constant time whatever the order in which the engine returns its resources.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+class CreationIndex {
+    /** Links of the indexed collections by collection uri */
+    private final TreeMap<String, Links> collections = new TreeMap<String, Links>();
+
+    /**
+     * Checks whether a collection is indexed.
+     * @param collection - collection uri
+     */
+    synchronized boolean contains(String collection) {
+        return collections.containsKey(collection);
+    }
+
+    /**
+     * Indexes a collection, replacing its previous links.
+     * @param collection - collection uri
+     * @param uris - uris of its instances in creation order
+     */
+    synchronized void load(String collection, List<String> uris) {
+        Links links = new Links();
+        for (String uri : uris) {
+            links.append(uri);
+        }
+        collections.put(collection, links);
+    }
+
+    /**
+     * Links an instance at the tail of its collection, unless it is already linked.
+     * @param uri - instance uri
+     * @param create - whether to index the collection when it is not yet
+     */
+    synchronized void add(String uri, boolean create) {
+        String collection = parent(uri);
+        Links links = collections.get(collection);
+        if (links == null) {
+            if (!create) {
+                return;
+            }
+            links = new Links();
+            collections.put(collection, links);
+        }
+        if (!links.nodes.containsKey(uri)) {
+            links.append(uri);
+        }
+    }
+
+    /**
+     * Unlinks an instance from its collection.
+     * @param uri - instance uri
+     */
+    synchronized void remove(String uri) {
+        Links links = collections.get(parent(uri));
+        if (links != null) {
+            links.unlink(uri);
+        }
+    }
+
+    /**
+     * Unlinks the resource stored under an uri and drops the collections of its subtree.
+     * @param uri - resource uri
+     */
+    synchronized void removeSubtree(String uri) {
+        remove(uri);
+        collections.remove(uri);
+        collections.subMap(uri + "/", true, uri + "/" + Character.MAX_VALUE, true).clear();
+    }
+
+    /**
+     * Gets the uri of the oldest instance of an indexed collection.
+     * @param collection - collection uri
+     * @return the instance uri, null when the collection is empty
+     */
+    synchronized String oldest(String collection) {
+        Links links = collections.get(collection);
+        return links != null && links.head != null ? links.head.uri : null;
+    }
+
+    /**
+     * Gets the uri of the latest instance of an indexed collection.
+     * @param collection - collection uri
+     * @return the instance uri, null when the collection is empty
+     */
+    synchronized String latest(String collection) {
+        Links links = collections.get(collection);
+        return links != null && links.tail != null ? links.tail.uri : null;
+    }
+
+    /**
+     * Gets the uris of the oldest instances of an indexed collection.
+     * @param collection - collection uri
+     * @param count - maximum number of uris
+     * @return the instance uris in creation order
+     */
+    synchronized List<String> oldest(String collection, int count) {
+        List<String> result = new ArrayList<String>();
+        Links links = collections.get(collection);
+        for (Node node = links != null ? links.head : null; node != null && result.size() < count; node = node.next) {
+            result.add(node.uri);
+        }
+        return result;
+    }
+
+    /**
+     * Drops every collection.
+     */
+    synchronized void clear() {
+        collections.clear();
+    }
+
+    /**
+     * Gets the collection uri of an instance uri.
+     */
+    static String parent(String uri) {
+        int slash = uri.lastIndexOf('/');
+        return slash < 0 ? "" : uri.substring(0, slash);
+    }
+
+    /**
+     * Instance uris of a collection linked in creation order.
+     */
+    private static final class Links {
+        /** Nodes by instance uri */
+        final Map<String, Node> nodes = new HashMap<String, Node>();
+        /** Oldest instance, null when empty */
+        Node head;
+        /** Latest instance, null when empty */
+        Node tail;
+
+        void append(String uri) {
+            Node node = new Node(uri);
+            node.previous = tail;
+            if (tail != null) {
+                tail.next = node;
+            } else {
+                head = node;
+            }
+            tail = node;
+            nodes.put(uri, node);
+        }
+
+        void unlink(String uri) {
+            Node node = nodes.remove(uri);
+            if (node == null) {
+                return;
+            }
+            if (node.previous != null) {
+                node.previous.next = node.next;
+            } else {
+                head = node.next;
+            }
+            if (node.next != null) {
+                node.next.previous = node.previous;
+            } else {
+                tail = node.previous;
+            }
+        }
+    }
+
+    /**
+     * Link of an instance uri.
+     */
+    private static final class Node {
+        final String uri;
+        Node previous;
+        Node next;
+
+        Node(String uri) {
+            this.uri = uri;
+        }
+    }
+}
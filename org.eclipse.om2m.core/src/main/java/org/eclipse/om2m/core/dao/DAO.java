@@ -19,12 +19,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-import org.eclipse.om2m.core.router.Router;
-
-import com.db4o.ObjectContainer;
-
 /**
  * <p>
  * The DAO (Data Object Access) Pattern is used to make separation between data
@@ -43,8 +37,7 @@ import com.db4o.ObjectContainer;
  */
 
 public abstract class DAO<T> {
-	private static Log LOGGER = LogFactory.getLog(DAO.class);
-	public static ObjectContainer DB = DBClientConnection.getInstance();
+	public static final StorageEngine DB = DAOFactory.getStorageEngine();
 	public static Object lock = new Object();
 	public static Object commitLock = new Object();
 
@@ -76,6 +69,33 @@ public abstract class DAO<T> {
 	 */
 	public abstract T lazyFind(String uri);
 
+	/**
+	 * Find resource method in database based on its uri, loading only a
+	 * projection of the resource. Partial projections default to the resource
+	 * without sub-resources references.
+	 * 
+	 * @param uri
+	 *            - The uri of the resource to find
+	 * @param projection
+	 *            - The part of the resource to load
+	 * @return The resource if it is found otherwise null
+	 */
+	public T find(String uri, Projection projection) {
+		return projection == Projection.FULL ? find(uri) : lazyFind(uri);
+	}
+
+	/**
+	 * Checks the existence of a resource in database, loading only its
+	 * attributes.
+	 * 
+	 * @param uri
+	 *            - The uri of the resource to check
+	 * @return true if the resource is found
+	 */
+	public boolean exists(String uri) {
+		return find(uri, Projection.ACCESS) != null;
+	}
+
 	/**
 	 * Abstract update resource method in database.
 	 * 
@@ -103,17 +123,21 @@ public abstract class DAO<T> {
 	public abstract void lazyDelete(T resource);
 
 	/**
-	 * Validates the transaction.
+	 * Deletes a resource with all the resources below it from the DataBase without validating the
+	 * transaction. The subtree disappears at once, while its storage is reclaimed in background.
+	 * 
+	 * @param uri
+	 *            - The uri of the resource to delete.
 	 */
-	public void commit() {
-		new Thread() {
-			public void run() {
-				Router.readWriteLock.readLock().lock();
+	public void lazyDeleteSubtree(String uri) {
+		DB.deleteSubtree(uri);
+		CollectionCounters.getInstance().removeSubtree(uri);
+	}
 
-				DB.commit();
-				LOGGER.info("Transaction committed successfully");
-				Router.readWriteLock.readLock().unlock();
-			}
-		}.start();
+	/**
+	 * Validates the transaction, grouped with the concurrent ones by the {@link CommitCoordinator}.
+	 */
+	public void commit() {
+		CommitCoordinator.getInstance().commit();
 	}
 }
@@ -19,6 +19,10 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.io.File;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.eclipse.om2m.commons.resource.AccessRight;
 import org.eclipse.om2m.commons.resource.AccessRightAnnc;
 import org.eclipse.om2m.commons.resource.AccessRights;
@@ -30,7 +34,6 @@ import org.eclipse.om2m.commons.resource.AttachedDevices;
 import org.eclipse.om2m.commons.resource.Container;
 import org.eclipse.om2m.commons.resource.ContainerAnnc;
 import org.eclipse.om2m.commons.resource.Containers;
-import org.eclipse.om2m.commons.resource.ContentInstance;
 import org.eclipse.om2m.commons.resource.ContentInstances;
 import org.eclipse.om2m.commons.resource.ExecInstance;
 import org.eclipse.om2m.commons.resource.ExecInstances;
@@ -54,6 +57,8 @@ import org.eclipse.om2m.commons.resource.SclBase;
 import org.eclipse.om2m.commons.resource.Scls;
 import org.eclipse.om2m.commons.resource.Subscription;
 import org.eclipse.om2m.commons.resource.Subscriptions;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.replication.ReplicationManager;
 
 /**
  * Pattern Factory
@@ -71,6 +76,82 @@ import org.eclipse.om2m.commons.resource.Subscriptions;
 
 public class DAOFactory {
 
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(DAOFactory.class);
+
+    /**
+     * Lazily resolves the storage engine configured by the org.eclipse.om2m.dbEngine property.
+     */
+    private static class StorageEngineHolder {
+        private static final StorageEngine ENGINE = newStorageEngine(Constants.DB_ENGINE);
+    }
+
+    /** Store of the contentInstances of the shared storage engine, null if it keeps them itself */
+    private static SegmentStore segmentStore;
+
+    /**
+     * Returns the storage engine shared by all the DAOs.
+     * @return {@link StorageEngine} instance
+     */
+    public static StorageEngine getStorageEngine(){
+        return StorageEngineHolder.ENGINE;
+    }
+
+    /**
+     * Returns the store of the contentInstances of the shared storage engine, to archive the old ones.
+     * @return {@link SegmentStore} instance, null with the in-memory engine
+     */
+    public static SegmentStore getSegmentStore(){
+        getStorageEngine();
+        return segmentStore;
+    }
+
+    /**
+     * Creates a storage engine.
+     * @param name - engine name: "memory" for the {@link InMemoryStorageEngine}, otherwise the {@link Db4oStorageEngine}
+     *        keeping the contentInstances in a {@link SegmentStore} and their payloads in a {@link BlobStore} unless
+     *        org.eclipse.om2m.dbSegmentsEnabled is false, sharded by a {@link ShardedStorageEngine} when
+     *        org.eclipse.om2m.dbShards is above 1. Deleted subtrees are reclaimed in
+     *        background by a {@link TombstonedStorageEngine}, replicated by the {@link ReplicationManager} when
+     *        org.eclipse.om2m.dbWal is set, and read through the shared {@link ResourceCache}
+     *        unless org.eclipse.om2m.dbCacheSize is 0.
+     * @return the new {@link StorageEngine}
+     */
+    static StorageEngine newStorageEngine(String name){
+        StorageEngine engine;
+        if("memory".equalsIgnoreCase(name)){
+            LOGGER.info("Using in-memory storage engine");
+            engine = new TombstonedStorageEngine(new InMemoryStorageEngine(), null);
+        }else{
+            if(!"db4o".equalsIgnoreCase(name)){
+                LOGGER.error("Unknown storage engine "+name+", using db4o");
+            }
+            engine = new Db4oStorageEngine();
+            if(Constants.DB_SHARDS > 1){
+                engine = new ShardedStorageEngine(new File(Constants.DB_SHARDS_DIRECTORY), engine, Constants.DB_SHARDS);
+            }
+            if(Constants.DB_SEGMENTS_ENABLED){
+                LOGGER.info("Using db4o storage engine with contentInstance segments");
+                BlobStore blobs = null;
+                if(Constants.DB_BLOB_THRESHOLD >= 0){
+                    blobs = new BlobStore(new File(Constants.DB_BLOBS), Constants.DB_BLOB_THRESHOLD, Constants.DB_BLOB_COMPRESSION);
+                }
+                segmentStore = new SegmentStore(new File(Constants.DB_SEGMENTS), blobs, Constants.DB_SEGMENTS_OPEN_FILES);
+                engine = new SegmentedStorageEngine(engine, segmentStore);
+            }else{
+                LOGGER.info("Using db4o storage engine");
+            }
+            engine = new TombstonedStorageEngine(engine, new File(Constants.DB_FILE+"-tombstones"));
+        }
+        if(!Constants.DB_WAL.isEmpty()){
+            engine = ReplicationManager.getInstance().replicate(engine);
+        }
+        if(Constants.DB_CACHE_SIZE > 0){
+            engine = new CachingStorageEngine(engine, ResourceCache.getInstance());
+        }
+        return engine;
+    }
+
     /**
      * Returns an instance of the {@link SclBaseDAO}
      * @return {@link SclBaseDAO} instance
@@ -171,7 +252,7 @@ public class DAOFactory {
      * Returns an instance of the {@link ContentInstanceDAO}
      * @return {@link ContentInstanceDAO} instance
      */
-    public static DAO<ContentInstance> getContentInstanceDAO() {
+    public static ContentInstanceDAO getContentInstanceDAO() {
         return new ContentInstanceDAO();
     }
 
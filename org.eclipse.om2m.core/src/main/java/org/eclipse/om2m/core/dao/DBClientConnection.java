@@ -19,8 +19,6 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
-import java.io.IOException;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.om2m.commons.resource.APoCPath;
@@ -54,13 +52,10 @@ import org.eclipse.om2m.commons.resource.SearchStrings;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.resource.TrpdtType;
 import org.eclipse.om2m.core.constants.Constants;
-import org.eclipse.om2m.core.router.Router;
 
 import com.db4o.Db4oEmbedded;
 import com.db4o.ObjectContainer;
 import com.db4o.config.EmbeddedConfiguration;
-import com.db4o.defragment.Defragment;
-import com.db4o.defragment.DefragmentConfig;
 import com.db4o.ext.Db4oException;
 
 
@@ -79,50 +74,18 @@ import com.db4o.ext.Db4oException;
 public class DBClientConnection {
     private static Log LOGGER = LogFactory.getLog(DBClientConnection.class);
 
-    private static ObjectContainer db;
+    private static volatile ObjectContainer db;
 
 
     /**
      * Open the connection with the DataBase
      */
     private DBClientConnection(){
-    		
             try {
                 db = Db4oEmbedded.openFile(getConfiguration(true), Constants.DB_FILE);
             } catch (Db4oException e) {
                 LOGGER.error("Database File locked",e);
             }
-            if(Constants.DB_DEFRAGMENT_PERIOD!=-1){
-            	LOGGER.error("Defragment DB enabled each "+ Constants.DB_DEFRAGMENT_PERIOD+" ms");
-				new Thread() {
-					public void run() {
-						while (true) {
-							try {
-								Thread.sleep(Constants.DB_DEFRAGMENT_PERIOD);
-							} catch (InterruptedException e) {
-								e.printStackTrace();
-							}
-	
-							Router.readWriteLock.writeLock().lock();
-							LOGGER.info("DB Defragmenting..");
-							DAO.DB.close();
-							try {
-								DefragmentConfig config = new DefragmentConfig(Constants.DB_FILE);
-								config.forceBackupDelete(true);
-								Defragment.defrag(config);
-							} catch (IOException e) {
-								e.printStackTrace();
-							}
-							DAO.DB = Db4oEmbedded.openFile(getConfiguration(false),
-									Constants.DB_FILE);
-							LOGGER.info("DB Defragmented");
-							Router.readWriteLock.writeLock().unlock();
-						}
-					}
-				}.start();
-            }else{
-            	LOGGER.error("Defragment DB disabled");
-            }
     }
 
     /**
@@ -136,6 +99,14 @@ public class DBClientConnection {
         return db;
     }
 
+    /**
+     * Replaces the DataBase connection, once the node is quiesced.
+     * @param container - the new connection
+     */
+    static void replace(ObjectContainer container) {
+        db = container;
+    }
+
     /**
      *  Closes DataBase connection.
      */
@@ -145,11 +116,12 @@ public class DBClientConnection {
         }
     }
     
-    public EmbeddedConfiguration getConfiguration(boolean isIndex){
+    public static EmbeddedConfiguration getConfiguration(boolean isIndex){
     	EmbeddedConfiguration configuration = Db4oEmbedded.newConfiguration();
         configuration.common().objectClass(Resource.class).objectField("uri").indexed(isIndex);
-        configuration.common().updateDepth(7);
-        configuration.common().activationDepth(7);
+        configuration.common().updateDepth(Projection.FULL.getDepth());
+        // Found resources are activated further by the lookups, to the depth of their projection
+        configuration.common().activationDepth(Projection.ACCESS.getDepth());
         configuration.common().objectClass(Application.class).cascadeOnUpdate(true);
         configuration.common().objectClass(Containers.class).maximumActivationDepth(0);
         configuration.common().objectClass(ContentInstances.class).maximumActivationDepth(0);
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.core.metrics.StorageMetrics;
+import org.eclipse.om2m.core.router.SubtreeLockManager;
+
+import com.db4o.Db4oEmbedded;
+import com.db4o.ObjectContainer;
+import com.db4o.ObjectSet;
+import com.db4o.query.Query;
+
+/**
+ * Compacts the db4o database online. The committed resources are copied into a new file in
+ * background while the uris of the resources written meanwhile are captured in a delta log. The
+ * delta is replayed on the new file until it is small, then the node is quiesced just long
+ * enough to replay the rest and swap the files. The uris are captured when the writes are committed
+ * by the {@link CommitCoordinator}, so that the writes of the requests in progress are never
+ * committed ahead of them. The compaction is abandoned when the writes
+ * outpace the replay.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class Db4oCompactor {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(Db4oCompactor.class);
+    /** Number of copied resources between two commits of the new file */
+    private static final int COPY_BATCH = 1000;
+    /** Delta size small enough to be replayed while the node is quiesced */
+    private static final int PAUSE_DELTA = 64;
+    /** Maximum number of background delta replays */
+    private static final int MAX_CATCH_UP = 16;
+    /** Compacted engine */
+    private final Db4oStorageEngine engine;
+    /** Database file */
+    private final String file;
+
+    /**
+     * Creates a compactor.
+     * @param engine - compacted engine
+     * @param file - database file of the engine
+     */
+    public Db4oCompactor(Db4oStorageEngine engine, String file) {
+        this.engine = engine;
+        this.file = file;
+    }
+
+    /**
+     * Starts a daemon thread compacting the database periodically.
+     * @param period - compaction period in ms
+     */
+    public void schedule(final long period) {
+        LOGGER.info("Online DB compaction enabled each " + period + " ms");
+        Thread compactor = new Thread("om2m-compactor") {
+            public void run() {
+                while (true) {
+                    try {
+                        Thread.sleep(period);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    compact();
+                }
+            }
+        };
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    /**
+     * Compacts the database.
+     * @return the time the node was quiesced in ns, otherwise -1 if the compaction failed
+     */
+    public long compact() {
+        File target = new File(file + ".compact");
+        target.delete();
+        LOGGER.info("DB compacting..");
+        Set<String> delta = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        ObjectContainer compacted = Db4oEmbedded.openFile(DBClientConnection.getConfiguration(true), target.getPath());
+        boolean swapped = false;
+        try {
+            engine.capture(delta);
+            // Writes committed before the capture started are part of the copied snapshot
+            CommitCoordinator.getInstance().flush();
+            long copied = copy(compacted);
+            long replayed = 0;
+            for (int i = 0; delta.size() > PAUSE_DELTA; i++) {
+                // Replayed uris are captured once committed: the flush commits the pending writes
+                CommitCoordinator.getInstance().flush();
+                List<String> uris = drain(delta);
+                replayed += replay(uris, compacted);
+                if (i == MAX_CATCH_UP || delta.size() >= uris.size()) {
+                    LOGGER.warn("DB compaction abandoned: writes outpace the replay");
+                    return -1;
+                }
+            }
+
+            long start = System.nanoTime();
+            long pause;
+            SubtreeLockManager.getInstance().quiesceNode();
+            try {
+                // The committer waits for the node to resume, the remaining writes are committed here
+                CommitCoordinator.getInstance().commitQuiesced();
+                replayed += replay(drain(delta), compacted);
+                engine.capture(null);
+                compacted.close();
+                DBClientConnection.getInstance().close();
+                // The database file is always either the current or the compacted one
+                File current = new File(file);
+                File backup = new File(file + ".bak");
+                backup.delete();
+                if (current.renameTo(backup)) {
+                    swapped = target.renameTo(current);
+                    if (!swapped) {
+                        backup.renameTo(current);
+                    }
+                }
+                DBClientConnection.replace(Db4oEmbedded.openFile(DBClientConnection.getConfiguration(true), file));
+                // Cached resources belong to the closed container
+                ResourceCache.getInstance().clear();
+                if (swapped) {
+                    backup.delete();
+                }
+            } finally {
+                pause = System.nanoTime() - start;
+                SubtreeLockManager.getInstance().resumeNode();
+            }
+            if (!swapped) {
+                LOGGER.error("Cannot replace " + file + ", DB compaction discarded");
+                return -1;
+            }
+            StorageMetrics.getInstance().recordCompaction(pause, copied, replayed);
+            LOGGER.info("DB compacted: " + copied + " resources copied, " + replayed + " replayed, node paused "
+                    + (pause / 1000) / 1000.0 + " ms");
+            return pause;
+        } catch (RuntimeException e) {
+            LOGGER.error("DB compaction failed", e);
+            return -1;
+        } finally {
+            if (!swapped) {
+                engine.capture(null);
+                compacted.close();
+                target.delete();
+            }
+        }
+    }
+
+    /**
+     * Copies the committed resources into the new file.
+     * @return number of copied resources
+     */
+    private long copy(ObjectContainer compacted) {
+        ObjectContainer session = DBClientConnection.getInstance().ext().openSession();
+        try {
+            Query query = session.query();
+            query.constrain(Resource.class);
+            ObjectSet<Resource> result = query.execute();
+            long copied = 0;
+            while (result.hasNext()) {
+                // Members left inactive would be stored empty in the new file
+                Resource resource = Db4oStorageEngine.activate(session, result.next(), Projection.FULL);
+                compacted.store(resource);
+                // Release the copied resource from both reference caches
+                compacted.ext().purge(resource);
+                session.ext().purge(resource);
+                if (++copied % COPY_BATCH == 0) {
+                    compacted.commit();
+                }
+            }
+            compacted.commit();
+            return copied;
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Replaces the resources of the given uris in the new file by their current committed state.
+     * @return number of replayed uris
+     */
+    private int replay(List<String> uris, ObjectContainer compacted) {
+        if (uris.isEmpty()) {
+            return 0;
+        }
+        ObjectContainer session = DBClientConnection.getInstance().ext().openSession();
+        try {
+            for (String uri : uris) {
+                for (Resource stale : query(compacted, uri)) {
+                    compacted.delete(stale);
+                }
+                for (Resource resource : query(session, uri)) {
+                    compacted.store(Db4oStorageEngine.activate(session, resource, Projection.FULL));
+                }
+            }
+            compacted.commit();
+            return uris.size();
+        } finally {
+            session.close();
+        }
+    }
+
+    private static ObjectSet<Resource> query(ObjectContainer db, String uri) {
+        Query query = db.query();
+        query.constrain(Resource.class);
+        query.descend("uri").constrain(uri);
+        return query.execute();
+    }
+
+    /**
+     * Removes and returns the captured uris.
+     */
+    private static List<String> drain(Set<String> delta) {
+        List<String> uris = new ArrayList<String>();
+        Iterator<String> iterator = delta.iterator();
+        while (iterator.hasNext()) {
+            uris.add(iterator.next());
+            iterator.remove();
+        }
+        return uris;
+    }
+}
@@ -0,0 +1,411 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.core.constants.Constants;
+
+import com.db4o.Db4oEmbedded;
+import com.db4o.ObjectContainer;
+import com.db4o.ObjectSet;
+import com.db4o.query.Query;
+
+/**
+ * {@link StorageEngine} backed by the embedded db4o database opened by {@link DBClientConnection}, or
+ * by a shard database file. The main database is compacted online by a {@link Db4oCompactor} when
+ * org.eclipse.om2m.dbDefragmentPeriod is set.
+ * <p>
+ * The database activates the found resources down to the {@link Projection#ACCESS} depth only: each
+ * lookup activates them further to the depth of its projection, {@link Projection#FULL} by default.
+ * <p>
+ * The oldest and latest contentInstances of a collection are found through a {@link CreationIndex},
+ * loaded from the database when the collection is first looked up, in the order of the creation times
+ * of its instances, and kept up to date by the later writes.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class Db4oStorageEngine implements StorageEngine {
+    /** Uris of the resources of the main database committed during a compaction, null otherwise */
+    private static volatile Set<String> delta;
+    /** Uris of the resources of the main database written since the last commit */
+    private static final Set<String> uncommitted = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    /** Creation order of the contentInstances of the main database */
+    private static final CreationIndex mainCreations = new CreationIndex();
+    /** Shard database, null for the main database of {@link DBClientConnection} */
+    private final ObjectContainer shard;
+    /** Creation order of the contentInstances of the database */
+    private final CreationIndex creations;
+
+    /**
+     * Opens the database and schedules its compaction.
+     */
+    public Db4oStorageEngine() {
+        shard = null;
+        creations = mainCreations;
+        DBClientConnection.getInstance();
+        if (Constants.DB_DEFRAGMENT_PERIOD != -1) {
+            new Db4oCompactor(this, Constants.DB_FILE).schedule(Constants.DB_DEFRAGMENT_PERIOD);
+        }
+    }
+
+    /**
+     * Opens a shard database file, with the configuration of the main database.
+     * @param file - shard database file
+     */
+    public Db4oStorageEngine(File file) {
+        shard = Db4oEmbedded.openFile(DBClientConnection.getConfiguration(true), file.getPath());
+        creations = new CreationIndex();
+    }
+
+    /**
+     * Gets the database of the engine.
+     */
+    private ObjectContainer db() {
+        return shard != null ? shard : DBClientConnection.getInstance();
+    }
+
+    public void store(Resource resource) {
+        db().store(resource);
+        capture(resource);
+        if (resource instanceof ContentInstance && resource.getUri() != null) {
+            creations.add(resource.getUri(), false);
+        }
+    }
+
+    public void delete(Resource resource) {
+        db().delete(resource);
+        capture(resource);
+        if (resource.getUri() != null) {
+            // A collection deleted alone is no longer indexed, its lookups falling back on the queries
+            if (resource instanceof ContentInstances) {
+                creations.removeSubtree(resource.getUri());
+            } else {
+                creations.remove(resource.getUri());
+            }
+        }
+    }
+
+    public void deleteSubtree(String uri) {
+        ObjectContainer db = db();
+        // Deletions cascade over the embedded objects whether they are activated or not
+        List<Resource> subtree = new ArrayList<Resource>(findByPrefix(db, Resource.class, uri + "/", Projection.ACCESS));
+        Resource root = find(db, Resource.class, uri, Projection.ACCESS);
+        if (root != null) {
+            subtree.add(root);
+        }
+        for (Resource resource : subtree) {
+            db.delete(resource);
+            capture(resource);
+        }
+        creations.removeSubtree(uri);
+    }
+
+    /**
+     * Starts or stops capturing the uris of the resources of the main database once their writes are
+     * committed, whichever engine commits them.
+     * @param delta - set receiving the uris, null to stop capturing
+     */
+    void capture(Set<String> delta) {
+        Db4oStorageEngine.delta = delta;
+    }
+
+    private void capture(Resource resource) {
+        if (shard == null && resource.getUri() != null) {
+            uncommitted.add(resource.getUri());
+        }
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri) {
+        return find(db(), type, uri, Projection.FULL);
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+        return find(db(), type, uri, projection);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+        return findByPrefix(db(), type, prefix, Projection.FULL);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+        return findByPrefix(db(), type, prefix, projection);
+    }
+
+    public <T extends Resource> T findOldest(Class<T> type, String prefix) {
+        if (indexed(type, prefix)) {
+            String uri = creations.oldest(prefix);
+            return uri != null ? find(type, uri) : null;
+        }
+        List<T> result = findByPrefix(type, prefix);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    public <T extends Resource> T findLatest(Class<T> type, String prefix) {
+        if (indexed(type, prefix)) {
+            String uri = creations.latest(prefix);
+            return uri != null ? find(type, uri) : null;
+        }
+        List<T> result = findByPrefix(type, prefix);
+        return result.isEmpty() ? null : result.get(result.size() - 1);
+    }
+
+    public <T extends Resource> List<T> findOldest(Class<T> type, String prefix, int count) {
+        if (indexed(type, prefix)) {
+            List<T> result = new ArrayList<T>();
+            for (String uri : creations.oldest(prefix, count)) {
+                T resource = find(type, uri);
+                if (resource != null) {
+                    result.add(resource);
+                }
+            }
+            return result;
+        }
+        List<T> result = findByPrefix(type, prefix);
+        return result.size() > count ? new ArrayList<T>(result.subList(0, count)) : result;
+    }
+
+    public int deleteOldest(Class<? extends Resource> type, String prefix, int count) {
+        List<? extends Resource> oldest = findOldest(type, prefix, count);
+        for (Resource resource : oldest) {
+            delete(resource);
+        }
+        return oldest.size();
+    }
+
+    public long[] countInstances(String uri) {
+        return CollectionCounters.count(findByPrefix(db(), ContentInstance.class, uri + "/", Projection.ACCESS));
+    }
+
+    /**
+     * Checks whether a lookup reads the contentInstances of a collection, loading the creation order of
+     * the collection when it is first looked up.
+     */
+    private boolean indexed(Class<? extends Resource> type, String prefix) {
+        if (!type.isAssignableFrom(ContentInstance.class)) {
+            return false;
+        }
+        if (creations.contains(prefix)) {
+            return true;
+        }
+        ObjectContainer db = db();
+        if (find(db, ContentInstances.class, prefix, Projection.ACCESS) == null) {
+            return false;
+        }
+        // Loaded under the index lock, so that no write in between is missed or linked twice
+        synchronized (creations) {
+            if (!creations.contains(prefix)) {
+                List<ContentInstance> instances = new ArrayList<ContentInstance>();
+                for (ContentInstance contentInstance : findByPrefix(db, ContentInstance.class, prefix + "/", Projection.ACCESS)) {
+                    if (prefix.equals(CreationIndex.parent(contentInstance.getUri()))) {
+                        instances.add(contentInstance);
+                    }
+                }
+                Collections.sort(instances, new CreationTimeOrder(db));
+                List<String> uris = new ArrayList<String>(instances.size());
+                for (ContentInstance contentInstance : instances) {
+                    uris.add(contentInstance.getUri());
+                }
+                creations.load(prefix, uris);
+            }
+        }
+        return true;
+    }
+
+    public StorageSession openSession() {
+        return new Db4oStorageSession(db().ext().openSession());
+    }
+
+    public void commit() {
+        if (shard != null) {
+            shard.commit();
+            return;
+        }
+        // Captured once committed, so that a replay reading the uri sees the write
+        List<String> written = new ArrayList<String>(uncommitted);
+        uncommitted.removeAll(written);
+        db().commit();
+        Set<String> uris = delta;
+        if (uris != null) {
+            uris.addAll(written);
+        }
+    }
+
+    public void clear() {
+        ObjectContainer db = db();
+        ObjectSet<Resource> result = db.queryByExample(Resource.class);
+        while (result.hasNext()) {
+            db.delete(result.next());
+        }
+        creations.clear();
+    }
+
+    public void close() {
+        creations.clear();
+        if (shard != null) {
+            shard.close();
+        } else {
+            DBClientConnection.closeDataBase();
+        }
+    }
+
+    /**
+     * Queries the first resource of the given type stored under an uri.
+     * @param db - database or session to query
+     * @param type - resource class
+     * @param uri - resource uri
+     * @param projection - part of the resource to activate
+     * @return the found resource otherwise null
+     */
+    private static <T extends Resource> T find(ObjectContainer db, Class<T> type, String uri, Projection projection) {
+        Query query = db.query();
+        query.constrain(type);
+        query.descend("uri").constrain(uri);
+        ObjectSet<T> result = query.execute();
+        if (!result.isEmpty()) {
+            return activate(db, result.get(0), projection);
+        }
+        return null;
+    }
+
+    /**
+     * Queries the resources of the given type whose uri starts with a prefix.
+     * @param db - database or session to query
+     * @param type - resource class
+     * @param prefix - uri prefix
+     * @param projection - part of the resources to activate
+     * @return the found resources, activated as they are read
+     */
+    private static <T extends Resource> List<T> findByPrefix(ObjectContainer db, Class<T> type, String prefix, Projection projection) {
+        Query query = db.query();
+        query.constrain(type);
+        query.descend("uri").constrain(prefix).startsWith(true);
+        ObjectSet<T> result = query.execute();
+        return new ProjectedList<T>(db, result, projection);
+    }
+
+    /**
+     * Activates a found resource down to the depth of a projection.
+     * @param db - database or session the resource was found in
+     * @param resource - found resource, activated to the {@link Projection#ACCESS} depth
+     * @param projection - part of the resource to activate
+     * @return the resource
+     */
+    static <T> T activate(ObjectContainer db, T resource, Projection projection) {
+        if (projection != Projection.ACCESS) {
+            db.activate(resource, projection.getDepth());
+        }
+        return resource;
+    }
+
+    /**
+     * Query result activating each resource to the depth of a projection when it is read, so that
+     * reading only the first or last resource does not activate the others.
+     */
+    private static class ProjectedList<T> extends AbstractList<T> {
+        private final ObjectContainer db;
+        private final ObjectSet<T> result;
+        private final Projection projection;
+
+        ProjectedList(ObjectContainer db, ObjectSet<T> result, Projection projection) {
+            this.db = db;
+            this.result = result;
+            this.projection = projection;
+        }
+
+        @Override
+        public T get(int index) {
+            return activate(db, result.get(index), projection);
+        }
+
+        @Override
+        public int size() {
+            return result.size();
+        }
+    }
+
+    /**
+     * Orders stored contentInstances by creation time, then by database id, which grows as the
+     * instances created within the same millisecond are stored.
+     */
+    private static class CreationTimeOrder implements Comparator<ContentInstance> {
+        private final ObjectContainer db;
+
+        CreationTimeOrder(ObjectContainer db) {
+            this.db = db;
+        }
+
+        public int compare(ContentInstance c1, ContentInstance c2) {
+            String t1 = c1.getCreationTime();
+            String t2 = c2.getCreationTime();
+            if (t1 != null && t2 != null && !t1.equals(t2)) {
+                return t1.compareTo(t2);
+            }
+            long id1 = db.ext().getID(c1);
+            long id2 = db.ext().getID(c2);
+            return id1 < id2 ? -1 : (id1 == id2 ? 0 : 1);
+        }
+    }
+
+    /**
+     * Session opened on the db4o database.
+     */
+    private static class Db4oStorageSession implements StorageSession {
+        /** Underlying db4o session */
+        private final ObjectContainer session;
+
+        Db4oStorageSession(ObjectContainer session) {
+            this.session = session;
+        }
+
+        public <T extends Resource> T find(Class<T> type, String uri) {
+            return find(type, uri, Projection.FULL);
+        }
+
+        public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+            return Db4oStorageEngine.find(session, type, uri, projection);
+        }
+
+        public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+            return findByPrefix(type, prefix, Projection.FULL);
+        }
+
+        public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+            // Activated at once so that they stay readable once the session is closed
+            return new ArrayList<T>(Db4oStorageEngine.findByPrefix(session, type, prefix, projection));
+        }
+
+        public void close() {
+            session.close();
+        }
+    }
+}
@@ -26,9 +26,6 @@ import org.eclipse.om2m.commons.resource.ExecInstances;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link ExecInstance} resource persistence.
  *
@@ -53,15 +50,9 @@ public class ExecInstanceDAO extends DAO<ExecInstance>{
         subscriptions.setUri(resource.getSubscriptionsReference());
         DAOFactory.getSubscriptionsDAO().create(subscriptions);
 
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(ExecInstances.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<ExecInstances> result = query.execute();
+        ExecInstances execInstances = DB.find(ExecInstances.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        ExecInstances execInstances = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         execInstances.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(execInstances);
@@ -75,18 +66,7 @@ public class ExecInstanceDAO extends DAO<ExecInstance>{
      * @return The requested {@link ExecInstance} resource otherwise null
      */
     public ExecInstance find(String uri){
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(ExecInstance.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<ExecInstance> result=query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(ExecInstance.class, uri);
     }
 
     /**
@@ -105,15 +85,9 @@ public class ExecInstanceDAO extends DAO<ExecInstance>{
     public void update(ExecInstance resource) {
         // Store the updated resource
         DB.store(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(ExecInstances.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<ExecInstances> result = query.execute();
+        ExecInstances execInstances = DB.find(ExecInstances.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        ExecInstances execInstances = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         execInstances.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(execInstances);
@@ -138,15 +112,9 @@ public class ExecInstanceDAO extends DAO<ExecInstance>{
     public void lazyDelete(ExecInstance resource) {
         //delete subscriptions
         DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(ExecInstances.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<ExecInstances> result = query.execute();
+        ExecInstances execInstances = DB.find(ExecInstances.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        ExecInstances execInstances = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         execInstances.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(execInstances);
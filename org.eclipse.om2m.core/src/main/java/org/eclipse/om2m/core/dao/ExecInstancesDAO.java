@@ -19,15 +19,13 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.ExecInstance;
 import org.eclipse.om2m.commons.resource.ExecInstances;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link ExecInstances} collection resource persistence.
  *
@@ -63,20 +61,20 @@ public class ExecInstancesDAO extends DAO<ExecInstances> {
         ExecInstances execInstances = lazyFind(uri);
 
         if(execInstances != null){
-        	ObjectContainer session = DB.ext().openSession();
-
-            //Find ExecInstances sub-resources and add their references
-            Query query = session.query();
-            query.constrain(ExecInstances.class);
-            query.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<ExecInstances> result = query.execute();
-            execInstances.getExecInstanceCollection().getNamedReference().clear();
-
-            for (int i = 0; i < result.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(result.get(i).getId());
-                reference.setValue(result.get(i).getUri());
-                execInstances.getExecInstanceCollection().getNamedReference().add(reference);
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                //Find ExecInstances sub-resources and add their references
+                List<ExecInstances> result = session.findByPrefix(ExecInstances.class, uri, Projection.ACCESS);
+                execInstances.getExecInstanceCollection().getNamedReference().clear();
+
+                for (int i = 0; i < result.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(result.get(i).getId());
+                    reference.setValue(result.get(i).getUri());
+                    execInstances.getExecInstanceCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return execInstances;
@@ -88,20 +86,12 @@ public class ExecInstancesDAO extends DAO<ExecInstances> {
      * @return The requested {@link ExecInstances} collection resource otherwise null
      */
     public ExecInstances lazyFind(String uri) {
-    	ObjectContainer session = DB.ext().openSession();
-
-        // Create the query based on the uri constraint
-        Query query=session.query();
-        query.constrain(ExecInstances.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<ExecInstances> result=query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(ExecInstances.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -135,10 +125,7 @@ public class ExecInstancesDAO extends DAO<ExecInstances> {
         DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
 
         // Delete execInstance sub-resources
-        Query query = DB.query();
-        query.constrain(ExecInstance.class);
-        query.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<ExecInstance> result = query.execute();
+        List<ExecInstance> result = DB.findByPrefix(ExecInstance.class, resource.getUri());
 
         for (int i = 0; i < result.size(); i++) {
             DAOFactory.getExecInstanceDAO().lazyDelete(result.get(i));
@@ -25,9 +25,6 @@ import org.eclipse.om2m.commons.resource.GroupAnnc;
 import org.eclipse.om2m.commons.resource.Groups;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link GroupAnnc} resource persistence.
  *
@@ -47,15 +44,9 @@ public class GroupAnncDAO extends DAO<GroupAnnc> {
         // Store the created resource
         DB.store(resource);
 
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Groups.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Groups> result = query.execute();
+        Groups groups = DB.find(Groups.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Groups groups = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         groups.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(groups);
@@ -68,18 +59,7 @@ public class GroupAnncDAO extends DAO<GroupAnnc> {
      * @return The requested {@link GroupAnnc} resource otherwise null
      */
     public GroupAnnc find(String uri) {
-        // Create the query based on the uri constraint
-        Query query=DB.query();
-        query.constrain(GroupAnnc.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<GroupAnnc> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(GroupAnnc.class, uri);
     }
 
     /**
@@ -98,15 +78,9 @@ public class GroupAnncDAO extends DAO<GroupAnnc> {
     public void update(GroupAnnc resource) {
         // Store the updated resource
         DB.store(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Groups.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Groups> result = query.execute();
+        Groups groups = DB.find(Groups.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Groups groups = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         groups.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(groups);
@@ -131,15 +105,9 @@ public class GroupAnncDAO extends DAO<GroupAnnc> {
     public void lazyDelete(GroupAnnc resource) {
         // Delete the resource
         DB.delete(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Groups.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Groups> result = query.execute();
+        Groups groups = DB.find(Groups.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Groups groups = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         groups.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(groups);
@@ -26,9 +26,6 @@ import org.eclipse.om2m.commons.resource.Groups;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Group} resource persistence.
  *
@@ -74,18 +71,19 @@ public class GroupDAO extends DAO<Group>{
     	
     	synchronized(lock) {
 
-        // Create the query based on the uri constraint
-        Query query=DB.query();
-        query.constrain(Group.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Group> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(Group.class, uri);
+    	}
+    }
+
+    /**
+     * Retrieves the {@link Group} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link Group} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link Group} resource otherwise null
+     */
+    public Group find(String uri, Projection projection) {
+    	synchronized(lock) {
+        return DB.find(Group.class, uri, projection);
     	}
     }
 
@@ -19,16 +19,14 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.Group;
 import org.eclipse.om2m.commons.resource.GroupAnnc;
 import org.eclipse.om2m.commons.resource.Groups;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Groups} collection resource persistence.
  *
@@ -65,34 +63,31 @@ public class GroupsDAO extends DAO<Groups> {
         Groups groups = lazyFind(uri);
 
         if (groups != null){
-        	ObjectContainer session = DB.ext().openSession();
-
-            //Find Group sub-resources and add their references
-            groups.getGroupCollection().getNamedReference().clear();
-            Query queryGroup = session.query();
-            queryGroup.constrain(Group.class);
-            queryGroup.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<Group> resultGroup = queryGroup.execute();
-
-            for (int i = 0; i < resultGroup.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultGroup.get(i).getId());
-                reference.setValue(resultGroup.get(i).getUri());
-                groups.getGroupCollection().getNamedReference().add(reference);
-            }
-
-            //Find GroupAnnc sub-resources and add their references
-            groups.getGroupAnncCollection().getNamedReference().clear();
-            Query queryGroupAnnc = session.query();
-            queryGroupAnnc.constrain(GroupAnnc.class);
-            queryGroupAnnc.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<GroupAnnc> resultGroupAnnc = queryGroupAnnc.execute();
-
-            for (int i = 0; i < resultGroupAnnc.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultGroupAnnc.get(i).getId());
-                reference.setValue(resultGroupAnnc.get(i).getUri());
-                groups.getGroupAnncCollection().getNamedReference().add(reference);
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                //Find Group sub-resources and add their references
+                groups.getGroupCollection().getNamedReference().clear();
+                List<Group> resultGroup = session.findByPrefix(Group.class, uri, Projection.ACCESS);
+
+                for (int i = 0; i < resultGroup.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultGroup.get(i).getId());
+                    reference.setValue(resultGroup.get(i).getUri());
+                    groups.getGroupCollection().getNamedReference().add(reference);
+                }
+
+                //Find GroupAnnc sub-resources and add their references
+                groups.getGroupAnncCollection().getNamedReference().clear();
+                List<GroupAnnc> resultGroupAnnc = session.findByPrefix(GroupAnnc.class, uri, Projection.ACCESS);
+
+                for (int i = 0; i < resultGroupAnnc.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultGroupAnnc.get(i).getId());
+                    reference.setValue(resultGroupAnnc.get(i).getUri());
+                    groups.getGroupAnncCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return groups;
@@ -104,20 +99,12 @@ public class GroupsDAO extends DAO<Groups> {
      * @return The requested {@link Groups} collection resource otherwise null
      */
     public Groups lazyFind(String uri) {
-    	ObjectContainer session = DB.ext().openSession();
-
-        // Create the query based on the uri constraint
-        Query query = session.query();
-        query.constrain(Groups.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Groups> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(Groups.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -151,20 +138,14 @@ public class GroupsDAO extends DAO<Groups> {
         DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
 
         // Delete group sub-resources
-        Query queryGroup = DB.query();
-        queryGroup.constrain(Group.class);
-        queryGroup.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<Group> resultGroup = queryGroup.execute();
+        List<Group> resultGroup = DB.findByPrefix(Group.class, resource.getUri());
 
         for (int i = 0; i < resultGroup.size(); i++) {
             DAOFactory.getGroupDAO().lazyDelete(resultGroup.get(i));
         }
 
         // Delete groupAnnc sub-resources
-        Query queryGroupAnnc = DB.query();
-        queryGroupAnnc.constrain(GroupAnnc.class);
-        queryGroupAnnc.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<GroupAnnc> resultGroupAnnc = queryGroupAnnc.execute();
+        List<GroupAnnc> resultGroupAnnc = DB.findByPrefix(GroupAnnc.class, resource.getUri());
 
         for (int i = 0; i < resultGroupAnnc.size(); i++) {
             DAOFactory.getGroupAnncDAO().lazyDelete(resultGroupAnnc.get(i));
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.commons.utils.ResourceCopier;
+
+/**
+ * Volatile {@link StorageEngine} keeping the resources in a concurrent sorted map keyed by uri.
+ * Uri lookups are map lookups and prefix queries are range scans over the sub-map of the prefix.
+ * Reads do not lock; writes are serialized. Resources are held entirely in memory, so lookups
+ * return them whole whatever their {@link Projection}. The contentInstances are also linked in
+ * creation order by a {@link CreationIndex}, which finds the oldest and latest ones of a collection.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class InMemoryStorageEngine implements StorageEngine {
+    /** Orders entries by creation */
+    private static final Comparator<Entry> CREATION_ORDER = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            return e1.sequence < e2.sequence ? -1 : (e1.sequence == e2.sequence ? 0 : 1);
+        }
+    };
+    /** Stored resources by uri */
+    private final ConcurrentSkipListMap<String, Entry> resources = new ConcurrentSkipListMap<String, Entry>();
+    /** Uri under which each stored resource instance is indexed, guarded by this */
+    private final Map<Resource, String> uris = new IdentityHashMap<Resource, String>();
+    /** Creation order of the stored contentInstances */
+    private final CreationIndex creations = new CreationIndex();
+    /** Creation sequence of the next stored resource, guarded by this */
+    private long sequence;
+
+    public synchronized void store(Resource resource) {
+        String uri = resource.getUri();
+        String previousUri = uris.get(resource);
+        if (previousUri != null && !previousUri.equals(uri)) {
+            resources.remove(previousUri);
+            uris.remove(resource);
+            creations.remove(previousUri);
+        }
+        if (uri == null) {
+            // Resources without uri cannot be looked up
+            return;
+        }
+        Entry previous = resources.get(uri);
+        long creation;
+        if (previous != null) {
+            uris.remove(previous.resource);
+            creation = previous.sequence;
+        } else {
+            creation = sequence++;
+        }
+        resources.put(uri, new Entry(resource, creation));
+        uris.put(resource, uri);
+        if (resource instanceof ContentInstance) {
+            creations.add(uri, true);
+        } else {
+            creations.remove(uri);
+        }
+    }
+
+    public synchronized void delete(Resource resource) {
+        String uri = uris.remove(resource);
+        if (uri == null) {
+            uri = resource.getUri();
+        }
+        if (uri != null) {
+            Entry entry = resources.remove(uri);
+            if (entry != null) {
+                uris.remove(entry.resource);
+            }
+            creations.remove(uri);
+        }
+    }
+
+    public synchronized void deleteSubtree(String uri) {
+        Entry root = resources.remove(uri);
+        if (root != null) {
+            uris.remove(root.resource);
+        }
+        Map<String, Entry> subtree = resources.subMap(uri + "/", true, uri + "/" + Character.MAX_VALUE, true);
+        for (Entry entry : subtree.values()) {
+            uris.remove(entry.resource);
+        }
+        subtree.clear();
+        creations.removeSubtree(uri);
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri) {
+        Entry entry = resources.get(uri);
+        if (entry != null && type.isInstance(entry.resource)) {
+            return type.cast(entry.resource);
+        }
+        return null;
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+        return find(type, uri);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+        return findByPrefix(type, prefix);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+        ConcurrentNavigableMap<String, Entry> range = resources.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+        List<Entry> entries = new ArrayList<Entry>();
+        for (Entry entry : range.values()) {
+            if (type.isInstance(entry.resource)) {
+                entries.add(entry);
+            }
+        }
+        Collections.sort(entries, CREATION_ORDER);
+        List<T> result = new ArrayList<T>(entries.size());
+        for (Entry entry : entries) {
+            result.add(type.cast(entry.resource));
+        }
+        return result;
+    }
+
+    public <T extends Resource> T findOldest(Class<T> type, String prefix) {
+        if (indexed(type, prefix)) {
+            String uri = creations.oldest(prefix);
+            return uri != null ? find(type, uri) : null;
+        }
+        return findEdge(type, prefix, false);
+    }
+
+    public <T extends Resource> T findLatest(Class<T> type, String prefix) {
+        if (indexed(type, prefix)) {
+            String uri = creations.latest(prefix);
+            return uri != null ? find(type, uri) : null;
+        }
+        return findEdge(type, prefix, true);
+    }
+
+    public <T extends Resource> List<T> findOldest(Class<T> type, String prefix, int count) {
+        if (indexed(type, prefix)) {
+            List<T> result = new ArrayList<T>();
+            for (String uri : creations.oldest(prefix, count)) {
+                T resource = find(type, uri);
+                if (resource != null) {
+                    result.add(resource);
+                }
+            }
+            return result;
+        }
+        List<T> result = findByPrefix(type, prefix);
+        return result.size() > count ? new ArrayList<T>(result.subList(0, count)) : result;
+    }
+
+    public synchronized int deleteOldest(Class<? extends Resource> type, String prefix, int count) {
+        List<? extends Resource> oldest = findOldest(type, prefix, count);
+        for (Resource resource : oldest) {
+            delete(resource);
+        }
+        return oldest.size();
+    }
+
+    public long[] countInstances(String uri) {
+        return CollectionCounters.count(findByPrefix(ContentInstance.class, uri + "/"));
+    }
+
+    /**
+     * Checks whether a lookup reads the contentInstances of a collection linked by the creation index.
+     */
+    private boolean indexed(Class<? extends Resource> type, String prefix) {
+        return type.isAssignableFrom(ContentInstance.class) && creations.contains(prefix);
+    }
+
+    /**
+     * Scans the sub-map of a prefix for its first or last created resource, without sorting it.
+     */
+    private <T extends Resource> T findEdge(Class<T> type, String prefix, boolean latest) {
+        Entry edge = null;
+        for (Entry entry : resources.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            if (type.isInstance(entry.resource)
+                    && (edge == null || (latest ? entry.sequence > edge.sequence : entry.sequence < edge.sequence))) {
+                edge = entry;
+            }
+        }
+        return edge != null ? type.cast(edge.resource) : null;
+    }
+
+    public StorageSession openSession() {
+        return new StorageSession() {
+            public <T extends Resource> T find(Class<T> type, String uri) {
+                return ResourceCopier.copy(InMemoryStorageEngine.this.find(type, uri));
+            }
+
+            public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+                return find(type, uri);
+            }
+
+            public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+                List<T> result = InMemoryStorageEngine.this.findByPrefix(type, prefix);
+                for (int i = 0; i < result.size(); i++) {
+                    result.set(i, ResourceCopier.copy(result.get(i)));
+                }
+                return result;
+            }
+
+            public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+                return findByPrefix(type, prefix);
+            }
+
+            public void close() {
+            }
+        };
+    }
+
+    public void commit() {
+        // Changes are visible as soon as they are stored
+    }
+
+    public synchronized void clear() {
+        resources.clear();
+        uris.clear();
+        creations.clear();
+    }
+
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Stored resource with its creation sequence.
+     */
+    private static final class Entry {
+        /** Stored resource */
+        final Resource resource;
+        /** Creation sequence, kept when the resource is updated */
+        final long sequence;
+
+        Entry(Resource resource, long sequence) {
+            this.resource = resource;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -25,9 +25,6 @@ import org.eclipse.om2m.commons.resource.Containers;
 import org.eclipse.om2m.commons.resource.LocationContainerAnnc;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link LocationContainerAnnc} resource persistence.
  *
@@ -46,15 +43,9 @@ public class LocationContainerAnncDAO extends DAO<LocationContainerAnnc> {
     public void create(LocationContainerAnnc resource) {
         // Store the created resource
         DB.store(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
@@ -68,18 +59,7 @@ public class LocationContainerAnncDAO extends DAO<LocationContainerAnnc> {
      * @return The requested {@link LocationContainerAnnc} resource otherwise null
      */
     public LocationContainerAnnc find(String uri) {
-        // Create the query based on the uri constraint
-        Query query=DB.query();
-        query.constrain(LocationContainerAnnc.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<LocationContainerAnnc> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(LocationContainerAnnc.class, uri);
     }
 
     /**
@@ -98,15 +78,9 @@ public class LocationContainerAnncDAO extends DAO<LocationContainerAnnc> {
     public void update(LocationContainerAnnc resource) {
         // Store the updated resource
         DB.store(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
@@ -132,15 +106,9 @@ public class LocationContainerAnncDAO extends DAO<LocationContainerAnnc> {
     public void lazyDelete(LocationContainerAnnc resource) {
         // Delete the resource
         DB.delete(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
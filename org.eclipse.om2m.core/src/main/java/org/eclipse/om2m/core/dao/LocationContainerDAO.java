@@ -27,9 +27,6 @@ import org.eclipse.om2m.commons.resource.LocationContainer;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link LocationContainer} resource persistence.
  *
@@ -58,15 +55,9 @@ public class LocationContainerDAO extends DAO<LocationContainer> {
         Subscriptions subscriptions = new Subscriptions();
         subscriptions.setUri(resource.getUri()+"/subscriptions");
         DAOFactory.getSubscriptionsDAO().create(subscriptions);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
@@ -80,18 +71,17 @@ public class LocationContainerDAO extends DAO<LocationContainer> {
      * @return The requested {@link LocationContainer} resource otherwise null
      */
     public LocationContainer find(String uri) {
-        // Create the query based on the uri constraint
-        Query query=DB.query();
-        query.constrain(LocationContainer.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<LocationContainer> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(LocationContainer.class, uri);
+    }
+
+    /**
+     * Retrieves the {@link LocationContainer} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link LocationContainer} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link LocationContainer} resource otherwise null
+     */
+    public LocationContainer find(String uri, Projection projection) {
+        return DB.find(LocationContainer.class, uri, projection);
     }
 
     /**
@@ -110,15 +100,9 @@ public class LocationContainerDAO extends DAO<LocationContainer> {
     public void update(LocationContainer resource) {
         // Store the updated resource
         DB.store(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
@@ -142,19 +126,11 @@ public class LocationContainerDAO extends DAO<LocationContainer> {
      * @param resource - The {@link LocationContainer} resource to delete
      */
     public void lazyDelete(LocationContainer resource) {
-        //delete subscriptions
-        DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
-        //delete contentInstances
-        DAOFactory.getContentInstancesDAO().lazyDelete(DAOFactory.getContentInstancesDAO().lazyFind(resource.getContentInstancesReference()));
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Containers.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<Containers> result = query.execute();
+        // Delete the resource with its subscriptions and contentInstances
+        lazyDeleteSubtree(resource.getUri());
+        Containers containers = DB.find(Containers.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Containers containers = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         containers.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(containers);
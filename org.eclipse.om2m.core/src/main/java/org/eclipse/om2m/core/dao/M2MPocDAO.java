@@ -25,9 +25,6 @@ import org.eclipse.om2m.commons.resource.M2MPoc;
 import org.eclipse.om2m.commons.resource.M2MPocs;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link M2mPoc} resource persistence.
  *
@@ -46,15 +43,9 @@ public class M2MPocDAO extends DAO<M2MPoc> {
     public void create(M2MPoc resource) {
         // Store the created resource
         DB.store(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(M2MPocs.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<M2MPocs> result = query.execute();
+        M2MPocs m2mPocs = DB.find(M2MPocs.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        M2MPocs m2mPocs = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         m2mPocs.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(m2mPocs);
@@ -68,18 +59,7 @@ public class M2MPocDAO extends DAO<M2MPoc> {
      * @return The requested {@link M2MPoc} resource otherwise null
      */
     public M2MPoc find(String uri) {
-        // Create the query based on the uri constraint
-        Query query=DB.query();
-        query.constrain(M2MPoc.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<M2MPoc> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(M2MPoc.class, uri);
     }
 
     /**
@@ -99,15 +79,9 @@ public class M2MPocDAO extends DAO<M2MPoc> {
         // Store the updated resource
         DB.store(resource);
 
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(M2MPocs.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<M2MPocs> result = query.execute();
+        M2MPocs m2mPocs = DB.find(M2MPocs.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        M2MPocs m2mPocs = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         m2mPocs.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(m2mPocs);
@@ -134,15 +108,9 @@ public class M2MPocDAO extends DAO<M2MPoc> {
         // Delete the resource
         DB.delete(resource);
 
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(M2MPocs.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<M2MPocs> result = query.execute();
+        M2MPocs m2mPocs = DB.find(M2MPocs.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        M2MPocs m2mPocs = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         m2mPocs.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(m2mPocs);
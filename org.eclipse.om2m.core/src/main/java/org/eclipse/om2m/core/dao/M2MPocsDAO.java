@@ -19,14 +19,12 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.M2MPoc;
 import org.eclipse.om2m.commons.resource.M2MPocs;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link M2mPocs} collection resource persistence.
  *
@@ -56,20 +54,20 @@ public class M2MPocsDAO extends DAO<M2MPocs> {
         M2MPocs m2mPocs = lazyFind(uri);
 
         if (m2mPocs != null){
-        	ObjectContainer session = DB.ext().openSession();
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                //Find M2MPoc sub-resources and add their references
+                m2mPocs.getM2MPocCollection().getNamedReference().clear();
+                List<M2MPoc> result = session.findByPrefix(M2MPoc.class, uri, Projection.ACCESS);
 
-            //Find M2MPoc sub-resources and add their references
-            m2mPocs.getM2MPocCollection().getNamedReference().clear();
-            Query query = session.query();
-            query.constrain(M2MPoc.class);
-            query.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<M2MPoc> result = query.execute();
-
-            for (int i = 0; i < result.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(result.get(i).getId());
-                reference.setValue(result.get(i).getUri());
-                m2mPocs.getM2MPocCollection().getNamedReference().add(reference);
+                for (int i = 0; i < result.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(result.get(i).getId());
+                    reference.setValue(result.get(i).getUri());
+                    m2mPocs.getM2MPocCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return m2mPocs;
@@ -81,20 +79,12 @@ public class M2MPocsDAO extends DAO<M2MPocs> {
      * @return The requested {@link M2MPocs} collection resource otherwise null
      */
     public M2MPocs lazyFind(String uri) {
-    	ObjectContainer session = DB.ext().openSession();
-
-        // Create the query based on the uri constraint
-        Query query = session.query();
-        query.constrain(M2MPocs.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<M2MPocs> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(M2MPocs.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -125,10 +115,7 @@ public class M2MPocsDAO extends DAO<M2MPocs> {
      */
     public void lazyDelete(M2MPocs resource) {
         // Delete m2mPocs sub-resources
-        Query query = DB.query();
-        query.constrain(M2MPoc.class);
-        query.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<M2MPoc> result = query.execute();
+        List<M2MPoc> result = DB.findByPrefix(M2MPoc.class, resource.getUri());
 
         for (int i = 0; i < result.size(); i++) {
             DAOFactory.getM2MPocDAO().lazyDelete(result.get(i));
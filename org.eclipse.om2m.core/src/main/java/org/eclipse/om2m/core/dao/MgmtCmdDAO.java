@@ -28,9 +28,6 @@ import org.eclipse.om2m.commons.resource.MgmtObjs;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link MgmtCmd} resource persistence.
  *
@@ -59,15 +56,9 @@ public class MgmtCmdDAO extends DAO<MgmtCmd> {
         execInstances.setCreationTime(resource.getCreationTime());
         execInstances.setLastModifiedTime(resource.getLastModifiedTime());
         DAOFactory.getExecInstancesDAO().create(execInstances);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(MgmtObjs.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<MgmtObjs> result = query.execute();
+        MgmtObjs mgmtObjs = DB.find(MgmtObjs.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        MgmtObjs mgmtObjs = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         mgmtObjs.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(mgmtObjs);
@@ -81,18 +72,7 @@ public class MgmtCmdDAO extends DAO<MgmtCmd> {
      * @return The requested {@link MgmtCmd} resource otherwise null
      */
     public MgmtCmd find(String uri) {
-        // Create the query based on the uri constraint
-        Query query=DB.query();
-        query.constrain(MgmtCmd.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<MgmtCmd> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(MgmtCmd.class, uri);
     }
 
     /**
@@ -111,15 +91,9 @@ public class MgmtCmdDAO extends DAO<MgmtCmd> {
     public void update(MgmtCmd resource) {
         // Store the updated resource
         DB.store(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(MgmtObjs.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<MgmtObjs> result = query.execute();
+        MgmtObjs mgmtObjs = DB.find(MgmtObjs.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        MgmtObjs mgmtObjs = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         mgmtObjs.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(mgmtObjs);
@@ -151,15 +125,9 @@ public class MgmtCmdDAO extends DAO<MgmtCmd> {
         // Delete ExecInstances
         DAOFactory.getExecInstancesDAO().lazyDelete(DAOFactory.getExecInstancesDAO().lazyFind(resource.getExecInstancesReference()));
 
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(MgmtObjs.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<MgmtObjs> result = query.execute();
+        MgmtObjs mgmtObjs = DB.find(MgmtObjs.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        MgmtObjs mgmtObjs = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         mgmtObjs.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(mgmtObjs);
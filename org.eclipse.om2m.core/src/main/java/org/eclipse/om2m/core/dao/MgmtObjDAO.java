@@ -26,9 +26,6 @@ import org.eclipse.om2m.commons.resource.MgmtObjs;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link MgmtObj} resource persistence.
  *
@@ -51,15 +48,9 @@ public class MgmtObjDAO extends DAO<MgmtObj> {
         Subscriptions subscriptions = new Subscriptions();
         subscriptions.setUri(resource.getSubscriptionsReference());
         DAOFactory.getSubscriptionsDAO().create(subscriptions);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(MgmtObjs.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<MgmtObjs> result = query.execute();
+        MgmtObjs mgmtObjs = DB.find(MgmtObjs.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        MgmtObjs mgmtObjs = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         mgmtObjs.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(mgmtObjs);
@@ -73,18 +64,7 @@ public class MgmtObjDAO extends DAO<MgmtObj> {
      * @return The requested {@link MgmtObj} resource otherwise null
      */
     public MgmtObj find(String uri) {
-        // Create the query based on the uri constraint
-        Query query=DB.query();
-        query.constrain(MgmtObj.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<MgmtObj> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(MgmtObj.class, uri);
     }
 
     /**
@@ -103,15 +83,9 @@ public class MgmtObjDAO extends DAO<MgmtObj> {
     public void update(MgmtObj resource) {
         // Store the updated resource
         DB.store(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(MgmtObjs.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<MgmtObjs> result = query.execute();
+        MgmtObjs mgmtObjs = DB.find(MgmtObjs.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        MgmtObjs mgmtObjs = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         mgmtObjs.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(mgmtObjs);
@@ -140,15 +114,9 @@ public class MgmtObjDAO extends DAO<MgmtObj> {
 
         // Delete subscriptions
         DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(MgmtObjs.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<MgmtObjs> result = query.execute();
+        MgmtObjs mgmtObjs = DB.find(MgmtObjs.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        MgmtObjs mgmtObjs = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         mgmtObjs.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(mgmtObjs);
@@ -19,16 +19,14 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.MgmtCmd;
 import org.eclipse.om2m.commons.resource.MgmtObj;
 import org.eclipse.om2m.commons.resource.MgmtObjs;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link MgmtObjs} collection resource persistence.
  *
@@ -65,34 +63,31 @@ public class MgmtObjsDAO extends DAO<MgmtObjs> {
         MgmtObjs mgmtObjs = lazyFind(uri);
 
         if(mgmtObjs != null){
-        	ObjectContainer session = DB.ext().openSession();
-
-            // Find mgmtObj sub-resources and add their references
-            Query queryMgmtObj = session.query();
-            queryMgmtObj.constrain(MgmtObj.class);
-            queryMgmtObj.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<MgmtObj> resultMgmtObj = queryMgmtObj.execute();
-            mgmtObjs.getMgmtObjCollection().getNamedReference().clear();
-
-            for (int i = 0; i < resultMgmtObj.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultMgmtObj.get(i).getId());
-                reference.setValue(resultMgmtObj.get(i).getUri());
-                mgmtObjs.getMgmtObjCollection().getNamedReference().add(reference);
-            }
-
-            // Find mgmtCmd sub-resources and add their references
-            Query queryMgmtCmd = session.query();
-            queryMgmtCmd.constrain(MgmtCmd.class);
-            queryMgmtCmd.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<MgmtCmd> resultMgmtCmd = queryMgmtCmd.execute();
-            mgmtObjs.getMgmtCmdCollection().getNamedReference().clear();
-
-            for (int i = 0; i < resultMgmtCmd.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultMgmtCmd.get(i).getId());
-                reference.setValue(resultMgmtCmd.get(i).getUri());
-                mgmtObjs.getMgmtObjCollection().getNamedReference().add(reference);
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                // Find mgmtObj sub-resources and add their references
+                List<MgmtObj> resultMgmtObj = session.findByPrefix(MgmtObj.class, uri, Projection.ACCESS);
+                mgmtObjs.getMgmtObjCollection().getNamedReference().clear();
+
+                for (int i = 0; i < resultMgmtObj.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultMgmtObj.get(i).getId());
+                    reference.setValue(resultMgmtObj.get(i).getUri());
+                    mgmtObjs.getMgmtObjCollection().getNamedReference().add(reference);
+                }
+
+                // Find mgmtCmd sub-resources and add their references
+                List<MgmtCmd> resultMgmtCmd = session.findByPrefix(MgmtCmd.class, uri, Projection.ACCESS);
+                mgmtObjs.getMgmtCmdCollection().getNamedReference().clear();
+
+                for (int i = 0; i < resultMgmtCmd.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultMgmtCmd.get(i).getId());
+                    reference.setValue(resultMgmtCmd.get(i).getUri());
+                    mgmtObjs.getMgmtObjCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return mgmtObjs;
@@ -104,20 +99,12 @@ public class MgmtObjsDAO extends DAO<MgmtObjs> {
      * @return The requested {@link MgmtObjs} collection resource otherwise null
      */
     public MgmtObjs lazyFind(String uri) {
-    	ObjectContainer session = DB.ext().openSession();
-
-        // Create the query based on the uri constraint
-        Query query = session.query();
-        query.constrain(MgmtObjs.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<MgmtObjs> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(MgmtObjs.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -150,20 +137,14 @@ public class MgmtObjsDAO extends DAO<MgmtObjs> {
         // Delete subscriptions
         DAOFactory.getSubscriptionsDAO().lazyDelete(DAOFactory.getSubscriptionsDAO().lazyFind(resource.getSubscriptionsReference()));
         // Delete mgmtObj sub-resources
-        Query queryMgmtObj = DB.query();
-        queryMgmtObj.constrain(MgmtObj.class);
-        queryMgmtObj.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<MgmtObj> resultMgmtObj = queryMgmtObj.execute();
+        List<MgmtObj> resultMgmtObj = DB.findByPrefix(MgmtObj.class, resource.getUri());
 
         for (int i = 0; i < resultMgmtObj.size(); i++) {
             DAOFactory.getMgmtObjDAO().lazyDelete(resultMgmtObj.get(i));
         }
 
         // Delete mgmtCmd sub-resources
-        Query queryMgmtCmd = DB.query();
-        queryMgmtCmd.constrain(MgmtCmd.class);
-        queryMgmtCmd.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<MgmtCmd> resultMgmtCmd = queryMgmtCmd.execute();
+        List<MgmtCmd> resultMgmtCmd = DB.findByPrefix(MgmtCmd.class, resource.getUri());
 
         for (int i = 0; i < resultMgmtCmd.size(); i++) {
             DAOFactory.getMgmtCmdDAO().lazyDelete(resultMgmtCmd.get(i));
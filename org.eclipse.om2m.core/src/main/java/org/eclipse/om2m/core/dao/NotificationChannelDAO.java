@@ -26,9 +26,6 @@ import org.eclipse.om2m.commons.resource.NotificationChannel;
 import org.eclipse.om2m.commons.resource.NotificationChannels;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link NotificationChannel} resource persistence.
  *
@@ -47,15 +44,9 @@ public class NotificationChannelDAO extends DAO<NotificationChannel> {
     public void create(NotificationChannel resource) {
         // Store the created resource
         DB.store(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(NotificationChannels.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<NotificationChannels> result = query.execute();
+        NotificationChannels notificationChannels = DB.find(NotificationChannels.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        NotificationChannels notificationChannels = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         notificationChannels.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(notificationChannels);
@@ -69,18 +60,7 @@ public class NotificationChannelDAO extends DAO<NotificationChannel> {
      * @return The requested {@link NotificationChannel} resource otherwise null
      */
     public NotificationChannel find(String uri) {
-        // Create the query based on the uri constraint
-        Query query=DB.query();
-        query.constrain(NotificationChannel.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<NotificationChannel> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(NotificationChannel.class, uri);
     }
 
     /**
@@ -99,15 +79,9 @@ public class NotificationChannelDAO extends DAO<NotificationChannel> {
     public void update(NotificationChannel resource) {
         // Store the updated resource
         DB.store(resource);
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(NotificationChannels.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<NotificationChannels> result = query.execute();
+        NotificationChannels notificationChannels = DB.find(NotificationChannels.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        NotificationChannels notificationChannels = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         notificationChannels.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(notificationChannels);
@@ -133,15 +107,9 @@ public class NotificationChannelDAO extends DAO<NotificationChannel> {
     public void lazyDelete(NotificationChannel resource) {
         // Delete the resource
         DB.delete(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(NotificationChannels.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getId())[0]);
-        // Store all the founded resources
-        ObjectSet<NotificationChannels> result = query.execute();
+        NotificationChannels notificationChannels = DB.find(NotificationChannels.class, resource.getUri().split("/"+resource.getId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        NotificationChannels notificationChannels = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         notificationChannels.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(notificationChannels);
@@ -19,14 +19,12 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.NotificationChannel;
 import org.eclipse.om2m.commons.resource.NotificationChannels;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link NotificationChannels} collection resource persistence.
  *
@@ -56,21 +54,21 @@ public class NotificationChannelsDAO extends DAO<NotificationChannels> {
         NotificationChannels notificationChannels = lazyFind(uri);
 
         if (notificationChannels != null){
-        	ObjectContainer session = DB.ext().openSession();
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                // Find NotificationChannel sub-resources and add their references
+                notificationChannels.getNotificationChannelCollection().getNamedReference().clear();
 
-            // Find NotificationChannel sub-resources and add their references
-            notificationChannels.getNotificationChannelCollection().getNamedReference().clear();
+                List<NotificationChannel> result = session.findByPrefix(NotificationChannel.class, uri, Projection.ACCESS);
 
-            Query query = session.query();
-            query.constrain(NotificationChannel.class);
-            query.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<NotificationChannel> result = query.execute();
-
-            for (int i = 0; i < result.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(result.get(i).getId());
-                reference.setValue(result.get(i).getUri());
-                notificationChannels.getNotificationChannelCollection().getNamedReference().add(reference);
+                for (int i = 0; i < result.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(result.get(i).getId());
+                    reference.setValue(result.get(i).getUri());
+                    notificationChannels.getNotificationChannelCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return notificationChannels;
@@ -82,20 +80,12 @@ public class NotificationChannelsDAO extends DAO<NotificationChannels> {
      * @return The requested {@link NotificationChannels} collection resource otherwise null
      */
     public NotificationChannels lazyFind(String uri) {
-    	ObjectContainer session = DB.ext().openSession();
-
-        // Create the query based on the uri constraint
-        Query query = session.query();
-        query.constrain(NotificationChannels.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<NotificationChannels> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(NotificationChannels.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -126,10 +116,7 @@ public class NotificationChannelsDAO extends DAO<NotificationChannels> {
      */
     public void lazyDelete(NotificationChannels resource) {
         // Delete notificationChannel sub-resources
-        Query query = DB.query();
-        query.constrain(NotificationChannel.class);
-        query.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<NotificationChannel> result = query.execute();
+        List<NotificationChannel> result = DB.findByPrefix(NotificationChannel.class, resource.getUri());
 
         for (int i = 0; i < result.size(); i++) {
             DAOFactory.getNotificationChannelDAO().lazyDelete(result.get(i));
@@ -20,6 +20,7 @@
 package org.eclipse.om2m.core.dao;
 
 import java.util.Date;
+import java.util.Iterator;
 
 import org.eclipse.om2m.commons.resource.MgmtObj;
 import org.eclipse.om2m.commons.resource.Parameters;
@@ -27,10 +28,6 @@ import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Parameters} collection resource persistence.
  *
@@ -83,20 +80,12 @@ public class ParametersDAO extends DAO<Parameters> {
      * @return The requested {@link Parameters} collection resource otherwise null
      */
     public Parameters find(String uri) {
-    	ObjectContainer session = DB.ext().openSession();
-
-        // Create the query based on the uri constraint
-        Query query=session.query();
-        query.constrain(Parameters.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Parameters> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(Parameters.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -147,12 +136,14 @@ public class ParametersDAO extends DAO<Parameters> {
 
         String parentUri = resource.getUri().replace("/"+resource.getId(),"");
         Parameters parent = DAOFactory.getParametersDAO().lazyFind(parentUri);
-        ReferenceToNamedResource reference = new ReferenceToNamedResource();
-        reference.setValue(resource.getUri());
-        ObjectSet<ReferenceToNamedResource> result = DB.queryByExample(reference);
-        ReferenceToNamedResource reference1 = result.get(0);
-        parent.getParametersCollection().getNamedReference().remove(reference1);
-        DB.delete(reference1);
+        // Remove the reference from the parent collection
+        Iterator<ReferenceToNamedResource> references = parent.getParametersCollection().getNamedReference().iterator();
+        while (references.hasNext()) {
+            if (resource.getUri().equals(references.next().getValue())) {
+                references.remove();
+                break;
+            }
+        }
         // Delete the resource
         DB.delete(resource);
         DB.store(parent);
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+/**
+ * Part of a resource object graph loaded by a lookup. db4o activates the found resources down to
+ * the depth of the projection only: the members below it are left unloaded and read as null or
+ * empty. A projected resource is meant to be read, updates are done on {@link #FULL} resources.
+ * Engines holding their resources in memory return them entirely whatever the projection.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public enum Projection {
+    /** Attributes of the resource, such as its uri, id and accessRightID, for existence and access right checks and collection references */
+    ACCESS(1),
+    /** Attributes of the resource with its searchStrings, for summaries of the resources under a prefix such as discovery */
+    SUMMARY(3),
+    /** Whole resource, to be returned or updated */
+    FULL(7);
+
+    /** db4o activation depth */
+    private final int depth;
+
+    private Projection(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Gets the db4o activation depth of the projection.
+     * @return activation depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+}
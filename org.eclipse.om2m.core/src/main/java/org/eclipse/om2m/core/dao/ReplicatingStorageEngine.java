@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.commons.utils.XmlMapper;
+import org.eclipse.om2m.core.replication.LogRecord;
+import org.eclipse.om2m.core.replication.WriteAheadLog;
+
+/**
+ * {@link StorageEngine} logging the resource mutations to a {@link WriteAheadLog} followed by a
+ * replica. The log is forced before the underlying engine commits. Nothing is logged while no log is
+ * attached, which is the case of a replica applying the log of its leader.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class ReplicatingStorageEngine implements StorageEngine {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final byte[] EMPTY = new byte[0];
+
+    /** Engine storing the resources */
+    private final StorageEngine engine;
+    /** Log of the mutations, null while none is attached */
+    private volatile WriteAheadLog log;
+    /** Keeps the records in the order the mutations are applied */
+    private final Object lock = new Object();
+
+    /**
+     * Creates an engine logging the mutations once a log is attached.
+     * @param engine - engine storing the resources
+     */
+    public ReplicatingStorageEngine(StorageEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Starts logging the mutations.
+     * @param log - log receiving the mutations
+     */
+    public void attach(WriteAheadLog log) {
+        this.log = log;
+    }
+
+    public void store(Resource resource) {
+        WriteAheadLog wal = log;
+        if (wal == null) {
+            engine.store(resource);
+            return;
+        }
+        // Marshalled out of the lock
+        byte[] payload = XmlMapper.getInstance().objectToXml(resource).getBytes(UTF8);
+        synchronized (lock) {
+            engine.store(resource);
+            wal.append(LogRecord.STORE, resource.getUri(), payload);
+        }
+    }
+
+    public void delete(Resource resource) {
+        WriteAheadLog wal = log;
+        synchronized (lock) {
+            engine.delete(resource);
+            if (wal != null) {
+                wal.append(LogRecord.DELETE, resource.getUri(), EMPTY);
+            }
+        }
+    }
+
+    public void deleteSubtree(String uri) {
+        WriteAheadLog wal = log;
+        synchronized (lock) {
+            engine.deleteSubtree(uri);
+            if (wal != null) {
+                wal.append(LogRecord.DELETE_SUBTREE, uri, EMPTY);
+            }
+        }
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri) {
+        return engine.find(type, uri);
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+        return engine.find(type, uri, projection);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+        return engine.findByPrefix(type, prefix);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+        return engine.findByPrefix(type, prefix, projection);
+    }
+
+    public <T extends Resource> T findOldest(Class<T> type, String prefix) {
+        return engine.findOldest(type, prefix);
+    }
+
+    public <T extends Resource> T findLatest(Class<T> type, String prefix) {
+        return engine.findLatest(type, prefix);
+    }
+
+    public <T extends Resource> List<T> findOldest(Class<T> type, String prefix, int count) {
+        return engine.findOldest(type, prefix, count);
+    }
+
+    /**
+     * Deletes the oldest resources at once, logged as one deletion each so that the replica applies
+     * them again harmlessly.
+     */
+    public int deleteOldest(Class<? extends Resource> type, String prefix, int count) {
+        WriteAheadLog wal = log;
+        synchronized (lock) {
+            if (wal == null) {
+                return engine.deleteOldest(type, prefix, count);
+            }
+            List<? extends Resource> oldest = engine.findOldest(type, prefix, count);
+            int deleted = engine.deleteOldest(type, prefix, oldest.size());
+            for (Resource resource : oldest.subList(0, deleted)) {
+                wal.append(LogRecord.DELETE, resource.getUri(), EMPTY);
+            }
+            return deleted;
+        }
+    }
+
+    public long[] countInstances(String uri) {
+        return engine.countInstances(uri);
+    }
+
+    public StorageSession openSession() {
+        return engine.openSession();
+    }
+
+    public void commit() {
+        WriteAheadLog wal = log;
+        if (wal != null) {
+            try {
+                wal.commit();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot write the write-ahead log", e);
+            }
+        }
+        engine.commit();
+    }
+
+    public void clear() {
+        WriteAheadLog wal = log;
+        synchronized (lock) {
+            engine.clear();
+            if (wal != null) {
+                wal.append(LogRecord.CLEAR, "", EMPTY);
+            }
+        }
+    }
+
+    public void close() {
+        WriteAheadLog wal = log;
+        if (wal != null) {
+            try {
+                wal.close();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot close the write-ahead log", e);
+            }
+        }
+        engine.close();
+    }
+}
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.commons.utils.ResourceCopier;
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * Bounded concurrent cache of the stored resources, keyed by uri and checked against the requested
+ * resource type. It is bounded both by number of resources and by their estimated heap size, and
+ * evicts with a clock sweep giving a second chance to the resources read since the last pass.
+ * <p>
+ * Every invalidation bumps a version: a resource loaded before an invalidation is not cached, so
+ * that a concurrent reader never puts back a resource overwritten in the meantime.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class ResourceCache {
+
+    /**
+     * Lazily creates the cache configured by the org.eclipse.om2m.dbCache* properties.
+     */
+    private static class ResourceCacheHolder {
+        private static final ResourceCache CACHE = new ResourceCache(Constants.DB_CACHE_SIZE, Constants.DB_CACHE_WEIGHT);
+    }
+
+    /** Cached resource */
+    private static final class Entry {
+        private final Resource resource;
+        private final long weight;
+        /** Set on each read, cleared by the clock hand */
+        private volatile boolean referenced;
+
+        private Entry(Resource resource, long weight) {
+            this.resource = resource;
+            this.weight = weight;
+        }
+    }
+
+    /** Cached resources by uri, sorted so that subtrees are contiguous */
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<String, Entry>();
+    /** Maximum number of cached resources */
+    private final int maxSize;
+    /** Maximum estimated heap size of the cached resources */
+    private final long maxWeight;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong weight = new AtomicLong();
+    /** Incremented by each invalidation */
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    /** Held by the thread moving the clock hand */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    /** Uri the clock hand stopped at, null to restart from the first one */
+    private String hand;
+
+    /**
+     * Creates a cache.
+     * @param maxSize - maximum number of cached resources, 0 to disable the cache
+     * @param maxWeight - maximum estimated heap size of the cached resources in bytes
+     */
+    public ResourceCache(int maxSize, long maxWeight) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+    }
+
+    /** Gets the cache shared by the DAOs. */
+    public static ResourceCache getInstance() {
+        return ResourceCacheHolder.CACHE;
+    }
+
+    /**
+     * Gets a cached resource.
+     * @param type - resource class
+     * @param uri - resource uri, nothing is cached for a null uri
+     * @return the cached resource if it has the requested type, otherwise null
+     */
+    public <T extends Resource> T get(Class<T> type, String uri) {
+        Entry entry = uri == null ? null : entries.get(uri);
+        if (entry != null && type.isInstance(entry.resource)) {
+            entry.referenced = true;
+            hits.incrementAndGet();
+            return type.cast(entry.resource);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Gets the current version, to be read before loading a resource to cache.
+     * @return number of invalidations so far
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Caches a loaded resource unless an invalidation happened since it was loaded.
+     * @param resource - loaded resource, ignored if null
+     * @param loaded - {@link #version()} read before loading the resource
+     */
+    public void put(Resource resource, long loaded) {
+        if (resource == null || maxSize <= 0 || version.get() != loaded) {
+            return;
+        }
+        long resourceWeight = ResourceCopier.weigh(resource);
+        if (resourceWeight > maxWeight) {
+            return;
+        }
+        Entry entry = new Entry(resource, resourceWeight);
+        removed(entries.put(resource.getUri(), entry));
+        size.incrementAndGet();
+        weight.addAndGet(resourceWeight);
+        // An invalidation may have missed the entry being put
+        if (version.get() != loaded && entries.remove(resource.getUri(), entry)) {
+            removed(entry);
+        }
+        evict();
+    }
+
+    /**
+     * Invalidates the resource cached under an uri.
+     * @param uri - resource uri
+     */
+    public void invalidate(String uri) {
+        version.incrementAndGet();
+        if (removed(entries.remove(uri))) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Invalidates the resources cached under an uri and below it.
+     * @param uri - subtree root uri
+     */
+    public void invalidateSubtree(String uri) {
+        invalidate(uri);
+        for (String child : entries.subMap(uri + "/", uri + "0").keySet()) {
+            if (removed(entries.remove(child))) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Invalidates all the cached resources.
+     */
+    public void clear() {
+        version.incrementAndGet();
+        for (String uri : entries.keySet()) {
+            removed(entries.remove(uri));
+        }
+    }
+
+    /** Gets the number of reads served by the cache. */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** Gets the number of reads left to the storage engine. */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Gets the number of resources evicted beyond the size or weight limit. */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /** Gets the number of cached resources invalidated by writes. */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /** Gets the number of cached resources. */
+    public int getSize() {
+        return size.get();
+    }
+
+    /** Gets the estimated heap size of the cached resources, in bytes. */
+    public long getWeight() {
+        return weight.get();
+    }
+
+    /**
+     * Accounts for an entry removed from the map.
+     * @return true if an entry was removed
+     */
+    private boolean removed(Entry entry) {
+        if (entry == null) {
+            return false;
+        }
+        size.decrementAndGet();
+        weight.addAndGet(-entry.weight);
+        return true;
+    }
+
+    /**
+     * Moves the clock hand until the cache fits its limits. Readers put concurrently leave the
+     * eviction to the thread already moving the hand.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while ((size.get() > maxSize || weight.get() > maxWeight) && !entries.isEmpty()) {
+                Map.Entry<String, Entry> next = hand == null ? entries.firstEntry() : entries.higherEntry(hand);
+                if (next == null) {
+                    hand = null;
+                    continue;
+                }
+                hand = next.getKey();
+                Entry entry = next.getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else if (entries.remove(hand, entry)) {
+                    removed(entry);
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
@@ -21,9 +21,6 @@ package org.eclipse.om2m.core.dao;
 
 import org.eclipse.om2m.commons.resource.Resource;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for resource persistence.
  *
@@ -45,18 +42,17 @@ public class ResourceDAO extends DAO<Resource>{
      * @return The requested {@link Resource} otherwise null
      */
     public Resource find(String uri) {
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Resource.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Resource> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(Resource.class, uri);
+    }
+
+    /**
+     * Retrieves the {@link Resource} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link Resource} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link Resource} resource otherwise null
+     */
+    public Resource find(String uri, Projection projection) {
+        return DB.find(Resource.class, uri, projection);
     }
 
     public Resource lazyFind(String uri) {
@@ -24,10 +24,6 @@ import java.util.List;
 import org.eclipse.om2m.commons.resource.Resource;
 import org.eclipse.om2m.commons.resource.Resources;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Resources} persistence.
  *
@@ -49,19 +45,15 @@ public class ResourcesDAO extends DAO<Resources>{
      * @return The requested {@link Resources} otherwise null
      */
     public Resources find(String uri) {
-    	ObjectContainer session = DB.ext().openSession();
-
-        // Create the query based on the uri constraint
-        Query query = session.query();
-        query.constrain(Resource.class);
-        if(uri != null){
-            // Store all the founded resources
-            query.descend("uri").constrain(uri).startsWith(false);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            List<Resource> result = session.findByPrefix(Resource.class, uri != null ? uri : "", Projection.SUMMARY);
+            Resources resources = new Resources();
+            resources.setResources(result);
+            return resources;
+        } finally {
+            session.close();
         }
-        ObjectSet<Resource> result = query.execute();
-        Resources resources = new Resources();
-        resources.setResources((List<Resource>)result);
-        return resources;
     }
 
     public Resources lazyFind(String uri) {
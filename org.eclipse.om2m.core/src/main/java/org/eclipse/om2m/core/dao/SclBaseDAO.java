@@ -27,9 +27,6 @@ import org.eclipse.om2m.commons.resource.SclBase;
 import org.eclipse.om2m.commons.resource.Scls;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link SclBase} resource persistence.
  *
@@ -110,18 +107,17 @@ public class SclBaseDAO extends DAO<SclBase>{
      * @return The requested {@link SclBase} resource otherwise null
      */
     public SclBase find(String uri) {
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(SclBase.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<SclBase> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(SclBase.class, uri);
+    }
+
+    /**
+     * Retrieves the {@link SclBase} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link SclBase} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link SclBase} resource otherwise null
+     */
+    public SclBase find(String uri, Projection projection) {
+        return DB.find(SclBase.class, uri, projection);
     }
 
     /**
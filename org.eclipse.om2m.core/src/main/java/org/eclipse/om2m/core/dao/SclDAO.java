@@ -34,9 +34,6 @@ import org.eclipse.om2m.commons.resource.Scls;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.utils.DateConverter;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Scl} resource persistence.
  *
@@ -116,15 +113,9 @@ public class SclDAO extends DAO<Scl> {
         m2mPocs.setLastModifiedTime(resource.getLastModifiedTime());
         DAOFactory.getM2MPocsDAO().create(m2mPocs);
 
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Scls.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getSclId())[0]);
-        // Store all the founded resources
-        ObjectSet<Scls> result = query.execute();
+        Scls scls = DB.find(Scls.class, resource.getUri().split("/"+resource.getSclId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Scls scls = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         scls.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(scls);
@@ -139,18 +130,17 @@ public class SclDAO extends DAO<Scl> {
      * @return The requested {@link Scl} resource otherwise null
      */
     public Scl find(String uri) {
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Scl.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Scl> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(Scl.class, uri);
+    }
+
+    /**
+     * Retrieves the {@link Scl} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link Scl} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link Scl} resource otherwise null
+     */
+    public Scl find(String uri, Projection projection) {
+        return DB.find(Scl.class, uri, projection);
     }
 
     /**
@@ -169,15 +159,9 @@ public class SclDAO extends DAO<Scl> {
     public void update(Scl resource) {
         // Store the updated resource
         DB.store(resource);
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Scls.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getSclId())[0]);
-        // Store all the founded resources
-        ObjectSet<Scls> result = query.execute();
+        Scls scls = DB.find(Scls.class, resource.getUri().split("/"+resource.getSclId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Scls scls = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         scls.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(scls);
@@ -218,15 +202,9 @@ public class SclDAO extends DAO<Scl> {
         // Delete the resource
         DB.delete(resource);
 
-     // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Scls.class);
-        query.descend("uri").constrain(resource.getUri().split("/"+resource.getSclId())[0]);
-        // Store all the founded resources
-        ObjectSet<Scls> result = query.execute();
+        Scls scls = DB.find(Scls.class, resource.getUri().split("/"+resource.getSclId())[0]);
         
         // Update the lastModifiedTime attribute of the parent
-        Scls scls = result.get(0);
         // Update the lastModifiedTime attribute of the parent
         scls.setLastModifiedTime(DateConverter.toXMLGregorianCalendar(new Date()).toString());
         DB.store(scls);
@@ -19,16 +19,14 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.MgmtObjs;
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Scl;
 import org.eclipse.om2m.commons.resource.Scls;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Scls} collection resource persistence.
  *
@@ -73,20 +71,20 @@ public class SclsDAO extends DAO<Scls>{
         Scls scls = lazyFind(uri);
 
         if(scls != null) {
-        	ObjectContainer session = DB.ext().openSession();
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                // Find Scl sub-resources and add their references
+                scls.getSclCollection().getNamedReference().clear();
+                List<Scl> resultScl = session.findByPrefix(Scl.class, uri, Projection.ACCESS);
 
-            // Find Scl sub-resources and add their references
-            scls.getSclCollection().getNamedReference().clear();
-            Query queryScl = session.query();
-            queryScl.constrain(Scl.class);
-            queryScl.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<Scl> resultScl = queryScl.execute();
-
-            for (int i = 0; i < resultScl.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(resultScl.get(i).getSclId());
-                reference.setValue(resultScl.get(i).getUri());
-                scls.getSclCollection().getNamedReference().add(reference);
+                for (int i = 0; i < resultScl.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(resultScl.get(i).getSclId());
+                    reference.setValue(resultScl.get(i).getUri());
+                    scls.getSclCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return scls;
@@ -98,20 +96,12 @@ public class SclsDAO extends DAO<Scls>{
      * @return The requested {@link Scls} collection resource otherwise null
      */
     public Scls lazyFind(String uri) {
-    	ObjectContainer session = DB.ext().openSession();
-
-        // Create the query based on the uri constraint
-        Query query = session.query();
-        query.constrain(Scls.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Scls> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if(!result.isEmpty()){
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(Scls.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -147,10 +137,7 @@ public class SclsDAO extends DAO<Scls>{
         DAOFactory.getMgmtObjsDAO().lazyDelete(DAOFactory.getMgmtObjsDAO().lazyFind(resource.getMgmtObjsReference()));
 
         // Delete scl sub-resources
-        Query queryScl = DB.query();
-        queryScl.constrain(Scl.class);
-        queryScl.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<Scl> resultScl = queryScl.execute();
+        List<Scl> resultScl = DB.findByPrefix(Scl.class, resource.getUri());
 
         for (int i = 0; i < resultScl.size(); i++) {
             DAOFactory.getSclDAO().lazyDelete( resultScl.get(i));
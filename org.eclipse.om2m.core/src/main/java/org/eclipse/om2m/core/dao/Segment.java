@@ -0,0 +1,878 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.eclipse.om2m.commons.resource.Base64Binary;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentTypes;
+import org.eclipse.om2m.commons.resource.SearchStrings;
+
+/**
+ * Append-only file holding the {@link ContentInstance} resources of one contentInstances collection.
+ * Each write appends a record, a put or a delete of the instance named by the last segment of its
+ * uri, or a delete of the oldest instances up to a named one. Each record carries the CRC32 of its
+ * content, so that the scan of an opened file stops at the first torn or corrupted record and drops
+ * the rest of the file. The offsets of the live records are indexed by name and linked in creation
+ * order, so that the oldest and the latest instances are found in constant time. Records are
+ * read from a read-only mapping of a window of the file, so that files of any size are read with long
+ * offsets. The file is rewritten with its live records only once the dead ones take most of it. The
+ * large payloads are kept in a {@link BlobStore}, the records referring to them by hash, and the
+ * payloads dropped by the appended records are released once these records are forced.
+ * <p>
+ * The file is opened when the segment is used and closed again once it is among the least recently
+ * used ones beyond the {@link OpenFiles} bound of its store.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+class Segment {
+    /** File signature */
+    private static final int MAGIC = 0x4f4d5332;
+    /** Record storing an instance */
+    private static final byte PUT = 1;
+    /** Record deleting an instance */
+    private static final byte DELETE = 2;
+    /** Record deleting the oldest instances up to the named one */
+    private static final byte DELETE_OLDEST = 3;
+    /** Content flag of a payload kept in the blob store */
+    private static final byte BLOB_REFERENCE = 2;
+    /** Size of the length of a record, which counts the bytes following it */
+    private static final int RECORD_LENGTH = 4;
+    /** Size of the checksum following the length, computed over the rest of the record */
+    private static final int RECORD_CHECKSUM = 4;
+    /** Record header: length, checksum and type */
+    private static final int RECORD_HEADER = RECORD_LENGTH + RECORD_CHECKSUM + 1;
+    /** Size below which a segment is never rewritten */
+    private static final long REWRITE_THRESHOLD = 1 << 20;
+    /** Default size of the mapped file windows */
+    static final long WINDOW = 64 << 20;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Segment file */
+    private final File file;
+    /** Uri of the contentInstances collection */
+    private final String uri;
+    /** Store of the large payloads, null to keep them in the records */
+    private final BlobStore blobs;
+    /** Open segment files of the store */
+    private final OpenFiles files;
+    /** Segment file channel, null while the file is closed */
+    private FileChannel channel;
+    /** Read-only mapping of a window of the file, remapped for the records out of it */
+    private MappedByteBuffer map;
+    /** File offset of the mapped window */
+    private long mapOffset;
+    /** End of the last complete record */
+    private long size;
+    /** Bytes of the live records */
+    private long liveBytes;
+    /** Sum of the content sizes of the live records */
+    private long contentBytes;
+    /** Live records by instance name */
+    private final Map<String, Slot> byName = new HashMap<String, Slot>();
+    /** Oldest live record */
+    private Slot head;
+    /** Latest live record */
+    private Slot tail;
+    /** Whether appended records are not forced to the disk yet */
+    private boolean dirty;
+    /** Hashes of the payloads dropped by the appended records, released once they are forced */
+    private final List<byte[]> released = new ArrayList<byte[]>();
+
+    /**
+     * Location of a live record, linked to the previous and next created ones.
+     */
+    private static class Slot {
+        final String name;
+        long offset;
+        int length;
+        /** Content size of the instance, read from its record when it is indexed */
+        long contentSize;
+        Slot previous;
+        Slot next;
+
+        Slot(String name, long offset, int length) {
+            this.name = name;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Bounded set of the open segment files of a store, least recently used first. The segments
+     * beyond the bound are set aside, to be closed by the store while it holds no segment lock.
+     */
+    static class OpenFiles {
+        /** Maximum number of open segment files */
+        private final int max;
+        /** Size of the mapped file windows */
+        private final long window;
+        /** Open segments in access order */
+        private final LinkedHashMap<Segment, Boolean> open = new LinkedHashMap<Segment, Boolean>(16, 0.75f, true);
+        /** Segments to close */
+        private final List<Segment> idle = new ArrayList<Segment>();
+
+        /**
+         * Creates the set of open segment files of a store.
+         * @param max - maximum number of open segment files
+         * @param window - size of the mapped file windows
+         */
+        OpenFiles(int max, long window) {
+            this.max = Math.max(1, max);
+            this.window = window;
+        }
+
+        /**
+         * Records the use of a segment whose file is open, setting aside the least recently used
+         * ones beyond the bound.
+         */
+        synchronized void touch(Segment segment) {
+            open.put(segment, Boolean.TRUE);
+            Iterator<Segment> eldest = open.keySet().iterator();
+            while (open.size() > max) {
+                idle.add(eldest.next());
+                eldest.remove();
+            }
+        }
+
+        /**
+         * Forgets a closed segment.
+         */
+        synchronized void forget(Segment segment) {
+            open.remove(segment);
+            idle.remove(segment);
+        }
+
+        /**
+         * Takes the segments set aside to be closed.
+         * @return segments to close with {@link Segment#release()}
+         */
+        synchronized List<Segment> takeIdle() {
+            List<Segment> result = new ArrayList<Segment>(idle);
+            idle.clear();
+            return result;
+        }
+
+        /**
+         * Returns the number of segments whose file may be open.
+         * @return open and idle segments
+         */
+        synchronized int size() {
+            return open.size() + idle.size();
+        }
+    }
+
+    private Segment(File file, String uri, BlobStore blobs, OpenFiles files) {
+        this.file = file;
+        this.uri = uri;
+        this.blobs = blobs;
+        this.files = files;
+    }
+
+    /**
+     * Creates an empty segment file.
+     * @param file - segment file
+     * @param uri - uri of the contentInstances collection
+     * @param blobs - store of the large payloads, null to keep them in the records
+     * @param files - open segment files of the store
+     * @return the created segment
+     * @throws IOException if the file cannot be written
+     */
+    static Segment create(File file, String uri, BlobStore blobs, OpenFiles files) throws IOException {
+        Segment segment = new Segment(file, uri, blobs, files);
+        FileChannel channel = segment.channel();
+        channel.truncate(0);
+        segment.size = segment.writeHeader(channel);
+        return segment;
+    }
+
+    /**
+     * Opens a segment file and indexes its records. The file is truncated at the first record that
+     * is torn by a crash or whose checksum does not match.
+     * @param file - segment file
+     * @param blobs - store of the large payloads, null to keep them in the records
+     * @param files - open segment files of the store
+     * @return the opened segment
+     * @throws IOException if the file cannot be read or is not a segment
+     */
+    static Segment open(File file, BlobStore blobs, OpenFiles files) throws IOException {
+        FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        Segment segment = null;
+        try {
+            long length = channel.size();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(length, files.window));
+            if (header.remaining() < 4 || header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a segment");
+            }
+            segment = new Segment(file, getString(header), blobs, files);
+            segment.channel = channel;
+            files.touch(segment);
+            segment.size = header.position();
+            while (length - segment.size >= RECORD_HEADER) {
+                long offset = segment.size;
+                int recordLength = segment.window(offset, RECORD_HEADER).getInt();
+                if (recordLength < RECORD_HEADER - RECORD_LENGTH || recordLength > length - offset - RECORD_LENGTH) {
+                    break;
+                }
+                ByteBuffer buffer = segment.window(offset, RECORD_LENGTH + recordLength);
+                buffer.getInt();
+                int checksum = buffer.getInt();
+                byte[] content = new byte[recordLength - RECORD_CHECKSUM];
+                buffer.duplicate().get(content);
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                if (checksum != (int) crc.getValue()) {
+                    break;
+                }
+                byte type = buffer.get();
+                String name = getString(buffer);
+                if (type == PUT) {
+                    segment.index(name, offset, RECORD_LENGTH + recordLength, contentSize(buffer));
+                } else if (type == DELETE_OLDEST) {
+                    segment.unindexOldest(name);
+                } else {
+                    segment.unindex(name);
+                }
+                segment.size = offset + RECORD_LENGTH + recordLength;
+            }
+            if (segment.size < length) {
+                channel.truncate(segment.size);
+                segment.map = null;
+            }
+            return segment;
+        } catch (IOException e) {
+            channel.close();
+            if (segment != null) {
+                files.forget(segment);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            channel.close();
+            if (segment != null) {
+                files.forget(segment);
+            }
+            throw new IOException(file + " is corrupted", e);
+        }
+    }
+
+    /**
+     * Returns the uri of the contentInstances collection.
+     * @return collection uri
+     */
+    String getUri() {
+        return uri;
+    }
+
+    /**
+     * Appends an instance, replacing the stored one with the same name at its creation rank.
+     * @param name - instance name
+     * @param contentInstance - instance to store
+     * @throws IOException if the record cannot be appended
+     */
+    synchronized void put(String name, ContentInstance contentInstance) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeByte(PUT);
+        putString(out, name);
+        encode(out, contentInstance, blobs);
+        Slot replaced = byName.get(name);
+        byte[] reference = replaced != null ? reference(replaced) : null;
+        int length = append(bytes.toByteArray());
+        index(name, size - length, length, contentInstance.getContentSize() != null ? contentInstance.getContentSize() : 0);
+        if (reference != null) {
+            released.add(reference);
+        }
+    }
+
+    /**
+     * Appends the deletion of an instance.
+     * @param name - instance name
+     * @return true if the instance was stored
+     * @throws IOException if the record cannot be appended
+     */
+    synchronized boolean delete(String name) throws IOException {
+        Slot slot = byName.get(name);
+        if (slot == null) {
+            return false;
+        }
+        byte[] reference = reference(slot);
+        unindex(name);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeByte(DELETE);
+        putString(out, name);
+        append(bytes.toByteArray());
+        // Released once the record deleting the instance is forced
+        if (reference != null) {
+            released.add(reference);
+        }
+        if (size > REWRITE_THRESHOLD && liveBytes < size / 2) {
+            rewrite();
+        }
+        return true;
+    }
+
+    /**
+     * Appends the deletion of the oldest instances, a single record naming the latest of them.
+     * @param count - number of instances to delete
+     * @return number of deleted instances
+     * @throws IOException if the record cannot be appended
+     */
+    synchronized int deleteOldest(int count) throws IOException {
+        if (count <= 0 || head == null) {
+            return 0;
+        }
+        int deleted = 0;
+        Slot last = null;
+        for (Slot slot = head; slot != null && deleted < count; slot = slot.next) {
+            byte[] reference = reference(slot);
+            // Released once the record deleting the instances is forced
+            if (reference != null) {
+                released.add(reference);
+            }
+            last = slot;
+            deleted++;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeByte(DELETE_OLDEST);
+        putString(out, last.name);
+        append(bytes.toByteArray());
+        unindexOldest(last.name);
+        if (size > REWRITE_THRESHOLD && liveBytes < size / 2) {
+            rewrite();
+        }
+        return deleted;
+    }
+
+    /**
+     * Reads an instance.
+     * @param name - instance name
+     * @return the stored instance otherwise null
+     * @throws IOException if the record cannot be read
+     */
+    synchronized ContentInstance get(String name) throws IOException {
+        Slot slot = byName.get(name);
+        return slot != null ? read(slot) : null;
+    }
+
+    /**
+     * Reads the instances in creation order.
+     * @param prefix - name prefix of the instances to read, empty for all of them
+     * @return the stored instances
+     * @throws IOException if a record cannot be read
+     */
+    synchronized List<ContentInstance> list(String prefix) throws IOException {
+        List<ContentInstance> result = new ArrayList<ContentInstance>(byName.size());
+        for (Slot slot = head; slot != null; slot = slot.next) {
+            if (slot.name.startsWith(prefix)) {
+                result.add(read(slot));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the oldest instances, in creation order.
+     * @param max - maximum number of instances to read
+     * @return the first created instances
+     * @throws IOException if a record cannot be read
+     */
+    synchronized List<ContentInstance> oldest(int max) throws IOException {
+        List<ContentInstance> result = new ArrayList<ContentInstance>(Math.min(max, byName.size()));
+        for (Slot slot = head; slot != null && result.size() < max; slot = slot.next) {
+            result.add(read(slot));
+        }
+        return result;
+    }
+
+    /**
+     * Reads an instance by creation rank.
+     * @param rank - creation rank, 0 for the oldest instance
+     * @return the instance otherwise null
+     * @throws IOException if the record cannot be read
+     */
+    synchronized ContentInstance at(int rank) throws IOException {
+        Slot slot = head;
+        for (int i = 0; i < rank && slot != null; i++) {
+            slot = slot.next;
+        }
+        return slot != null ? read(slot) : null;
+    }
+
+    /**
+     * Reads the oldest instance.
+     * @return the first created instance otherwise null
+     * @throws IOException if the record cannot be read
+     */
+    synchronized ContentInstance first() throws IOException {
+        return head != null ? read(head) : null;
+    }
+
+    /**
+     * Reads the latest instance.
+     * @return the last created instance otherwise null
+     * @throws IOException if the record cannot be read
+     */
+    synchronized ContentInstance last() throws IOException {
+        return tail != null ? read(tail) : null;
+    }
+
+    /**
+     * Returns the number of stored instances.
+     * @return live instances
+     */
+    synchronized int count() {
+        return byName.size();
+    }
+
+    /**
+     * Returns the sum of the content sizes of the stored instances, without reading them.
+     * @return content size of the live instances
+     */
+    synchronized long contentBytes() {
+        return contentBytes;
+    }
+
+    /**
+     * Forces the appended records to the disk, then releases the payloads they dropped.
+     * @throws IOException if the file cannot be synchronized
+     */
+    synchronized void force() throws IOException {
+        if (dirty) {
+            channel().force(false);
+            dirty = false;
+        }
+        releaseForced();
+    }
+
+    /**
+     * Closes the segment file until the segment is used again, forcing the appended records first.
+     * @throws IOException if the file cannot be synchronized or closed
+     */
+    synchronized void release() throws IOException {
+        if (channel != null) {
+            if (dirty) {
+                channel.force(false);
+                dirty = false;
+            }
+            map = null;
+            channel.close();
+            channel = null;
+        }
+        releaseForced();
+    }
+
+    /**
+     * Closes the segment file.
+     * @throws IOException if the file cannot be closed
+     */
+    synchronized void close() throws IOException {
+        files.forget(this);
+        map = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Closes and deletes the segment file, releasing the payloads of its instances.
+     * @throws IOException if the file cannot be closed
+     */
+    synchronized void destroy() throws IOException {
+        if (blobs != null) {
+            for (Slot slot = head; slot != null; slot = slot.next) {
+                byte[] reference = reference(slot);
+                if (reference != null) {
+                    released.add(reference);
+                }
+            }
+        }
+        close();
+        if (!file.delete() && file.exists()) {
+            throw new IOException("Cannot delete " + file);
+        }
+        releaseForced();
+    }
+
+    /**
+     * Releases the payloads dropped by the records forced to the disk.
+     */
+    private void releaseForced() throws IOException {
+        for (Iterator<byte[]> references = released.iterator(); references.hasNext();) {
+            blobs.release(references.next());
+            references.remove();
+        }
+    }
+
+    private void index(String name, long offset, int length, long contentSize) {
+        Slot slot = byName.get(name);
+        if (slot != null) {
+            // Updates keep their creation rank
+            liveBytes -= slot.length;
+            contentBytes -= slot.contentSize;
+            slot.offset = offset;
+            slot.length = length;
+        } else {
+            slot = new Slot(name, offset, length);
+            slot.previous = tail;
+            if (tail != null) {
+                tail.next = slot;
+            } else {
+                head = slot;
+            }
+            tail = slot;
+            byName.put(name, slot);
+        }
+        slot.contentSize = contentSize;
+        liveBytes += length;
+        contentBytes += contentSize;
+    }
+
+    private boolean unindex(String name) {
+        Slot slot = byName.remove(name);
+        if (slot == null) {
+            return false;
+        }
+        if (slot.previous != null) {
+            slot.previous.next = slot.next;
+        } else {
+            head = slot.next;
+        }
+        if (slot.next != null) {
+            slot.next.previous = slot.previous;
+        } else {
+            tail = slot.previous;
+        }
+        liveBytes -= slot.length;
+        contentBytes -= slot.contentSize;
+        return true;
+    }
+
+    /**
+     * Unindexes the oldest instances up to a named one, none if it is not stored.
+     */
+    private void unindexOldest(String name) {
+        if (!byName.containsKey(name)) {
+            return;
+        }
+        String unindexed;
+        do {
+            unindexed = head.name;
+            unindex(unindexed);
+        } while (!unindexed.equals(name));
+    }
+
+    /**
+     * Returns the segment file channel, opening the file if needed.
+     */
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = new RandomAccessFile(file, "rw").getChannel();
+        }
+        files.touch(this);
+        return channel;
+    }
+
+    /**
+     * Returns a buffer positioned at a file offset, mapping a window of the file holding the given
+     * number of bytes from there if the current one does not.
+     */
+    private ByteBuffer window(long offset, int length) throws IOException {
+        FileChannel channel = channel();
+        if (map == null || offset < mapOffset || offset + length > mapOffset + map.capacity()) {
+            long end = Math.min(channel.size(), offset + Math.max(length, files.window));
+            map = channel.map(FileChannel.MapMode.READ_ONLY, offset, end - offset);
+            mapOffset = offset;
+        }
+        ByteBuffer buffer = map.duplicate();
+        buffer.position((int) (offset - mapOffset));
+        return buffer;
+    }
+
+    private int writeHeader(FileChannel out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(MAGIC);
+        putString(data, uri);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer, length - buffer.remaining());
+        }
+        return length;
+    }
+
+    /**
+     * Appends a record whose first eight bytes are reserved for its length and checksum.
+     */
+    private int append(byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        buffer.putInt(0, record.length - RECORD_LENGTH);
+        CRC32 crc = new CRC32();
+        crc.update(record, RECORD_LENGTH + RECORD_CHECKSUM, record.length - RECORD_LENGTH - RECORD_CHECKSUM);
+        buffer.putInt(RECORD_LENGTH, (int) crc.getValue());
+        FileChannel channel = channel();
+        long position = size;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        size = position;
+        dirty = true;
+        return record.length;
+    }
+
+    private ContentInstance read(Slot slot) throws IOException {
+        ByteBuffer buffer = window(slot.offset, slot.length);
+        buffer.position(buffer.position() + RECORD_HEADER);
+        String name = getString(buffer);
+        ContentInstance contentInstance = decode(buffer, blobs);
+        contentInstance.setUri(uri + "/" + name);
+        return contentInstance;
+    }
+
+    /**
+     * Reads the hash of the payload of a record kept in the blob store.
+     * @return the hash otherwise null
+     */
+    private byte[] reference(Slot slot) throws IOException {
+        if (blobs == null) {
+            return null;
+        }
+        ByteBuffer buffer = window(slot.offset, slot.length);
+        buffer.position(buffer.position() + RECORD_HEADER);
+        skipBytes(buffer);
+        return reference(buffer);
+    }
+
+    /**
+     * Copies the live records, in creation order, to a new file replacing the segment one.
+     */
+    private void rewrite() throws IOException {
+        File target = new File(file.getPath() + ".tmp");
+        FileChannel channel = channel();
+        FileChannel out = new RandomAccessFile(target, "rw").getChannel();
+        try {
+            out.truncate(0);
+            long position = writeHeader(out);
+            for (Slot slot = head; slot != null; slot = slot.next) {
+                long copied = 0;
+                while (copied < slot.length) {
+                    copied += channel.transferTo(slot.offset + copied, slot.length - copied, out.position(position + copied));
+                }
+                slot.offset = position;
+                position += slot.length;
+            }
+            out.force(true);
+            size = position;
+        } finally {
+            out.close();
+        }
+        channel.close();
+        this.channel = null;
+        map = null;
+        if (!target.renameTo(file)) {
+            file.delete();
+            if (!target.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        }
+        dirty = false;
+    }
+
+    /**
+     * Encodes an instance, keeping its payload in a blob store when it accepts it.
+     * @param blobs - store of the large payloads, null to keep them in the record
+     */
+    static void encode(DataOutputStream out, ContentInstance contentInstance, BlobStore blobs) throws IOException {
+        putString(out, contentInstance.getId());
+        putString(out, contentInstance.getHref());
+        putString(out, contentInstance.getAccessRightID());
+        putString(out, contentInstance.getCreationTime());
+        putString(out, contentInstance.getLastModifiedTime());
+        putString(out, contentInstance.getDelayTolerance());
+        putStrings(out, contentInstance.getSearchStrings() != null ? contentInstance.getSearchStrings().getSearchString() : null);
+        putStrings(out, contentInstance.getContentTypes() != null ? contentInstance.getContentTypes().getContentType() : null);
+        out.writeLong(contentInstance.getContentSize() != null ? contentInstance.getContentSize() : -1);
+        Base64Binary content = contentInstance.getContent();
+        putString(out, content != null ? content.getContentType() : null);
+        if (content != null && blobs != null && blobs.accepts(content.getValue())) {
+            putBytes(out, blobs.put(content.getValue()));
+            out.writeByte(BLOB_REFERENCE);
+        } else {
+            putBytes(out, content != null ? content.getValue() : null);
+            out.writeBoolean(content != null);
+        }
+    }
+
+    /**
+     * Decodes an instance, reading its payload from a blob store when it is kept there.
+     * @param blobs - store of the large payloads, null if the records keep them
+     */
+    static ContentInstance decode(ByteBuffer buffer, BlobStore blobs) throws IOException {
+        ContentInstance contentInstance = new ContentInstance();
+        contentInstance.setId(getString(buffer));
+        contentInstance.setHref(getString(buffer));
+        contentInstance.setAccessRightID(getString(buffer));
+        contentInstance.setCreationTime(getString(buffer));
+        contentInstance.setLastModifiedTime(getString(buffer));
+        contentInstance.setDelayTolerance(getString(buffer));
+        List<String> searchStrings = getStrings(buffer);
+        if (searchStrings != null) {
+            contentInstance.setSearchStrings(new SearchStrings());
+            contentInstance.getSearchStrings().getSearchString().addAll(searchStrings);
+        }
+        List<String> contentTypes = getStrings(buffer);
+        if (contentTypes != null) {
+            contentInstance.setContentTypes(new ContentTypes());
+            contentInstance.getContentTypes().getContentType().addAll(contentTypes);
+        }
+        long contentSize = buffer.getLong();
+        contentInstance.setContentSize(contentSize != -1 ? Long.valueOf(contentSize) : null);
+        String contentType = getString(buffer);
+        byte[] value = getBytes(buffer);
+        byte flag = buffer.get();
+        if (flag == BLOB_REFERENCE) {
+            if (blobs == null) {
+                throw new IOException("Payload of " + contentInstance.getId() + " kept in a blob store");
+            }
+            value = blobs.get(value);
+        }
+        if (flag != 0) {
+            contentInstance.getContent().setContentType(contentType);
+            contentInstance.getContent().setValue(value);
+        } else {
+            contentInstance.setContent(null);
+        }
+        return contentInstance;
+    }
+
+    /**
+     * Reads the content size of an encoded instance, without decoding it.
+     * @return the content size, 0 if it is not set
+     */
+    static long contentSize(ByteBuffer buffer) {
+        for (int i = 0; i < 6; i++) {
+            skipBytes(buffer);
+        }
+        for (int i = 0; i < 2; i++) {
+            int count = buffer.getInt();
+            for (int j = 0; j < count; j++) {
+                skipBytes(buffer);
+            }
+        }
+        long contentSize = buffer.getLong();
+        return contentSize != -1 ? contentSize : 0;
+    }
+
+    /**
+     * Reads the hash of the payload of an encoded instance kept in a blob store, without decoding it.
+     * @return the hash otherwise null
+     */
+    static byte[] reference(ByteBuffer buffer) {
+        contentSize(buffer);
+        skipBytes(buffer);
+        byte[] value = getBytes(buffer);
+        return buffer.get() == BLOB_REFERENCE ? value : null;
+    }
+
+    static void skipBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    static void putString(DataOutputStream out, String value) throws IOException {
+        putBytes(out, value != null ? value.getBytes(UTF8) : null);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = getBytes(buffer);
+        return bytes != null ? new String(bytes, UTF8) : null;
+    }
+
+    private static void putBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void putStrings(DataOutputStream out, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(values.size());
+            for (String value : values) {
+                putString(out, value);
+            }
+        }
+    }
+
+    private static List<String> getStrings(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        if (size == -1) {
+            return null;
+        }
+        List<String> values = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(getString(buffer));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,628 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+
+/**
+ * Time-series store keeping the {@link ContentInstance} resources of each contentInstances collection
+ * in its own append-only {@link Segment} file. An instance uri is made of the collection uri and the
+ * instance name. The oldest instances of a collection can be moved to compressed {@link Archive}
+ * files, its {@link ColdTier}, read transparently with the ones of the segment. The large payloads of
+ * both tiers can be kept once in a {@link BlobStore}. Only the most recently used segment files are
+ * kept open.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class SegmentStore {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(SegmentStore.class);
+    /** Segment file extension */
+    private static final String EXTENSION = ".seg";
+    /** Archive file extension */
+    private static final String ARCHIVE_EXTENSION = ".arc";
+    /** Archive deletions file extension */
+    private static final String DELETIONS_EXTENSION = ".del";
+    /** Default maximum number of open segment files */
+    private static final int MAX_OPEN_FILES = 256;
+
+    /** Directory of the segment files */
+    private final File directory;
+    /** Store of the large payloads, null to keep them in the records */
+    private final BlobStore blobs;
+    /** Open segment files */
+    private final Segment.OpenFiles files;
+    /** Segments by collection uri */
+    private final ConcurrentSkipListMap<String, Segment> segments = new ConcurrentSkipListMap<String, Segment>();
+    /** Archived instances by collection uri */
+    private final ConcurrentSkipListMap<String, ColdTier> tiers = new ConcurrentSkipListMap<String, ColdTier>();
+
+    /**
+     * Opens the segments stored in a directory, creating it if needed.
+     * @param directory - segments directory
+     */
+    public SegmentStore(File directory) {
+        this(directory, null);
+    }
+
+    /**
+     * Opens the segments stored in a directory, keeping the large payloads in a blob store.
+     * @param directory - segments directory
+     * @param blobs - store of the large payloads, null to keep them in the records
+     */
+    public SegmentStore(File directory, BlobStore blobs) {
+        this(directory, blobs, MAX_OPEN_FILES);
+    }
+
+    /**
+     * Opens the segments stored in a directory, keeping the large payloads in a blob store and at most
+     * a number of segment files open.
+     * @param directory - segments directory
+     * @param blobs - store of the large payloads, null to keep them in the records
+     * @param maxOpenFiles - maximum number of open segment files
+     */
+    public SegmentStore(File directory, BlobStore blobs, int maxOpenFiles) {
+        this(directory, blobs, new Segment.OpenFiles(maxOpenFiles, Segment.WINDOW));
+    }
+
+    SegmentStore(File directory, BlobStore blobs, Segment.OpenFiles openFiles) {
+        this.directory = directory;
+        this.blobs = blobs;
+        this.files = openFiles;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + directory);
+        }
+        File[] files = directory.listFiles();
+        for (int i = 0; i < files.length; i++) {
+            if (files[i].getName().endsWith(EXTENSION)) {
+                try {
+                    Segment segment = Segment.open(files[i], blobs, this.files);
+                    segments.put(segment.getUri(), segment);
+                    closeIdle();
+                } catch (IOException e) {
+                    LOGGER.error("Cannot open segment " + files[i], e);
+                }
+            } else if (files[i].getName().endsWith(ARCHIVE_EXTENSION)) {
+                try {
+                    Archive archive = Archive.open(files[i], blobs);
+                    tier(archive.getUri(), true).add(archive);
+                } catch (IOException e) {
+                    LOGGER.error("Cannot open archive " + files[i], e);
+                }
+            } else if (files[i].getName().endsWith(ARCHIVE_EXTENSION + ".tmp")) {
+                // Archive not completed
+                files[i].delete();
+            }
+        }
+        for (ColdTier tier : tiers.values()) {
+            recover(tier);
+        }
+        closeIdle();
+        LOGGER.info(segments.size() + " contentInstance segments and " + tiers.size() + " archived collections opened in " + directory);
+    }
+
+    /**
+     * Stores a new instance or replaces the stored one.
+     * @param contentInstance - instance to store
+     */
+    public void store(ContentInstance contentInstance) {
+        String uri = contentInstance.getUri();
+        try {
+            segment(parent(uri), true).put(name(uri), contentInstance);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot store " + uri, e);
+        }
+    }
+
+    /**
+     * Deletes a stored instance.
+     * @param uri - instance uri
+     * @return true if the instance was stored
+     */
+    public boolean delete(String uri) {
+        Segment segment = segment(parent(uri), false);
+        ColdTier tier = tiers.get(parent(uri));
+        try {
+            if (segment != null && segment.delete(name(uri))) {
+                return true;
+            }
+            return tier != null && tier.delete(name(uri));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot delete " + uri, e);
+        }
+    }
+
+    /**
+     * Finds a stored instance.
+     * @param uri - instance uri
+     * @return the stored instance otherwise null
+     */
+    public ContentInstance find(String uri) {
+        Segment segment = segment(parent(uri), false);
+        ColdTier tier = tiers.get(parent(uri));
+        try {
+            ContentInstance contentInstance = segment != null ? segment.get(name(uri)) : null;
+            if (contentInstance == null && tier != null) {
+                contentInstance = tier.get(name(uri));
+            }
+            return contentInstance;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + uri, e);
+        }
+    }
+
+    /**
+     * Finds the instances whose uri starts with a prefix, in creation order within each collection.
+     * @param prefix - uri prefix
+     * @return found instances, possibly empty
+     */
+    public List<ContentInstance> findByPrefix(String prefix) {
+        List<ContentInstance> result = new ArrayList<ContentInstance>();
+        try {
+            // Prefix ending within an instance name of a collection
+            Segment segment = segment(parent(prefix), false);
+            if (segment != null) {
+                result.addAll(list(parent(prefix), segment, name(prefix)));
+            }
+            // Whole collections under the prefix
+            for (Map.Entry<String, Segment> entry : segments.tailMap(prefix).entrySet()) {
+                if (!entry.getKey().startsWith(prefix)) {
+                    break;
+                }
+                result.addAll(list(entry.getKey(), entry.getValue(), ""));
+                closeIdle();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + prefix, e);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the oldest instance of a collection, in constant time.
+     * @param uri - collection uri, other prefixes being scanned
+     * @return the first created instance otherwise null
+     */
+    public ContentInstance findOldest(String uri) {
+        Segment segment = segment(uri, false);
+        try {
+            if (segment != null) {
+                ColdTier tier = tiers.get(uri);
+                if (tier == null) {
+                    return segment.first();
+                }
+                synchronized (segment) {
+                    ContentInstance first = tier.first();
+                    return first != null ? first : segment.first();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + uri, e);
+        }
+        List<ContentInstance> result = findByPrefix(uri);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Finds the latest instance of a collection, in constant time.
+     * @param uri - collection uri, other prefixes being scanned
+     * @return the last created instance otherwise null
+     */
+    public ContentInstance findLatest(String uri) {
+        Segment segment = segment(uri, false);
+        try {
+            if (segment != null) {
+                ColdTier tier = tiers.get(uri);
+                if (tier == null) {
+                    return segment.last();
+                }
+                synchronized (segment) {
+                    ContentInstance last = segment.last();
+                    return last != null ? last : tier.last();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + uri, e);
+        }
+        List<ContentInstance> result = findByPrefix(uri);
+        return result.isEmpty() ? null : result.get(result.size() - 1);
+    }
+
+    /**
+     * Finds the oldest instances of a collection, the archived ones first.
+     * @param uri - collection uri, other prefixes being scanned
+     * @param count - maximum number of instances to find
+     * @return the first created instances in creation order, possibly empty
+     */
+    public List<ContentInstance> findOldest(String uri, int count) {
+        Segment segment = segment(uri, false);
+        ColdTier tier = tiers.get(uri);
+        try {
+            if (segment != null) {
+                synchronized (segment) {
+                    List<ContentInstance> result = tier != null ? tier.oldest(count) : new ArrayList<ContentInstance>();
+                    result.addAll(segment.oldest(count - result.size()));
+                    return result;
+                }
+            }
+            if (tier != null) {
+                return tier.oldest(count);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + uri, e);
+        }
+        List<ContentInstance> result = findByPrefix(uri);
+        return result.size() > count ? new ArrayList<ContentInstance>(result.subList(0, count)) : result;
+    }
+
+    /**
+     * Deletes the oldest instances of a collection, the archived ones first, appending a single
+     * record to its segment.
+     * @param uri - collection uri
+     * @param count - number of instances to delete
+     * @return number of deleted instances
+     */
+    public int deleteOldest(String uri, int count) {
+        Segment segment = segment(uri, false);
+        ColdTier tier = tiers.get(uri);
+        try {
+            if (segment == null) {
+                return tier != null ? tier.deleteOldest(count) : 0;
+            }
+            synchronized (segment) {
+                int deleted = tier != null ? tier.deleteOldest(count) : 0;
+                return deleted + segment.deleteOldest(count - deleted);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot delete " + uri, e);
+        }
+    }
+
+    /**
+     * Deletes the instances of a collection.
+     * @param uri - collection uri
+     */
+    public void drop(String uri) {
+        Segment segment = segments.remove(uri);
+        if (segment != null) {
+            try {
+                segment.destroy();
+            } catch (IOException e) {
+                LOGGER.error("Cannot delete segment of " + uri, e);
+            }
+        }
+        ColdTier tier = tiers.remove(uri);
+        if (tier != null) {
+            try {
+                tier.destroy();
+            } catch (IOException e) {
+                LOGGER.error("Cannot delete archives of " + uri, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes the instance stored under an uri, or the instances of the collections below it.
+     * @param uri - subtree root uri
+     */
+    public void deleteSubtree(String uri) {
+        delete(uri);
+        drop(uri);
+        for (String collection : segments.tailMap(uri + "/").keySet()) {
+            if (!collection.startsWith(uri + "/")) {
+                break;
+            }
+            drop(collection);
+        }
+        for (String collection : tiers.tailMap(uri + "/").keySet()) {
+            if (!collection.startsWith(uri + "/")) {
+                break;
+            }
+            drop(collection);
+        }
+    }
+
+    /**
+     * Forces the appended instances to the disk.
+     */
+    public void force() {
+        // Payloads first, so that the forced records never refer to missing ones, and the segments
+        // release the payloads their records dropped once these are forced
+        if (blobs != null) {
+            blobs.force();
+        }
+        // Segments whose release failed are still dirty and forced below
+        closeIdle();
+        for (Segment segment : segments.values()) {
+            try {
+                segment.force();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot synchronize segment of " + segment.getUri(), e);
+            }
+        }
+        for (ColdTier tier : tiers.values()) {
+            try {
+                tier.force();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot synchronize archive deletions of " + tier.getUri(), e);
+            }
+        }
+        // Payloads released by the forced records only
+        if (blobs != null) {
+            blobs.compact();
+        }
+    }
+
+    /**
+     * Deletes all the stored instances.
+     */
+    public void clear() {
+        for (String uri : segments.keySet()) {
+            drop(uri);
+        }
+        for (String uri : tiers.keySet()) {
+            drop(uri);
+        }
+    }
+
+    /**
+     * Closes the segment files.
+     */
+    public void close() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                LOGGER.error("Cannot close segment of " + segment.getUri(), e);
+            }
+        }
+        segments.clear();
+        for (ColdTier tier : tiers.values()) {
+            try {
+                tier.close();
+            } catch (IOException e) {
+                LOGGER.error("Cannot close archive deletions of " + tier.getUri(), e);
+            }
+        }
+        tiers.clear();
+        if (blobs != null) {
+            blobs.close();
+        }
+    }
+
+    /**
+     * Counts the instances of a collection kept in its segment, out of the archives.
+     * @param uri - collection uri
+     * @return instances of the segment
+     */
+    public int countHot(String uri) {
+        Segment segment = segments.get(uri);
+        return segment != null ? segment.count() : 0;
+    }
+
+    /**
+     * Counts the instances of a collection, archived or not, and sums their content sizes from the
+     * segment and archive indexes, without reading the instances.
+     * @param uri - collection uri
+     * @return the number of instances and the sum of their content sizes
+     */
+    public long[] count(String uri) {
+        Segment segment = segments.get(uri);
+        ColdTier tier = tiers.get(uri);
+        try {
+            if (segment != null) {
+                // Archiving moves instances between both tiers under the segment lock
+                synchronized (segment) {
+                    long[] counted = tier != null ? tier.count() : new long[2];
+                    counted[0] += segment.count();
+                    counted[1] += segment.contentBytes();
+                    return counted;
+                }
+            }
+            return tier != null ? tier.count() : new long[2];
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + uri, e);
+        }
+    }
+
+    /**
+     * Finds an instance of a collection kept in its segment by creation rank.
+     * @param uri - collection uri
+     * @param rank - creation rank in the segment, 0 for its oldest instance
+     * @return the instance otherwise null
+     */
+    public ContentInstance findHot(String uri, int rank) {
+        Segment segment = segment(uri, false);
+        try {
+            return segment != null ? segment.at(rank) : null;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + uri, e);
+        }
+    }
+
+    /**
+     * Moves the oldest instances of a collection from its segment to a new archive. The collection
+     * is written to the archive under the segment lock, which the reads of both tiers take.
+     * @param uri - collection uri
+     * @param count - number of instances to move
+     * @return number of archived instances
+     */
+    public int archive(String uri, int count) {
+        Segment segment = segment(uri, false);
+        if (segment == null || count <= 0) {
+            return 0;
+        }
+        try {
+            synchronized (segment) {
+                List<ContentInstance> oldest = segment.oldest(count);
+                if (oldest.isEmpty()) {
+                    return 0;
+                }
+                ColdTier tier = tier(uri, true);
+                long number = tier.nextNumber();
+                tier.add(Archive.write(new File(directory, encode(uri) + "." + number + ARCHIVE_EXTENSION), uri, number, oldest, blobs));
+                for (ContentInstance contentInstance : oldest) {
+                    segment.delete(name(contentInstance.getUri()));
+                }
+                segment.force();
+                return oldest.size();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot archive " + uri, e);
+        }
+    }
+
+    /**
+     * Reads the instances of a collection, the archived ones first.
+     */
+    private List<ContentInstance> list(String uri, Segment segment, String prefix) throws IOException {
+        ColdTier tier = tiers.get(uri);
+        if (tier == null) {
+            return segment.list(prefix);
+        }
+        synchronized (segment) {
+            List<ContentInstance> result = tier.list(prefix);
+            result.addAll(segment.list(prefix));
+            return result;
+        }
+    }
+
+    /**
+     * Returns the archived instances of a collection.
+     * @param uri - collection uri
+     * @param create - whether a missing tier is created
+     * @return the tier, null if missing and not created
+     */
+    private ColdTier tier(String uri, boolean create) throws IOException {
+        ColdTier tier = tiers.get(uri);
+        if (tier != null || !create) {
+            return tier;
+        }
+        synchronized (tiers) {
+            tier = tiers.get(uri);
+            if (tier == null) {
+                tier = new ColdTier(new File(directory, encode(uri) + DELETIONS_EXTENSION), uri, blobs);
+                tiers.put(uri, tier);
+            }
+            return tier;
+        }
+    }
+
+    /**
+     * Removes from its segment the instances of the newest archive of a collection, left there when
+     * the archiving was interrupted.
+     */
+    private void recover(ColdTier tier) {
+        Segment segment = segments.get(tier.getUri());
+        Archive newest = tier.newest();
+        if (segment == null || newest == null) {
+            return;
+        }
+        try {
+            if (newest.size() > 0 && segment.get(newest.name(newest.size() - 1)) != null) {
+                LOGGER.warn("Completing the archiving of " + tier.getUri());
+                for (int rank = 0; rank < newest.size(); rank++) {
+                    segment.delete(newest.name(rank));
+                }
+                segment.force();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Cannot recover archive of " + tier.getUri(), e);
+        }
+    }
+
+    /**
+     * Returns the segment of a collection.
+     * @param uri - collection uri
+     * @param create - whether a missing segment is created
+     * @return the segment, null if missing and not created
+     */
+    private Segment segment(String uri, boolean create) {
+        closeIdle();
+        Segment segment = segments.get(uri);
+        if (segment != null || !create) {
+            return segment;
+        }
+        synchronized (segments) {
+            segment = segments.get(uri);
+            if (segment == null) {
+                try {
+                    segment = Segment.create(new File(directory, encode(uri) + EXTENSION), uri, blobs, files);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot create segment of " + uri, e);
+                }
+                segments.put(uri, segment);
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * Closes the least recently used segment files beyond the bound. Must be called holding no
+     * segment lock.
+     */
+    private void closeIdle() {
+        for (Segment segment : files.takeIdle()) {
+            try {
+                segment.release();
+            } catch (IOException e) {
+                LOGGER.error("Cannot close segment of " + segment.getUri(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of segment files possibly open.
+     * @return open segment files
+     */
+    int countOpenFiles() {
+        return files.size();
+    }
+
+    private static String encode(String uri) {
+        try {
+            return URLEncoder.encode(uri, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String parent(String uri) {
+        int index = uri.lastIndexOf('/');
+        return index != -1 ? uri.substring(0, index) : "";
+    }
+
+    private static String name(String uri) {
+        return uri.substring(uri.lastIndexOf('/') + 1);
+    }
+}
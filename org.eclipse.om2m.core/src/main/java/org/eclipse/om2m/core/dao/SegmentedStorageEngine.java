@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.resource.Resource;
+
+/**
+ * {@link StorageEngine} keeping the {@link ContentInstance} resources in a {@link SegmentStore} and
+ * the other resources in an underlying engine. Instances are appended then evicted, the worst case
+ * for an object database, while a segment store only appends records.
+ * <p>
+ * The instances an existing database still keeps in the underlying engine are moved to the segments
+ * when the engine is opened, one collection at a time.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class SegmentedStorageEngine implements StorageEngine {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(SegmentedStorageEngine.class);
+    /** Engine storing the resources other than contentInstances */
+    private final StorageEngine engine;
+    /** Store of the contentInstances */
+    private final SegmentStore segments;
+
+    /**
+     * Creates an engine routing the contentInstances to a segment store.
+     * @param engine - engine storing the other resources
+     * @param segments - store of the contentInstances
+     */
+    public SegmentedStorageEngine(StorageEngine engine, SegmentStore segments) {
+        this.engine = engine;
+        this.segments = segments;
+        importInstances();
+    }
+
+    /**
+     * Moves the contentInstances kept in the underlying engine to the segments. The segments are
+     * forced before the instances are deleted from the engine, so a move interrupted by a crash is
+     * resumed at the next start, replacing the instances already moved.
+     */
+    private void importInstances() {
+        long moved = 0;
+        for (ContentInstances contentInstances : engine.findByPrefix(ContentInstances.class, "", Projection.ACCESS)) {
+            List<ContentInstance> instances = engine.findByPrefix(ContentInstance.class, contentInstances.getUri() + "/");
+            if (instances.isEmpty()) {
+                continue;
+            }
+            // Stored in creation order, as they were appended
+            for (ContentInstance contentInstance : instances) {
+                segments.store(contentInstance);
+            }
+            segments.force();
+            for (ContentInstance contentInstance : instances) {
+                engine.delete(contentInstance);
+            }
+            engine.commit();
+            moved += instances.size();
+        }
+        if (moved > 0) {
+            LOGGER.info(moved + " contentInstances moved to the segments");
+        }
+    }
+
+    public void store(Resource resource) {
+        if (resource instanceof ContentInstance) {
+            segments.store((ContentInstance) resource);
+        } else {
+            engine.store(resource);
+        }
+    }
+
+    public void delete(Resource resource) {
+        if (resource instanceof ContentInstance) {
+            segments.delete(resource.getUri());
+        } else {
+            engine.delete(resource);
+            if (resource instanceof ContentInstances) {
+                segments.drop(resource.getUri());
+            }
+        }
+    }
+
+    public void deleteSubtree(String uri) {
+        segments.deleteSubtree(uri);
+        engine.deleteSubtree(uri);
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri) {
+        return find(type, uri, Projection.FULL);
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+        if (type == ContentInstance.class) {
+            return type.cast(segments.find(uri));
+        }
+        return orInstance(type, uri, engine.find(type, uri, projection));
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+        return findByPrefix(type, prefix, Projection.FULL);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+        if (type == ContentInstance.class) {
+            return instances(type, prefix);
+        }
+        return withInstances(type, prefix, engine.findByPrefix(type, prefix, projection));
+    }
+
+    public <T extends Resource> T findOldest(Class<T> type, String prefix) {
+        if (type == ContentInstance.class) {
+            return type.cast(segments.findOldest(prefix));
+        }
+        return engine.findOldest(type, prefix);
+    }
+
+    public <T extends Resource> T findLatest(Class<T> type, String prefix) {
+        if (type == ContentInstance.class) {
+            return type.cast(segments.findLatest(prefix));
+        }
+        return engine.findLatest(type, prefix);
+    }
+
+    public <T extends Resource> List<T> findOldest(Class<T> type, String prefix, int count) {
+        if (type == ContentInstance.class) {
+            List<T> result = new ArrayList<T>();
+            for (ContentInstance contentInstance : segments.findOldest(prefix, count)) {
+                result.add(type.cast(contentInstance));
+            }
+            return result;
+        }
+        return engine.findOldest(type, prefix, count);
+    }
+
+    public int deleteOldest(Class<? extends Resource> type, String prefix, int count) {
+        if (type == ContentInstance.class) {
+            return segments.deleteOldest(prefix, count);
+        }
+        return engine.deleteOldest(type, prefix, count);
+    }
+
+    public long[] countInstances(String uri) {
+        return segments.count(uri);
+    }
+
+    public StorageSession openSession() {
+        return new SegmentedStorageSession(engine.openSession());
+    }
+
+    public void commit() {
+        segments.force();
+        engine.commit();
+    }
+
+    public void clear() {
+        segments.clear();
+        engine.clear();
+    }
+
+    public void close() {
+        segments.close();
+        engine.close();
+    }
+
+    /**
+     * Falls back on the contentInstance stored under an uri when the type admits it.
+     */
+    private <T extends Resource> T orInstance(Class<T> type, String uri, T resource) {
+        if (resource == null && type.isAssignableFrom(ContentInstance.class)) {
+            return type.cast(segments.find(uri));
+        }
+        return resource;
+    }
+
+    /**
+     * Adds the contentInstances under a prefix to the found resources when the type admits them.
+     */
+    private <T extends Resource> List<T> withInstances(Class<T> type, String prefix, List<T> resources) {
+        if (!type.isAssignableFrom(ContentInstance.class)) {
+            return resources;
+        }
+        List<T> result = new ArrayList<T>(resources);
+        result.addAll(instances(type, prefix));
+        return result;
+    }
+
+    private <T extends Resource> List<T> instances(Class<T> type, String prefix) {
+        List<T> result = new ArrayList<T>();
+        for (ContentInstance contentInstance : segments.findByPrefix(prefix)) {
+            result.add(type.cast(contentInstance));
+        }
+        return result;
+    }
+
+    /**
+     * Session reading the contentInstances from the segments, whose reads are already copies.
+     */
+    private class SegmentedStorageSession implements StorageSession {
+        /** Session opened on the underlying engine */
+        private final StorageSession session;
+
+        SegmentedStorageSession(StorageSession session) {
+            this.session = session;
+        }
+
+        public <T extends Resource> T find(Class<T> type, String uri) {
+            return find(type, uri, Projection.FULL);
+        }
+
+        public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+            if (type == ContentInstance.class) {
+                return type.cast(segments.find(uri));
+            }
+            return orInstance(type, uri, session.find(type, uri, projection));
+        }
+
+        public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+            return findByPrefix(type, prefix, Projection.FULL);
+        }
+
+        public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+            if (type == ContentInstance.class) {
+                return instances(type, prefix);
+            }
+            return withInstances(type, prefix, session.findByPrefix(type, prefix, projection));
+        }
+
+        public void close() {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * Manages the read sessions of the DAOs. Sessions are acquired for a read and closed once it is
+ * done; the sessions acquired while handling a request are also tied to it, so that those a DAO
+ * forgets to close are closed and reported when the request ends. Sessions acquired outside a
+ * request and still open after org.eclipse.om2m.dbSessionTimeout are reported with the place they
+ * were acquired from, then closed.
+ * <p>
+ * Sessions are not reused between reads: a db4o session keeps the objects it returned in its
+ * reference cache and would serve them again without seeing the commits done since.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class SessionManager {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(SessionManager.class);
+
+    /**
+     * Lazily creates the manager of the sessions opened on the shared storage engine.
+     */
+    private static class SessionManagerHolder {
+        private static final SessionManager MANAGER = new SessionManager(DAOFactory.getStorageEngine(), Constants.DB_SESSION_TIMEOUT);
+    }
+
+    /** Request handled by a thread, possibly issuing nested requests */
+    private static final class Scope {
+        private int depth;
+        private final List<ManagedSession> sessions = new ArrayList<ManagedSession>();
+    }
+
+    /**
+     * Session handle released by {@link #close()}.
+     */
+    private final class ManagedSession implements StorageSession {
+        private final StorageSession session;
+        /** Request the session is tied to, null if acquired outside a request */
+        private final Scope scope;
+        /** Place the session was acquired from, kept for the sessions acquired outside a request */
+        private final Throwable origin;
+        private final long acquired = System.currentTimeMillis();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private ManagedSession(StorageSession session, Scope scope) {
+            this.session = session;
+            this.scope = scope;
+            this.origin = scope == null ? new Throwable("Session acquired from") : null;
+        }
+
+        public <T extends Resource> T find(Class<T> type, String uri) {
+            checkOpen();
+            return session.find(type, uri);
+        }
+
+        public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+            checkOpen();
+            return session.find(type, uri, projection);
+        }
+
+        public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+            checkOpen();
+            return session.findByPrefix(type, prefix);
+        }
+
+        public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+            checkOpen();
+            return session.findByPrefix(type, prefix, projection);
+        }
+
+        public void close() {
+            release(this);
+        }
+
+        private void checkOpen() {
+            if (closed.get()) {
+                throw new IllegalStateException("Storage session already closed");
+            }
+        }
+    }
+
+    /** Engine the sessions are opened on */
+    private final StorageEngine engine;
+    /** Time in ms after which a session acquired outside a request is considered leaked */
+    private final long timeout;
+    /** Request handled by each thread */
+    private final ThreadLocal<Scope> scopes = new ThreadLocal<Scope>();
+    /** Sessions not closed yet */
+    private final Set<ManagedSession> open = Collections.newSetFromMap(new ConcurrentHashMap<ManagedSession, Boolean>());
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong leaked = new AtomicLong();
+    /** Time in ms of the last search for leaked sessions */
+    private volatile long lastCheck = System.currentTimeMillis();
+
+    /**
+     * Creates a session manager.
+     * @param engine - engine the sessions are opened on
+     * @param timeout - time in ms after which a session acquired outside a request is considered leaked
+     */
+    public SessionManager(StorageEngine engine, long timeout) {
+        this.engine = engine;
+        this.timeout = timeout;
+    }
+
+    /** Gets the manager of the sessions opened on the shared storage engine. */
+    public static SessionManager getInstance() {
+        return SessionManagerHolder.MANAGER;
+    }
+
+    /**
+     * Acquires a read session, to be closed once the read is done.
+     * @return storage session
+     */
+    public StorageSession acquire() {
+        Scope scope = scopes.get();
+        ManagedSession session = new ManagedSession(engine.openSession(), scope);
+        open.add(session);
+        opened.incrementAndGet();
+        if (scope != null) {
+            scope.sessions.add(session);
+        } else {
+            closeLeaks(session.acquired);
+        }
+        return session;
+    }
+
+    /**
+     * Starts handling a request in the current thread. Nested requests share the outer request.
+     */
+    public void begin() {
+        Scope scope = scopes.get();
+        if (scope == null) {
+            scope = new Scope();
+            scopes.set(scope);
+        }
+        scope.depth++;
+    }
+
+    /**
+     * Ends the request handled by the current thread and closes the sessions it left open.
+     */
+    public void end() {
+        Scope scope = scopes.get();
+        if (scope == null || --scope.depth > 0) {
+            return;
+        }
+        scopes.remove();
+        int left = 0;
+        for (ManagedSession session : scope.sessions) {
+            if (release(session)) {
+                left++;
+            }
+        }
+        if (left > 0) {
+            leaked.addAndGet(left);
+            LOGGER.warn(left + " storage sessions left open by the request, closed at its end");
+        }
+    }
+
+    /** Gets the number of sessions not closed yet. */
+    public int getOpenSessions() {
+        return open.size();
+    }
+
+    /** Gets the number of sessions acquired so far. */
+    public long getOpenedSessions() {
+        return opened.get();
+    }
+
+    /** Gets the number of sessions closed by the manager instead of their user. */
+    public long getLeakedSessions() {
+        return leaked.get();
+    }
+
+    /**
+     * Closes a session.
+     * @return true if the session was still open
+     */
+    private boolean release(ManagedSession session) {
+        if (!session.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        open.remove(session);
+        session.session.close();
+        return true;
+    }
+
+    /**
+     * Closes the sessions acquired outside a request and open for longer than the timeout, at most
+     * once per timeout.
+     */
+    private void closeLeaks(long now) {
+        if (now - lastCheck < timeout) {
+            return;
+        }
+        lastCheck = now;
+        for (ManagedSession session : open) {
+            if (session.scope == null && now - session.acquired > timeout && release(session)) {
+                leaked.incrementAndGet();
+                LOGGER.warn("Storage session open for " + (now - session.acquired) + " ms closed", session.origin);
+            }
+        }
+    }
+}
@@ -0,0 +1,479 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.Resource;
+
+/**
+ * {@link StorageEngine} sharding the resources into several databases by subtree. The subtree of an
+ * application (&lt;scl&gt;/applications/&lt;app&gt;) or of a remote SCL (&lt;scl&gt;/scls/&lt;scl&gt;) is
+ * assigned to the shard with the fewest subtrees when it is first written; the other resources stay in
+ * the root shard. Assignments are saved to a directory file so that subtrees keep their shard across restarts
+ * and shard count changes. When the shards are first opened on an existing database, the subtrees it
+ * already stores are assigned to the root shard.
+ * <p>
+ * Each shard commits on its own thread, and only the shards written since their last commit are
+ * committed, so that the commits of distinct subtrees are done in parallel. Reads spanning several
+ * subtrees merge the results of the shards, each one in creation order.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class ShardedStorageEngine implements StorageEngine {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(ShardedStorageEngine.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Directory of the shard files */
+    private final File directory;
+    /** File saving the subtree assignments */
+    private final File file;
+    /** Shards, the first one being the root shard */
+    private final StorageEngine[] shards;
+    /** Shards written since their last commit */
+    private final AtomicBoolean[] dirty;
+    /** Commit thread of each shard */
+    private final ExecutorService[] committers;
+    /** Shard of each assigned subtree */
+    private final Map<String, Integer> assignments = new ConcurrentHashMap<String, Integer>();
+    /** Number of subtrees assigned to each shard */
+    private final int[] loads;
+
+    /**
+     * Opens the shards.
+     * @param directory - directory of the shard files and of the subtree assignments
+     * @param root - root shard, keeping the resources outside of the application and remote SCL subtrees
+     * @param count - number of shards, raised to keep the shards subtrees are already assigned to
+     */
+    public ShardedStorageEngine(File directory, StorageEngine root, int count) {
+        this.directory = directory;
+        this.file = new File(directory, "directory");
+        directory.mkdirs();
+        if (file.exists()) {
+            load();
+        } else {
+            adopt(root);
+        }
+        for (int shard : assignments.values()) {
+            count = Math.max(count, shard + 1);
+        }
+        shards = new StorageEngine[count];
+        dirty = new AtomicBoolean[count];
+        committers = new ExecutorService[count];
+        loads = new int[count];
+        for (int shard : assignments.values()) {
+            loads[shard]++;
+        }
+        for (int i = 0; i < count; i++) {
+            shards[i] = i == 0 ? root : openShard(new File(directory, "shard-" + i + ".db4o"));
+            dirty[i] = new AtomicBoolean();
+            final String name = "om2m-shard-" + i + "-commit";
+            committers[i] = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        LOGGER.info(count + " storage shards, " + assignments.size() + " subtrees assigned");
+    }
+
+    /**
+     * Assigns the subtrees already stored in the root shard to it, and saves the assignments so that
+     * the root shard is scanned once only.
+     * @param root - root shard
+     */
+    private void adopt(StorageEngine root) {
+        for (Resource resource : root.findByPrefix(Resource.class, "", Projection.ACCESS)) {
+            String subtree = subtree(resource.getUri());
+            if (subtree != null && !assignments.containsKey(subtree)) {
+                assignments.put(subtree, 0);
+            }
+        }
+        save();
+        if (!assignments.isEmpty()) {
+            LOGGER.info(assignments.size() + " existing subtrees kept in the root shard");
+        }
+    }
+
+    /**
+     * Opens a shard other than the root one.
+     * @param file - shard database file
+     * @return shard engine
+     */
+    protected StorageEngine openShard(File file) {
+        return new Db4oStorageEngine(file);
+    }
+
+    /**
+     * Gets the subtree a resource is sharded by.
+     * @param uri - resource uri or uri prefix
+     * @return the application or remote SCL subtree uri, otherwise null
+     */
+    static String subtree(String uri) {
+        if (uri == null) {
+            return null;
+        }
+        int first = uri.indexOf('/');
+        int second = first < 0 ? -1 : uri.indexOf('/', first + 1);
+        if (second < 0) {
+            return null;
+        }
+        String collection = uri.substring(first + 1, second);
+        if (!"applications".equals(collection) && !"scls".equals(collection)) {
+            return null;
+        }
+        int third = uri.indexOf('/', second + 1);
+        String subtree = third < 0 ? uri : uri.substring(0, third);
+        return subtree.length() > second + 1 ? subtree : null;
+    }
+
+    /**
+     * Gets the shard of a resource, assigning its subtree to the least loaded shard if needed.
+     */
+    private int shard(String uri) {
+        String subtree = subtree(uri);
+        if (subtree == null) {
+            return 0;
+        }
+        Integer shard = assignments.get(subtree);
+        return shard != null ? shard : assign(subtree);
+    }
+
+    private synchronized int assign(String subtree) {
+        Integer assigned = assignments.get(subtree);
+        if (assigned != null) {
+            return assigned;
+        }
+        // The root shard already keeps the other resources
+        int shard = loads.length > 1 ? 1 : 0;
+        for (int i = shard + 1; i < loads.length; i++) {
+            if (loads[i] < loads[shard]) {
+                shard = i;
+            }
+        }
+        loads[shard]++;
+        assignments.put(subtree, shard);
+        save();
+        return shard;
+    }
+
+    /**
+     * Gets the shards possibly storing resources whose uri starts with a prefix.
+     */
+    private List<Integer> shards(String prefix) {
+        List<Integer> result = new ArrayList<Integer>();
+        String subtree = subtree(prefix);
+        // A prefix ending with the subtree name also matches longer names
+        if (subtree != null && prefix.length() > subtree.length()) {
+            Integer shard = assignments.get(subtree);
+            if (shard != null) {
+                result.add(shard);
+            }
+            return result;
+        }
+        for (int i = 0; i < shards.length; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    public void store(Resource resource) {
+        int shard = shard(resource.getUri());
+        shards[shard].store(resource);
+        dirty[shard].set(true);
+    }
+
+    public void delete(Resource resource) {
+        int shard = shard(resource.getUri());
+        shards[shard].delete(resource);
+        dirty[shard].set(true);
+    }
+
+    public void deleteSubtree(String uri) {
+        if (subtree(uri) != null) {
+            int shard = shard(uri);
+            shards[shard].deleteSubtree(uri);
+            dirty[shard].set(true);
+            return;
+        }
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].deleteSubtree(uri);
+            dirty[i].set(true);
+        }
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri) {
+        return find(type, uri, Projection.FULL);
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+        Integer shard = subtree(uri) == null ? Integer.valueOf(0) : assignments.get(subtree(uri));
+        return shard == null ? null : shards[shard].find(type, uri, projection);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+        return findByPrefix(type, prefix, Projection.FULL);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+        List<Integer> routed = shards(prefix);
+        if (routed.size() == 1) {
+            return shards[routed.get(0)].findByPrefix(type, prefix, projection);
+        }
+        List<T> result = new ArrayList<T>();
+        for (int shard : routed) {
+            result.addAll(shards[shard].findByPrefix(type, prefix, projection));
+        }
+        return result;
+    }
+
+    public <T extends Resource> T findOldest(Class<T> type, String prefix) {
+        for (int shard : shards(prefix)) {
+            T resource = shards[shard].findOldest(type, prefix);
+            if (resource != null) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    public <T extends Resource> T findLatest(Class<T> type, String prefix) {
+        List<Integer> routed = shards(prefix);
+        for (int i = routed.size() - 1; i >= 0; i--) {
+            T resource = shards[routed.get(i)].findLatest(type, prefix);
+            if (resource != null) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    public <T extends Resource> List<T> findOldest(Class<T> type, String prefix, int count) {
+        List<T> result = new ArrayList<T>();
+        for (int shard : shards(prefix)) {
+            if (result.size() >= count) {
+                break;
+            }
+            result.addAll(shards[shard].findOldest(type, prefix, count - result.size()));
+        }
+        return result;
+    }
+
+    public int deleteOldest(Class<? extends Resource> type, String prefix, int count) {
+        int deleted = 0;
+        for (int shard : shards(prefix)) {
+            if (deleted >= count) {
+                break;
+            }
+            int shardDeleted = shards[shard].deleteOldest(type, prefix, count - deleted);
+            if (shardDeleted > 0) {
+                dirty[shard].set(true);
+                deleted += shardDeleted;
+            }
+        }
+        return deleted;
+    }
+
+    public long[] countInstances(String uri) {
+        long[] counted = new long[2];
+        for (int shard : shards(uri + "/")) {
+            long[] shardCounted = shards[shard].countInstances(uri);
+            counted[0] += shardCounted[0];
+            counted[1] += shardCounted[1];
+        }
+        return counted;
+    }
+
+    public StorageSession openSession() {
+        return new ShardedStorageSession();
+    }
+
+    /**
+     * Commits the shards written since their last commit, each one on its own thread.
+     */
+    public void commit() {
+        List<Future<?>> commits = new ArrayList<Future<?>>();
+        for (int i = 0; i < shards.length; i++) {
+            if (dirty[i].getAndSet(false)) {
+                final StorageEngine shard = shards[i];
+                commits.add(committers[i].submit(new Callable<Void>() {
+                    public Void call() {
+                        shard.commit();
+                        return null;
+                    }
+                }));
+            }
+        }
+        for (Future<?> commit : commits) {
+            try {
+                commit.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while committing the shards", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Shard commit failed", e.getCause());
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].clear();
+            dirty[i].set(true);
+        }
+    }
+
+    public void close() {
+        for (int i = 0; i < shards.length; i++) {
+            committers[i].shutdown();
+            shards[i].close();
+        }
+    }
+
+    /**
+     * Session opening the sessions of the shards it reads from.
+     */
+    private class ShardedStorageSession implements StorageSession {
+        /** Sessions opened on the shards */
+        private final StorageSession[] sessions = new StorageSession[shards.length];
+
+        private StorageSession session(int shard) {
+            if (sessions[shard] == null) {
+                sessions[shard] = shards[shard].openSession();
+            }
+            return sessions[shard];
+        }
+
+        public <T extends Resource> T find(Class<T> type, String uri) {
+            return find(type, uri, Projection.FULL);
+        }
+
+        public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+            Integer shard = subtree(uri) == null ? Integer.valueOf(0) : assignments.get(subtree(uri));
+            return shard == null ? null : session(shard).find(type, uri, projection);
+        }
+
+        public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+            return findByPrefix(type, prefix, Projection.FULL);
+        }
+
+        public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+            List<Integer> routed = shards(prefix);
+            if (routed.size() == 1) {
+                return session(routed.get(0)).findByPrefix(type, prefix, projection);
+            }
+            List<T> result = new ArrayList<T>();
+            for (int shard : routed) {
+                result.addAll(session(shard).findByPrefix(type, prefix, projection));
+            }
+            return result;
+        }
+
+        public void close() {
+            for (StorageSession session : sessions) {
+                if (session != null) {
+                    session.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the saved subtree assignments.
+     */
+    private void load() {
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.lastIndexOf('\t');
+                    if (tab > 0) {
+                        assignments.put(line.substring(0, tab), Integer.valueOf(line.substring(tab + 1)));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the shard directory " + file, e);
+        }
+    }
+
+    /**
+     * Replaces the saved subtree assignments with the current ones.
+     */
+    private void save() {
+        File target = new File(directory, "directory.tmp");
+        try {
+            FileOutputStream out = new FileOutputStream(target);
+            try {
+                Writer writer = new OutputStreamWriter(out, UTF8);
+                for (Map.Entry<String, Integer> assignment : assignments.entrySet()) {
+                    writer.write(assignment.getKey());
+                    writer.write('\t');
+                    writer.write(assignment.getValue().toString());
+                    writer.write('\n');
+                }
+                writer.flush();
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            if (!target.renameTo(file)) {
+                file.delete();
+                if (!target.renameTo(file)) {
+                    throw new IOException("Cannot replace " + file);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot save the shard directory " + file, e);
+        }
+    }
+}
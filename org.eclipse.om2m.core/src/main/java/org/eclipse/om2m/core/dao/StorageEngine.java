@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.Resource;
+
+/**
+ * Storage engine persisting the resources handled by the DAOs. Resources are identified by their
+ * uri: lookups by uri and by uri prefix are the only queries the DAOs need. The engine is resolved
+ * once by {@link DAOFactory#getStorageEngine()} from the org.eclipse.om2m.dbEngine property.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public interface StorageEngine {
+
+    /**
+     * Stores a new resource or updates a stored one.
+     * @param resource - resource to store
+     */
+    void store(Resource resource);
+
+    /**
+     * Deletes a stored resource with its embedded objects.
+     * @param resource - resource to delete
+     */
+    void delete(Resource resource);
+
+    /**
+     * Deletes the resource stored under an uri with all the resources below it.
+     * @param uri - subtree root uri
+     */
+    void deleteSubtree(String uri);
+
+    /**
+     * Finds the resource of the given type stored under an uri.
+     * @param type - resource class
+     * @param uri - resource uri
+     * @return the stored resource otherwise null
+     */
+    <T extends Resource> T find(Class<T> type, String uri);
+
+    /**
+     * Finds the resource of the given type stored under an uri, with only a projection of it loaded.
+     * @param type - resource class
+     * @param uri - resource uri
+     * @param projection - part of the resource to load
+     * @return the stored resource otherwise null
+     */
+    <T extends Resource> T find(Class<T> type, String uri, Projection projection);
+
+    /**
+     * Finds the resources of the given type whose uri starts with a prefix, in creation order.
+     * @param type - resource class
+     * @param prefix - uri prefix
+     * @return found resources, possibly empty
+     */
+    <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix);
+
+    /**
+     * Finds the resources of the given type whose uri starts with a prefix, in creation order, with
+     * only a projection of them loaded.
+     * @param type - resource class
+     * @param prefix - uri prefix
+     * @param projection - part of the resources to load
+     * @return found resources, possibly empty
+     */
+    <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection);
+
+    /**
+     * Finds the first created resource of the given type whose uri starts with a prefix.
+     * @param type - resource class
+     * @param prefix - uri prefix
+     * @return the oldest found resource otherwise null
+     */
+    <T extends Resource> T findOldest(Class<T> type, String prefix);
+
+    /**
+     * Finds the last created resource of the given type whose uri starts with a prefix.
+     * @param type - resource class
+     * @param prefix - uri prefix
+     * @return the latest found resource otherwise null
+     */
+    <T extends Resource> T findLatest(Class<T> type, String prefix);
+
+    /**
+     * Finds the first created resources of the given type whose uri starts with a prefix.
+     * @param type - resource class
+     * @param prefix - uri prefix
+     * @param count - maximum number of resources to find
+     * @return the oldest found resources in creation order, possibly empty
+     */
+    <T extends Resource> List<T> findOldest(Class<T> type, String prefix, int count);
+
+    /**
+     * Deletes at once the first created resources of the given type whose uri starts with a prefix.
+     * @param type - resource class
+     * @param prefix - uri prefix
+     * @param count - number of resources to delete
+     * @return number of deleted resources
+     */
+    int deleteOldest(Class<? extends Resource> type, String prefix, int count);
+
+    /**
+     * Counts the contentInstances of a collection and sums their content sizes, from the indexes of
+     * the engine when it keeps them instead of reading the instances.
+     * @param uri - collection uri
+     * @return the number of instances and the sum of their content sizes
+     */
+    long[] countInstances(String uri);
+
+    /**
+     * Opens a session whose resources are isolated from the stored ones: modifying them does not
+     * change the storage until they are explicitly stored.
+     * @return storage session
+     */
+    StorageSession openSession();
+
+    /**
+     * Validates the pending changes.
+     */
+    void commit();
+
+    /**
+     * Deletes all the stored resources.
+     */
+    void clear();
+
+    /**
+     * Closes the storage.
+     */
+    void close();
+}
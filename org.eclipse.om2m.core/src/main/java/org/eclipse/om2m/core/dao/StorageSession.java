@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.Resource;
+
+/**
+ * Read session opened on a {@link StorageEngine}. Resources returned by a session are copies of
+ * the stored ones.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public interface StorageSession {
+
+    /**
+     * Finds the resource of the given type stored under an uri.
+     * @param type - resource class
+     * @param uri - resource uri
+     * @return a copy of the stored resource otherwise null
+     */
+    <T extends Resource> T find(Class<T> type, String uri);
+
+    /**
+     * Finds the resource of the given type stored under an uri, with only a projection of it loaded.
+     * @param type - resource class
+     * @param uri - resource uri
+     * @param projection - part of the resource to load
+     * @return a copy of the stored resource otherwise null
+     */
+    <T extends Resource> T find(Class<T> type, String uri, Projection projection);
+
+    /**
+     * Finds the resources of the given type whose uri starts with a prefix, in creation order.
+     * @param type - resource class
+     * @param prefix - uri prefix
+     * @return copies of the found resources, possibly empty
+     */
+    <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix);
+
+    /**
+     * Finds the resources of the given type whose uri starts with a prefix, in creation order, with
+     * only a projection of them loaded.
+     * @param type - resource class
+     * @param prefix - uri prefix
+     * @param projection - part of the resources to load
+     * @return copies of the found resources, possibly empty
+     */
+    <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection);
+
+    /**
+     * Closes the session.
+     */
+    void close();
+}
@@ -21,9 +21,6 @@ package org.eclipse.om2m.core.dao;
 
 import org.eclipse.om2m.commons.resource.Subscription;
 
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Subscription} resource persistence.
  *
@@ -51,18 +48,17 @@ public class SubscriptionDAO extends DAO<Subscription>{
      * @return The requested {@link Subscription} resource otherwise null
      */
     public Subscription find(String uri) {
-        // Create the query based on the uri constraint
-        Query query = DB.query();
-        query.constrain(Subscription.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Subscription> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
-        }
-        // Return null if the resource is not found
-        return null;
+        return DB.find(Subscription.class, uri);
+    }
+
+    /**
+     * Retrieves the {@link Subscription} resource from the Database based on its uri, with only a projection of it loaded
+     * @param uri - uri of the {@link Subscription} resource to retrieve
+     * @param projection - part of the resource to load
+     * @return The requested {@link Subscription} resource otherwise null
+     */
+    public Subscription find(String uri, Projection projection) {
+        return DB.find(Subscription.class, uri, projection);
     }
 
     /**
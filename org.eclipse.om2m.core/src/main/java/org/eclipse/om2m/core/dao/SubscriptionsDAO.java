@@ -19,14 +19,12 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.dao;
 
+import java.util.List;
+
 import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
 import org.eclipse.om2m.commons.resource.Subscription;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 
-import com.db4o.ObjectContainer;
-import com.db4o.ObjectSet;
-import com.db4o.query.Query;
-
 /**
  * Implements CRUD Methods for {@link Subscriptions} collection resource persistence.
  *
@@ -56,20 +54,20 @@ public class SubscriptionsDAO extends DAO<Subscriptions> {
         Subscriptions subscriptions = lazyFind(uri);
 
         if(subscriptions != null) {
-        	ObjectContainer session = DB.ext().openSession();
+            StorageSession session = SessionManager.getInstance().acquire();
+            try {
+                // Find subscription sub-resources and add their references
+                subscriptions.getSubscriptionCollection().getNamedReference().clear();
+                List<Subscription> result = session.findByPrefix(Subscription.class, uri, Projection.ACCESS);
 
-            // Find subscription sub-resources and add their references
-            subscriptions.getSubscriptionCollection().getNamedReference().clear();
-            Query query = session.query();
-            query.constrain(Subscription.class);
-            query.descend("uri").constrain(uri).startsWith(true);
-            ObjectSet<Subscription> result = query.execute();
-
-            for (int i = 0; i < result.size(); i++) {
-                ReferenceToNamedResource reference = new ReferenceToNamedResource();
-                reference.setId(result.get(i).getId());
-                reference.setValue(result.get(i).getUri());
-                subscriptions.getSubscriptionCollection().getNamedReference().add(reference);
+                for (int i = 0; i < result.size(); i++) {
+                    ReferenceToNamedResource reference = new ReferenceToNamedResource();
+                    reference.setId(result.get(i).getId());
+                    reference.setValue(result.get(i).getUri());
+                    subscriptions.getSubscriptionCollection().getNamedReference().add(reference);
+                }
+            } finally {
+                session.close();
             }
         }
         return subscriptions;
@@ -81,20 +79,12 @@ public class SubscriptionsDAO extends DAO<Subscriptions> {
      * @return The requested {@link Subscriptions} collection resource otherwise null
      */
     public Subscriptions lazyFind(String uri) {
-    	ObjectContainer session = DB.ext().openSession();
-
-        // Create the query based on the uri constraint
-        Query query = session.query();
-        query.constrain(Subscriptions.class);
-        query.descend("uri").constrain(uri);
-        // Store all the founded resources
-        ObjectSet<Subscriptions> result = query.execute();
-        // Retrieve the first element corresponding to the researched resource if result is not empty
-        if (!result.isEmpty()) {
-            return result.get(0);
+        StorageSession session = SessionManager.getInstance().acquire();
+        try {
+            return session.find(Subscriptions.class, uri);
+        } finally {
+            session.close();
         }
-        // Return null if the resource is not found
-        return null;
     }
 
     /**
@@ -125,10 +115,7 @@ public class SubscriptionsDAO extends DAO<Subscriptions> {
      */
     public void lazyDelete(Subscriptions resource){
         // Delete subscription sub-resources
-        Query query = DB.query();
-        query.constrain(Subscription.class);
-        query.descend("uri").constrain(resource.getUri()).startsWith(true);
-        ObjectSet<Subscription> result = query.execute();
+        List<Subscription> result = DB.findByPrefix(Subscription.class, resource.getUri());
 
         for (int i = 0; i < result.size(); i++) {
             DAOFactory.getSubscriptionDAO().lazyDelete(result.get(i));
@@ -0,0 +1,475 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.core.router.SubtreeLockManager;
+
+/**
+ * {@link StorageEngine} deleting subtrees with tombstones. A deleted subtree is hidden from the reads
+ * at once, then a background reclaimer deletes its resources from the underlying engine. A resource
+ * stored in a subtree not reclaimed yet is visible again on its own, and kept by the reclaimer.
+ * Tombstones are saved to a file, if any, with the commit of the transaction deleting the subtree, so
+ * that the subtrees left by a stop are reclaimed on the next start.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class TombstonedStorageEngine implements StorageEngine {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(TombstonedStorageEngine.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Engine storing the resources */
+    private final StorageEngine engine;
+    /** File saving the tombstones, null to keep them in memory only */
+    private final File file;
+    /** Deleted subtrees not reclaimed yet by root uri, none of them below another one */
+    private final ConcurrentSkipListMap<String, Tombstone> tombstones = new ConcurrentSkipListMap<String, Tombstone>();
+    /** Subtrees waiting for the reclaimer */
+    private final BlockingQueue<String> reclaims = new LinkedBlockingQueue<String>();
+    /** Serializes the saves, apart from the long reclamations */
+    private final Object saveLock = new Object();
+    /** Whether the tombstones changed since they were last saved */
+    private volatile boolean changed;
+
+    /**
+     * Deleted subtree, with the resources stored in it since it was deleted.
+     */
+    private static class Tombstone {
+        /** Resources stored in the subtree since its deletion by uri, null until read after a restart */
+        final Map<String, Resource> revived = new HashMap<String, Resource>();
+
+        /**
+         * Records a resource stored in the subtree.
+         * @return true if the resource was hidden until now
+         */
+        synchronized boolean revive(Resource resource) {
+            boolean hidden = !revived.containsKey(resource.getUri());
+            revived.put(resource.getUri(), resource);
+            return hidden;
+        }
+
+        /**
+         * Hides again the resources stored below an uri, left to the reclaimer.
+         */
+        synchronized void hide(String uri) {
+            for (Iterator<String> uris = revived.keySet().iterator(); uris.hasNext();) {
+                String revivedUri = uris.next();
+                if (revivedUri.startsWith(uri) && (revivedUri.length() == uri.length() || revivedUri.charAt(uri.length()) == '/')) {
+                    uris.remove();
+                }
+            }
+        }
+
+        synchronized boolean hides(String uri) {
+            return !revived.containsKey(uri);
+        }
+
+        /**
+         * Returns a resource stored in the subtree, visible while the subtree is reclaimed.
+         * @return the resource otherwise null
+         */
+        synchronized <T extends Resource> T find(Class<T> type, String uri) {
+            Resource resource = revived.get(uri);
+            return type.isInstance(resource) ? type.cast(resource) : null;
+        }
+
+        /**
+         * Reads the resources stored in the subtree before a restart, before the subtree is deleted.
+         */
+        synchronized void load(StorageEngine engine) {
+            for (Iterator<Map.Entry<String, Resource>> entries = revived.entrySet().iterator(); entries.hasNext();) {
+                Map.Entry<String, Resource> entry = entries.next();
+                if (entry.getValue() == null) {
+                    Resource resource = engine.find(Resource.class, entry.getKey());
+                    if (resource != null) {
+                        entry.setValue(resource);
+                    } else {
+                        entries.remove();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Stores again the resources stored in the subtree, once it is deleted.
+         */
+        synchronized void restore(StorageEngine engine) {
+            for (Resource resource : revived.values()) {
+                if (resource != null) {
+                    engine.store(resource);
+                }
+            }
+        }
+
+        synchronized List<String> uris() {
+            return new ArrayList<String>(revived.keySet());
+        }
+    }
+
+    /**
+     * Creates an engine deleting subtrees with tombstones, and starts its reclaimer thread.
+     * @param engine - engine storing the resources
+     * @param file - file saving the tombstones, null to keep them in memory only
+     */
+    public TombstonedStorageEngine(StorageEngine engine, File file) {
+        this.engine = engine;
+        this.file = file;
+        if (file != null && file.exists()) {
+            load();
+        }
+        Thread reclaimer = new Thread("om2m-reclaimer") {
+            public void run() {
+                while (true) {
+                    try {
+                        reclaim(reclaims.take());
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Subtree reclamation failed", e);
+                    }
+                }
+            }
+        };
+        reclaimer.setDaemon(true);
+        reclaimer.start();
+    }
+
+    public void store(Resource resource) {
+        Tombstone tombstone = tombstone(resource.getUri());
+        // Visible again, the rest of the subtree staying hidden
+        if (tombstone != null && tombstone.revive(resource)) {
+            changed = true;
+        }
+        engine.store(resource);
+    }
+
+    public void delete(Resource resource) {
+        Tombstone tombstone = tombstone(resource.getUri());
+        if (tombstone != null) {
+            tombstone.hide(resource.getUri());
+        }
+        engine.delete(resource);
+    }
+
+    /**
+     * Hides a subtree at once and leaves its deletion to the reclaimer.
+     */
+    public void deleteSubtree(String uri) {
+        Tombstone tombstone = tombstone(uri);
+        if (tombstone != null) {
+            // Within a deleted subtree: hides the resources stored there since
+            tombstone.hide(uri);
+            changed = true;
+            return;
+        }
+        // The deleted subtrees below are reclaimed with this one
+        tombstones.subMap(uri + "/", uri + "0").clear();
+        tombstones.put(uri, new Tombstone());
+        changed = true;
+        reclaims.add(uri);
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri) {
+        Tombstone tombstone = tombstone(uri);
+        if (tombstone == null) {
+            return engine.find(type, uri);
+        }
+        T resource = tombstone.find(type, uri);
+        return resource != null || tombstone.hides(uri) ? resource : engine.find(type, uri);
+    }
+
+    public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+        Tombstone tombstone = tombstone(uri);
+        if (tombstone == null) {
+            return engine.find(type, uri, projection);
+        }
+        T resource = tombstone.find(type, uri);
+        return resource != null || tombstone.hides(uri) ? resource : engine.find(type, uri, projection);
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+        return visible(engine.findByPrefix(type, prefix));
+    }
+
+    public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+        return visible(engine.findByPrefix(type, prefix, projection));
+    }
+
+    public <T extends Resource> T findOldest(Class<T> type, String prefix) {
+        T resource = engine.findOldest(type, prefix);
+        if (resource != null && hidden(resource.getUri())) {
+            List<T> result = findByPrefix(type, prefix);
+            return result.isEmpty() ? null : result.get(0);
+        }
+        return resource;
+    }
+
+    public <T extends Resource> T findLatest(Class<T> type, String prefix) {
+        T resource = engine.findLatest(type, prefix);
+        if (resource != null && hidden(resource.getUri())) {
+            List<T> result = findByPrefix(type, prefix);
+            return result.isEmpty() ? null : result.get(result.size() - 1);
+        }
+        return resource;
+    }
+
+    public <T extends Resource> List<T> findOldest(Class<T> type, String prefix, int count) {
+        return visible(engine.findOldest(type, prefix, count));
+    }
+
+    public int deleteOldest(Class<? extends Resource> type, String prefix, int count) {
+        return engine.deleteOldest(type, prefix, count);
+    }
+
+    public long[] countInstances(String uri) {
+        if (tombstone(uri) == null) {
+            return engine.countInstances(uri);
+        }
+        // The indexes still count the hidden instances of a collection created again in a deleted subtree
+        return CollectionCounters.count(visible(engine.findByPrefix(ContentInstance.class, uri + "/")));
+    }
+
+    public StorageSession openSession() {
+        final StorageSession session = engine.openSession();
+        return new StorageSession() {
+            public <T extends Resource> T find(Class<T> type, String uri) {
+                Tombstone tombstone = tombstone(uri);
+                if (tombstone == null) {
+                    return session.find(type, uri);
+                }
+                T resource = tombstone.find(type, uri);
+                return resource != null || tombstone.hides(uri) ? resource : session.find(type, uri);
+            }
+
+            public <T extends Resource> T find(Class<T> type, String uri, Projection projection) {
+                Tombstone tombstone = tombstone(uri);
+                if (tombstone == null) {
+                    return session.find(type, uri, projection);
+                }
+                T resource = tombstone.find(type, uri);
+                return resource != null || tombstone.hides(uri) ? resource : session.find(type, uri, projection);
+            }
+
+            public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix) {
+                return visible(session.findByPrefix(type, prefix));
+            }
+
+            public <T extends Resource> List<T> findByPrefix(Class<T> type, String prefix, Projection projection) {
+                return visible(session.findByPrefix(type, prefix, projection));
+            }
+
+            public void close() {
+                session.close();
+            }
+        };
+    }
+
+    public void commit() {
+        // Saved with the transaction deleting the subtrees, before it is committed
+        if (changed) {
+            changed = false;
+            save();
+        }
+        engine.commit();
+    }
+
+    public void clear() {
+        reclaims.clear();
+        tombstones.clear();
+        changed = false;
+        save();
+        engine.clear();
+    }
+
+    public void close() {
+        engine.close();
+    }
+
+    /**
+     * Deletes a hidden subtree from the underlying engine, keeping the resources stored in it since
+     * it was deleted, and removes its tombstone once the deletion is committed.
+     * @param uri - subtree root uri
+     */
+    void reclaim(String uri) {
+        Tombstone tombstone = tombstones.get(uri);
+        if (tombstone == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        SubtreeLockManager.getInstance().lockSharedNode();
+        try {
+            tombstone.load(engine);
+            engine.deleteSubtree(uri);
+            // Resources stored meanwhile are in the tombstone too
+            tombstone.restore(engine);
+        } finally {
+            SubtreeLockManager.getInstance().unlockSharedNode();
+        }
+        // Committed like the DAO writes, with the collection aggregates and the replication
+        CommitCoordinator.getInstance().commit();
+        CommitCoordinator.getInstance().flush();
+        if (tombstones.remove(uri, tombstone)) {
+            save();
+        }
+        LOGGER.info("Subtree " + uri + " reclaimed in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+    /**
+     * Returns the tombstone of the deleted subtree holding an uri, looking up its ancestors.
+     * @param uri - resource uri
+     * @return the tombstone otherwise null
+     */
+    private Tombstone tombstone(String uri) {
+        if (uri == null || tombstones.isEmpty()) {
+            return null;
+        }
+        String ancestor = uri;
+        while (true) {
+            Tombstone tombstone = tombstones.get(ancestor);
+            if (tombstone != null) {
+                return tombstone;
+            }
+            int index = ancestor.lastIndexOf('/');
+            if (index == -1) {
+                return null;
+            }
+            ancestor = ancestor.substring(0, index);
+        }
+    }
+
+    /**
+     * Checks whether an uri is hidden by a tombstone.
+     * @param uri - resource uri
+     * @return true if the uri is in a deleted subtree and was not stored since
+     */
+    private boolean hidden(String uri) {
+        Tombstone tombstone = tombstone(uri);
+        return tombstone != null && tombstone.hides(uri);
+    }
+
+    /**
+     * Filters the resources hidden by a tombstone out of a query result.
+     */
+    private <T extends Resource> List<T> visible(List<T> resources) {
+        if (tombstones.isEmpty()) {
+            return resources;
+        }
+        List<T> result = new ArrayList<T>(resources.size());
+        for (T resource : resources) {
+            if (!hidden(resource.getUri())) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the saved tombstones and queues them for reclamation. Each tombstone line is followed by
+     * the uris stored in its subtree since, indented by a tab.
+     */
+    private void load() {
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+            try {
+                Tombstone tombstone = null;
+                String uri;
+                while ((uri = reader.readLine()) != null) {
+                    if (uri.startsWith("\t")) {
+                        if (tombstone != null) {
+                            tombstone.revived.put(uri.substring(1), null);
+                        }
+                    } else if (!uri.isEmpty()) {
+                        tombstone = new Tombstone();
+                        tombstones.put(uri, tombstone);
+                        reclaims.add(uri);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            LOGGER.info(tombstones.size() + " deleted subtrees left to reclaim");
+        } catch (IOException e) {
+            LOGGER.error("Cannot read the tombstones from " + file, e);
+        }
+    }
+
+    /**
+     * Replaces the saved tombstones with the current ones.
+     */
+    private void save() {
+        if (file == null) {
+            return;
+        }
+        File target = new File(file.getPath() + ".tmp");
+        synchronized (saveLock) {
+            try {
+                FileOutputStream out = new FileOutputStream(target);
+                try {
+                    Writer writer = new OutputStreamWriter(out, UTF8);
+                    for (Map.Entry<String, Tombstone> tombstone : tombstones.entrySet()) {
+                        writer.write(tombstone.getKey());
+                        writer.write('\n');
+                        for (String uri : tombstone.getValue().uris()) {
+                            writer.write('\t');
+                            writer.write(uri);
+                            writer.write('\n');
+                        }
+                    }
+                    writer.flush();
+                    out.getFD().sync();
+                } finally {
+                    out.close();
+                }
+                if (!target.renameTo(file)) {
+                    file.delete();
+                    if (!target.renameTo(file)) {
+                        throw new IOException("Cannot replace " + file);
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Cannot save the tombstones to " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram over logarithmic buckets. Values below 8 have their own bucket,
+ * and each power of two above is split in 4 sub-buckets, so that a percentile is estimated
+ * within 25% of its actual value. Recording is a few atomic increments with no allocation.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class LatencyHistogram {
+    /** Number of sub-buckets per power of two */
+    private static final int SUB_BUCKETS = 4;
+    /** Values with their own bucket */
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+    /** Number of buckets, covering values up to 2^40 */
+    static final int BUCKETS = LINEAR + (40 - 3) * SUB_BUCKETS;
+    /** Recorded values by bucket */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    /** Number of recorded values */
+    private final AtomicLong count = new AtomicLong();
+    /** Sum of recorded values */
+    private final AtomicLong sum = new AtomicLong();
+    /** Maximum recorded value */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     * @param value - latency, negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /** Gets the number of recorded values. */
+    public long getCount() {
+        return count.get();
+    }
+
+    /** Gets the sum of recorded values. */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /** Gets the maximum recorded value. */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Estimates a percentile of the recorded values as the upper bound of its bucket.
+     * @param percentile - percentile between 0 and 100
+     * @return the estimated value, or 0 if no value is recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long cumulated = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulated += snapshot[i];
+            if (cumulated >= rank) {
+                return Math.min(lowerBound(i + 1) - 1, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Computes the bucket of a value.
+     * @param value - positive value
+     * @return bucket index
+     */
+    static int bucket(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return Math.min(LINEAR + (exponent - 3) * SUB_BUCKETS + sub, BUCKETS - 1);
+    }
+
+    /**
+     * Computes the lowest value of a bucket.
+     * @param bucket - bucket index
+     * @return lowest value
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = 3 + (bucket - LINEAR) / SUB_BUCKETS;
+        long sub = (bucket - LINEAR) % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - 2);
+    }
+}
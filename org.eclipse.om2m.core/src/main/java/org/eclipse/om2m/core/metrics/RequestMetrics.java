@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import obix.Int;
+import obix.Obj;
+import obix.Uri;
+import obix.io.ObixEncoder;
+
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.core.controller.Controller;
+import org.eclipse.om2m.core.controller.ControllerRegistry;
+import org.eclipse.om2m.core.router.RequestMethod;
+
+/**
+ * Router request metrics: latency histograms in microseconds per resource controller and
+ * request method, latency histograms of retargeted requests per method, and response status
+ * code counters. All histograms are created upfront so that recording is lock-free and
+ * allocation-free.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class RequestMetrics {
+    /** Shared request metrics */
+    private static final RequestMetrics requestMetrics = new RequestMetrics(ControllerRegistry.getInstance());
+    /** Reported percentiles */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    /** Reported percentile names */
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+    /** Local request latencies by controller class then request method ordinal, read-only once built */
+    private final Map<Class<?>, LatencyHistogram[]> latencies = new HashMap<Class<?>, LatencyHistogram[]>();
+    /** Controller classes in report order */
+    private final Class<?>[] controllers;
+    /** Retargeted request latencies by request method ordinal */
+    private final LatencyHistogram[] retargetLatencies = histograms();
+    /** Responses by status code ordinal */
+    private final AtomicLongArray statusCodes = new AtomicLongArray(StatusCode.values().length);
+    /** Requests handled locally, including rejected ones */
+    private final AtomicLong localRequests = new AtomicLong();
+    /** Requests retargeted to remote SCLs */
+    private final AtomicLong retargetedRequests = new AtomicLong();
+
+    /**
+     * Creates request metrics for the controllers of a registry.
+     * @param registry - controller registry
+     */
+    public RequestMetrics(ControllerRegistry registry) {
+        controllers = new Class<?>[registry.getControllers().size()];
+        int i = 0;
+        for (Controller controller : registry.getControllers()) {
+            controllers[i++] = controller.getClass();
+            latencies.put(controller.getClass(), histograms());
+        }
+    }
+
+    /** Gets the shared request metrics. */
+    public static RequestMetrics getInstance() {
+        return requestMetrics;
+    }
+
+    /**
+     * Records a request handled by a resource controller.
+     * @param controller - resource controller, null if no controller matched
+     * @param method - request method, null if unknown
+     * @param statusCode - response status code
+     * @param nanos - handling time in nanoseconds
+     */
+    public void recordLocal(Controller controller, RequestMethod method, StatusCode statusCode, long nanos) {
+        localRequests.incrementAndGet();
+        recordStatus(statusCode);
+        if (controller != null && method != null) {
+            LatencyHistogram[] histograms = latencies.get(controller.getClass());
+            if (histograms != null) {
+                histograms[method.ordinal()].record(nanos / 1000);
+            }
+        }
+    }
+
+    /**
+     * Records a request retargeted to a remote SCL.
+     * @param method - request method, null if unknown
+     * @param statusCode - response status code
+     * @param nanos - handling time in nanoseconds
+     */
+    public void recordRetargeted(RequestMethod method, StatusCode statusCode, long nanos) {
+        retargetedRequests.incrementAndGet();
+        recordStatus(statusCode);
+        if (method != null) {
+            retargetLatencies[method.ordinal()].record(nanos / 1000);
+        }
+    }
+
+    private void recordStatus(StatusCode statusCode) {
+        if (statusCode != null) {
+            statusCodes.incrementAndGet(statusCode.ordinal());
+        }
+    }
+
+    /** Gets the number of requests handled locally. */
+    public long getLocalRequests() {
+        return localRequests.get();
+    }
+
+    /** Gets the number of requests retargeted to remote SCLs. */
+    public long getRetargetedRequests() {
+        return retargetedRequests.get();
+    }
+
+    /**
+     * Gets the number of responses with a status code.
+     * @param statusCode - status code
+     * @return number of responses
+     */
+    public long getStatusCount(StatusCode statusCode) {
+        return statusCodes.get(statusCode.ordinal());
+    }
+
+    /**
+     * Gets the latency histogram of a controller and method.
+     * @param controller - controller class
+     * @param method - request method
+     * @return the histogram otherwise null if the controller is not registered
+     */
+    public LatencyHistogram getLatency(Class<? extends Controller> controller, RequestMethod method) {
+        LatencyHistogram[] histograms = latencies.get(controller);
+        return histograms == null ? null : histograms[method.ordinal()];
+    }
+
+    /**
+     * Builds the oBIX XML representation of the metrics. Histograms without recorded
+     * requests are omitted.
+     * @param uri - metrics resource uri
+     * @return oBIX XML representation
+     */
+    public String toObix(String uri) {
+        Obj metrics = new Obj();
+        metrics.setHref(new Uri(uri));
+        metrics.add(new Int("localRequests", localRequests.get()));
+        metrics.add(new Int("retargetedRequests", retargetedRequests.get()));
+        Obj statuses = new Obj("statusCodes");
+        StatusCode[] codes = StatusCode.values();
+        for (int i = 0; i < codes.length; i++) {
+            if (statusCodes.get(i) > 0) {
+                statuses.add(new Int(codes[i].name(), statusCodes.get(i)));
+            }
+        }
+        metrics.add(statuses);
+        Obj latencyMetrics = new Obj("latencyMicroseconds");
+        for (Class<?> controller : controllers) {
+            Obj controllerMetrics = new Obj(controller.getSimpleName());
+            addObix(controllerMetrics, latencies.get(controller));
+            if (controllerMetrics.size() > 0) {
+                latencyMetrics.add(controllerMetrics);
+            }
+        }
+        Obj retargetMetrics = new Obj("Retargeting");
+        addObix(retargetMetrics, retargetLatencies);
+        if (retargetMetrics.size() > 0) {
+            latencyMetrics.add(retargetMetrics);
+        }
+        metrics.add(latencyMetrics);
+        metrics.add(StorageMetrics.getInstance().toObj());
+        return ObixEncoder.toString(metrics);
+    }
+
+    private static void addObix(Obj parent, LatencyHistogram[] histograms) {
+        RequestMethod[] methods = RequestMethod.values();
+        for (int m = 0; m < methods.length; m++) {
+            LatencyHistogram histogram = histograms[m];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            Obj methodMetrics = new Obj(methods[m].getValue());
+            methodMetrics.add(new Int("count", histogram.getCount()));
+            methodMetrics.add(new Int("sum", histogram.getSum()));
+            for (int p = 0; p < PERCENTILES.length; p++) {
+                methodMetrics.add(new Int(PERCENTILE_NAMES[p], histogram.getPercentile(PERCENTILES[p])));
+            }
+            methodMetrics.add(new Int("max", histogram.getMax()));
+            parent.add(methodMetrics);
+        }
+    }
+
+    /**
+     * Builds the text scrape representation of the metrics, one "name{labels} value" sample per line.
+     * @return text representation
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append("# TYPE om2m_requests_total counter\n");
+        text.append("om2m_requests_total{route=\"local\"} ").append(localRequests.get()).append('\n');
+        text.append("om2m_requests_total{route=\"retargeted\"} ").append(retargetedRequests.get()).append('\n');
+        text.append("# TYPE om2m_responses_total counter\n");
+        StatusCode[] codes = StatusCode.values();
+        for (int i = 0; i < codes.length; i++) {
+            text.append("om2m_responses_total{status=\"").append(codes[i].name()).append("\"} ")
+                .append(statusCodes.get(i)).append('\n');
+        }
+        text.append("# TYPE om2m_request_latency_microseconds summary\n");
+        for (Class<?> controller : controllers) {
+            appendText(text, controller.getSimpleName(), latencies.get(controller));
+        }
+        appendText(text, "Retargeting", retargetLatencies);
+        StorageMetrics.getInstance().appendText(text);
+        return text.toString();
+    }
+
+    private static void appendText(StringBuilder text, String controller, LatencyHistogram[] histograms) {
+        RequestMethod[] methods = RequestMethod.values();
+        for (int m = 0; m < methods.length; m++) {
+            LatencyHistogram histogram = histograms[m];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            String labels = "controller=\"" + controller + "\",method=\"" + methods[m].getValue() + "\"";
+            for (int p = 0; p < PERCENTILES.length; p++) {
+                text.append("om2m_request_latency_microseconds{").append(labels).append(",quantile=\"")
+                    .append(PERCENTILES[p] / 100).append("\"} ").append(histogram.getPercentile(PERCENTILES[p])).append('\n');
+            }
+            text.append("om2m_request_latency_microseconds_sum{").append(labels).append("} ").append(histogram.getSum()).append('\n');
+            text.append("om2m_request_latency_microseconds_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+        }
+    }
+
+    private static LatencyHistogram[] histograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[RequestMethod.values().length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+}
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import obix.Int;
+import obix.Obj;
+import obix.Str;
+
+import org.eclipse.om2m.core.dao.ResourceCache;
+import org.eclipse.om2m.core.dao.SessionManager;
+import org.eclipse.om2m.core.replication.ReplicationManager;
+
+/**
+ * Storage maintenance metrics: pauses of the node while the compacted database replaces the
+ * current one, in microseconds, the number of copied and replayed resources, the number of
+ * contentInstances evicted by the retention limits or archived, the statistics of the {@link ResourceCache},
+ * the read sessions of the {@link SessionManager} and the replication lag of a hot standby.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class StorageMetrics {
+    /** Shared storage metrics */
+    private static final StorageMetrics storageMetrics = new StorageMetrics();
+    /** Reported percentiles */
+    private static final double[] PERCENTILES = {50, 99};
+    /** Reported percentile names */
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99"};
+    /** Compaction pauses */
+    private final LatencyHistogram compactionPauses = new LatencyHistogram();
+    /** Duration of the last compaction pause */
+    private final AtomicLong lastCompactionPause = new AtomicLong();
+    /** Resources copied by compactions */
+    private final AtomicLong compactedResources = new AtomicLong();
+    /** Resources written during compactions and replayed on the compacted database */
+    private final AtomicLong replayedResources = new AtomicLong();
+    /** ContentInstances evicted beyond maxNrOfInstances */
+    private final AtomicLong evictedByNumber = new AtomicLong();
+    /** ContentInstances evicted beyond maxByteSize */
+    private final AtomicLong evictedBySize = new AtomicLong();
+    /** ContentInstances evicted beyond maxInstanceAge */
+    private final AtomicLong evictedByAge = new AtomicLong();
+    /** ContentInstances moved to the archives */
+    private final AtomicLong archived = new AtomicLong();
+
+    /** Gets the shared storage metrics. */
+    public static StorageMetrics getInstance() {
+        return storageMetrics;
+    }
+
+    /**
+     * Records a completed compaction.
+     * @param pauseNanos - time the node was quiesced, in nanoseconds
+     * @param copied - number of resources copied in background
+     * @param replayed - number of resources written meanwhile and replayed
+     */
+    public void recordCompaction(long pauseNanos, long copied, long replayed) {
+        compactionPauses.record(pauseNanos / 1000);
+        lastCompactionPause.set(pauseNanos / 1000);
+        compactedResources.addAndGet(copied);
+        replayedResources.addAndGet(replayed);
+    }
+
+    /**
+     * Records the contentInstances evicted from a collection by a retention sweep.
+     * @param byNumber - instances evicted beyond maxNrOfInstances
+     * @param bySize - instances evicted beyond maxByteSize
+     * @param byAge - instances evicted beyond maxInstanceAge
+     */
+    public void recordEvictions(long byNumber, long bySize, long byAge) {
+        evictedByNumber.addAndGet(byNumber);
+        evictedBySize.addAndGet(bySize);
+        evictedByAge.addAndGet(byAge);
+    }
+
+    /**
+     * Records the contentInstances of a collection moved to an archive.
+     * @param count - archived instances
+     */
+    public void recordArchived(long count) {
+        archived.addAndGet(count);
+    }
+
+    /** Gets the number of contentInstances moved to the archives. */
+    public long getArchived() {
+        return archived.get();
+    }
+
+    /** Gets the number of contentInstances evicted by the retention limits. */
+    public long getEvictions() {
+        return evictedByNumber.get() + evictedBySize.get() + evictedByAge.get();
+    }
+
+    /** Gets the compaction pause histogram, in microseconds. */
+    public LatencyHistogram getCompactionPauses() {
+        return compactionPauses;
+    }
+
+    /** Gets the last compaction pause, in microseconds. */
+    public long getLastCompactionPause() {
+        return lastCompactionPause.get();
+    }
+
+    /**
+     * Builds the oBIX representation of the metrics.
+     * @return oBIX object named storage
+     */
+    public Obj toObj() {
+        Obj storage = new Obj("storage");
+        Obj compaction = new Obj("compaction");
+        compaction.add(new Int("count", compactionPauses.getCount()));
+        compaction.add(new Int("compactedResources", compactedResources.get()));
+        compaction.add(new Int("replayedResources", replayedResources.get()));
+        Obj pauses = new Obj("pauseMicroseconds");
+        pauses.add(new Int("last", lastCompactionPause.get()));
+        pauses.add(new Int("sum", compactionPauses.getSum()));
+        for (int p = 0; p < PERCENTILES.length; p++) {
+            pauses.add(new Int(PERCENTILE_NAMES[p], compactionPauses.getPercentile(PERCENTILES[p])));
+        }
+        pauses.add(new Int("max", compactionPauses.getMax()));
+        compaction.add(pauses);
+        storage.add(compaction);
+        Obj retention = new Obj("retention");
+        retention.add(new Int("evictedByNrOfInstances", evictedByNumber.get()));
+        retention.add(new Int("evictedByByteSize", evictedBySize.get()));
+        retention.add(new Int("evictedByInstanceAge", evictedByAge.get()));
+        retention.add(new Int("archived", archived.get()));
+        storage.add(retention);
+        ResourceCache cache = ResourceCache.getInstance();
+        Obj cached = new Obj("cache");
+        cached.add(new Int("hits", cache.getHits()));
+        cached.add(new Int("misses", cache.getMisses()));
+        cached.add(new Int("evictions", cache.getEvictions()));
+        cached.add(new Int("invalidations", cache.getInvalidations()));
+        cached.add(new Int("size", cache.getSize()));
+        cached.add(new Int("weightBytes", cache.getWeight()));
+        storage.add(cached);
+        SessionManager sessionManager = SessionManager.getInstance();
+        Obj sessions = new Obj("sessions");
+        sessions.add(new Int("open", sessionManager.getOpenSessions()));
+        sessions.add(new Int("opened", sessionManager.getOpenedSessions()));
+        sessions.add(new Int("leaked", sessionManager.getLeakedSessions()));
+        storage.add(sessions);
+        ReplicationManager replication = ReplicationManager.getInstance();
+        if (replication.getRole() != null) {
+            Obj replicated = new Obj("replication");
+            replicated.add(new Str("role", replication.getRole().name()));
+            replicated.add(new Int("sequence", replication.getSequence()));
+            LatencyHistogram lags = replication.getLags();
+            if (lags != null) {
+                Obj lag = new Obj("lagMilliseconds");
+                lag.add(new Int("last", replication.getLastLag()));
+                for (int p = 0; p < PERCENTILES.length; p++) {
+                    lag.add(new Int(PERCENTILE_NAMES[p], lags.getPercentile(PERCENTILES[p])));
+                }
+                lag.add(new Int("max", lags.getMax()));
+                replicated.add(lag);
+            }
+            storage.add(replicated);
+        }
+        return storage;
+    }
+
+    /**
+     * Appends the text scrape representation of the metrics.
+     * @param text - text representation being built
+     */
+    public void appendText(StringBuilder text) {
+        text.append("# TYPE om2m_db_compaction_pause_microseconds summary\n");
+        for (int p = 0; p < PERCENTILES.length; p++) {
+            text.append("om2m_db_compaction_pause_microseconds{quantile=\"").append(PERCENTILES[p] / 100)
+                .append("\"} ").append(compactionPauses.getPercentile(PERCENTILES[p])).append('\n');
+        }
+        text.append("om2m_db_compaction_pause_microseconds_sum ").append(compactionPauses.getSum()).append('\n');
+        text.append("om2m_db_compaction_pause_microseconds_count ").append(compactionPauses.getCount()).append('\n');
+        text.append("# TYPE om2m_db_compaction_last_pause_microseconds gauge\n");
+        text.append("om2m_db_compaction_last_pause_microseconds ").append(lastCompactionPause.get()).append('\n');
+        text.append("# TYPE om2m_db_compacted_resources_total counter\n");
+        text.append("om2m_db_compacted_resources_total ").append(compactedResources.get()).append('\n');
+        text.append("# TYPE om2m_db_replayed_resources_total counter\n");
+        text.append("om2m_db_replayed_resources_total ").append(replayedResources.get()).append('\n');
+        text.append("# TYPE om2m_retention_evicted_instances_total counter\n");
+        text.append("om2m_retention_evicted_instances_total{limit=\"maxNrOfInstances\"} ").append(evictedByNumber.get()).append('\n');
+        text.append("om2m_retention_evicted_instances_total{limit=\"maxByteSize\"} ").append(evictedBySize.get()).append('\n');
+        text.append("om2m_retention_evicted_instances_total{limit=\"maxInstanceAge\"} ").append(evictedByAge.get()).append('\n');
+        text.append("# TYPE om2m_retention_archived_instances_total counter\n");
+        text.append("om2m_retention_archived_instances_total ").append(archived.get()).append('\n');
+        ResourceCache cache = ResourceCache.getInstance();
+        text.append("# TYPE om2m_db_cache_requests_total counter\n");
+        text.append("om2m_db_cache_requests_total{result=\"hit\"} ").append(cache.getHits()).append('\n');
+        text.append("om2m_db_cache_requests_total{result=\"miss\"} ").append(cache.getMisses()).append('\n');
+        text.append("# TYPE om2m_db_cache_evictions_total counter\n");
+        text.append("om2m_db_cache_evictions_total ").append(cache.getEvictions()).append('\n');
+        text.append("# TYPE om2m_db_cache_invalidations_total counter\n");
+        text.append("om2m_db_cache_invalidations_total ").append(cache.getInvalidations()).append('\n');
+        text.append("# TYPE om2m_db_cache_resources gauge\n");
+        text.append("om2m_db_cache_resources ").append(cache.getSize()).append('\n');
+        text.append("# TYPE om2m_db_cache_weight_bytes gauge\n");
+        text.append("om2m_db_cache_weight_bytes ").append(cache.getWeight()).append('\n');
+        SessionManager sessionManager = SessionManager.getInstance();
+        text.append("# TYPE om2m_db_open_sessions gauge\n");
+        text.append("om2m_db_open_sessions ").append(sessionManager.getOpenSessions()).append('\n');
+        text.append("# TYPE om2m_db_sessions_total counter\n");
+        text.append("om2m_db_sessions_total ").append(sessionManager.getOpenedSessions()).append('\n');
+        text.append("# TYPE om2m_db_leaked_sessions_total counter\n");
+        text.append("om2m_db_leaked_sessions_total ").append(sessionManager.getLeakedSessions()).append('\n');
+        ReplicationManager replication = ReplicationManager.getInstance();
+        if (replication.getRole() != null) {
+            text.append("# TYPE om2m_db_replication_leader gauge\n");
+            text.append("om2m_db_replication_leader ").append(replication.isWritable() ? 1 : 0).append('\n');
+            text.append("# TYPE om2m_db_replication_sequence gauge\n");
+            text.append("om2m_db_replication_sequence ").append(replication.getSequence()).append('\n');
+            LatencyHistogram lags = replication.getLags();
+            if (lags != null) {
+                text.append("# TYPE om2m_db_replication_lag_milliseconds summary\n");
+                for (int p = 0; p < PERCENTILES.length; p++) {
+                    text.append("om2m_db_replication_lag_milliseconds{quantile=\"").append(PERCENTILES[p] / 100)
+                        .append("\"} ").append(lags.getPercentile(PERCENTILES[p])).append('\n');
+                }
+                text.append("om2m_db_replication_lag_milliseconds_sum ").append(lags.getSum()).append('\n');
+                text.append("om2m_db_replication_lag_milliseconds_count ").append(lags.getCount()).append('\n');
+                text.append("# TYPE om2m_db_replication_last_lag_milliseconds gauge\n");
+                text.append("om2m_db_replication_last_lag_milliseconds ").append(replication.getLastLag()).append('\n');
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.eclipse.om2m.commons.resource.Subscription;
 import org.eclipse.om2m.commons.resource.Subscriptions;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.commons.utils.XmlMapper;
 import org.eclipse.om2m.core.comm.RestClient;
 import org.eclipse.om2m.core.constants.Constants;
 import org.eclipse.om2m.core.dao.DAOFactory;
@@ -70,6 +71,8 @@ public class Notifier {
 
             Notify notify;
             Subscription subscription;
+            // Resource representation, converted once for all the subscriptions
+            byte[] representation = null;
             // Create Notify object and sends it to subscribers
             for(int i=0 ; i<subscriptionList.size();i++) {
                 notify = new Notify();
@@ -92,7 +95,10 @@ public class Notifier {
                     }
                 }else {
                     // Notify if no "FilterCriteria" specified.
-                    notify.getRepresentation().setValue(resource);
+                    if(representation == null){
+                        representation = XmlMapper.getInstance().objectToXml(resource).getBytes();
+                    }
+                    notify.getRepresentation().setValue(representation);
                 }
                 notify.setSubscriptionReference(subscription.getUri());
                 
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.replication;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.commons.utils.XmlMapper;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.dao.CollectionCounters;
+import org.eclipse.om2m.core.dao.StorageEngine;
+import org.eclipse.om2m.core.metrics.LatencyHistogram;
+import org.eclipse.om2m.core.router.SubtreeLockManager;
+
+/**
+ * Tails a {@link WriteAheadLog} and applies its committed transactions to a replica. Records are
+ * applied once their commit record is read, then committed to the replica. The position of the next
+ * transaction is saved after each one, and applying a transaction again is harmless, so that a
+ * restarted replica resumes where it stopped.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class Follower {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(Follower.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Log directory */
+    private final File directory;
+    /** Replica storage */
+    private final StorageEngine engine;
+    /** File saving the position of the next transaction, null to keep it in memory only */
+    private final File positionFile;
+    /** Reader of the current log file, null until the first one exists */
+    private LogReader reader;
+    /** Records of the transaction being read */
+    private final List<LogRecord> transaction = new ArrayList<LogRecord>();
+    /** Sequence number of the last applied commit */
+    private volatile long applied;
+    /** Delay between the logging and the application of the commits, in ms */
+    private final LatencyHistogram lags = new LatencyHistogram();
+    /** Delay of the last applied commit, in ms */
+    private volatile long lastLag;
+
+    /**
+     * Creates a follower starting from its saved position, otherwise from the first log file, which
+     * must still start the log.
+     * @param directory - log directory
+     * @param engine - replica storage
+     * @param positionFile - file saving the position of the next transaction, null to keep it in memory only
+     */
+    public Follower(File directory, StorageEngine engine, File positionFile) {
+        this.directory = directory;
+        this.engine = engine;
+        this.positionFile = positionFile;
+        if (positionFile != null && positionFile.exists()) {
+            loadPosition();
+        }
+    }
+
+    /**
+     * Applies the transactions committed to the log since the last poll.
+     * @return the number of applied transactions
+     * @throws IOException if the log cannot be read
+     * @throws IllegalStateException if the replica has no position and the first log files were dropped
+     */
+    public synchronized int poll() throws IOException {
+        if (reader == null) {
+            List<File> files = WriteAheadLog.list(directory);
+            if (files.isEmpty()) {
+                return 0;
+            }
+            File first = files.get(0);
+            if (WriteAheadLog.firstSequence(first) != 1) {
+                throw new IllegalStateException("Replica has no position and the log starts at " + first + ", "
+                        + "the replica must be restarted from a copy of the leader database");
+            }
+            reader = new LogReader(first, 0);
+        }
+        int count = 0;
+        while (true) {
+            LogRecord record = reader.next();
+            if (record == null) {
+                // The log is rolled after a commit, the next file starts a new transaction
+                File next = transaction.isEmpty() ? next() : null;
+                if (next == null) {
+                    return count;
+                }
+                reader.close();
+                reader = new LogReader(next, 0);
+            } else if (record.getType() == LogRecord.COMMIT) {
+                apply(record);
+                count++;
+            } else {
+                transaction.add(record);
+            }
+        }
+    }
+
+    /** Gets the sequence number of the last applied commit. */
+    public long getApplied() {
+        return applied;
+    }
+
+    /** Gets the delays between the logging and the application of the commits, in ms. */
+    public LatencyHistogram getLags() {
+        return lags;
+    }
+
+    /** Gets the delay of the last applied commit, in ms. */
+    public long getLastLag() {
+        return lastLag;
+    }
+
+    /**
+     * Stops following the log.
+     */
+    public synchronized void close() throws IOException {
+        transaction.clear();
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+
+    /**
+     * Gets the log file following the current one.
+     * @return the next file, otherwise null
+     */
+    private File next() {
+        long current = WriteAheadLog.firstSequence(reader.getFile());
+        for (File file : WriteAheadLog.list(directory)) {
+            if (WriteAheadLog.firstSequence(file) > current) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies the transaction ended by a commit record and commits it to the replica.
+     */
+    private void apply(LogRecord commit) throws IOException {
+        CollectionCounters counters = CollectionCounters.getInstance();
+        SubtreeLockManager.getInstance().lockSharedNode();
+        try {
+            for (LogRecord record : transaction) {
+                String uri = record.getUri();
+                Resource existing;
+                switch (record.getType()) {
+                case LogRecord.STORE:
+                    Resource resource = (Resource) XmlMapper.getInstance().xmlToObject(new String(record.getPayload(), UTF8));
+                    if (resource == null) {
+                        throw new IOException("Cannot read resource " + uri + " at sequence " + record.getSequence());
+                    }
+                    resource.setUri(uri);
+                    existing = engine.find(Resource.class, uri);
+                    if (existing != null) {
+                        engine.delete(existing);
+                    }
+                    engine.store(resource);
+                    invalidate(counters, resource);
+                    break;
+                case LogRecord.DELETE:
+                    existing = engine.find(Resource.class, uri);
+                    if (existing != null) {
+                        engine.delete(existing);
+                        invalidate(counters, existing);
+                    }
+                    break;
+                case LogRecord.DELETE_SUBTREE:
+                    engine.deleteSubtree(uri);
+                    counters.removeSubtree(uri);
+                    break;
+                case LogRecord.CLEAR:
+                    engine.clear();
+                    counters.removeSubtree(Constants.SCL_ID);
+                    break;
+                default:
+                    throw new IOException("Unknown log record type " + record.getType() + " at sequence " + record.getSequence());
+                }
+            }
+            engine.commit();
+        } finally {
+            SubtreeLockManager.getInstance().unlockSharedNode();
+        }
+        transaction.clear();
+        applied = commit.getSequence();
+        lastLag = System.currentTimeMillis() - commit.getTime();
+        lags.record(lastLag);
+        savePosition();
+    }
+
+    /**
+     * Drops the aggregates of a collection changed by a replicated write, so that they are counted again.
+     */
+    private static void invalidate(CollectionCounters counters, Resource resource) {
+        if (resource instanceof ContentInstance) {
+            counters.invalidate(resource.getUri().substring(0, resource.getUri().lastIndexOf('/')));
+        } else if (resource instanceof ContentInstances) {
+            counters.invalidate(resource.getUri());
+        }
+    }
+
+    /**
+     * Reads the saved position: log file name, offset and last applied commit.
+     */
+    private void loadPosition() {
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(positionFile), UTF8));
+            try {
+                String[] position = in.readLine().split("\t");
+                File file = new File(directory, position[0]);
+                if (!file.exists()) {
+                    throw new IllegalStateException("Replica position " + file + " is no longer in the log, "
+                            + "the replica must be restarted from a copy of the leader database");
+                }
+                reader = new LogReader(file, Long.parseLong(position[1]));
+                applied = Long.parseLong(position[2]);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the replica position " + positionFile, e);
+        }
+    }
+
+    /**
+     * Saves the position of the next transaction. It is not forced to the disk: replaying a
+     * transaction already applied leaves the replica unchanged.
+     */
+    private void savePosition() {
+        if (positionFile == null) {
+            return;
+        }
+        try {
+            Writer out = new OutputStreamWriter(new FileOutputStream(positionFile), UTF8);
+            try {
+                out.write(reader.getFile().getName() + "\t" + reader.getPosition() + "\t" + applied + "\n");
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot save the replica position " + positionFile, e);
+        }
+    }
+}
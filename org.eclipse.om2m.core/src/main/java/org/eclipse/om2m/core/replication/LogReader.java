@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.replication;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the records of a {@link WriteAheadLog} file while it is written.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+class LogReader {
+    /** Log file */
+    private final File file;
+    private final RandomAccessFile in;
+    /** Offset of the next record */
+    private long position;
+
+    /**
+     * Opens a log file.
+     * @param file - log file
+     * @param position - offset of the next record, 0 to read from the first one
+     * @throws IOException if the file cannot be read or is not a log file
+     */
+    LogReader(File file, long position) throws IOException {
+        this.file = file;
+        this.in = new RandomAccessFile(file, "r");
+        if (position == 0) {
+            if (in.length() < 4 || in.readInt() != WriteAheadLog.MAGIC) {
+                in.close();
+                throw new IOException(file + " is not a write-ahead log");
+            }
+            position = 4;
+        }
+        this.position = position;
+    }
+
+    /**
+     * Reads the next record.
+     * @return the next record, or null if it is not completely written yet
+     * @throws IOException if the file cannot be read or is corrupted
+     */
+    LogRecord next() throws IOException {
+        long length = in.length();
+        if (position + 4 > length) {
+            return null;
+        }
+        in.seek(position);
+        int size = in.readInt();
+        if (size < LogRecord.FIXED_SIZE) {
+            throw new IOException(file + " is corrupted at " + position);
+        }
+        if (position + 4 + size > length) {
+            return null;
+        }
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, size - 4);
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        if (record.getInt(size - 4) != (int) crc.getValue()) {
+            throw new IOException(file + " is corrupted at " + position);
+        }
+        long sequence = record.getLong();
+        long time = record.getLong();
+        byte type = record.get();
+        byte[] name = new byte[record.getShort() & 0xffff];
+        if (name.length > size - LogRecord.FIXED_SIZE) {
+            throw new IOException(file + " is corrupted at " + position);
+        }
+        record.get(name);
+        byte[] payload = new byte[size - LogRecord.FIXED_SIZE - name.length];
+        record.get(payload);
+        position += 4 + size;
+        return new LogRecord(sequence, time, type, new String(name, "UTF-8"), payload);
+    }
+
+    /** Gets the log file. */
+    File getFile() {
+        return file;
+    }
+
+    /** Gets the offset of the next record. */
+    long getPosition() {
+        return position;
+    }
+
+    void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.replication;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Resource mutation recorded by the {@link WriteAheadLog}. A record is framed by its length, so that
+ * a record torn by a crash is detected, and holds its sequence number, the time it was logged, its
+ * type, the uri of the mutated resource and, for a store, the XML representation of the resource.
+ * It ends with the CRC32 of these fields, so that a corrupted record is detected as well.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public final class LogRecord {
+    /** Stores a resource */
+    public static final byte STORE = 1;
+    /** Deletes a resource */
+    public static final byte DELETE = 2;
+    /** Deletes a resource with all the resources below it */
+    public static final byte DELETE_SUBTREE = 3;
+    /** Deletes all the resources */
+    public static final byte CLEAR = 4;
+    /** Validates the records logged since the previous commit */
+    public static final byte COMMIT = 5;
+    /** Size of the fields following the length, without the uri and the payload */
+    static final int FIXED_SIZE = 8 + 8 + 1 + 2 + 4;
+    static final byte[] EMPTY = new byte[0];
+
+    private final long sequence;
+    private final long time;
+    private final byte type;
+    private final String uri;
+    private final byte[] payload;
+
+    LogRecord(long sequence, long time, byte type, String uri, byte[] payload) {
+        this.sequence = sequence;
+        this.time = time;
+        this.type = type;
+        this.uri = uri;
+        this.payload = payload;
+    }
+
+    /**
+     * Writes a record.
+     * @param out - stream receiving the record
+     */
+    static void write(DataOutputStream out, long sequence, long time, byte type, String uri, byte[] payload)
+            throws IOException {
+        byte[] name = uri.getBytes("UTF-8");
+        out.writeInt(FIXED_SIZE + name.length + payload.length);
+        CRC32 crc = new CRC32();
+        DataOutputStream checked = new DataOutputStream(new CheckedOutputStream(out, crc));
+        checked.writeLong(sequence);
+        checked.writeLong(time);
+        checked.writeByte(type);
+        checked.writeShort(name.length);
+        checked.write(name);
+        checked.write(payload);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /** Gets the sequence number of the record. */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /** Gets the time the record was logged, in ms since the epoch. */
+    public long getTime() {
+        return time;
+    }
+
+    /** Gets the type of the record. */
+    public byte getType() {
+        return type;
+    }
+
+    /** Gets the uri of the mutated resource. */
+    public String getUri() {
+        return uri;
+    }
+
+    /** Gets the XML representation of a stored resource, empty otherwise. */
+    public byte[] getPayload() {
+        return payload;
+    }
+}
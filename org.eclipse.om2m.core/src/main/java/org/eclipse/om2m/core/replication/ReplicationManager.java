@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.replication;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.dao.ReplicatingStorageEngine;
+import org.eclipse.om2m.core.dao.StorageEngine;
+import org.eclipse.om2m.core.metrics.LatencyHistogram;
+
+/**
+ * Replicates the storage of the SCL processes sharing a write-ahead log directory. The process holding
+ * the lock of the directory is the leader and logs its mutations; the others are read-only hot
+ * standbys following the log. The lock is released by the system when the leader stops, whatever the
+ * way, and a standby then applies the rest of the log and takes over as leader.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class ReplicationManager {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(ReplicationManager.class);
+
+    /**
+     * Lazily creates the replication configured by the org.eclipse.om2m.dbWal* properties.
+     */
+    private static class ReplicationManagerHolder {
+        private static final ReplicationManager MANAGER = new ReplicationManager(new File(Constants.DB_WAL),
+                new File(Constants.DB_FILE + "-replica"), Constants.DB_WAL_FILE_SIZE, Constants.DB_WAL_FILES, Constants.DB_WAL_POLL);
+    }
+
+    /**
+     * Replication roles.
+     */
+    public enum Role {
+        LEADER, STANDBY
+    }
+
+    /** Log directory */
+    private final File directory;
+    /** File saving the position of a standby */
+    private final File positionFile;
+    /** Size in bytes beyond which a log file is rolled */
+    private final long fileSize;
+    /** Number of log files kept */
+    private final int files;
+    /** Delay in ms between the polls of a standby */
+    private final long period;
+    /** Role of the process, null until the storage is replicated */
+    private volatile Role role;
+    /** Replicated storage */
+    private ReplicatingStorageEngine engine;
+    /** Log written by the leader */
+    private volatile WriteAheadLog log;
+    /** Follower of the log, while standby */
+    private volatile Follower follower;
+    private Thread followerThread;
+    private FileChannel lockChannel;
+    private FileLock lock;
+
+    /**
+     * Creates a replication.
+     * @param directory - log directory
+     * @param positionFile - file saving the position of a standby
+     * @param fileSize - size in bytes beyond which a log file is rolled
+     * @param files - number of log files kept
+     * @param period - delay in ms between the polls of a standby
+     */
+    public ReplicationManager(File directory, File positionFile, long fileSize, int files, long period) {
+        this.directory = directory;
+        this.positionFile = positionFile;
+        this.fileSize = fileSize;
+        this.files = files;
+        this.period = period;
+    }
+
+    /** Gets the replication configured by the org.eclipse.om2m.dbWal* properties. */
+    public static ReplicationManager getInstance() {
+        return ReplicationManagerHolder.MANAGER;
+    }
+
+    /**
+     * Replicates a storage, as leader if the log directory is not locked yet, otherwise as standby.
+     * @param storage - storage to replicate
+     * @return the replicated storage
+     */
+    public synchronized StorageEngine replicate(StorageEngine storage) {
+        engine = new ReplicatingStorageEngine(storage);
+        try {
+            if (tryLock()) {
+                log = WriteAheadLog.open(directory, fileSize, files);
+                engine.attach(log);
+                role = Role.LEADER;
+            } else {
+                role = Role.STANDBY;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open the write-ahead log " + directory, e);
+        }
+        LOGGER.info("Storage replicated through " + directory + " as " + role);
+        return engine;
+    }
+
+    /**
+     * Starts following the log as standby, and takes over once the leader stops.
+     * @param replica - storage applying the log, including the replicated storage
+     * @param onPromotion - run once the standby takes over
+     */
+    public synchronized void follow(StorageEngine replica, final Runnable onPromotion) {
+        follower = new Follower(directory, replica, positionFile);
+        followerThread = new Thread("om2m-follower") {
+            public void run() {
+                while (!isInterrupted()) {
+                    try {
+                        if (follower.poll() == 0) {
+                            if (promote()) {
+                                onPromotion.run();
+                                return;
+                            }
+                            Thread.sleep(period);
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (Exception e) {
+                        LOGGER.error("Replication from " + directory + " failed", e);
+                        try {
+                            Thread.sleep(period * 100);
+                        } catch (InterruptedException ie) {
+                            return;
+                        }
+                    }
+                }
+            }
+        };
+        followerThread.setDaemon(true);
+        followerThread.start();
+    }
+
+    /**
+     * Takes over as leader if the previous one stopped.
+     * @return true if the process is the leader now
+     * @throws IOException if the log cannot be read or written
+     */
+    synchronized boolean promote() throws IOException {
+        if (!tryLock()) {
+            return false;
+        }
+        // The stopped leader can no longer write: apply its last commits, its uncommitted tail is dropped
+        while (follower.poll() > 0) {
+        }
+        follower.close();
+        log = WriteAheadLog.open(directory, fileSize, files);
+        engine.attach(log);
+        role = Role.LEADER;
+        LOGGER.info("Standby promoted to leader at sequence " + log.getSequence());
+        return true;
+    }
+
+    /**
+     * Checks whether the storage accepts writes, which a standby does not.
+     * @return false if the process is a standby
+     */
+    public boolean isWritable() {
+        return role != Role.STANDBY;
+    }
+
+    /** Gets the role of the process, null if its storage is not replicated. */
+    public Role getRole() {
+        return role;
+    }
+
+    /** Gets the sequence number of the last commit logged by the leader or applied by the standby. */
+    public long getSequence() {
+        WriteAheadLog current = log;
+        if (current != null) {
+            return current.getSequence();
+        }
+        return follower != null ? follower.getApplied() : 0;
+    }
+
+    /** Gets the replication lags of the standby in ms, null if it never followed the log. */
+    public LatencyHistogram getLags() {
+        return follower != null ? follower.getLags() : null;
+    }
+
+    /** Gets the replication lag of the last commit applied by the standby, in ms. */
+    public long getLastLag() {
+        return follower != null ? follower.getLastLag() : 0;
+    }
+
+    /**
+     * Stops following the log and releases the leadership.
+     */
+    public synchronized void close() throws IOException {
+        if (followerThread != null) {
+            followerThread.interrupt();
+        }
+        if (lock != null) {
+            lock.release();
+            lock = null;
+        }
+        if (lockChannel != null) {
+            lockChannel.close();
+            lockChannel = null;
+        }
+    }
+
+    /**
+     * Tries to lock the log directory.
+     * @return true if the lock is held by this process
+     */
+    private boolean tryLock() throws IOException {
+        if (lock != null) {
+            return true;
+        }
+        if (lockChannel == null) {
+            directory.mkdirs();
+            lockChannel = new RandomAccessFile(new File(directory, "leader.lock"), "rw").getChannel();
+        }
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another replication of this process
+            lock = null;
+        }
+        return lock != null;
+    }
+}
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.replication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Write-ahead log of the resource mutations, kept in a directory of files named after the sequence
+ * number of their first record. Mutations are buffered as they are applied, and written with a
+ * commit record then forced to the disk before the storage commits them, so that the log holds at
+ * least every acknowledged write. A file is rolled once it exceeds its size after a commit, and only
+ * the latest files are kept.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class WriteAheadLog {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(WriteAheadLog.class);
+    /** File signature */
+    static final int MAGIC = 0x4f4d574c;
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    /** Log directory */
+    private final File directory;
+    /** Size beyond which the current file is rolled */
+    private final long fileSize;
+    /** Number of files kept */
+    private final int files;
+    /** Current file */
+    private FileChannel channel;
+    /** End of the last commit in the current file */
+    private long size;
+    /** Last assigned sequence number */
+    private long sequence;
+    /** Last committed sequence number */
+    private volatile long committed;
+    /** Records logged since the last commit */
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(pending);
+    /** Serializes the commits */
+    private final Object commitLock = new Object();
+
+    private WriteAheadLog(File directory, long fileSize, int files) {
+        this.directory = directory;
+        this.fileSize = fileSize;
+        this.files = files;
+    }
+
+    /**
+     * Opens a log to append to, discarding the records of its latest file that were not committed,
+     * and every record from the first torn or corrupted one on.
+     * @param directory - log directory
+     * @param fileSize - size in bytes beyond which a file is rolled
+     * @param files - number of files kept
+     * @return the opened log
+     * @throws IOException if the log cannot be read or written
+     */
+    public static WriteAheadLog open(File directory, long fileSize, int files) throws IOException {
+        WriteAheadLog log = new WriteAheadLog(directory, fileSize, files);
+        directory.mkdirs();
+        List<File> existing = list(directory);
+        if (existing.isEmpty()) {
+            log.create(1);
+            return log;
+        }
+        File last = existing.get(existing.size() - 1);
+        log.sequence = firstSequence(last) - 1;
+        long end = 4;
+        LogReader reader = new LogReader(last, 0);
+        try {
+            LogRecord record;
+            while ((record = reader.next()) != null) {
+                if (record.getType() == LogRecord.COMMIT) {
+                    log.sequence = record.getSequence();
+                    end = reader.getPosition();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Write-ahead log " + last + " truncated after its last commit", e);
+        } finally {
+            reader.close();
+        }
+        log.committed = log.sequence;
+        log.channel = new RandomAccessFile(last, "rw").getChannel();
+        log.channel.truncate(end);
+        log.size = end;
+        return log;
+    }
+
+    /**
+     * Lists the log files of a directory, oldest first.
+     * @param directory - log directory
+     * @return log files
+     */
+    static List<File> list(File directory) {
+        File[] found = directory.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }
+        });
+        if (found == null) {
+            found = new File[0];
+        }
+        // Names are zero-padded, so that their order is the sequence order
+        Arrays.sort(found);
+        return Arrays.asList(found);
+    }
+
+    /**
+     * Gets the sequence number of the first record of a log file.
+     */
+    static long firstSequence(File file) {
+        String name = file.getName();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Logs a mutation, written with the next commit.
+     * @param type - record type
+     * @param uri - uri of the mutated resource
+     * @param payload - XML representation of a stored resource, empty otherwise
+     */
+    public synchronized void append(byte type, String uri, byte[] payload) {
+        try {
+            LogRecord.write(out, ++sequence, System.currentTimeMillis(), type, uri, payload);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot buffer a log record", e);
+        }
+    }
+
+    /**
+     * Writes the mutations logged since the last commit with a commit record and forces them to the disk.
+     * @throws IOException if the log cannot be written
+     */
+    public void commit() throws IOException {
+        synchronized (commitLock) {
+            byte[] batch;
+            long commit;
+            synchronized (this) {
+                if (pending.size() == 0) {
+                    return;
+                }
+                commit = ++sequence;
+                LogRecord.write(out, commit, System.currentTimeMillis(), LogRecord.COMMIT, "", LogRecord.EMPTY);
+                batch = pending.toByteArray();
+                pending.reset();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer, size);
+            }
+            channel.force(false);
+            committed = commit;
+            if (size >= fileSize) {
+                channel.close();
+                create(commit + 1);
+                List<File> existing = list(directory);
+                for (int i = 0; i < existing.size() - files; i++) {
+                    existing.get(i).delete();
+                }
+            }
+        }
+    }
+
+    /** Gets the sequence number of the last commit. */
+    public long getSequence() {
+        return committed;
+    }
+
+    /**
+     * Closes the log, dropping the mutations not committed.
+     */
+    public void close() throws IOException {
+        synchronized (commitLock) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Starts a new log file.
+     * @param first - sequence number of its first record
+     */
+    private void create(long first) throws IOException {
+        File file = new File(directory, String.format("%s%019d%s", PREFIX, first, SUFFIX));
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(4);
+        header.putInt(MAGIC).flip();
+        channel.write(header, 0);
+        channel.force(true);
+        size = 4;
+    }
+}
@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.retention;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.dao.ContentInstanceDAO;
+import org.eclipse.om2m.core.dao.DAO;
+import org.eclipse.om2m.core.dao.DAOFactory;
+import org.eclipse.om2m.core.dao.Projection;
+import org.eclipse.om2m.core.dao.SegmentStore;
+import org.eclipse.om2m.core.metrics.StorageMetrics;
+import org.eclipse.om2m.core.router.SubtreeLockManager;
+
+/**
+ * Enforces the retention limits of the containers: maxNrOfInstances, maxByteSize and maxInstanceAge
+ * (in seconds). A background sweeper evicts the oldest contentInstances of the collections written
+ * since the previous sweep, and of the collections whose container limits the instance age. Each
+ * collection sweep deletes its evicted instances at once, with a single commit. The sweeps also move the oldest
+ * contentInstances beyond the tiering limits of the containers to compressed archives, by batches: the
+ * number of latest instances kept out of the archives and the age in seconds beyond which they are
+ * archived, set by the TierNrOfInstances/ and TierInstanceAge/ searchStrings of the container or by
+ * default by the org.eclipse.om2m.tierNrOfInstances and org.eclipse.om2m.tierInstanceAge properties.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class RetentionEngine {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(RetentionEngine.class);
+
+    /**
+     * Lazily creates the shared retention engine.
+     */
+    private static class RetentionEngineHolder {
+        private static final RetentionEngine ENGINE = new RetentionEngine(Constants.RETENTION_BATCH, Constants.TIER_BATCH);
+    }
+
+    /** Maximum number of instances evicted from a collection by a sweep */
+    private final int maxBatch;
+    /** Minimum number of instances archived at once, at most maxBatch */
+    private final int tierBatch;
+    /** Collections written since their last sweep */
+    private final Set<String> pending = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    /** Collections whose container limits the instance age or archives the old instances, swept each time */
+    private final Set<String> aged = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    /** Parses the instances creationTime, used by the sweeping thread only */
+    private final DatatypeFactory datatypeFactory;
+    /** Whether all the stored collections were swept once */
+    private boolean started;
+
+    /**
+     * Creates a retention engine.
+     * @param maxBatch - maximum number of instances evicted from a collection by a sweep
+     */
+    public RetentionEngine(int maxBatch) {
+        this(maxBatch, Constants.TIER_BATCH);
+    }
+
+    /**
+     * Creates a retention engine archiving the old instances.
+     * @param maxBatch - maximum number of instances evicted or archived from a collection by a sweep
+     * @param tierBatch - minimum number of instances archived at once
+     */
+    public RetentionEngine(int maxBatch, int tierBatch) {
+        this.maxBatch = Math.max(1, maxBatch);
+        this.tierBatch = Math.min(this.maxBatch, Math.max(1, tierBatch));
+        try {
+            this.datatypeFactory = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the shared retention engine.
+     * @return {@link RetentionEngine} instance
+     */
+    public static RetentionEngine getInstance() {
+        return RetentionEngineHolder.ENGINE;
+    }
+
+    /**
+     * Starts sweeping periodically.
+     * @param period - delay between two sweeps in ms
+     */
+    public void schedule(final long period) {
+        LOGGER.info("ContentInstances retention swept each " + period + " ms");
+        Thread sweeper = new Thread("om2m-retention") {
+            public void run() {
+                while (true) {
+                    try {
+                        Thread.sleep(period);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    try {
+                        sweep();
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Retention sweep failed", e);
+                    }
+                }
+            }
+        };
+        sweeper.setDaemon(true);
+        sweeper.start();
+    }
+
+    /**
+     * Marks a collection written, so that the next sweep enforces its limits.
+     * @param uri - contentInstances collection uri
+     */
+    public void written(String uri) {
+        pending.add(uri);
+    }
+
+    /**
+     * Sweeps the written collections and the ones limiting the instance age. The first sweep covers
+     * all the stored collections, whose limits may have changed meanwhile.
+     * @return number of evicted instances
+     */
+    public synchronized long sweep() {
+        if (!started) {
+            for (ContentInstances contentInstances : DAO.DB.findByPrefix(ContentInstances.class, "")) {
+                pending.add(contentInstances.getUri());
+            }
+            started = true;
+        }
+        long evicted = 0;
+        for (String uri : aged) {
+            pending.add(uri);
+        }
+        for (String uri : pending) {
+            pending.remove(uri);
+            evicted += sweep(uri);
+        }
+        return evicted;
+    }
+
+    /**
+     * Evicts the oldest instances of a collection until its container limits are met. The oldest
+     * instances are read by batches doubling up to maxBatch, as long as they are all evicted.
+     * @param uri - contentInstances collection uri
+     * @return number of evicted instances
+     */
+    private int sweep(String uri) {
+        ContentInstanceDAO contentInstanceDAO = DAOFactory.getContentInstanceDAO();
+        SubtreeLockManager.getInstance().lockShared(uri);
+        try {
+            // Limits are attributes of the container, tiering limits its searchStrings
+            Container container = DAOFactory.getContainerDAO().find(uri.split("/contentInstances")[0], Projection.SUMMARY);
+            ContentInstances contentInstances = DAOFactory.getContentInstancesDAO().lazyFind(uri);
+            if (container == null || contentInstances == null) {
+                aged.remove(uri);
+                return 0;
+            }
+            long maxNrOfInstances = container.getMaxNrOfInstances() != null ? container.getMaxNrOfInstances() : Long.MAX_VALUE;
+            long maxByteSize = container.getMaxByteSize() != null ? container.getMaxByteSize() : Long.MAX_VALUE;
+            long minCreationTime = Long.MIN_VALUE;
+            if (container.getMaxInstanceAge() != null) {
+                minCreationTime = System.currentTimeMillis() - container.getMaxInstanceAge() * 1000;
+                aged.add(uri);
+            } else {
+                aged.remove(uri);
+            }
+            long byNumber;
+            long bySize;
+            long byAge;
+            List<ContentInstance> oldest;
+            int read = (int) Math.min(maxBatch, Math.max(1, contentInstances.getCurrentNrOfInstances() - maxNrOfInstances));
+            while (true) {
+                oldest = contentInstanceDAO.findOldest(uri, read);
+                long instances = contentInstances.getCurrentNrOfInstances();
+                long bytes = contentInstances.getCurrentByteSize();
+                byNumber = 0;
+                bySize = 0;
+                byAge = 0;
+                for (ContentInstance contentInstance : oldest) {
+                    if (instances > maxNrOfInstances) {
+                        byNumber++;
+                    } else if (bytes > maxByteSize) {
+                        bySize++;
+                    } else if (minCreationTime != Long.MIN_VALUE && creationTime(contentInstance) < minCreationTime) {
+                        byAge++;
+                    } else {
+                        break;
+                    }
+                    instances--;
+                    bytes -= contentInstance.getContentSize() != null ? contentInstance.getContentSize() : 0;
+                }
+                if (byNumber + bySize + byAge < oldest.size() || oldest.size() < read || read == maxBatch) {
+                    break;
+                }
+                read = Math.min(maxBatch, read * 2);
+            }
+            long evicted = byNumber + bySize + byAge;
+            if (evicted > 0) {
+                contentInstanceDAO.lazyDeleteOldest(uri, oldest.subList(0, (int) evicted));
+                contentInstanceDAO.commit();
+                StorageMetrics.getInstance().recordEvictions(byNumber, bySize, byAge);
+                LOGGER.debug(evicted + " contentInstances evicted from " + uri);
+            }
+            if (evicted == maxBatch || archive(uri, container) == maxBatch) {
+                // Left to the next sweep
+                pending.add(uri);
+            }
+            return (int) evicted;
+        } finally {
+            SubtreeLockManager.getInstance().unlockShared(uri);
+        }
+    }
+
+    /**
+     * Moves the oldest instances of a collection kept in its segment beyond the tiering limits of its
+     * container to an archive, once they are at least tierBatch.
+     * @param uri - contentInstances collection uri
+     * @param container - container of the collection
+     * @return number of archived instances
+     */
+    private int archive(String uri, Container container) {
+        SegmentStore segments = DAOFactory.getSegmentStore();
+        long maxHot = tierLimit(container, Constants.SEARCH_STRING_TIER_NR_OF_INSTANCES, Constants.TIER_NR_OF_INSTANCES);
+        long maxAge = tierLimit(container, Constants.SEARCH_STRING_TIER_INSTANCE_AGE, Constants.TIER_INSTANCE_AGE);
+        if (segments == null || (maxHot < 0 && maxAge < 0)) {
+            return 0;
+        }
+        long candidates = 0;
+        if (maxHot >= 0) {
+            candidates = segments.countHot(uri) - maxHot;
+        }
+        if (maxAge >= 0) {
+            aged.add(uri);
+            if (candidates < tierBatch) {
+                // A whole batch is old enough once its newest instance is
+                ContentInstance newest = segments.findHot(uri, tierBatch - 1);
+                if (newest != null && creationTime(newest) < System.currentTimeMillis() - maxAge * 1000) {
+                    candidates = tierBatch;
+                }
+            }
+        }
+        if (candidates < tierBatch) {
+            return 0;
+        }
+        int archived = segments.archive(uri, (int) Math.min(candidates, maxBatch));
+        StorageMetrics.getInstance().recordArchived(archived);
+        LOGGER.debug(archived + " contentInstances archived from " + uri);
+        return archived;
+    }
+
+    /**
+     * Returns a tiering limit set by a searchString of a container, otherwise its default value.
+     */
+    private static long tierLimit(Container container, String prefix, long defaultLimit) {
+        if (container.getSearchStrings() != null) {
+            for (String searchString : container.getSearchStrings().getSearchString()) {
+                if (searchString.startsWith(prefix)) {
+                    try {
+                        return Long.parseLong(searchString.substring(prefix.length()));
+                    } catch (NumberFormatException e) {
+                        LOGGER.warn("Invalid searchString " + searchString + " of " + container.getUri());
+                    }
+                }
+            }
+        }
+        return defaultLimit;
+    }
+
+    /**
+     * Returns the creation time of an instance in ms, the current time if it cannot be parsed.
+     */
+    private long creationTime(ContentInstance contentInstance) {
+        try {
+            return datatypeFactory.newXMLGregorianCalendar(contentInstance.getCreationTime()).toGregorianCalendar().getTimeInMillis();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Invalid creationTime of " + contentInstance.getUri());
+            return System.currentTimeMillis();
+        }
+    }
+}
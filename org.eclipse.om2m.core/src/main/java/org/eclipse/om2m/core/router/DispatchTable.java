@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import org.eclipse.om2m.core.controller.APocController;
+import org.eclipse.om2m.core.controller.AccessRightAnncController;
+import org.eclipse.om2m.core.controller.AccessRightController;
+import org.eclipse.om2m.core.controller.AccessRightsController;
+import org.eclipse.om2m.core.controller.ApplicationAnncController;
+import org.eclipse.om2m.core.controller.ApplicationController;
+import org.eclipse.om2m.core.controller.ApplicationsController;
+import org.eclipse.om2m.core.controller.AttachedDeviceController;
+import org.eclipse.om2m.core.controller.AttachedDevicesController;
+import org.eclipse.om2m.core.controller.ContainerAnncController;
+import org.eclipse.om2m.core.controller.ContainerController;
+import org.eclipse.om2m.core.controller.ContainersController;
+import org.eclipse.om2m.core.controller.ContentController;
+import org.eclipse.om2m.core.controller.ContentInstanceController;
+import org.eclipse.om2m.core.controller.ContentInstancesController;
+import org.eclipse.om2m.core.controller.Controller;
+import org.eclipse.om2m.core.controller.ControllerRegistry;
+import org.eclipse.om2m.core.controller.DiscoveryController;
+import org.eclipse.om2m.core.controller.GroupAnncController;
+import org.eclipse.om2m.core.controller.GroupController;
+import org.eclipse.om2m.core.controller.GroupsController;
+import org.eclipse.om2m.core.controller.M2MPocController;
+import org.eclipse.om2m.core.controller.M2MPocsController;
+import org.eclipse.om2m.core.controller.MembersContentController;
+import org.eclipse.om2m.core.controller.MetricsController;
+import org.eclipse.om2m.core.controller.MgmtObjsController;
+import org.eclipse.om2m.core.controller.NotificationChannelController;
+import org.eclipse.om2m.core.controller.NotificationChannelsController;
+import org.eclipse.om2m.core.controller.SclBaseController;
+import org.eclipse.om2m.core.controller.SclController;
+import org.eclipse.om2m.core.controller.SclsController;
+import org.eclipse.om2m.core.controller.SubscriptionController;
+import org.eclipse.om2m.core.controller.SubscriptionsController;
+
+/**
+ * Resource controller dispatch table indexed by (resource type, request method). A CREATE request
+ * targets the collection of the resource to create, so collections dispatch CREATE to the
+ * controller of their member resource, and single resources have no CREATE entry. Collections
+ * of announceable resources dispatch CREATE to the announced resource controller when the
+ * representation holds the announced element.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class DispatchTable {
+    /** Shared dispatch table */
+    private static final DispatchTable dispatchTable = new DispatchTable(ControllerRegistry.getInstance());
+    /** Controllers by resource type ordinal then request method ordinal */
+    private final Controller[][] controllers = new Controller[ResourceType.values().length][RequestMethod.values().length];
+    /** Announced element marker by resource type ordinal, for collections of announceable resources */
+    private final String[] anncElements = new String[ResourceType.values().length];
+    /** Announced resource controller created on CREATE, by resource type ordinal */
+    private final Controller[] anncControllers = new Controller[ResourceType.values().length];
+
+    /**
+     * Builds the dispatch table over a controller registry.
+     * @param registry - shared controller instances
+     */
+    public DispatchTable(ControllerRegistry registry) {
+        any(ResourceType.SCL_BASE, registry.getController(SclBaseController.class));
+        collection(ResourceType.SCLS, registry.getController(SclsController.class), registry.getController(SclController.class));
+        resource(ResourceType.SCL, registry.getController(SclController.class));
+        collection(ResourceType.APPLICATIONS, registry.getController(ApplicationsController.class), registry.getController(ApplicationController.class));
+        announced(ResourceType.APPLICATIONS, ":applicationAnnc", registry.getController(ApplicationAnncController.class));
+        resource(ResourceType.APPLICATION, registry.getController(ApplicationController.class));
+        resource(ResourceType.APPLICATION_ANNC, registry.getController(ApplicationAnncController.class));
+        // will forward to a RestClientController or IPUController;
+        any(ResourceType.APOC, registry.getController(APocController.class));
+        collection(ResourceType.CONTAINERS, registry.getController(ContainersController.class), registry.getController(ContainerController.class));
+        announced(ResourceType.CONTAINERS, ":containerAnnc", registry.getController(ContainerAnncController.class));
+        resource(ResourceType.CONTAINER, registry.getController(ContainerController.class));
+        resource(ResourceType.CONTAINER_ANNC, registry.getController(ContainerAnncController.class));
+        collection(ResourceType.CONTENT_INSTANCES, registry.getController(ContentInstancesController.class), registry.getController(ContentInstanceController.class));
+        resource(ResourceType.CONTENT_INSTANCE, registry.getController(ContentInstanceController.class));
+        any(ResourceType.CONTENT, registry.getController(ContentController.class));
+        collection(ResourceType.SUBSCRIPTIONS, registry.getController(SubscriptionsController.class), registry.getController(SubscriptionController.class));
+        resource(ResourceType.SUBSCRIPTION, registry.getController(SubscriptionController.class));
+        collection(ResourceType.ACCESS_RIGHTS, registry.getController(AccessRightsController.class), registry.getController(AccessRightController.class));
+        announced(ResourceType.ACCESS_RIGHTS, ":accessRightAnnc", registry.getController(AccessRightAnncController.class));
+        resource(ResourceType.ACCESS_RIGHT, registry.getController(AccessRightController.class));
+        resource(ResourceType.ACCESS_RIGHT_ANNC, registry.getController(AccessRightAnncController.class));
+        collection(ResourceType.GROUPS, registry.getController(GroupsController.class), registry.getController(GroupController.class));
+        announced(ResourceType.GROUPS, ":groupAnnc", registry.getController(GroupAnncController.class));
+        resource(ResourceType.GROUP, registry.getController(GroupController.class));
+        resource(ResourceType.GROUP_ANNC, registry.getController(GroupAnncController.class));
+        any(ResourceType.MEMBERS_CONTENT, registry.getController(MembersContentController.class));
+        any(ResourceType.DISCOVERY, registry.getController(DiscoveryController.class));
+        any(ResourceType.MGMT_OBJS, registry.getController(MgmtObjsController.class));
+        any(ResourceType.ATTACHED_DEVICES, registry.getController(AttachedDevicesController.class));
+        any(ResourceType.ATTACHED_DEVICE, registry.getController(AttachedDeviceController.class));
+        any(ResourceType.NOTIFICATION_CHANNELS, registry.getController(NotificationChannelsController.class));
+        any(ResourceType.NOTIFICATION_CHANNEL, registry.getController(NotificationChannelController.class));
+        any(ResourceType.M2M_POCS, registry.getController(M2MPocsController.class));
+        any(ResourceType.M2M_POC, registry.getController(M2MPocController.class));
+        any(ResourceType.METRICS, registry.getController(MetricsController.class));
+    }
+
+    /** Gets the shared dispatch table. */
+    public static DispatchTable getInstance() {
+        return dispatchTable;
+    }
+
+    /**
+     * Finds the resource controller of a request.
+     * @param type - addressed resource type
+     * @param method - request method, an unknown method (null) is resolved as a non-CREATE one
+     * @param representation - resource representation, only inspected on CREATE
+     * @return the resource controller otherwise null
+     */
+    public Controller lookup(ResourceType type, RequestMethod method, String representation) {
+        int t = type.ordinal();
+        if (method == RequestMethod.CREATE && anncElements[t] != null
+                && representation != null && representation.contains(anncElements[t])) {
+            return anncControllers[t];
+        }
+        return controllers[t][(method == null ? RequestMethod.RETRIEVE : method).ordinal()];
+    }
+
+    /** Dispatches all methods to the same controller. */
+    private void any(ResourceType type, Controller controller) {
+        for (RequestMethod method : RequestMethod.values()) {
+            controllers[type.ordinal()][method.ordinal()] = controller;
+        }
+    }
+
+    /** Dispatches CREATE to the member resource controller and other methods to the collection one. */
+    private void collection(ResourceType type, Controller collection, Controller member) {
+        any(type, collection);
+        controllers[type.ordinal()][RequestMethod.CREATE.ordinal()] = member;
+    }
+
+    /** Dispatches all methods but CREATE to the resource controller. */
+    private void resource(ResourceType type, Controller controller) {
+        any(type, controller);
+        controllers[type.ordinal()][RequestMethod.CREATE.ordinal()] = null;
+    }
+
+    /** Dispatches CREATE to the announced resource controller when the representation holds the element. */
+    private void announced(ResourceType type, String anncElement, Controller controller) {
+        anncElements[type.ordinal()] = anncElement;
+        anncControllers[type.ordinal()] = controller;
+    }
+}
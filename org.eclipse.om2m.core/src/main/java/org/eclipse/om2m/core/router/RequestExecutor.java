@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.om2m.commons.resource.ErrorInfo;
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.commons.rest.ResponseConfirm;
+
+/**
+ * Bounded pool of daemon threads handling asynchronous requests. Idle threads are released, and
+ * requests submitted when both the threads and the waiting queue are full are answered with a
+ * service unavailable response instead of blocking the caller.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class RequestExecutor {
+    /** Logger */
+    private static Log LOGGER = LogFactory.getLog(RequestExecutor.class);
+    /** Idle thread keep alive time in seconds */
+    private static final long KEEP_ALIVE = 60;
+    /** Executor name, used as thread name prefix */
+    private final String name;
+    /** Worker threads */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates a request executor.
+     * @param name - executor name
+     * @param threads - maximum number of threads
+     * @param queueSize - maximum number of requests waiting for a thread
+     */
+    public RequestExecutor(final String name, int threads, int queueSize) {
+        this.name = name;
+        this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Submits a request handling task.
+     * @param task - request handling
+     * @return the Future response, completed with a service unavailable response if the executor is saturated
+     */
+    public Future<ResponseConfirm> submit(Callable<ResponseConfirm> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Request rejected: " + name + " executor saturated");
+            return completed(new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_SERVICE_UNAVAILABLE, "SCL overloaded, retry later")));
+        }
+    }
+
+    /**
+     * Wraps an available response into a completed Future.
+     * @param responseConfirm - the response
+     * @return the completed Future
+     */
+    public static Future<ResponseConfirm> completed(final ResponseConfirm responseConfirm) {
+        FutureTask<ResponseConfirm> future = new FutureTask<ResponseConfirm>(new Callable<ResponseConfirm>() {
+            public ResponseConfirm call() {
+                return responseConfirm;
+            }
+        });
+        future.run();
+        return future;
+    }
+}
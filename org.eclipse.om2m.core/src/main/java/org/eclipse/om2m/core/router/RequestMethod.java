@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import org.eclipse.om2m.commons.rest.RequestIndication;
+import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.controller.Controller;
+
+/**
+ * Generic request methods, each one invoking its resource controller handler.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public enum RequestMethod {
+    RETRIEVE(Constants.METHOD_RETREIVE) {
+        @Override
+        public ResponseConfirm invoke(Controller controller, RequestIndication requestIndication) {
+            return controller.doRetrieve(requestIndication);
+        }
+    },
+    CREATE(Constants.METHOD_CREATE) {
+        @Override
+        public ResponseConfirm invoke(Controller controller, RequestIndication requestIndication) {
+            return controller.doCreate(requestIndication);
+        }
+    },
+    UPDATE(Constants.METHOD_UPDATE) {
+        @Override
+        public ResponseConfirm invoke(Controller controller, RequestIndication requestIndication) {
+            return controller.doUpdate(requestIndication);
+        }
+    },
+    DELETE(Constants.METHOD_DELETE) {
+        @Override
+        public ResponseConfirm invoke(Controller controller, RequestIndication requestIndication) {
+            return controller.doDelete(requestIndication);
+        }
+    },
+    EXECUTE(Constants.METHOD_EXECUTE) {
+        @Override
+        public ResponseConfirm invoke(Controller controller, RequestIndication requestIndication) {
+            return controller.doExecute(requestIndication);
+        }
+    };
+
+    /** Shared copy of values() */
+    private static final RequestMethod[] METHODS = values();
+    /** Method name as carried by {@link RequestIndication#getMethod()} */
+    private final String value;
+
+    private RequestMethod(String value) {
+        this.value = value;
+    }
+
+    /** Gets the method name. */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Invokes the controller handler of this method.
+     * @param controller - resource controller
+     * @param requestIndication - generic request
+     * @return the generic response
+     */
+    public abstract ResponseConfirm invoke(Controller controller, RequestIndication requestIndication);
+
+    /**
+     * Resolves a method name.
+     * @param value - method name
+     * @return the request method otherwise null if unknown
+     */
+    public static RequestMethod fromValue(String value) {
+        if (value == null) {
+            return null;
+        }
+        // Few constants: a linear scan avoids the exception thrown by valueOf on unknown names
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].value.equals(value)) {
+                return METHODS[i];
+            }
+        }
+        return null;
+    }
+}
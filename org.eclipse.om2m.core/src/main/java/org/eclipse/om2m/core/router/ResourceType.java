@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+/**
+ * Resource types that can be addressed by a request uri on the local SCL.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public enum ResourceType {
+    SCL_BASE,
+    SCLS,
+    SCL,
+    APPLICATIONS,
+    APPLICATION,
+    APPLICATION_ANNC,
+    APOC,
+    CONTAINERS,
+    CONTAINER,
+    CONTAINER_ANNC,
+    CONTENT_INSTANCES,
+    CONTENT_INSTANCE,
+    CONTENT,
+    SUBSCRIPTIONS,
+    SUBSCRIPTION,
+    ACCESS_RIGHTS,
+    ACCESS_RIGHT,
+    ACCESS_RIGHT_ANNC,
+    GROUPS,
+    GROUP,
+    GROUP_ANNC,
+    MEMBERS_CONTENT,
+    DISCOVERY,
+    MGMT_OBJS,
+    ATTACHED_DEVICES,
+    ATTACHED_DEVICE,
+    NOTIFICATION_CHANNELS,
+    NOTIFICATION_CHANNEL,
+    M2M_POCS,
+    M2M_POC,
+    METRICS;
+}
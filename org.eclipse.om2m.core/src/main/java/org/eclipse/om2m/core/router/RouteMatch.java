@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of a request uri resolution by the {@link RouteTable}: the addressed resource type and
+ * the path variables (resource ids) parsed along the way.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class RouteMatch {
+    /** Remote scl id path variable. */
+    public static final String SCL_ID = "sclId";
+    /** Application id path variable. */
+    public static final String APPLICATION_ID = "applicationId";
+    /** Container id path variable. */
+    public static final String CONTAINER_ID = "containerId";
+    /** ContentInstance id path variable. */
+    public static final String CONTENT_INSTANCE_ID = "contentInstanceId";
+    /** Subscription id path variable. */
+    public static final String SUBSCRIPTION_ID = "subscriptionId";
+    /** AccessRight id path variable. */
+    public static final String ACCESS_RIGHT_ID = "accessRightId";
+    /** Group id path variable. */
+    public static final String GROUP_ID = "groupId";
+    /** MembersContent id path variable. */
+    public static final String MEMBERS_CONTENT_ID = "membersContentId";
+    /** AttachedDevice id path variable. */
+    public static final String ATTACHED_DEVICE_ID = "attachedDeviceId";
+    /** NotificationChannel id path variable. */
+    public static final String NOTIFICATION_CHANNEL_ID = "notificationChannelId";
+    /** M2MPoc id path variable. */
+    public static final String M2M_POC_ID = "m2mPocId";
+    /** Remaining path forwarded to an application point of contact. */
+    public static final String APOC_PATH = "aPoCPath";
+    /** Remaining path of a discovery request. */
+    public static final String DISCOVERY_PATH = "discoveryPath";
+
+    /** Addressed resource type */
+    private final ResourceType type;
+    /** Parsed path variables in uri order */
+    private final Map<String, String> variables;
+
+    /**
+     * RouteMatch Constructor.
+     * @param type - addressed resource type
+     * @param variables - parsed path variables
+     */
+    RouteMatch(ResourceType type, Map<String, String> variables) {
+        this.type = type;
+        this.variables = variables;
+    }
+
+    /**
+     * Gets the addressed resource type.
+     * @return type
+     */
+    public ResourceType getType() {
+        return type;
+    }
+
+    /**
+     * Gets a parsed path variable.
+     * @param name - path variable name
+     * @return the variable value if it is present in the uri otherwise null
+     */
+    public String getVariable(String name) {
+        return variables.get(name);
+    }
+
+    /**
+     * Gets all the parsed path variables.
+     * @return read-only path variables in uri order
+     */
+    public Map<String, String> getVariables() {
+        return Collections.unmodifiableMap(variables);
+    }
+
+    /**
+     * Creates an empty variables map.
+     * @return variables map
+     */
+    static Map<String, String> newVariables() {
+        return new LinkedHashMap<String, String>(4);
+    }
+
+    @Override
+    public String toString() {
+        return "RouteMatch [type=" + type + ", variables=" + variables + "]";
+    }
+}
@@ -0,0 +1,412 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * Precompiled route table of the local SCL resource tree.
+ * <p>
+ * The resource tree is kept as a segment trie: fixed path tokens (scls, applications, containers,
+ * contentInstances, ...) are literal edges and resource ids are typed variable edges. A request uri
+ * is resolved in one linear pass over its segments, returning the addressed {@link ResourceType}
+ * and the parsed path variables.
+ * <p>
+ * Segment rules follow the historical Router uri patterns: segments are separated by one or more
+ * "/", trailing "/" are ignored, an id is a word that does not start with a reserved resource
+ * name, and announced resources are ids ending with "Annc". LocationContainer (Loc), MgmtObj (Obj)
+ * and MgmtCmd (Cmd) suffixed ids are not routed since their patterns required a word boundary
+ * right before the suffix and thus never matched any uri.
+ *
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class RouteTable {
+    /** RouteTable Singleton built for the local SCL id */
+    private static RouteTable routeTable = new RouteTable(Constants.SCL_ID);
+
+    /** Resource names an id is not allowed to start with. */
+    private static final String[] RESERVED_PREFIXES = {"sclBase", "scls", "scl", "applications", "application",
+        "applicationAnnc", "containers", "container", "content", "subscriptions", "subscription", "groups", "group",
+        "accessRights", "accessRight", "discovery", "mgmtObjs", "mgmtObj", "mgmtCmd", "attahchedDevices",
+        "attachedDevice", "notificationChannels", "notificationChannel", "execInstances", "execInstance",
+        "parameters", "parameter", "m2mPocs", "m2mPoc"};
+
+    /** Announced resource id suffix. */
+    private static final String ANNC = "Annc";
+    /** LocationContainer id suffix. */
+    private static final String LOC = "Loc";
+    /** Discovery resource name. */
+    private static final String DISCOVERY = "discovery";
+
+    /** Kinds of variable segments. */
+    private enum Segment {
+        /** Word not starting with a reserved resource name. */
+        ID,
+        /** Id not ending with "Annc". */
+        NON_ANNC_ID,
+        /** Id ending neither with "Annc" nor with "Loc". */
+        CONTAINER_ID,
+        /** Word ending with "Annc". */
+        ANNC_ID,
+        /** Announced id whose local part ends neither with "Loc" nor with "LocAnnc". */
+        CONTAINER_ANNC_ID,
+        /** Segment starting with an id, the rest of the uri is forwarded to the aPoC. */
+        APOC_PATH,
+        /** Segment starting with "discovery", the rest of the uri is ignored. */
+        DISCOVERY_PATH
+    }
+
+    /** Trie node: one addressable resource type. */
+    private static class Node {
+        /** Resource type addressed when the uri ends on this node */
+        final ResourceType type;
+        /** Fixed path token children */
+        final Map<String, Node> literals = new HashMap<String, Node>();
+        /** Variable segment children, tried in order */
+        final List<Edge> edges = new ArrayList<Edge>(2);
+
+        Node(ResourceType type) {
+            this.type = type;
+        }
+
+        Node literal(String token, Node child) {
+            literals.put(token, child);
+            return this;
+        }
+
+        Node variable(Segment segment, String variable, Node child) {
+            edges.add(new Edge(segment, variable, child));
+            return this;
+        }
+    }
+
+    /** Trie variable edge. */
+    private static class Edge {
+        final Segment segment;
+        final String variable;
+        final Node target;
+
+        Edge(Segment segment, String variable, Node target) {
+            this.segment = segment;
+            this.variable = variable;
+            this.target = target;
+        }
+    }
+
+    /** Local SCL id */
+    private final String sclId;
+    /** Trie root, the SclBase resource */
+    private final Node root;
+
+    /**
+     * Builds the route table of an SCL.
+     * @param sclId - local SCL id
+     */
+    public RouteTable(String sclId) {
+        this.sclId = sclId;
+
+        Node sclBase = new Node(ResourceType.SCL_BASE);
+        Node scls = new Node(ResourceType.SCLS);
+        Node scl = new Node(ResourceType.SCL);
+        Node applications = new Node(ResourceType.APPLICATIONS);
+        Node application = new Node(ResourceType.APPLICATION);
+        Node applicationAnnc = new Node(ResourceType.APPLICATION_ANNC);
+        Node aPoC = new Node(ResourceType.APOC);
+        Node containers = new Node(ResourceType.CONTAINERS);
+        Node container = new Node(ResourceType.CONTAINER);
+        Node containerAnnc = new Node(ResourceType.CONTAINER_ANNC);
+        Node contentInstances = new Node(ResourceType.CONTENT_INSTANCES);
+        Node contentInstance = new Node(ResourceType.CONTENT_INSTANCE);
+        Node content = new Node(ResourceType.CONTENT);
+        Node subscriptions = new Node(ResourceType.SUBSCRIPTIONS);
+        Node subscription = new Node(ResourceType.SUBSCRIPTION);
+        Node accessRights = new Node(ResourceType.ACCESS_RIGHTS);
+        Node accessRight = new Node(ResourceType.ACCESS_RIGHT);
+        Node accessRightAnnc = new Node(ResourceType.ACCESS_RIGHT_ANNC);
+        Node groups = new Node(ResourceType.GROUPS);
+        Node group = new Node(ResourceType.GROUP);
+        Node groupAnnc = new Node(ResourceType.GROUP_ANNC);
+        Node membersContent = new Node(ResourceType.MEMBERS_CONTENT);
+        Node discovery = new Node(ResourceType.DISCOVERY);
+        Node mgmtObjs = new Node(ResourceType.MGMT_OBJS);
+        Node attachedDevices = new Node(ResourceType.ATTACHED_DEVICES);
+        Node attachedDevice = new Node(ResourceType.ATTACHED_DEVICE);
+        Node notificationChannels = new Node(ResourceType.NOTIFICATION_CHANNELS);
+        Node notificationChannel = new Node(ResourceType.NOTIFICATION_CHANNEL);
+        Node m2mPocs = new Node(ResourceType.M2M_POCS);
+        Node m2mPoc = new Node(ResourceType.M2M_POC);
+        Node metrics = new Node(ResourceType.METRICS);
+
+        sclBase.literal("scls", scls)
+            .literal("applications", applications)
+            .literal("containers", containers)
+            .literal("accessRights", accessRights)
+            .literal("groups", groups)
+            .literal("subscriptions", subscriptions)
+            .literal("metrics", metrics)
+            .variable(Segment.DISCOVERY_PATH, RouteMatch.DISCOVERY_PATH, discovery);
+        scls.literal("mgmtObjs", mgmtObjs)
+            .literal("subscriptions", subscriptions)
+            .variable(Segment.ID, RouteMatch.SCL_ID, scl);
+        scl.literal("applications", applications)
+            .literal("containers", containers)
+            .literal("accessRights", accessRights)
+            .literal("groups", groups)
+            .literal("attachedDevices", attachedDevices)
+            .literal("mgmtObjs", mgmtObjs)
+            .literal("notificationChannels", notificationChannels)
+            .literal("m2mPocs", m2mPocs)
+            .literal("subscriptions", subscriptions);
+        applications.literal("mgmtObjs", mgmtObjs)
+            .literal("subscriptions", subscriptions)
+            .variable(Segment.NON_ANNC_ID, RouteMatch.APPLICATION_ID, application)
+            .variable(Segment.ANNC_ID, RouteMatch.APPLICATION_ID, applicationAnnc);
+        application.literal("containers", containers)
+            .literal("accessRights", accessRights)
+            .literal("groups", groups)
+            .literal("notificationChannels", notificationChannels)
+            .literal("subscriptions", subscriptions)
+            .variable(Segment.APOC_PATH, RouteMatch.APOC_PATH, aPoC);
+        applicationAnnc.literal("containers", containers)
+            .literal("accessRights", accessRights)
+            .literal("groups", groups);
+        containers.literal("subscriptions", subscriptions)
+            .variable(Segment.CONTAINER_ID, RouteMatch.CONTAINER_ID, container)
+            .variable(Segment.CONTAINER_ANNC_ID, RouteMatch.CONTAINER_ID, containerAnnc);
+        container.literal("contentInstances", contentInstances)
+            .literal("subscriptions", subscriptions);
+        contentInstances.literal("subscriptions", subscriptions)
+            .variable(Segment.ID, RouteMatch.CONTENT_INSTANCE_ID, contentInstance);
+        contentInstance.literal("content", content);
+        subscriptions.variable(Segment.ID, RouteMatch.SUBSCRIPTION_ID, subscription);
+        accessRights.literal("subscriptions", subscriptions)
+            .variable(Segment.NON_ANNC_ID, RouteMatch.ACCESS_RIGHT_ID, accessRight)
+            .variable(Segment.ANNC_ID, RouteMatch.ACCESS_RIGHT_ID, accessRightAnnc);
+        accessRight.literal("subscriptions", subscriptions);
+        groups.literal("subscriptions", subscriptions)
+            .variable(Segment.NON_ANNC_ID, RouteMatch.GROUP_ID, group)
+            .variable(Segment.ANNC_ID, RouteMatch.GROUP_ID, groupAnnc);
+        group.literal("subscriptions", subscriptions)
+            .variable(Segment.ID, RouteMatch.MEMBERS_CONTENT_ID, membersContent);
+        mgmtObjs.literal("subscriptions", subscriptions);
+        attachedDevices.literal("subscriptions", subscriptions)
+            .variable(Segment.ID, RouteMatch.ATTACHED_DEVICE_ID, attachedDevice);
+        attachedDevice.literal("mgmtObjs", mgmtObjs)
+            .literal("subscriptions", subscriptions);
+        notificationChannels.variable(Segment.ID, RouteMatch.NOTIFICATION_CHANNEL_ID, notificationChannel);
+        m2mPocs.variable(Segment.ID, RouteMatch.M2M_POC_ID, m2mPoc);
+
+        this.root = sclBase;
+    }
+
+    /** Gets the RouteTable instance of the local SCL. */
+    public static RouteTable getInstance() {
+        return routeTable;
+    }
+
+    /**
+     * Resolves a request uri against the resource tree.
+     * @param uri - request uri without leading "/"
+     * @return the matched route otherwise null
+     */
+    public RouteMatch match(String uri) {
+        int length = uri.length();
+        // The first segment must be the local SCL id followed by "/" or the end of the uri
+        if (!uri.startsWith(sclId) || (length > sclId.length() && uri.charAt(sclId.length()) != '/')) {
+            return null;
+        }
+        Map<String, String> variables = RouteMatch.newVariables();
+        Node node = root;
+        int position = sclId.length();
+        while (true) {
+            // Skip separators
+            while (position < length && uri.charAt(position) == '/') {
+                position++;
+            }
+            if (position == length) {
+                return new RouteMatch(node.type, variables);
+            }
+            int end = uri.indexOf('/', position);
+            if (end < 0) {
+                end = length;
+            }
+            String segment = uri.substring(position, end);
+
+            Node next = node.literals.get(segment);
+            if (next == null) {
+                Edge edge = null;
+                for (int i = 0; i < node.edges.size(); i++) {
+                    if (accepts(node.edges.get(i).segment, uri, position, segment)) {
+                        edge = node.edges.get(i);
+                        break;
+                    }
+                }
+                if (edge == null) {
+                    return null;
+                }
+                if (edge.segment == Segment.APOC_PATH || edge.segment == Segment.DISCOVERY_PATH) {
+                    // The rest of the uri is not part of the local resource tree
+                    variables.put(edge.variable, uri.substring(position));
+                    return new RouteMatch(edge.target.type, variables);
+                }
+                variables.put(edge.variable, segment);
+                next = edge.target;
+            }
+            node = next;
+            position = end;
+        }
+    }
+
+    /**
+     * Checks whether a request uri targets a remote SCL and must be re-targeted.
+     * @param uri - request uri without leading "/"
+     * @return true if the uri starts with a remote SCL id otherwise false
+     */
+    public boolean isRetargeting(String uri) {
+        if (uri.startsWith(sclId)) {
+            return false;
+        }
+        int word = wordLength(uri, 0);
+        return word > 0 && isBoundary(uri, word) && !hasLineTerminator(uri, word);
+    }
+
+    /**
+     * Checks a variable segment.
+     * @param segment - segment kind
+     * @param uri - request uri
+     * @param position - segment position in the uri
+     * @param value - segment value
+     * @return true if the segment is accepted otherwise false
+     */
+    private static boolean accepts(Segment segment, String uri, int position, String value) {
+        switch (segment) {
+        case ID:
+            return isId(value);
+        case NON_ANNC_ID:
+            return isId(value) && !value.endsWith(ANNC);
+        case CONTAINER_ID:
+            return isId(value) && !value.endsWith(ANNC) && !value.endsWith(LOC);
+        case ANNC_ID:
+            return isAnncId(value);
+        case CONTAINER_ANNC_ID:
+            if (!isAnncId(value)) {
+                return false;
+            }
+            String local = value.substring(0, value.length() - ANNC.length());
+            return !local.endsWith(LOC) && !local.endsWith(LOC + ANNC);
+        case APOC_PATH:
+            int word = wordLength(value, 0);
+            return word > 0 && !isReserved(value) && isBoundary(value, word) && !hasLineTerminator(uri, position);
+        case DISCOVERY_PATH:
+            return value.startsWith(DISCOVERY) && !hasLineTerminator(uri, position);
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Checks if a segment is a full word that does not start with a reserved resource name.
+     * @param value - segment value
+     * @return true if the segment is an id otherwise false
+     */
+    private static boolean isId(String value) {
+        return wordLength(value, 0) == value.length() && !isReserved(value);
+    }
+
+    /**
+     * Checks if a segment is a full word ending with "Annc".
+     * @param value - segment value
+     * @return true if the segment is an announced resource id otherwise false
+     */
+    private static boolean isAnncId(String value) {
+        return value.length() > ANNC.length() && value.endsWith(ANNC) && wordLength(value, 0) == value.length();
+    }
+
+    /**
+     * Checks if a segment starts with a reserved resource name.
+     * @param value - segment value
+     * @return true if reserved otherwise false
+     */
+    private static boolean isReserved(String value) {
+        for (int i = 0; i < RESERVED_PREFIXES.length; i++) {
+            if (value.startsWith(RESERVED_PREFIXES[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the word characters ([a-zA-Z_0-9]) starting at a position.
+     * @param value - string
+     * @param from - start position
+     * @return number of consecutive word characters
+     */
+    private static int wordLength(String value, int from) {
+        int i = from;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_')) {
+                break;
+            }
+            i++;
+        }
+        return i - from;
+    }
+
+    /**
+     * Checks if there is a word boundary right after a word, using the same definition of
+     * boundary characters as {@link java.util.regex.Pattern} "\b".
+     * @param value - string
+     * @param position - position right after a word
+     * @return true if the position is a word boundary otherwise false
+     */
+    private static boolean isBoundary(String value, int position) {
+        if (position >= value.length()) {
+            return true;
+        }
+        char c = value.charAt(position);
+        return !(c == '_' || Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK);
+    }
+
+    /**
+     * Checks if the uri contains a line terminator from a position.
+     * @param value - string
+     * @param from - start position
+     * @return true if a line terminator is found otherwise false
+     */
+    private static boolean hasLineTerminator(String value, int from) {
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
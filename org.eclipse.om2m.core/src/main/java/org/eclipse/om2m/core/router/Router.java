@@ -19,10 +19,8 @@
  ******************************************************************************/
 package org.eclipse.om2m.core.router;
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,53 +29,13 @@ import org.eclipse.om2m.commons.resource.Resource;
 import org.eclipse.om2m.commons.resource.StatusCode;
 import org.eclipse.om2m.commons.rest.RequestIndication;
 import org.eclipse.om2m.commons.rest.ResponseConfirm;
-import org.eclipse.om2m.commons.utils.XmlMapper;
 
 import org.eclipse.om2m.core.constants.Constants;
-import org.eclipse.om2m.core.controller.AccessRightAnncController;
-import org.eclipse.om2m.core.controller.AccessRightController;
-import org.eclipse.om2m.core.controller.AccessRightsController;
-import org.eclipse.om2m.core.controller.ApplicationAnncController;
-import org.eclipse.om2m.core.controller.ApplicationController;
-import org.eclipse.om2m.core.controller.ApplicationsController;
-import org.eclipse.om2m.core.controller.AttachedDeviceController;
-import org.eclipse.om2m.core.controller.AttachedDevicesController;
-import org.eclipse.om2m.core.controller.ContainerAnncController;
-import org.eclipse.om2m.core.controller.ContainerController;
-import org.eclipse.om2m.core.controller.ContainersController;
-import org.eclipse.om2m.core.controller.ContentController;
-import org.eclipse.om2m.core.controller.ContentInstanceController;
-import org.eclipse.om2m.core.controller.ContentInstancesController;
 import org.eclipse.om2m.core.controller.Controller;
-import org.eclipse.om2m.core.controller.DiscoveryController;
-import org.eclipse.om2m.core.controller.ExecInstanceController;
-import org.eclipse.om2m.core.controller.ExecInstancesController;
-import org.eclipse.om2m.core.controller.GroupAnncController;
-import org.eclipse.om2m.core.controller.GroupController;
-import org.eclipse.om2m.core.controller.GroupsController;
-
-import org.eclipse.om2m.core.controller.LocationContainerAnncController;
-import org.eclipse.om2m.core.controller.LocationContainerController;
-import org.eclipse.om2m.core.controller.M2MPocController;
-import org.eclipse.om2m.core.controller.M2MPocsController;
-import org.eclipse.om2m.core.controller.MembersContentController;
-import org.eclipse.om2m.core.controller.MgmtCmdController;
-import org.eclipse.om2m.core.controller.MgmtObjController;
-import org.eclipse.om2m.core.controller.MgmtObjsController;
-import org.eclipse.om2m.core.controller.NotificationChannelController;
-import org.eclipse.om2m.core.controller.NotificationChannelsController;
-import org.eclipse.om2m.core.controller.ParametersController;
-import org.eclipse.om2m.core.controller.SclBaseController;
-import org.eclipse.om2m.core.controller.SclController;
-import org.eclipse.om2m.core.controller.SclsController;
-import org.eclipse.om2m.core.controller.SubscriptionController;
-import org.eclipse.om2m.core.controller.SubscriptionsController;
-//<<<<<<< HEAD
-import org.eclipse.om2m.core.controller.APocController;
-import org.eclipse.om2m.core.notifier.Notifier;
-//=======
-//>>>>>>> refs/remotes/origin/master
+import org.eclipse.om2m.core.dao.SessionManager;
+import org.eclipse.om2m.core.metrics.RequestMetrics;
 import org.eclipse.om2m.core.redirector.Redirector;
+import org.eclipse.om2m.core.replication.ReplicationManager;
 import org.eclipse.om2m.core.service.SclService;
 
 /**
@@ -92,140 +50,10 @@ import org.eclipse.om2m.core.service.SclService;
 public class Router implements SclService {
     /** Logger */
     private static Log LOGGER = LogFactory.getLog(Router.class);
-    public static ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    /** Resource id pattern. */
-    private static String idPattern="(?!(sclBase|scls|scl|applications|application|applicationAnnc|containers|container|content|subscriptions|subscription|"
-            + "groups|group|accessRights|accessRight|discovery|mgmtObjs|mgmtObj|mgmtCmd|attahchedDevices|attachedDevice|notificationChannels|"
-            + "notificationChannel|execInstances|execInstance|parameters|parameter|m2mPocs|m2mPoc))\\b\\w+\\b";
-
-    /** Announced resource id pattern. */
-    private static String idAnncPattern = "\\w+";
-
-    /** SclBase resource uri pattern. */
-    private static Pattern sclBasePattern= Pattern.compile(Constants.SCL_ID+"/*");
-
-    /** Re-targeting uri pattern. */
-    private static Pattern retargetingPattern= Pattern.compile("(?!"+Constants.SCL_ID+")\\b\\w+\\b/*.*");
-
-    /** Scls resource uri pattern. */
-    private static Pattern  sclsPattern= Pattern.compile(sclBasePattern+"/+scls/*");
-    
-    //private static Pattern ipuPattern2= Pattern.compile("("+Constants.SCL_ID+"/*"+"|"+Constants.SCL_ID+"/*"+"/+scls/*"+"/+"+idPattern+"/*"+")"+"/+applications/*"+"/+"+idPattern+"(?<!Annc)/*"+"/"+idPattern+"/*.*");
-
-    /** Scl resource uri pattern. */
-    private static Pattern sclPattern= Pattern.compile(sclsPattern+"/+"+idPattern+"/*");
-
-    /** Applications resource uri pattern. */
-    public static final Pattern applicationsPattern= Pattern.compile("("+sclBasePattern+"|"+sclPattern+")"+"/+applications/*");
-
-    /** Application resource uri pattern. */
-    private static Pattern applicationPattern= Pattern.compile(applicationsPattern+"/+"+idPattern+"(?<!Annc)/*");
-
-    /** Interworking proxy unit uri pattern. */
-    private static Pattern ipuPattern= Pattern.compile(applicationPattern+"/"+idPattern+"/*.*");
-    
-    /** Coap Comm uri pattern. */
-    private static Pattern coapCommPattern= Pattern.compile("coap/"+applicationPattern+"/"+idPattern+"/*.*");
-
-    /** ApplicationAnnc resource uri pattern. */
-    private static Pattern applicationAnncPattern= Pattern.compile(applicationsPattern+"/+"+idAnncPattern+"Annc/*");
-
-    /** Containers resource uri pattern. */
-    private static Pattern containersPattern= Pattern.compile("("+sclBasePattern+"|"+sclPattern+"|"+applicationPattern+"|"+applicationAnncPattern+")"+"/+containers/*");
-
-    /** Container resource uri pattern. */
-    private static Pattern containerPattern= Pattern.compile(containersPattern+"/+"+idPattern+"(?<!Annc)(?<!Loc)(?<!LocAnnc)/*");
-
-    /** ContainerAnnc resource uri pattern. */
-    private static Pattern containerAnncPattern= Pattern.compile(containersPattern+"/+"+idAnncPattern+"(?<!Loc)(?<!LocAnnc)Annc/*");
-
-    /** LocationContainer resource uri pattern. */
-    private static Pattern locationContainerPattern= Pattern.compile(containersPattern+"/+"+idPattern+"Loc/*");
-
-    /** LocationContainerAnnc resource uri pattern. */
-    private static Pattern locationContainerAnncPattern= Pattern.compile(containersPattern+"/+"+idPattern+"LocAnnc/*");
-
-    /** ContentInstances resource uri pattern. */
-    private static Pattern contentInstancesPattern= Pattern.compile("("+containerPattern+"|"+locationContainerPattern+")"+"/+contentInstances/*");
-
-    /** ContentInstance resource uri pattern. */
-    private static Pattern contentInstancePattern= Pattern.compile(contentInstancesPattern+"/+"+idPattern+"/*");
-
-    /** Content resource uri pattern. */
-    private static Pattern contentPattern= Pattern.compile(contentInstancePattern+"/+content/*");
-
-    /** AccessRights resource uri pattern. */
-    private static Pattern accessRightsPattern= Pattern.compile("("+sclBasePattern+"|"+sclPattern+"|"+applicationPattern+"|"+applicationAnncPattern+")"+"/+accessRights/*");
-
-    /** AccessRight resource uri pattern. */
-    private static Pattern accessRightPattern= Pattern.compile(accessRightsPattern+"/+"+idPattern+"(?<!Annc)/*");
-
-    /** AccessRightAnnc resource uri pattern. */
-    private static Pattern accessRightAnncPattern= Pattern.compile(accessRightsPattern+"/+"+idAnncPattern+"Annc/*");
-
-    /** Groups resource uri pattern. */
-    private static Pattern groupsPattern= Pattern.compile("("+sclBasePattern+"|"+sclPattern+"|"+applicationPattern+"|"+applicationAnncPattern+")"+"/+groups/*");
-
-    /** Group resource uri pattern. */
-    private static Pattern groupPattern= Pattern.compile(groupsPattern+"/+"+idPattern+"(?<!Annc)/*");
-
-    /** MembersContent resource uri pattern. */
-    private static Pattern membersContentPattern= Pattern.compile(groupPattern+"/+"+idPattern+"/*");
-
-    /** GroupAnnc resource uri pattern. */
-    private static Pattern groupAnncPattern= Pattern.compile(groupsPattern+"/+"+idAnncPattern+"Annc/*");
-
-    /** Discovery resource uri pattern. */
-    private static Pattern discoveryPattern= Pattern.compile(sclBasePattern+"/+discovery/*.*");
-
-    /** AttachedDevices resource uri pattern. */
-    private static Pattern attachedDevicesPattern= Pattern.compile(sclPattern+"/+attachedDevices/*");
-
-    /** AttachedDevice resource uri pattern. */
-    private static Pattern attachedDevicePattern= Pattern.compile(attachedDevicesPattern+"/+"+idPattern+"/*");
-
-    /** MgmtObjs resource uri pattern. */
-    private static Pattern mgmtObjsPattern= Pattern.compile("("+sclsPattern+"|"+sclPattern+"|"+applicationsPattern+"|"+attachedDevicePattern+")"+"/+mgmtObjs/*");
-
-    /** MgmtObj resource uri pattern. */
-    private static Pattern mgmtObjPattern= Pattern.compile(mgmtObjsPattern+"/+"+idPattern+"Obj/*");
-
-    /** Parameters resource uri pattern. */
-    private static Pattern parametersPattern= Pattern.compile(mgmtObjPattern+"/+parameters/*");
-
-    /** Parameter resource uri pattern. */
-    private static Pattern parameterPattern= Pattern.compile(parametersPattern+"/+"+idPattern+"/*");
-
-    /** MgmtCmd resource uri pattern. */
-    private static Pattern mgmtCmdPattern= Pattern.compile(mgmtObjsPattern+"/+"+idPattern+"Cmd/*");
-
-    /** ExecInstances resource uri pattern. */
-    private static Pattern execInstancesPattern= Pattern.compile(mgmtCmdPattern+"/+execInstances/*");
-
-    /** ExecInstance resource uri pattern. */
-    private static Pattern execInstancePattern= Pattern.compile(execInstancesPattern+"/+"+idPattern+"/*");
-
-    /** NotificationChannels resource uri pattern. */
-    private static Pattern notificationChannelsPattern= Pattern.compile("("+sclPattern+"|"+applicationPattern+")"+"/+notificationChannels/*");
-
-    /** NotificationChannel resource uri pattern. */
-    private static Pattern notificationChannelPattern= Pattern.compile(notificationChannelsPattern+"/+"+idPattern+"/*");
-
-    /** M2mPocs resource uri pattern. */
-    private static Pattern m2mPocsPattern= Pattern.compile(sclPattern+"/+m2mPocs/*");
-
-    /** M2mPoc resource uri pattern. */
-    private static Pattern m2mPocPattern= Pattern.compile(m2mPocsPattern+"/+"+idPattern+"/*");
-
-    /** Subscriptions resource uri pattern. */
-    private static Pattern subscriptionsPattern= Pattern.compile("("+sclBasePattern+"|"+sclPattern+"|"+sclsPattern+"|"+applicationsPattern+"|"+applicationPattern+
-            "|"+containersPattern+"|"+containerPattern+"|"+contentInstancesPattern+"|"+accessRightsPattern+"|"+accessRightPattern+
-            "|"+groupsPattern+"|"+groupPattern+"|"+mgmtObjsPattern+"|"+mgmtObjPattern+"|"+mgmtCmdPattern+"|"+attachedDevicesPattern+
-            "|"+attachedDevicePattern+"|"+parametersPattern+"|"+parameterPattern+"|"+execInstancesPattern+"|"+execInstancePattern+
-            "|"+locationContainerPattern+")"+"/+subscriptions/*");
-
-    /** Subscription resource uri pattern. */
-    private static Pattern subscriptionPattern= Pattern.compile(subscriptionsPattern+"/+"+idPattern+"/*");
+    /** Threads handling asynchronous local requests */
+    private static final RequestExecutor requestExecutor = new RequestExecutor("om2m-request", Constants.REQUEST_THREADS, Constants.REQUEST_QUEUE_SIZE);
+    /** Threads handling asynchronous retargeted requests, kept apart since they wait for remote SCLs */
+    private static final RequestExecutor retargetExecutor = new RequestExecutor("om2m-retarget", Constants.RETARGET_THREADS, Constants.RETARGET_QUEUE_SIZE);
 
     /**
      * Invokes the correct resource controller method.
@@ -237,13 +65,8 @@ public class Router implements SclService {
      */
 
     public ResponseConfirm doRequest(String method, String targetID,String requestingEntity, Resource resource ){
-        // Convert the resource object to an xml String
-        String representation = null;
-        if(resource!=null){
-            representation = XmlMapper.getInstance().objectToXml(resource);
-        }
-        // Create a RequestIndication object
-        RequestIndication requestIndication = new RequestIndication(method, targetID, requestingEntity, representation);
+        // Create a RequestIndication object, the resource object is copied by the controller instead of being converted to xml
+        RequestIndication requestIndication = new RequestIndication(method, targetID, requestingEntity, resource);
         // Call doRequest method and return the received response.
         return doRequest(requestIndication);
     }
@@ -256,59 +79,109 @@ public class Router implements SclService {
 
     public ResponseConfirm doRequest(RequestIndication requestIndication) {
          LOGGER.info(requestIndication);
-         ResponseConfirm  responseConfirm = new ResponseConfirm();
 
          // Check requesting entity not null.
          if(requestIndication.getRequestingEntity()==null){
              return new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_AUTHORIZATION_NOT_ADDED,"Requesting Entity should not be null"));
          }
+         trimTargetID(requestIndication);
+         // Handled in the caller thread: nested requests issued by controllers never wait for a worker thread.
+         return handle(requestIndication);
+     }
+
+    /**
+     * Invokes required resource controller method in a worker thread. Retargeted requests use
+     * their own threads so that slow remote SCLs do not hold local requests back.
+     * @param requestIndication - The generic request to handle
+     * @return The Future generic response
+     */
+    public Future<ResponseConfirm> doRequestAsync(final RequestIndication requestIndication) {
+         LOGGER.info(requestIndication);
+
+         // Check requesting entity not null.
+         if(requestIndication.getRequestingEntity()==null){
+             return RequestExecutor.completed(new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_AUTHORIZATION_NOT_ADDED,"Requesting Entity should not be null")));
+         }
+         trimTargetID(requestIndication);
+         RequestExecutor executor = RouteTable.getInstance().isRetargeting(requestIndication.getTargetID()) ? retargetExecutor : requestExecutor;
+         return executor.submit(new Callable<ResponseConfirm>() {
+             public ResponseConfirm call() {
+                 return handle(requestIndication);
+             }
+         });
+     }
 
-         // Remove the first "/" from the request uri if exist.
+    /**
+     * Removes the first and the last "/" from the request uri if exist.
+     * @param requestIndication - The generic request
+     */
+    private static void trimTargetID(RequestIndication requestIndication) {
          if(requestIndication.getTargetID().startsWith("/")){
- requestIndication.setTargetID(requestIndication.getTargetID().substring(1));
+             requestIndication.setTargetID(requestIndication.getTargetID().substring(1));
          }
-         // Remove the last "/" from the request uri if exist.
          if(requestIndication.getTargetID().endsWith("/")){
- requestIndication.setTargetID(requestIndication.getTargetID().substring(0,requestIndication.getTargetID().length()-1));
+             requestIndication.setTargetID(requestIndication.getTargetID().substring(0,requestIndication.getTargetID().length()-1));
          }
-         readWriteLock.readLock().lock();
-
-         // Retagreting case
- if(match(retargetingPattern,requestIndication.getTargetID())){
-             responseConfirm  = new Redirector().retarget(requestIndication);
-         }else{
-             // Determine the appropriate resource controller
-             Controller controller = getResourceController(requestIndication.getTargetID(),requestIndication.getMethod(),requestIndication.getRepresentation());
-
-             // Select the resource controller method and invoke it.
-             if(controller!=null){
-
-                     LOGGER.info("ResourceController ["+controller.getClass().getSimpleName()+"]");
-                     try{
+     }
 
-                             switch(requestIndication.getMethod()){
-                             case Constants.METHOD_RETREIVE: responseConfirm = controller.doRetrieve(requestIndication);
-                             break;
-                             case Constants.METHOD_CREATE: responseConfirm = controller.doCreate(requestIndication);
-                             break;
-                             case Constants.METHOD_UPDATE: responseConfirm = controller.doUpdate(requestIndication);
-                             break;
-                             case Constants.METHOD_DELETE: responseConfirm = controller.doDelete(requestIndication);
-                             break;
-                             case Constants.METHOD_EXECUTE: responseConfirm = controller.doExecute(requestIndication);
-                             break;
-                             default: responseConfirm = new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Bad Method"));
-                             break;
-                         }
-                     }catch(Exception e){
-                         LOGGER.error("Controller Internal Error",e);
-                         responseConfirm =  new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_INTERNAL_SERVER_ERROR,"Controller Internal Error"));
-                     }
+    /**
+     * Retargets a request or invokes its resource controller method.
+     * @param requestIndication - The generic request with a trimmed uri
+     * @return The generic returned response
+     */
+    private ResponseConfirm handle(RequestIndication requestIndication) {
+         long start = System.nanoTime();
+         ResponseConfirm  responseConfirm = new ResponseConfirm();
+         RequestMethod method = RequestMethod.fromValue(requestIndication.getMethod());
+         Controller controller = null;
+         boolean retargeted = false;
+         // Hold the target resource subtree, released whatever the outcome of the request.
+         String targetID = requestIndication.getTargetID();
+         SubtreeLockManager.getInstance().lockShared(targetID);
+         // Tie the read sessions acquired by the request to it.
+         SessionManager.getInstance().begin();
+         try{
+             // Retagreting case
+             if(RouteTable.getInstance().isRetargeting(requestIndication.getTargetID())){
+                 retargeted = true;
+                 responseConfirm  = new Redirector().retarget(requestIndication);
              }else{
-                 responseConfirm = new  ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Bad TargetID"));
+                 // Determine the appropriate resource controller
+                 controller = getResourceController(requestIndication.getTargetID(),requestIndication.getMethod(),dispatchRepresentation(requestIndication));
+
+                 // Invoke the resource controller method through the dispatch table.
+                 if(controller!=null){
+
+                         LOGGER.info("ResourceController ["+controller.getClass().getSimpleName()+"]");
+                         if(method==null){
+                             responseConfirm = new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Bad Method"));
+                         }else if(method!=RequestMethod.RETRIEVE && !ReplicationManager.getInstance().isWritable()){
+                             // A hot standby only serves reads until it takes over
+                             responseConfirm = new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_SERVICE_UNAVAILABLE,"Read-only replica"));
+                         }else{
+                             try{
+                                 responseConfirm = method.invoke(controller, requestIndication);
+                             }catch(Exception e){
+                                 LOGGER.error("Controller Internal Error",e);
+                                 responseConfirm =  new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_INTERNAL_SERVER_ERROR,"Controller Internal Error"));
+                             }
+                         }
+                 }else{
+                     responseConfirm = new  ResponseConfirm(new ErrorInfo(StatusCode.STATUS_BAD_REQUEST,"Bad TargetID"));
+                 }
              }
+             // The returned resource may be the stored one, marshalled once the subtree is released.
+             responseConfirm.detach();
+         }finally{
+             SessionManager.getInstance().end();
+             SubtreeLockManager.getInstance().unlockShared(targetID);
+         }
+         long elapsed = System.nanoTime() - start;
+         if(retargeted){
+             RequestMetrics.getInstance().recordRetargeted(method, responseConfirm.getStatusCode(), elapsed);
+         }else{
+             RequestMetrics.getInstance().recordLocal(controller, method, responseConfirm.getStatusCode(), elapsed);
          }
-         readWriteLock.readLock().unlock();
 
          LOGGER.info(responseConfirm);
          return responseConfirm;
@@ -317,149 +190,34 @@ public class Router implements SclService {
 
 
     /**
-     * Finds requried resource controller based on uri patterns.
+     * Gets the representation inspected to find the resource controller. A request carrying a
+     * resource object gives the object root element name instead of marshalling it.
+     * @param requestIndication - The generic request
+     * @return the resource representation or its root element name
+     */
+    private static String dispatchRepresentation(RequestIndication requestIndication) {
+        Object resource = requestIndication.getResource();
+        if(resource == null){
+            return requestIndication.getRepresentation();
+        }
+        String name = resource.getClass().getSimpleName();
+        return ":" + Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Finds requried resource controller based on the route table and the dispatch table.
      * @param uri - Generic request uri
      * @param method - Generic request method
      * @param representation - Resource representation
-     * @return The matched resource controller otherwise null
+     * @return The matched shared resource controller otherwise null
      */
     public Controller getResourceController(String uri, String method, String representation){
-
-        // Match the resource controller with an uri pattern and return it, otherwise return null*
-        if(match(sclBasePattern,uri)){
-            return new SclBaseController();
-        }
-
-        if(match(sclsPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
-            return new SclsController();
-        }
-        if(match(sclPattern,uri) && !method.equals(Constants.METHOD_CREATE)|| (match(sclsPattern,uri) && method.equals(Constants.METHOD_CREATE))){
-            return new SclController();
-        }
-        if(match(applicationsPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
-            return new ApplicationsController();
+        RouteMatch route = RouteTable.getInstance().match(uri);
+        if(route == null){
+            return null;
         }
         // In some cases it is required to know the resource name to detemine the required resource controller.
         // This is the reason why resource representation is added as parameter for some methods.
-        if(match(applicationPattern,uri) && !method.equals(Constants.METHOD_CREATE) || (match(applicationsPattern,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":applicationAnnc"))){
-            return new ApplicationController();
-        }
-        if(match(applicationAnncPattern,uri) && !method.equals(Constants.METHOD_CREATE) || (match(applicationsPattern,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":applicationAnnc"))){
-            return new ApplicationAnncController();
-        }
-        if(match(ipuPattern,uri)){
-            // will forward to a RestClientController or IPUController;
-        	return new APocController();
-        }
-        if(match(containersPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
-            return new ContainersController();
-        }
-        if(match(containerPattern,uri) && !method.equals(Constants.METHOD_CREATE)|| (match(containersPattern,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":containerAnnc"))){
-            return new ContainerController();
-        }
-        if(match(containerAnncPattern,uri)&& !method.equals(Constants.METHOD_CREATE) || (match(containersPattern,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":containerAnnc"))){
-            return new ContainerAnncController();
-        }
-        if(match(locationContainerPattern,uri)){
-            return new LocationContainerController();
-        }
-        if(match(locationContainerAnncPattern,uri)){
-            return new LocationContainerAnncController();
-        }
-        if(match(contentInstancesPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
-            return new ContentInstancesController();
-        }
-        if(match(contentInstancePattern,uri) && !method.equals(Constants.METHOD_CREATE)|| (match(contentInstancesPattern,uri) && method.equals(Constants.METHOD_CREATE))){
-            return new ContentInstanceController();
-        }
-        if(match(contentPattern,uri)){
-            return new ContentController();
-        }
-        if(match(subscriptionsPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
-            return new SubscriptionsController();
-        }
-        if(match(subscriptionPattern,uri) && !method.equals(Constants.METHOD_CREATE)|| (match(subscriptionsPattern,uri) && method.equals(Constants.METHOD_CREATE))){
-            return new SubscriptionController();
-        }
-        if(match(accessRightsPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
-            return new AccessRightsController();
-        }
-        if(match(accessRightPattern,uri) && !method.equals(Constants.METHOD_CREATE) || (match(accessRightsPattern,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":accessRightAnnc"))){
-            return new AccessRightController();
-        }
-        if(match(accessRightAnncPattern,uri) && !method.equals(Constants.METHOD_CREATE) || (match(accessRightsPattern,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":accessRightAnnc"))){
-            return new AccessRightAnncController();
-        }
-        if(match(groupsPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
-            return new GroupsController();
-        }
-        if(match(groupPattern,uri)&& !method.equals(Constants.METHOD_CREATE) || (match(groupsPattern,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":groupAnnc"))){
-            return new GroupController();
-        }
-        if(match(groupAnncPattern,uri) && !method.equals(Constants.METHOD_CREATE) || (match(groupsPattern,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":groupAnnc"))){
-            return new GroupAnncController();
-        }
-        if(match(membersContentPattern,uri)){
-            return new MembersContentController();
-        }
-        if(match(discoveryPattern,uri)){
-            return new DiscoveryController();
-        }
-        if(match(mgmtObjsPattern,uri)){
-            return new MgmtObjsController();
-        }
-        if(match(mgmtObjPattern,uri)){
-            return new MgmtObjController();
-        }
-        if(match(parametersPattern,uri)){
-            return new ParametersController();
-        }
-        if(match(parameterPattern,uri)){
-            return null;
-        }
-        if(match(mgmtCmdPattern,uri)){
-            return new MgmtCmdController();
-        }
-        if(match(execInstancesPattern,uri)){
-            return new ExecInstancesController();
-        }
-        if(match(execInstancePattern,uri)){
-            return new ExecInstanceController();
-        }
-        if(match(attachedDevicesPattern,uri)){
-            return new AttachedDevicesController();
-        }
-        if(match(attachedDevicePattern,uri)){
-            return new AttachedDeviceController();
-        }
-        if(match(notificationChannelsPattern,uri)){
-            return new NotificationChannelsController();
-        }
-        if(match(notificationChannelPattern,uri)){
-            return new NotificationChannelController();
-        }
-        if(match(m2mPocsPattern,uri)){
-            return new M2MPocsController();
-        }
-        if(match(m2mPocPattern,uri)){
-            return new M2MPocController();
-        }
-
-        return null;
-    }
-
-    /**
-     * match uri with a pattern.
-     * @param pattern - pattern
-     * @param uri - resource uri
-     * @return true if matched, otherwise false.
-     */
-    public static boolean match(Pattern pattern, String uri) {
-        // Match uri with pattern
-        Matcher m = pattern.matcher(uri);
-        if (!m.matches()){
-            return false;
-        }
-        return true;
+        return DispatchTable.getInstance().lookup(route.getType(), RequestMethod.fromValue(method), representation);
     }
 }
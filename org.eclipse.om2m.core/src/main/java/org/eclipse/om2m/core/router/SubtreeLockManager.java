@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr)
+ * 7 Colonel Roche 31077 Toulouse - France
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification,
+ *         conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification,
+ *         conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test
+ *         and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.om2m.core.constants.Constants;
+
+/**
+ * Hierarchical resource locks: a node lock over striped resource subtree locks.
+ * <p>
+ * A subtree is the resource tree below an SCL child resource, for instance an application
+ * ({@code nscl/applications/app1}), a container ({@code nscl/containers/c1}) or the same
+ * resources of a registered remote SCL ({@code nscl/scls/gscl/applications/app1}). Uris above
+ * that level (the SclBase, a remote SCL, collections) belong to the subtree of their SCL.
+ * Subtrees are spread over a fixed number of read/write lock stripes.
+ * <p>
+ * Requests hold their subtree in shared mode, so they never contend with each other. Maintenance
+ * tasks quiesce one subtree or the whole node in exclusive mode. Exclusive acquisitions are
+ * attempted without ever queuing on the lock, backing off between attempts: a queued writer would
+ * block new readers, and a request waiting for the result of a nested request (group fan-out,
+ * cascaded deletes) issued from another thread would then deadlock with it.
+ * <p>
+ * So that a continuous flow of requests cannot starve them, exclusive acquisitions still pending
+ * after a short delay close a gate holding off new requests. Threads already holding a shared lock
+ * pass the gate, and a request waits at the gate for a bounded time only, so nested requests issued
+ * from other threads are delayed but never deadlocked.
+ * <p>
+ * A thread holding a shared lock must not quiesce a subtree since read locks cannot be upgraded.
+ * @author <ul>
+ *         <li>Mahdi Ben Alaya < ben.alaya@laas.fr > < benalaya.mahdi@gmail.com ></li>
+ *         <li>Yassine Banouar < ybanouar@laas.fr > < yassine.banouar@gmail.fr ></li>
+ *         </ul>
+ */
+public class SubtreeLockManager {
+    /** Shared lock manager */
+    private static final SubtreeLockManager lockManager = new SubtreeLockManager(Constants.LOCK_STRIPES);
+    /** Initial back off between two exclusive lock attempts in ms */
+    private static final long MIN_BACKOFF = 1;
+    /** Maximum back off between two exclusive lock attempts in ms */
+    private static final long MAX_BACKOFF = 64;
+    /** Delay after which a pending exclusive acquisition holds off new requests in ms */
+    private static final long GATE_DELAY = 50;
+    /** Maximum time a new request is held off by a pending exclusive acquisition in ms */
+    private static final long GATE_TIMEOUT = 200;
+    /** Node lock */
+    private final ReentrantReadWriteLock root = new ReentrantReadWriteLock();
+    /** Gate of the node lock */
+    private final Gate rootGate = new Gate();
+    /** Subtree lock stripes */
+    private final ReentrantReadWriteLock[] stripes;
+    /** Gates of the subtree lock stripes */
+    private final Gate[] gates;
+
+    /**
+     * Holds off new requests while exclusive acquisitions are pending.
+     */
+    private static class Gate {
+        /** Number of pending exclusive acquisitions holding the gate closed */
+        private volatile int closed;
+
+        /** Closes the gate. */
+        synchronized void close() {
+            closed++;
+        }
+
+        /** Opens the gate once no exclusive acquisition holds it closed. */
+        synchronized void open() {
+            if (--closed == 0) {
+                notifyAll();
+            }
+        }
+
+        /** Waits until the gate is open, for {@link SubtreeLockManager#GATE_TIMEOUT} at most. */
+        void pass() {
+            if (closed == 0) {
+                return;
+            }
+            boolean interrupted = false;
+            synchronized (this) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(GATE_TIMEOUT);
+                long left;
+                while (closed > 0 && (left = deadline - System.nanoTime()) > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this, left);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Creates a lock manager.
+     * @param stripes - number of subtree lock stripes
+     */
+    public SubtreeLockManager(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("At least one lock stripe is required");
+        }
+        this.stripes = new ReentrantReadWriteLock[stripes];
+        this.gates = new Gate[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantReadWriteLock();
+            this.gates[i] = new Gate();
+        }
+    }
+
+    /** Gets the shared lock manager. */
+    public static SubtreeLockManager getInstance() {
+        return lockManager;
+    }
+
+    /**
+     * Locks the subtree of a resource in shared mode, to serve a request.
+     * @param uri - resource uri
+     */
+    public void lockShared(String uri) {
+        int stripe = stripe(uri);
+        // Nested requests served by the same thread are never held off
+        if (root.getReadHoldCount() == 0) {
+            rootGate.pass();
+            gates[stripe].pass();
+        }
+        root.readLock().lock();
+        stripes[stripe].readLock().lock();
+    }
+
+    /**
+     * Unlocks the subtree of a resource locked in shared mode.
+     * @param uri - resource uri
+     */
+    public void unlockShared(String uri) {
+        stripes[stripe(uri)].readLock().unlock();
+        root.readLock().unlock();
+    }
+
+    /** Locks the node in shared mode, for node wide operations such as a transaction commit. */
+    public void lockSharedNode() {
+        root.readLock().lock();
+    }
+
+    /** Unlocks the node locked in shared mode. */
+    public void unlockSharedNode() {
+        root.readLock().unlock();
+    }
+
+    /**
+     * Waits for the requests in progress on the subtree of a resource and holds off new ones
+     * until {@link #resume(String)}. Other subtrees are still served.
+     * @param uri - resource uri
+     */
+    public void quiesce(String uri) {
+        int stripe = stripe(uri);
+        root.readLock().lock();
+        acquire(stripes[stripe].writeLock(), gates[stripe]);
+    }
+
+    /**
+     * Resumes the subtree of a resource quiesced with {@link #quiesce(String)}.
+     * @param uri - resource uri
+     */
+    public void resume(String uri) {
+        stripes[stripe(uri)].writeLock().unlock();
+        root.readLock().unlock();
+    }
+
+    /** Waits for all the requests in progress and holds off new ones until {@link #resumeNode()}. */
+    public void quiesceNode() {
+        acquire(root.writeLock(), rootGate);
+    }
+
+    /** Resumes the node quiesced with {@link #quiesceNode()}. */
+    public void resumeNode() {
+        root.writeLock().unlock();
+    }
+
+    /**
+     * Acquires an exclusive lock without queuing on it, closing its gate when it is still pending
+     * after {@link #GATE_DELAY}.
+     * @param lock - write lock
+     * @param gate - gate of the lock
+     */
+    private static void acquire(ReentrantReadWriteLock.WriteLock lock, Gate gate) {
+        long backoff = MIN_BACKOFF;
+        long gateTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(GATE_DELAY);
+        boolean gated = false;
+        boolean interrupted = false;
+        try {
+            while (!lock.tryLock()) {
+                if (!gated && System.nanoTime() - gateTime >= 0) {
+                    gate.close();
+                    gated = true;
+                    backoff = MIN_BACKOFF;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF);
+            }
+        } finally {
+            if (gated) {
+                gate.open();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Computes the lock stripe of the subtree of a resource.
+     * @param uri - resource uri
+     * @return stripe index
+     */
+    int stripe(String uri) {
+        // Count up to five leading segments: sclId/collection/id or sclId/scls/sclId/collection/id
+        int segments = 0;
+        boolean remote = false;
+        int length = uri.length();
+        int i = 0;
+        while (segments < 5) {
+            while (i < length && uri.charAt(i) == '/') {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int start = i;
+            while (i < length && uri.charAt(i) != '/') {
+                i++;
+            }
+            if (segments == 1 && i - start == 4 && uri.startsWith("scls", start)) {
+                remote = true;
+            }
+            segments++;
+        }
+        if (remote) {
+            // Remote SCL subtree, or its SCL level uri when shorter
+            return stripeOf(uri, segments == 5 ? 5 : segments >= 3 ? 3 : 1);
+        }
+        // Local subtree, or the SCL level uri when shorter
+        return stripeOf(uri, segments >= 3 ? 3 : 1);
+    }
+
+    /**
+     * Hashes the first segments of an uri into a stripe index.
+     * @param uri - resource uri
+     * @param segments - number of leading segments to hash
+     * @return stripe index
+     */
+    private int stripeOf(String uri, int segments) {
+        int hash = 0;
+        int length = uri.length();
+        int i = 0;
+        for (int s = 0; s < segments; s++) {
+            while (i < length && uri.charAt(i) == '/') {
+                i++;
+            }
+            while (i < length && uri.charAt(i) != '/') {
+                hash = 31 * hash + uri.charAt(i);
+                i++;
+            }
+            hash = 31 * hash + '/';
+        }
+        // Spread the hash bits before reducing it to a stripe
+        hash ^= (hash >>> 16);
+        return (hash & 0x7fffffff) % stripes.length;
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.eclipse.om2m.commons.resource.ErrorInfo;
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.commons.resource.Subscription;
+import org.eclipse.om2m.commons.utils.JsonMapper;
+import org.eclipse.om2m.commons.utils.XmlMapper;
+import org.junit.Test;
+
+public class ResponseConfirmTest {
+
+    private static Subscription subscription() {
+        Subscription subscription = new Subscription();
+        subscription.setUri("nscl/applications/app/containers/data/subscriptions/sub");
+        subscription.setContact("http://localhost:1400/monitor");
+        return subscription;
+    }
+
+    @Test
+    public void marshalsResourceOnDemand() throws IOException {
+        Subscription subscription = subscription();
+        ResponseConfirm responseConfirm = new ResponseConfirm(StatusCode.STATUS_OK, subscription);
+        Subscription copy = (Subscription) responseConfirm.getResource();
+        assertNotSame(subscription, copy);
+        assertEquals(subscription.getContact(), copy.getContact());
+        assertTrue(responseConfirm.hasRepresentation());
+        assertEquals(subscription.getUri(), responseConfirm.getResourceURI());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        responseConfirm.writeRepresentation(outputStream);
+        String representation = XmlMapper.getInstance().objectToXml(subscription);
+        assertEquals(representation, outputStream.toString("UTF-8"));
+        assertEquals(representation, responseConfirm.getRepresentation());
+        assertSame(responseConfirm.getRepresentation(), responseConfirm.getRepresentation());
+
+        responseConfirm.setRepresentation("");
+        assertNull(responseConfirm.getResource());
+        assertFalse(responseConfirm.hasRepresentation());
+    }
+
+    @Test
+    public void detachesResourceFromLaterChanges() {
+        Subscription subscription = subscription();
+        ResponseConfirm responseConfirm = new ResponseConfirm(StatusCode.STATUS_OK, subscription);
+        String representation = XmlMapper.getInstance().objectToXml(subscription);
+        responseConfirm.detach();
+        // Stored instance updated by another request once the subtree lock is released
+        subscription.setContact("http://localhost:1400/other");
+        assertEquals(representation, responseConfirm.getRepresentation());
+    }
+
+    @Test
+    public void writesJsonRepresentations() throws IOException {
+        Subscription subscription = subscription();
+        String json = JsonMapper.getInstance().objectToJson(subscription);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new ResponseConfirm(StatusCode.STATUS_OK, subscription).writeJsonRepresentation(outputStream);
+        assertEquals(json, outputStream.toString("UTF-8"));
+
+        // Representations received from another SCL are converted
+        outputStream.reset();
+        new ResponseConfirm(StatusCode.STATUS_OK, XmlMapper.getInstance().objectToXml(subscription)).writeJsonRepresentation(outputStream);
+        assertEquals(json, outputStream.toString("UTF-8"));
+
+        outputStream.reset();
+        new ResponseConfirm(StatusCode.STATUS_SERVICE_UNAVAILABLE, "SCL service not installed").writeJsonRepresentation(outputStream);
+        assertEquals("SCL service not installed", outputStream.toString("UTF-8"));
+    }
+
+    @Test
+    public void writesRawContentsAsIs() throws IOException {
+        // contentInstance contents are not resource representations, even when they look like XML
+        ResponseConfirm responseConfirm = new ResponseConfirm(StatusCode.STATUS_OK, "<b>bold</b> and text");
+        assertFalse(responseConfirm.hasJsonRepresentation());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        responseConfirm.writeJsonRepresentation(outputStream);
+        assertEquals("<b>bold</b> and text", outputStream.toString("UTF-8"));
+
+        responseConfirm = new ResponseConfirm(StatusCode.STATUS_OK, "<om2m:application appId=\"sensor\"");
+        assertFalse(responseConfirm.hasJsonRepresentation());
+        outputStream.reset();
+        responseConfirm.writeJsonRepresentation(outputStream);
+        assertEquals("<om2m:application appId=\"sensor\"", outputStream.toString("UTF-8"));
+
+        assertTrue(new ResponseConfirm(StatusCode.STATUS_OK, XmlMapper.getInstance().objectToXml(subscription())).hasJsonRepresentation());
+    }
+
+    @Test
+    public void reusesErrorRepresentations() {
+        ResponseConfirm first = new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND, "nscl/applications/app does not exist"));
+        ResponseConfirm second = new ResponseConfirm(new ErrorInfo(StatusCode.STATUS_NOT_FOUND, "nscl/applications/app does not exist"));
+        assertEquals(StatusCode.STATUS_NOT_FOUND, second.getStatusCode());
+        assertSame(first.getRepresentation(), second.getRepresentation());
+    }
+
+    @Test
+    public void requestMarshalsResourceOnDemand() {
+        Subscription subscription = subscription();
+        RequestIndication requestIndication = new RequestIndication("CREATE", "nscl/applications/app/containers/data/subscriptions", "admin:admin", subscription);
+        assertSame(subscription, requestIndication.getResource());
+        assertEquals(XmlMapper.getInstance().objectToXml(subscription), requestIndication.getRepresentation());
+    }
+}
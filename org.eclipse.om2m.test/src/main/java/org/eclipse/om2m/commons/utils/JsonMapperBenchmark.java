@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstanceCollection;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.resource.ErrorInfo;
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.xml.sax.SAXException;
+
+/**
+ * Compares the payload sizes of the XML and JSON representations of a resource, a contentInstances
+ * collection and an error, and the throughput of parsing them with {@link XmlMapper} and
+ * {@link JsonMapper}, with and without validation, and of writing them.
+ * Usage: JsonMapperBenchmark [iterations]
+ * Set org.eclipse.om2m.xmlFormattedOutput to false to compare with the compact XML output.
+ */
+public class JsonMapperBenchmark {
+
+    private static ContentInstances contentInstances(int count) {
+        ContentInstances contentInstances = new ContentInstances();
+        contentInstances.setContentInstanceCollection(new ContentInstanceCollection());
+        for (int i = 0; i < count; i++) {
+            ContentInstance contentInstance = new ContentInstance(("<obj><int name=\"temperature\" val=\"" + i % 40 + "\"/></obj>").getBytes());
+            contentInstance.setId("CI_" + i);
+            contentInstance.getContent().setContentType("application/xml");
+            contentInstances.getContentInstanceCollection().getContentInstance().add(contentInstance);
+        }
+        return contentInstances;
+    }
+
+    private static void report(String name, String format, int iterations, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%-18s %-5s %8d %12.0f/s %8.1f us", name, format, iterations, iterations / seconds, seconds * 1e6 / iterations));
+    }
+
+    public static void main(String[] args) throws SAXException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        Object[] resources = { JsonMapperTest.application(), contentInstances(20),
+                new ErrorInfo(StatusCode.STATUS_NOT_FOUND, "nscl/applications/sensor does not exist") };
+        String[] names = { "application", "contentInstances", "errorInfo" };
+        String[] xsds = { "application.xsd", null, "errorInfo.xsd" };
+
+        for (int r = 0; r < resources.length; r++) {
+            String xml = XmlMapper.getInstance().objectToXml(resources[r]);
+            String json = JsonMapper.getInstance().objectToJson(resources[r]);
+            System.out.println(String.format("%-18s xml %6d bytes, json %6d bytes (%.0f%%)", names[r],
+                    xml.getBytes().length, json.getBytes().length, 100.0 * json.getBytes().length / xml.getBytes().length));
+        }
+        for (int round = 0; round < 2; round++) {
+            for (int r = 0; r < resources.length; r++) {
+                Object resource = resources[r];
+                String xml = XmlMapper.getInstance().objectToXml(resource);
+                String json = JsonMapper.getInstance().objectToJson(resource);
+                int count = r == 1 ? iterations / 20 : iterations;
+
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    XmlMapper.getInstance().xmlToObject(xml);
+                }
+                report(names[r] + " parse", "xml", count, start);
+                start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    JsonMapper.getInstance().jsonToObject(json);
+                }
+                report(names[r] + " parse", "json", count, start);
+
+                if (xsds[r] != null) {
+                    start = System.nanoTime();
+                    for (int i = 0; i < count; i++) {
+                        XmlMapper.getInstance().xmlToObject(xml, xsds[r]);
+                    }
+                    report(names[r] + " validate", "xml", count, start);
+                    start = System.nanoTime();
+                    for (int i = 0; i < count; i++) {
+                        JsonMapper.getInstance().jsonToObject(json, xsds[r]);
+                    }
+                    report(names[r] + " validate", "json", count, start);
+                }
+
+                start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    XmlMapper.getInstance().objectToXml(resource);
+                }
+                report(names[r] + " write", "xml", count, start);
+                start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    JsonMapper.getInstance().objectToJson(resource);
+                }
+                report(names[r] + " write", "json", count, start);
+            }
+        }
+    }
+}
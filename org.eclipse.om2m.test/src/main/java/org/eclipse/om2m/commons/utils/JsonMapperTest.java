@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstanceCollection;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.resource.SearchStrings;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks the JSON representations written and read by {@link JsonMapper}, and their conversion
+ * from and to the XML representations.
+ */
+public class JsonMapperTest {
+
+    static Application application() {
+        Application application = new Application("sensor");
+        application.setAccessRightID("nscl/accessRights/AR_ADMIN");
+        SearchStrings searchStrings = new SearchStrings();
+        searchStrings.getSearchString().add("ResourceType/Application");
+        searchStrings.getSearchString().add("Location/\"Toulouse\"\n");
+        application.setSearchStrings(searchStrings);
+        return application;
+    }
+
+    private static void assertRejected(String representation, String xsd) {
+        try {
+            JsonMapper.getInstance().jsonToObject(representation, xsd);
+            fail("representation accepted against " + xsd);
+        } catch (SAXException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void roundTripsResources() throws SAXException {
+        String json = JsonMapper.getInstance().objectToJson(application());
+        assertEquals("{\"application\":{\"@appId\":\"sensor\",\"accessRightID\":\"nscl/accessRights/AR_ADMIN\","
+                + "\"searchStrings\":{\"searchString\":[\"ResourceType/Application\",\"Location/\\\"Toulouse\\\"\\n\"]}}}", json);
+
+        Application application = (Application) JsonMapper.getInstance().jsonToObject(json, "application.xsd");
+        assertEquals("sensor", application.getAppId());
+        assertEquals(application().getSearchStrings().getSearchString(), application.getSearchStrings().getSearchString());
+    }
+
+    @Test
+    public void writesListsAsArrays() throws IOException {
+        ContentInstance contentInstance = new ContentInstance("<obj/>".getBytes());
+        contentInstance.setId("CI_1");
+        contentInstance.getContent().setContentType("application/xml");
+        ContentInstances contentInstances = new ContentInstances();
+        contentInstances.setContentInstanceCollection(new ContentInstanceCollection());
+        contentInstances.getContentInstanceCollection().getContentInstance().add(contentInstance);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonMapper.getInstance().marshal(contentInstances, outputStream);
+        assertEquals("{\"contentInstances\":{\"contentInstanceCollection\":{\"contentInstance\":[{\"@id\":\"CI_1\","
+                + "\"content\":{\"@contentType\":\"application/xml\",\"$\":\"PG9iai8+\"}}]}}}", outputStream.toString("UTF-8"));
+        // The root element is never an array
+        assertEquals("{\"contentInstance\":{\"@id\":\"CI_1\",\"content\":{\"@contentType\":\"application/xml\",\"$\":\"PG9iai8+\"}}}",
+                JsonMapper.getInstance().objectToJson(contentInstance));
+
+        ContentInstances read = (ContentInstances) JsonMapper.getInstance().unmarshal(new ByteArrayInputStream(outputStream.toByteArray()));
+        ContentInstance readInstance = read.getContentInstanceCollection().getContentInstance().get(0);
+        assertEquals("CI_1", readInstance.getId());
+        assertEquals("application/xml", readInstance.getContent().getContentType());
+        assertEquals("<obj/>", new String(readInstance.getContent().getValue()));
+    }
+
+    @Test
+    public void convertsXmlRepresentations() throws IOException, SAXException {
+        String json = JsonMapper.getInstance().xmlToJson(XmlMapper.getInstance().objectToXml(application()));
+        assertEquals(JsonMapper.getInstance().objectToJson(application()), json);
+
+        Application application = (Application) XmlMapper.getInstance().xmlToObject(JsonMapper.getInstance().jsonToXml(json), "application.xsd");
+        assertEquals("nscl/accessRights/AR_ADMIN", application.getAccessRightID());
+        // Other JSON contents are not resource representations
+        assertNull(JsonMapper.getInstance().jsonToXml("{\"temperature\":21.5}"));
+        assertNull(JsonMapper.getInstance().jsonToXml("temperature=21.5"));
+        // Other XML contents are not converted either
+        assertNull(JsonMapper.getInstance().xmlToJson("<b>bold</b> and text"));
+        assertNull(JsonMapper.getInstance().xmlToJson("<om2m:application"));
+    }
+
+    @Test
+    public void rejectsInvalidRepresentations() {
+        String json = JsonMapper.getInstance().objectToJson(application());
+        assertRejected(json.replace("accessRightID", "accessRight"), "application.xsd");
+        assertRejected("{\"application\":{\"accessRightID\":\"nscl/accessRights/AR_ADMIN\",\"@appId\":\"sensor\"}}", "application.xsd");
+        assertRejected(json.substring(0, json.length() - 2), "application.xsd");
+        assertRejected(json, "container.xsd");
+    }
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import java.io.ByteArrayOutputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Compares the throughput of validating a representation with {@link XmlValidator} and then
+ * unmarshalling it, with the single validating unmarshal of {@link XmlMapper#xmlToObject(String, String)},
+ * and the throughput of marshalling with a new JAXB marshaller per call, with the per thread
+ * marshallers of {@link XmlMapper}.
+ * Usage: XmlMapperBenchmark [iterations]
+ * Set org.eclipse.om2m.xmlFormattedOutput to false to measure the compact output.
+ */
+public class XmlMapperBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        String representation = XmlMapperTest.subscription();
+        Object resource = XmlMapper.getInstance().xmlToObject(representation);
+        JAXBContext context = JAXBContext.newInstance("org.eclipse.om2m.commons.resource");
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                try {
+                    XmlValidator.getInstance().validate(representation, "subscription.xsd");
+                } catch (SAXException e) {
+                    throw new IllegalStateException(e);
+                }
+                XmlMapper.getInstance().xmlToObject(representation);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%-14s %8d requests %10.0f requests/s", "double-parse", iterations, iterations / seconds));
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                XmlMapper.getInstance().xmlToObject(representation, "subscription.xsd");
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%-14s %8d requests %10.0f requests/s", "single-pass", iterations, iterations / seconds));
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                Marshaller marshaller = context.createMarshaller();
+                marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                marshaller.marshal(resource, outputStream);
+                outputStream.toString();
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%-14s %8d responses %9.0f responses/s", "new-marshaller", iterations, iterations / seconds));
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                XmlMapper.getInstance().objectToXml(resource);
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%-14s %8d responses %9.0f responses/s", "pooled", iterations, iterations / seconds));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.commons.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.eclipse.om2m.commons.resource.Subscription;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks that {@link XmlMapper#xmlToObject(String, String)} rejects the representations the
+ * separate {@link XmlValidator} pass used to reject while unmarshalling the valid ones.
+ */
+public class XmlMapperTest {
+
+    static String subscription() {
+        Subscription subscription = new Subscription();
+        subscription.setContact("http://localhost:1400/monitor");
+        return XmlMapper.getInstance().objectToXml(subscription);
+    }
+
+    private static void assertRejected(String representation, String xsd) {
+        try {
+            XmlMapper.getInstance().xmlToObject(representation, xsd);
+            fail("representation accepted against " + xsd);
+        } catch (SAXException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void unmarshalsValidRepresentation() throws SAXException {
+        Subscription subscription = (Subscription) XmlMapper.getInstance().xmlToObject(subscription(), "subscription.xsd");
+        assertEquals("http://localhost:1400/monitor", subscription.getContact());
+    }
+
+    @Test
+    public void roundTripsThroughStreamsAndBuffers() throws IOException, SAXException {
+        Subscription subscription = (Subscription) XmlMapper.getInstance().xmlToObject(subscription());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        XmlMapper.getInstance().marshal(subscription, outputStream);
+        assertEquals(subscription(), outputStream.toString("UTF-8"));
+
+        Subscription read = (Subscription) XmlMapper.getInstance().unmarshal(
+                new ByteArrayInputStream(outputStream.toByteArray()), "subscription.xsd");
+        assertEquals(subscription.getContact(), read.getContact());
+        ByteBuffer buffer = XmlMapper.getInstance().marshal(read);
+        read = (Subscription) XmlMapper.getInstance().unmarshal(buffer);
+        assertEquals(subscription.getContact(), read.getContact());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void reportsMarshallingErrors() {
+        // Not a resource, the servlet must not answer with a truncated representation
+        try {
+            XmlMapper.getInstance().marshal(new Object(), new ByteArrayOutputStream());
+            fail("Marshalling error not reported");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            JsonMapper.getInstance().marshal(new Object(), new ByteArrayOutputStream());
+            fail("Marshalling error not reported");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rejectsInvalidRepresentations() {
+        assertRejected(subscription().replace("contact>", "contacts>"), "subscription.xsd");
+        assertRejected("<om2m:subscription", "subscription.xsd");
+        assertRejected(subscription(), "container.xsd");
+    }
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.rest.RequestIndication;
+import org.eclipse.om2m.commons.utils.XmlMapper;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks how controllers read the resource of a request, from a representation or from a resource
+ * object passed within the JVM.
+ */
+public class ControllerTest {
+    private final Controller controller = new ApplicationController();
+
+    @Test
+    public void copiesResourceObjects() throws SAXException {
+        Application application = new Application("sensor");
+        RequestIndication requestIndication = new RequestIndication("CREATE", "nscl/applications", "admin/admin", application);
+        Application read = controller.readResource(requestIndication, Application.class, "application.xsd");
+        assertNotSame(application, read);
+        assertEquals("sensor", read.getAppId());
+        read.setUri("nscl/applications/sensor");
+        assertNull(application.getUri());
+    }
+
+    @Test
+    public void parsesRepresentations() throws SAXException {
+        String representation = XmlMapper.getInstance().objectToXml(new Application("sensor"));
+        RequestIndication requestIndication = new RequestIndication("CREATE", "nscl/applications", "admin/admin", representation);
+        assertEquals("sensor", controller.readResource(requestIndication, Application.class, "application.xsd").getAppId());
+    }
+
+    @Test
+    public void rejectsResourceObjectsOfAnotherType() {
+        RequestIndication requestIndication = new RequestIndication("CREATE", "nscl/applications", "admin/admin", new Container("data"));
+        try {
+            controller.readResource(requestIndication, Application.class, "application.xsd");
+            fail("container read as an application");
+        } catch (SAXException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Compares the size on disk and the write throughput of the contentInstance segments keeping the
+ * payloads in their records, with the {@link BlobStore} storing them once, deflated or not, on a
+ * workload of sensors posting a few distinct status documents.
+ * Usage: BlobStoreBenchmark [writes] [distinct payloads]
+ */
+public class BlobStoreBenchmark {
+
+    private static long size(File file) {
+        if (!file.isDirectory()) {
+            return file.length();
+        }
+        long size = 0;
+        for (File child : file.listFiles()) {
+            size += size(child);
+        }
+        return size;
+    }
+
+    private static void delete(File file) {
+        if (file.isDirectory()) {
+            for (File child : file.listFiles()) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int writes = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int distinct = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        String[] names = { "inline", "blobs", "blobs-deflate" };
+        for (String name : names) {
+            File directory = new File(System.getProperty("java.io.tmpdir"), "om2m-blob-benchmark-" + System.nanoTime());
+            BlobStore blobs = "inline".equals(name) ? null : new BlobStore(new File(directory, "blobs"), 128, name.endsWith("deflate"));
+            SegmentStore store = new SegmentStore(new File(directory, "segments"), blobs);
+            Random random = new Random(42);
+            try {
+                long start = System.nanoTime();
+                for (int i = 0; i < writes; i++) {
+                    String uri = "nscl/applications/sensor" + (i % 100) + "/containers/status/contentInstances/CI_" + i;
+                    store.store(BlobStoreTest.contentInstance(uri, BlobStoreTest.payload(random.nextInt(distinct))));
+                    if (i % 100 == 99) {
+                        store.force();
+                    }
+                }
+                store.force();
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.println(String.format("%-14s %8d writes %10.0f writes/s %10d bytes on disk",
+                        name, writes, writes / seconds, size(directory)));
+            } finally {
+                store.close();
+                delete(directory);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the sharing of the contentInstance payloads by hash and their reference counting.
+ */
+public class BlobStoreTest {
+    private static final String PREFIX = "nscl/applications/app/containers/c/contentInstances";
+
+    private File directory;
+
+    static ContentInstance contentInstance(String uri, byte[] value) {
+        ContentInstance contentInstance = new ContentInstance(value);
+        contentInstance.setUri(uri);
+        contentInstance.setId(uri.substring(uri.lastIndexOf('/') + 1));
+        contentInstance.setContentSize((long) value.length);
+        return contentInstance;
+    }
+
+    static byte[] payload(int status) {
+        StringBuilder obix = new StringBuilder("<obj href=\"status\">");
+        for (int i = 0; i < 10; i++) {
+            obix.append("<int name=\"sensor").append(i).append("\" val=\"").append(status).append("\"/>");
+        }
+        return obix.append("</obj>").toString().getBytes();
+    }
+
+    private static void delete(File directory) {
+        File[] files = directory.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            if (files[i].isDirectory()) {
+                delete(files[i]);
+            } else {
+                files[i].delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private SegmentStore open() {
+        return new SegmentStore(new File(directory, "segments"), new BlobStore(new File(directory, "blobs"), 16, true));
+    }
+
+    @Before
+    public void createDirectory() {
+        directory = new File(System.getProperty("java.io.tmpdir"), "om2m-blobs-" + System.nanoTime());
+    }
+
+    @After
+    public void deleteDirectory() {
+        delete(directory);
+    }
+
+    @Test
+    public void storesRepeatedPayloadsOnce() {
+        BlobStore blobs = new BlobStore(new File(directory, "blobs"), 16, true);
+        SegmentStore store = new SegmentStore(new File(directory, "segments"), blobs);
+        for (int i = 0; i < 90; i++) {
+            store.store(contentInstance(PREFIX + "/CI_" + i, payload(i % 3)));
+        }
+        store.store(contentInstance(PREFIX + "/small", "21".getBytes()));
+        assertEquals(3, blobs.getCount());
+        assertTrue(blobs.getSize() < payload(0).length * 90 / 4);
+        assertArrayEquals(payload(1), store.find(PREFIX + "/CI_4").getContent().getValue());
+        assertArrayEquals("21".getBytes(), store.find(PREFIX + "/small").getContent().getValue());
+
+        for (int i = 0; i < 90; i += 3) {
+            store.delete(PREFIX + "/CI_" + i);
+        }
+        // Released once the deletions are forced
+        assertEquals(3, blobs.getCount());
+        store.force();
+        assertEquals(2, blobs.getCount());
+        // Replaced payloads are released too
+        store.store(contentInstance(PREFIX + "/CI_1", payload(2)));
+        store.force();
+        store.close();
+
+        store = open();
+        assertEquals(61, store.findByPrefix(PREFIX).size());
+        assertArrayEquals(payload(2), store.find(PREFIX + "/CI_1").getContent().getValue());
+        store.drop(PREFIX);
+        store.close();
+        assertEquals(0, new BlobStore(new File(directory, "blobs"), 16, true).getCount());
+    }
+
+    @Test
+    public void archivesKeepTheirReferences() {
+        BlobStore blobs = new BlobStore(new File(directory, "blobs"), 16, true);
+        SegmentStore store = new SegmentStore(new File(directory, "segments"), blobs);
+        for (int i = 0; i < 20; i++) {
+            store.store(contentInstance(PREFIX + "/CI_" + i, payload(i)));
+        }
+        assertEquals(10, store.archive(PREFIX, 10));
+        assertEquals(20, blobs.getCount());
+        assertArrayEquals(payload(3), store.find(PREFIX + "/CI_3").getContent().getValue());
+        store.delete(PREFIX + "/CI_3");
+        store.delete(PREFIX + "/CI_13");
+        store.force();
+        assertEquals(18, blobs.getCount());
+        store.drop(PREFIX);
+        assertEquals(0, blobs.getCount());
+        store.close();
+    }
+
+    @Test
+    public void rewritesMostlyDeadBlobs() {
+        BlobStore blobs = new BlobStore(new File(directory, "blobs"), 16, false);
+        SegmentStore store = new SegmentStore(new File(directory, "segments"), blobs);
+        for (int i = 0; i < 2000; i++) {
+            byte[] value = new byte[1024];
+            value[0] = (byte) i;
+            value[1] = (byte) (i >> 8);
+            store.store(contentInstance(PREFIX + "/CI_" + i, value));
+        }
+        long written = blobs.getSize();
+        for (int i = 0; i < 1500; i++) {
+            store.delete(PREFIX + "/CI_" + i);
+        }
+        // Neither released nor rewritten before the deletions are forced
+        assertEquals(written, blobs.getSize());
+        store.force();
+        assertTrue(blobs.getSize() < written / 2);
+        store.close();
+
+        store = open();
+        assertEquals(500, store.findByPrefix(PREFIX).size());
+        assertEquals(1999 >> 8, store.find(PREFIX + "/CI_1999").getContent().getValue()[1]);
+        store.close();
+    }
+}
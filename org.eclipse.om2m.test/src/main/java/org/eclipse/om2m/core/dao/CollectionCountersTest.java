@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.junit.Test;
+
+/**
+ * Checks the in-memory aggregates of the contentInstances collections.
+ */
+public class CollectionCountersTest {
+    private static final String URI = "nscl/applications/app/containers/c/contentInstances";
+
+    private static void store(StorageEngine engine, CollectionCounters counters, int index) {
+        ContentInstance contentInstance = new ContentInstance(new byte[10]);
+        contentInstance.setUri(URI + "/CI_" + index);
+        contentInstance.setContentSize(10L);
+        counters.add(URI, 1, 10);
+        engine.store(contentInstance);
+    }
+
+    @Test
+    public void countsConcurrentWritesAndFlushesThem() throws Exception {
+        final InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        ContentInstances contentInstances = new ContentInstances();
+        contentInstances.setUri(URI);
+        contentInstances.setCurrentNrOfInstances(0L);
+        contentInstances.setCurrentByteSize(0L);
+        engine.store(contentInstances);
+        final CollectionCounters counters = new CollectionCounters(engine);
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            final int offset = t * 1000;
+            writers[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < 250; i++) {
+                        store(engine, counters, offset + i);
+                    }
+                }
+            };
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        ContentInstances read = counters.apply(engine.openSession().find(ContentInstances.class, URI));
+        assertEquals(Long.valueOf(1000), read.getCurrentNrOfInstances());
+        assertEquals(Long.valueOf(10000), read.getCurrentByteSize());
+        assertNotNull(read.getLastModifiedTime());
+        // Parent untouched until flushed
+        assertEquals(Long.valueOf(0), engine.find(ContentInstances.class, URI).getCurrentNrOfInstances());
+
+        counters.add(URI, -1, -10);
+        engine.delete(engine.find(ContentInstance.class, URI + "/CI_0"));
+        counters.flush();
+        assertEquals(Long.valueOf(999), engine.find(ContentInstances.class, URI).getCurrentNrOfInstances());
+        assertEquals(Long.valueOf(9990), engine.find(ContentInstances.class, URI).getCurrentByteSize());
+    }
+
+    @Test
+    public void rebuildsFromStoredInstances() {
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        ContentInstances contentInstances = new ContentInstances();
+        contentInstances.setUri(URI);
+        // Stale aggregates left by a crash before the flush
+        contentInstances.setCurrentNrOfInstances(1L);
+        contentInstances.setCurrentByteSize(10L);
+        engine.store(contentInstances);
+        CollectionCounters counters = new CollectionCounters(engine);
+        for (int i = 0; i < 3; i++) {
+            ContentInstance contentInstance = new ContentInstance(new byte[10]);
+            contentInstance.setUri(URI + "/CI_" + i);
+            contentInstance.setContentSize(10L);
+            engine.store(contentInstance);
+        }
+
+        ContentInstances read = counters.apply(engine.openSession().find(ContentInstances.class, URI));
+        assertEquals(Long.valueOf(3), read.getCurrentNrOfInstances());
+        assertEquals(Long.valueOf(30), read.getCurrentByteSize());
+    }
+
+    @Test
+    public void readsStoredAggregatesAfterCleanShutdown() throws Exception {
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        ContentInstances contentInstances = new ContentInstances();
+        contentInstances.setUri(URI);
+        engine.store(contentInstances);
+        File marker = new File(System.getProperty("java.io.tmpdir"), "om2m-counters-" + System.nanoTime());
+        CollectionCounters counters = new CollectionCounters(engine, marker);
+        for (int i = 0; i < 3; i++) {
+            store(engine, counters, i);
+        }
+        counters.close();
+        // Aggregates not flushed yet
+        assertFalse(marker.exists());
+        counters.loadAll();
+        counters.flush();
+        counters.close();
+        assertTrue(marker.exists());
+
+        // Instance written after the marker: only the stored aggregates are read
+        ContentInstance contentInstance = new ContentInstance(new byte[10]);
+        contentInstance.setUri(URI + "/CI_3");
+        contentInstance.setContentSize(10L);
+        engine.store(contentInstance);
+        counters = new CollectionCounters(engine, marker);
+        assertFalse(marker.exists());
+        ContentInstances read = counters.apply(engine.find(ContentInstances.class, URI));
+        assertEquals(Long.valueOf(3), read.getCurrentNrOfInstances());
+        assertEquals(Long.valueOf(30), read.getCurrentByteSize());
+
+        // Without the marker, the instances are counted and the difference is flushed
+        counters.invalidate(URI);
+        read = counters.apply(engine.find(ContentInstances.class, URI));
+        assertEquals(Long.valueOf(4), read.getCurrentNrOfInstances());
+        counters.close();
+        assertFalse(marker.exists());
+        counters.loadAll();
+        counters.flush();
+        assertEquals(Long.valueOf(40), engine.find(ContentInstances.class, URI).getCurrentByteSize());
+        counters.close();
+        assertTrue(marker.delete());
+    }
+}
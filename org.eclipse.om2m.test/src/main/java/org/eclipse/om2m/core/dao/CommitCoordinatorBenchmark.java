@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.core.dao.CommitCoordinator.Durability;
+
+import com.db4o.Db4oEmbedded;
+import com.db4o.ObjectContainer;
+
+/**
+ * Compares the write throughput of one commit thread per write, as DAO.commit() used to do, with
+ * the {@link CommitCoordinator} durability modes, on an embedded db4o file.
+ * Usage: CommitCoordinatorBenchmark [writers] [writes per writer]
+ */
+public class CommitCoordinatorBenchmark {
+
+    /**
+     * Stores the resources in a db4o file and counts the commits.
+     */
+    private static class Db4oFileEngine extends InMemoryStorageEngine {
+        final ObjectContainer db;
+        final AtomicLong commits = new AtomicLong();
+
+        Db4oFileEngine(File file) {
+            db = Db4oEmbedded.openFile(Db4oEmbedded.newConfiguration(), file.getPath());
+        }
+
+        @Override
+        public void store(Resource resource) {
+            db.store(resource);
+        }
+
+        @Override
+        public void commit() {
+            db.commit();
+            commits.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            db.close();
+        }
+    }
+
+    /**
+     * Writes content instances from concurrent writers and prints the achieved rates.
+     * @param name - scenario name
+     * @param coordinator - coordinator of the engine, or null to start a commit thread per write
+     */
+    private static void run(String name, final Db4oFileEngine engine, final CommitCoordinator coordinator,
+            int writers, final int writes) throws InterruptedException {
+        final List<Thread> commitThreads = new ArrayList<Thread>();
+        List<Thread> writerThreads = new ArrayList<Thread>();
+        long start = System.nanoTime();
+        for (int w = 0; w < writers; w++) {
+            final String uri = "nscl/applications/" + name + "/containers/c" + w + "/contentInstances/";
+            Thread writer = new Thread() {
+                public void run() {
+                    for (int i = 0; i < writes; i++) {
+                        ContentInstance contentInstance = new ContentInstance();
+                        contentInstance.setUri(uri + i);
+                        contentInstance.setContentSize(64L);
+                        engine.store(contentInstance);
+                        if (coordinator != null) {
+                            coordinator.commit();
+                        } else {
+                            Thread commitThread = new Thread() {
+                                public void run() {
+                                    engine.commit();
+                                }
+                            };
+                            synchronized (commitThreads) {
+                                commitThreads.add(commitThread);
+                            }
+                            commitThread.start();
+                        }
+                    }
+                }
+            };
+            writerThreads.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writerThreads) {
+            writer.join();
+        }
+        if (coordinator != null) {
+            coordinator.flush();
+        }
+        for (Thread commitThread : commitThreads) {
+            commitThread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = (long) writers * writes;
+        System.out.println(String.format("%-16s %8d writes %8d commits %10.0f writes/s %10.0f commits/s",
+                name, total, engine.commits.get(), total / seconds, engine.commits.get() / seconds));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int writes = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        String[] names = { "thread-per-write", "sync", "batch", "async" };
+        for (String name : names) {
+            File file = File.createTempFile("om2m-commit-", ".db4o");
+            file.delete();
+            Db4oFileEngine engine = new Db4oFileEngine(file);
+            CommitCoordinator coordinator = null;
+            if (!"thread-per-write".equals(name)) {
+                coordinator = new CommitCoordinator(engine, Durability.fromValue(name), 10, 512);
+            }
+            try {
+                run(name, engine, coordinator, writers, writes);
+            } finally {
+                engine.close();
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.om2m.core.dao.CommitCoordinator.Durability;
+import org.junit.Test;
+
+/**
+ * Checks the grouping of commits under the different durability modes.
+ */
+public class CommitCoordinatorTest {
+
+    /**
+     * Storage counting its commits, each taking a few milliseconds.
+     */
+    private static class SlowCommitEngine extends InMemoryStorageEngine {
+        final AtomicInteger commits = new AtomicInteger();
+
+        @Override
+        public void commit() {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            commits.incrementAndGet();
+        }
+    }
+
+    /**
+     * Storage whose commits fail until told otherwise.
+     */
+    private static class FailingCommitEngine extends SlowCommitEngine {
+        volatile boolean failing = true;
+
+        @Override
+        public void commit() {
+            if (failing) {
+                throw new IllegalStateException("Cannot write the write-ahead log");
+            }
+            super.commit();
+        }
+    }
+
+    /**
+     * Runs concurrent writers requesting a commit, and counts the writers that returned before
+     * their write was committed.
+     */
+    private static int commitConcurrently(final CommitCoordinator coordinator, final SlowCommitEngine engine,
+            int writers) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch end = new CountDownLatch(writers);
+        final AtomicInteger uncommitted = new AtomicInteger();
+        for (int i = 0; i < writers; i++) {
+            new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        coordinator.commit();
+                        if (engine.commits.get() == 0) {
+                            uncommitted.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        end.countDown();
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+        assertTrue(end.await(10, TimeUnit.SECONDS));
+        return uncommitted.get();
+    }
+
+    @Test
+    public void syncCommitsEachWrite() {
+        SlowCommitEngine engine = new SlowCommitEngine();
+        CommitCoordinator coordinator = new CommitCoordinator(engine, Durability.SYNC, 10, 512);
+        for (int i = 0; i < 3; i++) {
+            coordinator.commit();
+        }
+        assertEquals(3, engine.commits.get());
+        assertEquals(3, coordinator.getCommits());
+    }
+
+    @Test
+    public void batchGroupsConcurrentWrites() throws Exception {
+        SlowCommitEngine engine = new SlowCommitEngine();
+        CommitCoordinator coordinator = new CommitCoordinator(engine, Durability.BATCH, 50, 512);
+        assertEquals(0, commitConcurrently(coordinator, engine, 32));
+        assertEquals(32, coordinator.getRequested());
+        assertTrue(engine.commits.get() < 32);
+        assertEquals(engine.commits.get(), coordinator.getCommits());
+    }
+
+    @Test
+    public void asyncCommitsFullBatchesWithoutDelay() throws Exception {
+        SlowCommitEngine engine = new SlowCommitEngine();
+        CommitCoordinator coordinator = new CommitCoordinator(engine, Durability.ASYNC, 60000, 4);
+        for (int i = 0; i < 4; i++) {
+            coordinator.commit();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (engine.commits.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, engine.commits.get());
+    }
+
+    @Test
+    public void asyncCommitsAfterDelay() throws Exception {
+        SlowCommitEngine engine = new SlowCommitEngine();
+        CommitCoordinator coordinator = new CommitCoordinator(engine, Durability.ASYNC, 60000, 512);
+        coordinator.commit();
+        coordinator.commit();
+        assertEquals(0, engine.commits.get());
+        coordinator.flush();
+        assertEquals(1, engine.commits.get());
+    }
+
+    @Test
+    public void syncReportsFailedCommits() {
+        FailingCommitEngine engine = new FailingCommitEngine();
+        CommitCoordinator coordinator = new CommitCoordinator(engine, Durability.SYNC, 10, 512);
+        try {
+            coordinator.commit();
+            fail("Failed commit reported as durable");
+        } catch (IllegalStateException e) {
+            assertEquals(0, coordinator.getCommits());
+        }
+        engine.failing = false;
+        coordinator.commit();
+        assertEquals(1, coordinator.getCommits());
+    }
+
+    @Test
+    public void batchReportsFailedCommitsToWaiters() throws Exception {
+        final FailingCommitEngine engine = new FailingCommitEngine();
+        final CommitCoordinator coordinator = new CommitCoordinator(engine, Durability.BATCH, 50, 512);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch end = new CountDownLatch(8);
+        final AtomicInteger failed = new AtomicInteger();
+        for (int i = 0; i < 8; i++) {
+            new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        coordinator.commit();
+                    } catch (IllegalStateException e) {
+                        failed.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        end.countDown();
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+        assertTrue(end.await(10, TimeUnit.SECONDS));
+        assertEquals(8, failed.get());
+        assertEquals(0, coordinator.getCommits());
+
+        // The failed group is not validated, the next one is
+        engine.failing = false;
+        coordinator.commit();
+        assertEquals(1, coordinator.getCommits());
+        assertEquals(9, coordinator.getRequested());
+    }
+
+    @Test
+    public void asyncReportsFailedCommitsToFlush() {
+        FailingCommitEngine engine = new FailingCommitEngine();
+        CommitCoordinator coordinator = new CommitCoordinator(engine, Durability.ASYNC, 60000, 512);
+        coordinator.commit();
+        try {
+            coordinator.flush();
+            fail("Failed commit reported as durable");
+        } catch (IllegalStateException e) {
+            assertEquals(0, coordinator.getCommits());
+        }
+        engine.failing = false;
+        coordinator.commit();
+        coordinator.flush();
+        assertEquals(1, engine.commits.get());
+    }
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.SearchStrings;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.metrics.StorageMetrics;
+import org.eclipse.om2m.core.router.SubtreeLockManager;
+import org.junit.Test;
+
+/**
+ * Checks that online compaction keeps the resources written while it runs.
+ */
+public class Db4oCompactorTest {
+    private static final String PREFIX = "nscl/applications/app/containers/c/contentInstances/";
+
+    private static void write(StorageEngine engine, String uri, boolean delete) {
+        SubtreeLockManager.getInstance().lockShared(uri);
+        try {
+            if (delete) {
+                engine.delete(engine.find(ContentInstance.class, uri));
+            } else {
+                ContentInstance contentInstance = new ContentInstance();
+                contentInstance.setUri(uri);
+                engine.store(contentInstance);
+            }
+        } finally {
+            SubtreeLockManager.getInstance().unlockShared(uri);
+        }
+        // Committed like the DAO writes, the compaction captures the uris once committed
+        CommitCoordinator.getInstance().commit();
+    }
+
+    @Test
+    public void keepsConcurrentWrites() throws Exception {
+        final Db4oStorageEngine engine = new Db4oStorageEngine();
+        try {
+            engine.clear();
+            for (int i = 0; i < 2000; i++) {
+                write(engine, PREFIX + i, false);
+            }
+            for (int i = 0; i < 1000; i++) {
+                write(engine, PREFIX + i, true);
+            }
+            CommitCoordinator.getInstance().flush();
+
+            final AtomicBoolean compacting = new AtomicBoolean(true);
+            final AtomicInteger written = new AtomicInteger();
+            Thread writer = new Thread() {
+                public void run() {
+                    while (compacting.get()) {
+                        write(engine, PREFIX + "new" + written.getAndIncrement(), false);
+                        try {
+                            Thread.sleep(1);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            };
+            writer.start();
+            long pause = new Db4oCompactor(engine, Constants.DB_FILE).compact();
+            compacting.set(false);
+            writer.join();
+
+            assertTrue(pause >= 0);
+            assertEquals(pause / 1000, StorageMetrics.getInstance().getLastCompactionPause());
+            assertNull(engine.find(ContentInstance.class, PREFIX + 0));
+            assertNotNull(engine.find(ContentInstance.class, PREFIX + 1999));
+            for (int i = 0; i < written.get(); i++) {
+                assertNotNull(engine.find(ContentInstance.class, PREFIX + "new" + i));
+            }
+            assertEquals(1000 + written.get(), engine.findByPrefix(ContentInstance.class, PREFIX).size());
+        } finally {
+            engine.clear();
+            engine.commit();
+        }
+    }
+
+    @Test
+    public void copiesWholeResources() {
+        Db4oStorageEngine engine = new Db4oStorageEngine();
+        try {
+            engine.clear();
+            Container container = new Container();
+            container.setUri("nscl/applications/app/containers/c");
+            SearchStrings searchStrings = new SearchStrings();
+            searchStrings.getSearchString().add("Type/sensor");
+            container.setSearchStrings(searchStrings);
+            engine.store(container);
+            engine.commit();
+
+            // The database activates the resources it copies to the ACCESS depth only
+            assertTrue(new Db4oCompactor(engine, Constants.DB_FILE).compact() >= 0);
+            container = engine.find(Container.class, "nscl/applications/app/containers/c");
+            assertEquals("Type/sensor", container.getSearchStrings().getSearchString().get(0));
+        } finally {
+            engine.clear();
+            engine.commit();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.AnnounceTo;
+import org.eclipse.om2m.commons.resource.AnyURIList;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.resource.SearchStrings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the db4o lookups load the projection they ask for.
+ */
+public class Db4oStorageEngineTest {
+    private static final String URI = "nscl/applications/app/containers/";
+    private File file;
+
+    private static Container container(String id) {
+        Container container = new Container();
+        container.setUri(URI + id);
+        container.setId(id);
+        container.setAccessRightID("nscl/accessRights/AR_ADMIN");
+        SearchStrings searchStrings = new SearchStrings();
+        searchStrings.getSearchString().add("Type/sensor");
+        container.setSearchStrings(searchStrings);
+        AnnounceTo announceTo = new AnnounceTo();
+        AnyURIList sclList = new AnyURIList();
+        sclList.getReference().add("nscl/scls/gscl");
+        announceTo.setSclList(sclList);
+        container.setAnnounceTo(announceTo);
+        return container;
+    }
+
+    private static ContentInstance contentInstance(String name, String creationTime) {
+        ContentInstance contentInstance = new ContentInstance();
+        contentInstance.setUri(URI + "c/contentInstances/" + name);
+        contentInstance.setId(name);
+        contentInstance.setCreationTime(creationTime);
+        return contentInstance;
+    }
+
+    /** Reopens the file, so that the lookups read the resources from it. */
+    private Db4oStorageEngine reopen(Db4oStorageEngine engine) {
+        engine.commit();
+        engine.close();
+        return new Db4oStorageEngine(file);
+    }
+
+    @Before
+    public void createFile() {
+        file = new File(System.getProperty("java.io.tmpdir"), "om2m-db4o-" + System.nanoTime());
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void activatesDownToTheProjection() {
+        Db4oStorageEngine engine = new Db4oStorageEngine(file);
+        engine.store(container("c"));
+        engine = reopen(engine);
+        try {
+            Container container = engine.find(Container.class, URI + "c", Projection.ACCESS);
+            assertEquals("nscl/accessRights/AR_ADMIN", container.getAccessRightID());
+            assertTrue(container.getSearchStrings().getSearchString().isEmpty());
+
+            assertEquals(container, engine.find(Container.class, URI + "c", Projection.SUMMARY));
+            assertEquals(Arrays.asList("Type/sensor"), container.getSearchStrings().getSearchString());
+            assertTrue(container.getAnnounceTo().getSclList().getReference().isEmpty());
+
+            assertEquals(container, engine.find(Container.class, URI + "c"));
+            assertEquals(Arrays.asList("nscl/scls/gscl"), container.getAnnounceTo().getSclList().getReference());
+            assertNull(engine.find(Container.class, URI + "d", Projection.ACCESS));
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    public void keepsUnloadedMembersOfProjectedResources() {
+        Db4oStorageEngine engine = new Db4oStorageEngine(file);
+        for (int i = 0; i < 3; i++) {
+            engine.store(container("c" + i));
+        }
+        engine = reopen(engine);
+        try {
+            StorageSession session = engine.openSession();
+            List<Container> containers = session.findByPrefix(Container.class, URI, Projection.ACCESS);
+            session.close();
+            assertEquals(3, containers.size());
+            assertEquals("c2", containers.get(2).getId());
+
+            // Deletions cascade and updates leave the members that were not loaded as they are
+            Container container = engine.find(Container.class, URI + "c0", Projection.ACCESS);
+            engine.delete(container);
+            container = engine.find(Container.class, URI + "c1", Projection.ACCESS);
+            container.setAccessRightID("nscl/accessRights/AR_OTHER");
+            engine.store(container);
+            engine = reopen(engine);
+
+            assertNull(engine.find(Container.class, URI + "c0"));
+            container = engine.find(Container.class, URI + "c1");
+            assertEquals("nscl/accessRights/AR_OTHER", container.getAccessRightID());
+            assertEquals(Arrays.asList("Type/sensor"), container.getSearchStrings().getSearchString());
+            assertFalse(container.getAnnounceTo().getSclList().getReference().isEmpty());
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    public void findsOldestAndLatestInCreationOrder() {
+        String collection = URI + "c/contentInstances";
+        Db4oStorageEngine engine = new Db4oStorageEngine(file);
+        ContentInstances contentInstances = new ContentInstances();
+        contentInstances.setUri(collection);
+        engine.store(contentInstances);
+        engine.store(contentInstance("z", "2014-01-01T00:00:02.000+01:00"));
+        engine.store(contentInstance("a", "2014-01-01T00:00:01.000+01:00"));
+        engine.store(contentInstance("m", "2014-01-01T00:00:03.000+01:00"));
+        engine.store(contentInstance("b", "2014-01-01T00:00:03.000+01:00"));
+        engine = reopen(engine);
+        try {
+            // Loaded in the order of the creation times, then of the stores
+            assertEquals(collection + "/a", engine.findOldest(ContentInstance.class, collection).getUri());
+            assertEquals(collection + "/b", engine.findLatest(ContentInstance.class, collection).getUri());
+            List<ContentInstance> oldest = engine.findOldest(ContentInstance.class, collection, 3);
+            assertEquals(3, oldest.size());
+            assertEquals(collection + "/z", oldest.get(1).getUri());
+            assertEquals(collection + "/m", oldest.get(2).getUri());
+
+            // Kept up to date by the writes once loaded
+            engine.delete(engine.find(ContentInstance.class, collection + "/a"));
+            engine.store(contentInstance("c", "2014-01-01T00:00:04.000+01:00"));
+            assertEquals(collection + "/z", engine.findOldest(ContentInstance.class, collection).getUri());
+            assertEquals(collection + "/c", engine.findLatest(ContentInstance.class, collection).getUri());
+            assertEquals(2, engine.deleteOldest(ContentInstance.class, collection, 2));
+            engine = reopen(engine);
+
+            assertEquals(collection + "/b", engine.findOldest(ContentInstance.class, collection).getUri());
+            assertEquals(collection + "/c", engine.findLatest(ContentInstance.class, collection).getUri());
+            engine.deleteSubtree(URI + "c");
+            assertNull(engine.findLatest(ContentInstance.class, collection));
+        } finally {
+            engine.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.Containers;
+import org.eclipse.om2m.commons.resource.ReferenceToNamedResource;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.junit.Test;
+
+/**
+ * Checks the lookups and the session isolation of the in-memory storage engine.
+ */
+public class InMemoryStorageEngineTest {
+
+    private static ContentInstance contentInstance(String uri) {
+        ContentInstance contentInstance = new ContentInstance();
+        contentInstance.setUri(uri);
+        return contentInstance;
+    }
+
+    @Test
+    public void findsByUriAndType() {
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        Container container = new Container();
+        container.setUri("nscl/applications/app/containers/c");
+        engine.store(container);
+
+        assertSame(container, engine.find(Container.class, "nscl/applications/app/containers/c"));
+        assertSame(container, engine.find(Resource.class, "nscl/applications/app/containers/c"));
+        assertNull(engine.find(Containers.class, "nscl/applications/app/containers/c"));
+        assertNull(engine.find(Container.class, "nscl/applications/app/containers"));
+
+        engine.delete(container);
+        assertNull(engine.find(Container.class, "nscl/applications/app/containers/c"));
+    }
+
+    @Test
+    public void scansPrefixInCreationOrder() {
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        String prefix = "nscl/applications/app/containers/c/contentInstances";
+        engine.store(contentInstance(prefix + "/z"));
+        engine.store(contentInstance(prefix + "/a"));
+        ContentInstance m = contentInstance(prefix + "/m");
+        engine.store(m);
+        engine.store(contentInstance("nscl/applications/app/containers/d/contentInstances/b"));
+        Containers containers = new Containers();
+        containers.setUri("nscl/applications/app/containers");
+        engine.store(containers);
+        // Updates keep the creation order
+        engine.store(m);
+
+        List<ContentInstance> result = engine.findByPrefix(ContentInstance.class, prefix);
+        assertEquals(3, result.size());
+        assertEquals(prefix + "/z", result.get(0).getUri());
+        assertEquals(prefix + "/a", result.get(1).getUri());
+        assertEquals(prefix + "/m", result.get(2).getUri());
+        assertEquals(4, engine.findByPrefix(ContentInstance.class, "nscl/applications/app").size());
+        assertEquals(prefix + "/z", engine.findOldest(ContentInstance.class, prefix).getUri());
+        assertEquals(prefix + "/m", engine.findLatest(ContentInstance.class, prefix).getUri());
+        assertNull(engine.findLatest(ContentInstance.class, prefix + "/x"));
+        assertEquals(5, engine.findByPrefix(Resource.class, "").size());
+    }
+
+    @Test
+    public void linksInstancesInCreationOrder() {
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        String prefix = "nscl/applications/app/containers/c/contentInstances";
+        for (String name : new String[] {"z", "a", "m", "b"}) {
+            engine.store(contentInstance(prefix + "/" + name));
+        }
+        engine.delete(engine.find(ContentInstance.class, prefix + "/z"));
+        engine.delete(engine.find(ContentInstance.class, prefix + "/b"));
+        engine.store(engine.find(ContentInstance.class, prefix + "/a"));
+
+        assertEquals(prefix + "/a", engine.findOldest(ContentInstance.class, prefix).getUri());
+        assertEquals(prefix + "/m", engine.findLatest(ContentInstance.class, prefix).getUri());
+        engine.store(contentInstance(prefix + "/c"));
+        assertEquals(prefix + "/c", engine.findLatest(Resource.class, prefix).getUri());
+        List<ContentInstance> oldest = engine.findOldest(ContentInstance.class, prefix, 2);
+        assertEquals(2, oldest.size());
+        assertEquals(prefix + "/m", oldest.get(1).getUri());
+
+        assertEquals(2, engine.deleteOldest(ContentInstance.class, prefix, 2));
+        assertEquals(prefix + "/c", engine.findOldest(ContentInstance.class, prefix).getUri());
+        engine.deleteSubtree("nscl/applications/app/containers/c");
+        assertNull(engine.findOldest(ContentInstance.class, prefix));
+        assertNull(engine.findLatest(ContentInstance.class, prefix));
+    }
+
+    @Test
+    public void reindexesMovedResources() {
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        ContentInstance contentInstance = contentInstance("nscl/ci/old");
+        engine.store(contentInstance);
+        contentInstance.setUri("nscl/ci/new");
+        engine.store(contentInstance);
+
+        assertNull(engine.find(ContentInstance.class, "nscl/ci/old"));
+        assertSame(contentInstance, engine.find(ContentInstance.class, "nscl/ci/new"));
+        assertEquals(1, engine.findByPrefix(ContentInstance.class, "nscl/ci").size());
+    }
+
+    @Test
+    public void isolatesSessionCopies() {
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        Containers containers = new Containers();
+        containers.setUri("nscl/applications/app/containers");
+        containers.setCreationTime("2014-01-01T00:00:00.000+01:00");
+        ReferenceToNamedResource reference = new ReferenceToNamedResource();
+        reference.setId("c");
+        reference.setValue("nscl/applications/app/containers/c");
+        containers.getContainerCollection().getNamedReference().add(reference);
+        engine.store(containers);
+
+        Containers copy = engine.openSession().find(Containers.class, "nscl/applications/app/containers");
+        assertNotSame(containers, copy);
+        assertEquals("2014-01-01T00:00:00.000+01:00", copy.getCreationTime());
+        assertEquals("c", copy.getContainerCollection().getNamedReference().get(0).getId());
+        assertNotSame(reference, copy.getContainerCollection().getNamedReference().get(0));
+
+        copy.getContainerCollection().getNamedReference().clear();
+        assertEquals(1, containers.getContainerCollection().getNamedReference().size());
+        assertSame(containers, engine.find(Containers.class, "nscl/applications/app/containers"));
+    }
+}
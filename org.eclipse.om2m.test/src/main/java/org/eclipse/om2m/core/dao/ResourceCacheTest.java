@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.commons.utils.ResourceCopier;
+import org.junit.Test;
+
+/**
+ * Checks the read-through resource cache and its invalidations.
+ */
+public class ResourceCacheTest {
+    private static final String APP = "nscl/applications/app";
+
+    private static <T extends Resource> T resource(T resource, String uri) {
+        resource.setUri(uri);
+        return resource;
+    }
+
+    @Test
+    public void readsThroughUntilStored() {
+        InMemoryStorageEngine memory = new InMemoryStorageEngine();
+        ResourceCache cache = new ResourceCache(100, Long.MAX_VALUE);
+        CachingStorageEngine engine = new CachingStorageEngine(memory, cache);
+        Application application = resource(new Application(), APP);
+        engine.store(application);
+
+        assertSame(application, engine.find(Application.class, APP));
+        assertSame(application, engine.find(Resource.class, APP));
+        assertNull(engine.find(Container.class, APP));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        Application updated = resource(new Application(), APP);
+        engine.store(updated);
+        assertSame(updated, engine.find(Application.class, APP));
+        engine.delete(updated);
+        assertNull(engine.find(Application.class, APP));
+        assertEquals(2, cache.getInvalidations());
+        assertNull(cache.get(Application.class, null));
+    }
+
+    @Test
+    public void invalidatesSubtrees() {
+        ResourceCache cache = new ResourceCache(100, Long.MAX_VALUE);
+        CachingStorageEngine engine = new CachingStorageEngine(new InMemoryStorageEngine(), cache);
+        engine.store(resource(new Application(), APP));
+        engine.store(resource(new Application(), APP + "2"));
+        engine.store(resource(new Container(), APP + "/containers/c"));
+        engine.find(Application.class, APP);
+        engine.find(Application.class, APP + "2");
+        engine.find(Container.class, APP + "/containers/c");
+        assertEquals(3, cache.getSize());
+
+        engine.deleteSubtree(APP);
+        assertEquals(1, cache.getSize());
+        assertNull(engine.find(Container.class, APP + "/containers/c"));
+        assertSame(cache.get(Application.class, APP + "2"), engine.find(Application.class, APP + "2"));
+    }
+
+    @Test
+    public void ignoresResourcesLoadedBeforeAnInvalidation() {
+        ResourceCache cache = new ResourceCache(100, Long.MAX_VALUE);
+        Application application = resource(new Application(), APP);
+        long version = cache.version();
+        cache.invalidate(APP);
+        cache.put(application, version);
+        assertNull(cache.get(Application.class, APP));
+        cache.put(application, cache.version());
+        assertSame(application, cache.get(Application.class, APP));
+    }
+
+    @Test
+    public void evictsBeyondSizeAndWeight() {
+        ResourceCache bySize = new ResourceCache(10, Long.MAX_VALUE);
+        for (int i = 0; i < 50; i++) {
+            bySize.put(resource(new Application(), APP + i), bySize.version());
+        }
+        assertEquals(10, bySize.getSize());
+        assertEquals(40, bySize.getEvictions());
+
+        long weight = ResourceCopier.weigh(resource(new Application(), APP + 10));
+        ResourceCache byWeight = new ResourceCache(100, weight * 5);
+        for (int i = 10; i < 60; i++) {
+            byWeight.put(resource(new Application(), APP + i), byWeight.version());
+        }
+        assertTrue(byWeight.getWeight() <= weight * 5);
+        assertEquals(5, byWeight.getSize());
+    }
+}
@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.resource.ContentTypes;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the contentInstance segments, their recovery and their routing by the storage engine.
+ */
+public class SegmentStoreTest {
+    private static final String PREFIX = "nscl/applications/app/containers/c/contentInstances";
+
+    private File directory;
+
+    private static ContentInstance contentInstance(String uri, byte[] value) {
+        ContentInstance contentInstance = new ContentInstance(value);
+        contentInstance.setUri(uri);
+        contentInstance.setId(uri.substring(uri.lastIndexOf('/') + 1));
+        contentInstance.setContentSize((long) value.length);
+        return contentInstance;
+    }
+
+    @Before
+    public void createDirectory() {
+        directory = new File(System.getProperty("java.io.tmpdir"), "om2m-segments-" + System.nanoTime());
+    }
+
+    @After
+    public void deleteDirectory() {
+        File[] files = directory.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            files[i].delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void recoversAfterReopening() throws Exception {
+        SegmentStore store = new SegmentStore(directory);
+        ContentInstance first = contentInstance(PREFIX + "/CI_1", "21".getBytes());
+        first.setContentTypes(new ContentTypes());
+        first.getContentTypes().getContentType().add("text/plain");
+        store.store(first);
+        store.store(contentInstance(PREFIX + "/CI_2", "22".getBytes()));
+        store.store(contentInstance(PREFIX + "/CI_3", "23".getBytes()));
+        store.delete(PREFIX + "/CI_2");
+        // Updates keep the creation order
+        store.store(contentInstance(PREFIX + "/CI_1", "24".getBytes()));
+        store.force();
+        store.close();
+        // Torn record left by a crash
+        FileOutputStream out = new FileOutputStream(directory.listFiles()[0], true);
+        out.write(new byte[] {0, 0, 1, 0, 1});
+        out.close();
+
+        store = new SegmentStore(directory);
+        List<ContentInstance> result = store.findByPrefix(PREFIX);
+        assertEquals(2, result.size());
+        assertEquals(PREFIX + "/CI_1", result.get(0).getUri());
+        assertArrayEquals("24".getBytes(), result.get(0).getContent().getValue());
+        assertEquals(Long.valueOf(2), result.get(0).getContentSize());
+        assertEquals(PREFIX + "/CI_3", result.get(1).getUri());
+        assertNull(store.find(PREFIX + "/CI_2"));
+        assertEquals(1, store.findByPrefix(PREFIX + "/CI_3").size());
+        // Appends after the recovered records
+        store.store(contentInstance(PREFIX + "/CI_4", "25".getBytes()));
+        assertEquals(3, store.findByPrefix("nscl/applications/app").size());
+        store.close();
+    }
+
+    @Test
+    public void truncatesAtCorruptedRecord() throws Exception {
+        SegmentStore store = new SegmentStore(directory);
+        for (int i = 1; i <= 3; i++) {
+            store.store(contentInstance(PREFIX + "/CI_" + i, ("value " + i).getBytes()));
+        }
+        store.force();
+        store.close();
+        // Complete record whose content was damaged on the disk
+        File file = directory.listFiles()[0];
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int damaged = new String(bytes, "ISO-8859-1").indexOf("value 2");
+        bytes[damaged] = 'V';
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(bytes);
+        out.close();
+
+        store = new SegmentStore(directory);
+        List<ContentInstance> result = store.findByPrefix(PREFIX);
+        assertEquals(1, result.size());
+        assertEquals(PREFIX + "/CI_1", result.get(0).getUri());
+        assertTrue(file.length() < damaged);
+        store.store(contentInstance(PREFIX + "/CI_4", "value 4".getBytes()));
+        store.close();
+
+        store = new SegmentStore(directory);
+        assertEquals(PREFIX + "/CI_4", store.findLatest(PREFIX).getUri());
+        assertEquals(2, store.findByPrefix(PREFIX).size());
+        store.close();
+    }
+
+    @Test
+    public void findsOldestAndLatestInCreationOrder() {
+        SegmentStore store = new SegmentStore(directory);
+        assertNull(store.findLatest(PREFIX));
+        store.store(contentInstance(PREFIX + "/z", "1".getBytes()));
+        store.store(contentInstance(PREFIX + "/a", "2".getBytes()));
+        store.store(contentInstance(PREFIX + "/m", "3".getBytes()));
+        store.store(contentInstance(PREFIX + "/b", "4".getBytes()));
+        // Updates keep the creation order
+        store.store(contentInstance(PREFIX + "/z", "5".getBytes()));
+        assertEquals(PREFIX + "/z", store.findOldest(PREFIX).getUri());
+        assertArrayEquals("5".getBytes(), store.findOldest(PREFIX).getContent().getValue());
+        assertEquals(PREFIX + "/b", store.findLatest(PREFIX).getUri());
+
+        store.delete(PREFIX + "/z");
+        store.delete(PREFIX + "/b");
+        assertEquals(PREFIX + "/a", store.findOldest(PREFIX).getUri());
+        assertEquals(PREFIX + "/m", store.findLatest(PREFIX).getUri());
+        store.close();
+
+        store = new SegmentStore(directory);
+        assertEquals(PREFIX + "/a", store.findOldest(PREFIX).getUri());
+        assertEquals(PREFIX + "/m", store.findLatest(PREFIX).getUri());
+        store.delete(PREFIX + "/a");
+        store.delete(PREFIX + "/m");
+        assertNull(store.findOldest(PREFIX));
+        assertNull(store.findLatest(PREFIX));
+        store.close();
+    }
+
+    @Test
+    public void rewritesMostlyDeadSegments() {
+        SegmentStore store = new SegmentStore(directory);
+        for (int i = 0; i < 2000; i++) {
+            store.store(contentInstance(PREFIX + "/CI_" + i, new byte[1024]));
+        }
+        long written = directory.listFiles()[0].length();
+        for (int i = 0; i < 1500; i++) {
+            store.delete(PREFIX + "/CI_" + i);
+        }
+        assertTrue(directory.listFiles()[0].length() < written / 2);
+        store.close();
+
+        store = new SegmentStore(directory);
+        List<ContentInstance> result = store.findByPrefix(PREFIX);
+        assertEquals(500, result.size());
+        assertEquals(PREFIX + "/CI_1500", result.get(0).getUri());
+        assertEquals(PREFIX + "/CI_1999", result.get(499).getUri());
+        store.close();
+    }
+
+    @Test
+    public void readsRecordsAcrossFileWindows() {
+        // Windows far smaller than the file and than some records
+        SegmentStore store = new SegmentStore(directory, null, new Segment.OpenFiles(16, 4096));
+        for (int i = 0; i < 200; i++) {
+            byte[] value = new byte[i % 50 == 0 ? 10000 : 1000];
+            value[value.length - 1] = (byte) i;
+            store.store(contentInstance(PREFIX + "/CI_" + i, value));
+        }
+        assertEquals((byte) 199, store.findLatest(PREFIX).getContent().getValue()[999]);
+        store.close();
+
+        store = new SegmentStore(directory, null, new Segment.OpenFiles(16, 4096));
+        List<ContentInstance> result = store.findByPrefix(PREFIX);
+        assertEquals(200, result.size());
+        for (int i = 0; i < 200; i++) {
+            byte[] value = result.get(i).getContent().getValue();
+            assertEquals(i % 50 == 0 ? 10000 : 1000, value.length);
+            assertEquals((byte) i, value[value.length - 1]);
+        }
+        store.close();
+    }
+
+    @Test
+    public void closesLeastRecentlyUsedSegmentFiles() {
+        SegmentStore store = new SegmentStore(directory, null, 4);
+        for (int i = 0; i < 20; i++) {
+            store.store(contentInstance(PREFIX + i + "/CI_1", ("" + i).getBytes()));
+            assertTrue(store.countOpenFiles() <= 5);
+        }
+        // Closed segments are opened again when read
+        for (int i = 0; i < 20; i++) {
+            assertArrayEquals(("" + i).getBytes(), store.find(PREFIX + i + "/CI_1").getContent().getValue());
+        }
+        store.store(contentInstance(PREFIX + "0/CI_2", "a".getBytes()));
+        store.force();
+        assertTrue(store.countOpenFiles() <= 5);
+        store.close();
+
+        store = new SegmentStore(directory, null, 4);
+        assertEquals(21, store.findByPrefix(PREFIX).size());
+        assertTrue(store.countOpenFiles() <= 5);
+        store.close();
+    }
+
+    @Test
+    public void archivesOldestInstancesTransparently() {
+        SegmentStore store = new SegmentStore(directory);
+        for (int i = 0; i < 300; i++) {
+            store.store(contentInstance(PREFIX + "/CI_" + i, ("value " + i).getBytes()));
+        }
+        assertEquals(200, store.archive(PREFIX, 200));
+        assertEquals(100, store.countHot(PREFIX));
+        assertEquals(PREFIX + "/CI_200", store.findHot(PREFIX, 0).getUri());
+        assertArrayEquals("value 5".getBytes(), store.find(PREFIX + "/CI_5").getContent().getValue());
+        List<ContentInstance> result = store.findByPrefix(PREFIX);
+        assertEquals(300, result.size());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(PREFIX + "/CI_" + i, result.get(i).getUri());
+        }
+        assertEquals(PREFIX + "/CI_0", store.findOldest(PREFIX).getUri());
+        assertEquals(PREFIX + "/CI_299", store.findLatest(PREFIX).getUri());
+
+        assertTrue(store.delete(PREFIX + "/CI_0"));
+        assertNull(store.find(PREFIX + "/CI_0"));
+        assertEquals(PREFIX + "/CI_1", store.findOldest(PREFIX).getUri());
+        store.force();
+        store.close();
+
+        store = new SegmentStore(directory);
+        assertEquals(299, store.findByPrefix(PREFIX).size());
+        assertEquals(PREFIX + "/CI_1", store.findOldest(PREFIX).getUri());
+        for (int i = 1; i < 200; i++) {
+            assertTrue(store.delete(PREFIX + "/CI_" + i));
+        }
+        // Archives are deleted with their last instance
+        assertEquals(1, directory.listFiles().length);
+        assertEquals(PREFIX + "/CI_200", store.findOldest(PREFIX).getUri());
+        store.drop(PREFIX);
+        assertEquals(0, directory.listFiles().length);
+        store.close();
+    }
+
+    @Test
+    public void deletesOldestInstancesAtOnce() {
+        SegmentStore store = new SegmentStore(directory);
+        for (int i = 0; i < 30; i++) {
+            store.store(contentInstance(PREFIX + "/CI_" + i, ("value " + i).getBytes()));
+        }
+        assertEquals(10, store.archive(PREFIX, 10));
+        store.delete(PREFIX + "/CI_3");
+        List<ContentInstance> oldest = store.findOldest(PREFIX, 12);
+        assertEquals(12, oldest.size());
+        assertEquals(PREFIX + "/CI_4", oldest.get(3).getUri());
+        assertEquals(PREFIX + "/CI_12", oldest.get(11).getUri());
+
+        // Archived instances first, then a single segment record
+        assertEquals(12, store.deleteOldest(PREFIX, 12));
+        assertEquals(PREFIX + "/CI_13", store.findOldest(PREFIX).getUri());
+        assertEquals(17, store.findByPrefix(PREFIX).size());
+        store.force();
+        store.close();
+
+        store = new SegmentStore(directory);
+        assertEquals(17, store.findByPrefix(PREFIX).size());
+        assertEquals(PREFIX + "/CI_13", store.findOldest(PREFIX).getUri());
+        assertEquals(17, store.deleteOldest(PREFIX, 100));
+        assertNull(store.findLatest(PREFIX));
+        store.close();
+    }
+
+    @Test
+    public void countsFromIndexesAcrossArchives() {
+        SegmentStore store = new SegmentStore(directory);
+        long bytes = 0;
+        for (int i = 0; i < 30; i++) {
+            byte[] value = ("value " + i).getBytes();
+            store.store(contentInstance(PREFIX + "/CI_" + i, value));
+            bytes += value.length;
+        }
+        assertEquals(10, store.archive(PREFIX, 10));
+        store.delete(PREFIX + "/CI_3");
+        store.delete(PREFIX + "/CI_20");
+        bytes -= "value 3".length() + "value 20".length();
+        assertArrayEquals(new long[] {28, bytes}, store.count(PREFIX));
+        store.force();
+        store.close();
+
+        store = new SegmentStore(directory);
+        assertArrayEquals(new long[] {28, bytes}, store.count(PREFIX));
+        assertArrayEquals(new long[] {0, 0}, store.count(PREFIX + "2"));
+        store.close();
+    }
+
+    @Test
+    public void completesInterruptedArchiving() throws Exception {
+        SegmentStore store = new SegmentStore(directory);
+        for (int i = 0; i < 10; i++) {
+            store.store(contentInstance(PREFIX + "/CI_" + i, new byte[] {(byte) i}));
+        }
+        store.force();
+        File segment = directory.listFiles()[0];
+        byte[] written = Files.readAllBytes(segment.toPath());
+        store.archive(PREFIX, 4);
+        store.close();
+        // Segment left as before the archiving
+        FileOutputStream out = new FileOutputStream(segment);
+        out.write(written);
+        out.close();
+
+        store = new SegmentStore(directory);
+        List<ContentInstance> result = store.findByPrefix(PREFIX);
+        assertEquals(10, result.size());
+        assertEquals(PREFIX + "/CI_4", result.get(4).getUri());
+        assertEquals(6, store.countHot(PREFIX));
+        store.close();
+    }
+
+    @Test
+    public void routesContentInstancesToSegments() {
+        InMemoryStorageEngine memory = new InMemoryStorageEngine();
+        SegmentedStorageEngine engine = new SegmentedStorageEngine(memory, new SegmentStore(directory));
+        Container container = new Container();
+        container.setUri("nscl/applications/app/containers/c");
+        engine.store(container);
+        ContentInstances contentInstances = new ContentInstances();
+        contentInstances.setUri(PREFIX);
+        engine.store(contentInstances);
+        engine.store(contentInstance(PREFIX + "/CI_1", "21".getBytes()));
+
+        assertNull(memory.find(ContentInstance.class, PREFIX + "/CI_1"));
+        assertEquals(PREFIX + "/CI_1", engine.find(ContentInstance.class, PREFIX + "/CI_1").getUri());
+        assertEquals(PREFIX + "/CI_1", engine.find(Resource.class, PREFIX + "/CI_1").getUri());
+        assertEquals(3, engine.openSession().findByPrefix(Resource.class, "nscl/applications/app").size());
+
+        engine.delete(contentInstances);
+        assertNull(engine.find(ContentInstance.class, PREFIX + "/CI_1"));
+        assertEquals(0, directory.listFiles().length);
+        engine.close();
+    }
+
+    @Test
+    public void movesExistingInstancesToSegments() {
+        // Database written before the segments
+        InMemoryStorageEngine memory = new InMemoryStorageEngine();
+        ContentInstances contentInstances = new ContentInstances();
+        contentInstances.setUri(PREFIX);
+        memory.store(contentInstances);
+        memory.store(contentInstance(PREFIX + "/CI_2", "21".getBytes()));
+        memory.store(contentInstance(PREFIX + "/CI_1", "22".getBytes()));
+        memory.store(contentInstance(PREFIX + "/CI_3", "23".getBytes()));
+
+        SegmentedStorageEngine engine = new SegmentedStorageEngine(memory, new SegmentStore(directory));
+        assertTrue(memory.findByPrefix(ContentInstance.class, PREFIX + "/").isEmpty());
+        assertEquals(3, engine.findByPrefix(ContentInstance.class, PREFIX + "/").size());
+        assertEquals(PREFIX + "/CI_2", engine.findOldest(ContentInstance.class, PREFIX).getUri());
+        assertEquals(PREFIX + "/CI_3", engine.findLatest(ContentInstance.class, PREFIX).getUri());
+        // The collection aggregates are rebuilt from the moved instances
+        ContentInstances counted = new CollectionCounters(engine).apply(engine.find(ContentInstances.class, PREFIX));
+        assertEquals(Long.valueOf(3), counted.getCurrentNrOfInstances());
+        assertEquals(Long.valueOf(6), counted.getCurrentByteSize());
+        engine.close();
+    }
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+
+/**
+ * Retrieves a contentInstances collection from the shared storage engine within requests, as the
+ * router does, and checks that the heap used after a full GC stays flat.
+ * Usage: SessionManagerSoak [retrievals] [allowed heap growth in MB]
+ */
+public class SessionManagerSoak {
+    private static final String URI = "nscl/applications/soak/containers/c/contentInstances";
+    /** Number of heap samples */
+    private static final int SAMPLES = 10;
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int retrievals = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        long allowed = (args.length > 1 ? Long.parseLong(args[1]) : 16) << 20;
+
+        DAO<ContentInstances> dao = DAOFactory.getContentInstancesDAO();
+        DAO.DB.deleteSubtree("nscl/applications/soak");
+        ContentInstances contentInstances = new ContentInstances();
+        contentInstances.setUri(URI);
+        dao.create(contentInstances);
+        for (int i = 0; i < 10; i++) {
+            ContentInstance contentInstance = new ContentInstance();
+            contentInstance.setUri(URI + "/CI_" + i);
+            contentInstance.setContentSize(64L);
+            CollectionCounters.getInstance().add(URI, 1, 64);
+            DAO.DB.store(contentInstance);
+        }
+        dao.commit();
+        CommitCoordinator.getInstance().flush();
+
+        SessionManager manager = SessionManager.getInstance();
+        long baseline = 0;
+        long last = 0;
+        long start = System.nanoTime();
+        for (int sample = 0; sample <= SAMPLES; sample++) {
+            for (int i = 0; i < retrievals / SAMPLES && sample > 0; i++) {
+                manager.begin();
+                try {
+                    if (dao.find(URI).getContentInstanceCollection().getContentInstance().size() != 10) {
+                        throw new IllegalStateException("Unexpected collection content");
+                    }
+                } finally {
+                    manager.end();
+                }
+            }
+            last = usedHeap();
+            if (sample == 0) {
+                baseline = last;
+            }
+            System.out.println((long) sample * (retrievals / SAMPLES) + " retrievals: " + (last >> 10) + " kB used, "
+                    + manager.getOpenSessions() + " open sessions, " + manager.getLeakedSessions() + " leaked");
+        }
+        System.out.println(retrievals + " retrievals in " + (System.nanoTime() - start) / 1000000 + " ms");
+        DAO.DB.deleteSubtree("nscl/applications/soak");
+        if (last - baseline > allowed || manager.getOpenSessions() > 0) {
+            System.out.println("FAILED: heap grew by " + ((last - baseline) >> 10) + " kB");
+            System.exit(1);
+        }
+        System.out.println("OK: heap grew by " + ((last - baseline) >> 10) + " kB");
+        System.exit(0);
+    }
+}
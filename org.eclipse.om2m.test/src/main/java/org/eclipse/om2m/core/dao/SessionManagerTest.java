@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.junit.Test;
+
+/**
+ * Checks that the read sessions are closed by their users, their request, or the leak detection.
+ */
+public class SessionManagerTest {
+    private static final String APP = "nscl/applications/app";
+
+    private static SessionManager newManager(long timeout) {
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        Application application = new Application();
+        application.setUri(APP);
+        engine.store(application);
+        return new SessionManager(engine, timeout);
+    }
+
+    @Test
+    public void closesSessions() {
+        SessionManager manager = newManager(60000);
+        StorageSession session = manager.acquire();
+        assertEquals(1, session.findByPrefix(Resource.class, APP).size());
+        assertEquals(1, manager.getOpenSessions());
+        session.close();
+        session.close();
+        assertEquals(0, manager.getOpenSessions());
+        assertEquals(0, manager.getLeakedSessions());
+        try {
+            session.find(Application.class, APP);
+            fail("closed session read");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void closesSessionsLeftOpenByRequest() {
+        SessionManager manager = newManager(60000);
+        manager.begin();
+        manager.acquire().close();
+        manager.acquire();
+        // Nested request
+        manager.begin();
+        manager.acquire();
+        manager.end();
+        assertEquals(2, manager.getOpenSessions());
+        manager.end();
+        assertEquals(0, manager.getOpenSessions());
+        assertEquals(2, manager.getLeakedSessions());
+        assertEquals(3, manager.getOpenedSessions());
+    }
+
+    @Test
+    public void closesLeakedSessionsAfterTimeout() throws InterruptedException {
+        SessionManager manager = newManager(10);
+        manager.acquire();
+        Thread.sleep(50);
+        manager.acquire().close();
+        assertEquals(0, manager.getOpenSessions());
+        assertEquals(1, manager.getLeakedSessions());
+    }
+}
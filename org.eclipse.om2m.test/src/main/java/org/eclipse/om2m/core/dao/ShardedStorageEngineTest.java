@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.Applications;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.commons.resource.Scl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the routing of the subtrees to their shards and the per shard commits.
+ */
+public class ShardedStorageEngineTest {
+    private File directory;
+
+    /**
+     * In-memory shard recording the threads committing it.
+     */
+    private static class Shard extends InMemoryStorageEngine {
+        final List<String> commits = new ArrayList<String>();
+
+        @Override
+        public synchronized void commit() {
+            commits.add(Thread.currentThread().getName());
+        }
+    }
+
+    /**
+     * Sharded engine over in-memory shards.
+     */
+    private static class Engine extends ShardedStorageEngine {
+        static final List<Shard> opened = new ArrayList<Shard>();
+
+        Engine(File directory, Shard root, int count) {
+            super(directory, root, count);
+        }
+
+        @Override
+        protected StorageEngine openShard(File file) {
+            Shard shard = new Shard();
+            opened.add(shard);
+            return shard;
+        }
+    }
+
+    private static <T extends Resource> T resource(T resource, String uri) {
+        resource.setUri(uri);
+        return resource;
+    }
+
+    @Before
+    public void createDirectory() {
+        directory = new File(System.getProperty("java.io.tmpdir"), "om2m-shards-" + System.nanoTime());
+        Engine.opened.clear();
+    }
+
+    @After
+    public void deleteDirectory() {
+        if (directory.exists()) {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void shardsApplicationAndSclSubtrees() {
+        assertEquals("nscl/applications/app", ShardedStorageEngine.subtree("nscl/applications/app/containers/c"));
+        assertEquals("nscl/applications/app", ShardedStorageEngine.subtree("nscl/applications/app"));
+        assertEquals("nscl/scls/gscl", ShardedStorageEngine.subtree("nscl/scls/gscl/applications/appAnnc"));
+        assertNull(ShardedStorageEngine.subtree("nscl/applications"));
+        assertNull(ShardedStorageEngine.subtree("nscl/applications/"));
+        assertNull(ShardedStorageEngine.subtree("nscl/accessRights/ar"));
+    }
+
+    @Test
+    public void routesSubtreesToTheirShards() {
+        Shard root = new Shard();
+        Engine engine = new Engine(directory, root, 3);
+        engine.store(resource(new Applications(), "nscl/applications"));
+        engine.store(resource(new Application(), "nscl/applications/app1"));
+        engine.store(resource(new Container(), "nscl/applications/app1/containers/c"));
+        engine.store(resource(new Application(), "nscl/applications/app2"));
+        engine.store(resource(new Scl(), "nscl/scls/gscl"));
+
+        assertNotNull(root.find(Applications.class, "nscl/applications"));
+        assertNotNull(Engine.opened.get(0).find(Container.class, "nscl/applications/app1/containers/c"));
+        assertNotNull(Engine.opened.get(1).find(Application.class, "nscl/applications/app2"));
+        assertNotNull(Engine.opened.get(0).find(Scl.class, "nscl/scls/gscl"));
+        assertEquals(1, engine.findByPrefix(Container.class, "nscl/applications/app1/").size());
+        assertEquals(4, engine.findByPrefix(Resource.class, "nscl/applications").size());
+        assertEquals(2, engine.openSession().findByPrefix(Application.class, "nscl/applications/app").size());
+
+        engine.deleteSubtree("nscl/applications/app1");
+        assertNull(engine.find(Container.class, "nscl/applications/app1/containers/c"));
+        assertNotNull(engine.find(Application.class, "nscl/applications/app2"));
+    }
+
+    @Test
+    public void keepsAssignmentsAcrossRestarts() {
+        Engine engine = new Engine(directory, new Shard(), 3);
+        engine.store(resource(new Application(), "nscl/applications/app1"));
+        engine.store(resource(new Application(), "nscl/applications/app2"));
+        engine.close();
+
+        Engine.opened.clear();
+        Engine reopened = new Engine(directory, new Shard(), 1);
+        assertEquals(2, Engine.opened.size());
+        reopened.store(resource(new Container(), "nscl/applications/app2/containers/c"));
+        assertNotNull(Engine.opened.get(1).find(Container.class, "nscl/applications/app2/containers/c"));
+    }
+
+    @Test
+    public void keepsExistingSubtreesInTheRootShard() {
+        Shard root = new Shard();
+        root.store(resource(new Applications(), "nscl/applications"));
+        root.store(resource(new Application(), "nscl/applications/app1"));
+        root.store(resource(new Container(), "nscl/applications/app1/containers/c"));
+        root.store(resource(new Scl(), "nscl/scls/gscl"));
+
+        Engine engine = new Engine(directory, root, 3);
+        assertNotNull(engine.find(Container.class, "nscl/applications/app1/containers/c"));
+        assertNotNull(engine.openSession().find(Scl.class, "nscl/scls/gscl"));
+        Container container = resource(new Container(), "nscl/applications/app1/containers/c");
+        container.setId("c");
+        engine.store(container);
+        assertEquals(1, engine.findByPrefix(Container.class, "nscl/applications/app1/").size());
+        assertEquals("c", root.find(Container.class, "nscl/applications/app1/containers/c").getId());
+        // New subtrees still go to the other shards
+        engine.store(resource(new Application(), "nscl/applications/app2"));
+        assertNull(root.find(Application.class, "nscl/applications/app2"));
+        assertNotNull(engine.find(Application.class, "nscl/applications/app2"));
+
+        // The assignments are saved along with the new ones
+        Engine.opened.clear();
+        Engine reopened = new Engine(directory, root, 1);
+        assertEquals(1, Engine.opened.size());
+        assertNotNull(reopened.find(Application.class, "nscl/applications/app1"));
+    }
+
+    @Test
+    public void commitsWrittenShardsOnTheirThreads() {
+        Shard root = new Shard();
+        Engine engine = new Engine(directory, root, 3);
+        engine.store(resource(new Application(), "nscl/applications/app1"));
+        engine.store(resource(new Application(), "nscl/applications/app2"));
+        engine.commit();
+        engine.store(resource(new Container(), "nscl/applications/app2/containers/c"));
+        engine.commit();
+        engine.commit();
+
+        assertTrue(root.commits.isEmpty());
+        assertEquals(1, Engine.opened.get(0).commits.size());
+        assertEquals(2, Engine.opened.get(1).commits.size());
+        assertEquals("om2m-shard-2-commit", Engine.opened.get(1).commits.get(0));
+    }
+}
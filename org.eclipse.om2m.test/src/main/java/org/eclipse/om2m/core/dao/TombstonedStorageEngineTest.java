@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that deleted subtrees are hidden at once and reclaimed in background.
+ */
+public class TombstonedStorageEngineTest {
+    private static final String APP = "nscl/applications/app";
+
+    private File file;
+
+    private static <T extends Resource> T resource(T resource, String uri) {
+        resource.setUri(uri);
+        return resource;
+    }
+
+    private static void store(StorageEngine engine) {
+        engine.store(resource(new Application(), APP));
+        engine.store(resource(new Application(), APP + "2"));
+        engine.store(resource(new Container(), APP + "/containers/c"));
+        for (int i = 0; i < 100; i++) {
+            engine.store(resource(new ContentInstance(), APP + "/containers/c/contentInstances/CI_" + i));
+        }
+    }
+
+    /**
+     * Waits for the reclaimer to delete the subtree of the application from the underlying engine.
+     */
+    private static void awaitReclaimed(StorageEngine engine) throws InterruptedException {
+        for (int i = 0; i < 500 && !engine.findByPrefix(Resource.class, APP + "/").isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, engine.findByPrefix(Resource.class, APP + "/").size());
+    }
+
+    @Before
+    public void createFile() {
+        file = new File(System.getProperty("java.io.tmpdir"), "om2m-tombstones-" + System.nanoTime());
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void hidesSubtreeThenReclaimsIt() throws Exception {
+        InMemoryStorageEngine memory = new InMemoryStorageEngine();
+        TombstonedStorageEngine engine = new TombstonedStorageEngine(memory, file);
+        store(engine);
+
+        engine.deleteSubtree(APP);
+        assertNull(engine.find(Application.class, APP));
+        assertNull(engine.openSession().find(Container.class, APP + "/containers/c"));
+        assertNull(engine.findLatest(ContentInstance.class, APP + "/containers/c/contentInstances"));
+        assertEquals(1, engine.findByPrefix(Resource.class, APP).size());
+        assertNotNull(engine.find(Application.class, APP + "2"));
+
+        awaitReclaimed(memory);
+        assertNull(memory.find(Application.class, APP));
+        assertNotNull(memory.find(Application.class, APP + "2"));
+        for (int i = 0; i < 500 && file.length() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, file.length());
+    }
+
+    @Test
+    public void keepsResourcesStoredInDeletedSubtree() throws Exception {
+        InMemoryStorageEngine memory = new InMemoryStorageEngine();
+        TombstonedStorageEngine engine = new TombstonedStorageEngine(memory, null);
+        store(engine);
+
+        engine.deleteSubtree(APP);
+        engine.store(resource(new Application(), APP));
+        engine.store(resource(new Container(), APP + "/containers/d"));
+        assertNotNull(engine.find(Application.class, APP));
+        assertNotNull(engine.find(Container.class, APP + "/containers/d"));
+        assertNull(engine.find(Container.class, APP + "/containers/c"));
+        assertEquals(1, engine.findByPrefix(Resource.class, APP + "/").size());
+
+        for (int i = 0; i < 500 && memory.findByPrefix(Resource.class, APP + "/").size() > 1; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, memory.findByPrefix(Resource.class, APP + "/").size());
+        assertNotNull(memory.find(Application.class, APP));
+        assertNotNull(memory.find(Container.class, APP + "/containers/d"));
+    }
+
+    @Test
+    public void reclaimsSavedTombstonesOnStart() throws Exception {
+        InMemoryStorageEngine memory = new InMemoryStorageEngine();
+        store(memory);
+        FileOutputStream out = new FileOutputStream(file);
+        // The application was stored again after the deletion of its subtree
+        out.write((APP + "\n\t" + APP + "\n").getBytes("UTF-8"));
+        out.close();
+
+        TombstonedStorageEngine engine = new TombstonedStorageEngine(memory, file);
+        assertNull(engine.find(Container.class, APP + "/containers/c"));
+        awaitReclaimed(memory);
+        assertNotNull(memory.find(Application.class, APP));
+        assertNotNull(memory.find(Application.class, APP + "2"));
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.core.controller.ContainerController;
+import org.eclipse.om2m.core.controller.ControllerRegistry;
+import org.eclipse.om2m.core.router.RequestMethod;
+import org.junit.Test;
+
+/**
+ * Checks latency histograms and request metrics reports.
+ */
+public class RequestMetricsTest {
+
+    @Test
+    public void bucketsCoverValuesContiguously() {
+        for (long value = 0; value < 100000; value++) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= value);
+            assertTrue(value < LatencyHistogram.lowerBound(bucket + 1));
+        }
+    }
+
+    @Test
+    public void estimatesPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getSum());
+        assertEquals(1000, histogram.getMax());
+        assertWithin(500, histogram.getPercentile(50));
+        assertWithin(990, histogram.getPercentile(99));
+        assertEquals(1000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void reportsRecordedRequests() {
+        RequestMetrics metrics = new RequestMetrics(ControllerRegistry.getInstance());
+        ContainerController controller = ControllerRegistry.getInstance().getController(ContainerController.class);
+        metrics.recordLocal(controller, RequestMethod.RETRIEVE, StatusCode.STATUS_OK, 2000000);
+        metrics.recordLocal(null, null, StatusCode.STATUS_BAD_REQUEST, 1000);
+        metrics.recordRetargeted(RequestMethod.CREATE, StatusCode.STATUS_CREATED, 5000000);
+
+        assertEquals(2, metrics.getLocalRequests());
+        assertEquals(1, metrics.getRetargetedRequests());
+        assertEquals(1, metrics.getStatusCount(StatusCode.STATUS_BAD_REQUEST));
+        assertEquals(1, metrics.getLatency(ContainerController.class, RequestMethod.RETRIEVE).getCount());
+
+        String text = metrics.toText();
+        assertTrue(text.contains("om2m_requests_total{route=\"retargeted\"} 1\n"));
+        assertTrue(text.contains("om2m_request_latency_microseconds_count{controller=\"ContainerController\",method=\"RETRIEVE\"} 1\n"));
+        assertTrue(text.contains("om2m_request_latency_microseconds_sum{controller=\"Retargeting\",method=\"CREATE\"} 5000\n"));
+
+        String obix = metrics.toObix("nscl/metrics");
+        assertTrue(obix.contains("name=\"ContainerController\""));
+        assertTrue(obix.contains("name=\"STATUS_CREATED\""));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " not within 25% of " + expected, Math.abs(actual - expected) <= expected / 4);
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.replication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.ProcessBuilder.Redirect;
+
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.core.dao.InMemoryStorageEngine;
+import org.eclipse.om2m.core.dao.StorageEngine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the leadership of the log directory and the failover to a standby running in another process.
+ */
+public class ReplicationManagerTest {
+    private File directory;
+
+    @Before
+    public void createDirectory() {
+        directory = new File(System.getProperty("java.io.tmpdir"), "om2m-replication-" + System.nanoTime());
+    }
+
+    @After
+    public void deleteDirectory() {
+        WriteAheadLogTest.delete(directory);
+    }
+
+    @Test
+    public void secondReplicationIsStandby() throws Exception {
+        ReplicationManager leader = new ReplicationManager(directory, null, 1 << 20, 2, 10);
+        StorageEngine engine = leader.replicate(new InMemoryStorageEngine());
+        ReplicationManager standby = new ReplicationManager(directory, null, 1 << 20, 2, 10);
+        standby.replicate(new InMemoryStorageEngine());
+
+        assertEquals(ReplicationManager.Role.LEADER, leader.getRole());
+        assertTrue(leader.isWritable());
+        assertEquals(ReplicationManager.Role.STANDBY, standby.getRole());
+        assertFalse(standby.isWritable());
+        assertFalse(standby.promote());
+
+        engine.close();
+        leader.close();
+        standby.close();
+    }
+
+    @Test
+    public void standbyProcessTakesOverWhenTheLeaderStops() throws Exception {
+        ReplicationManager leader = new ReplicationManager(directory, null, 1 << 20, 2, 10);
+        StorageEngine engine = leader.replicate(new InMemoryStorageEngine());
+        String uri = "nscl/applications/app/containers/c";
+        engine.store(WriteAheadLogTest.resource(new Application(), "nscl/applications/app"));
+        engine.commit();
+
+        ProcessBuilder builder = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-cp", System.getProperty("java.class.path"), "-Dorg.eclipse.om2m.dbEngine=memory",
+                StandbyProcess.class.getName(), directory.getPath(), uri);
+        builder.redirectError(Redirect.INHERIT);
+        Process process = builder.start();
+        try {
+            BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+            assertEquals("STANDBY", out.readLine());
+
+            engine.store(WriteAheadLogTest.resource(new Container(), uri));
+            engine.commit();
+            long sequence = leader.getSequence();
+            // Stops leading, as the system does for a stopped process
+            engine.close();
+            leader.close();
+
+            assertEquals("LEADER " + sequence + " true", out.readLine());
+            assertEquals(0, process.waitFor());
+        } finally {
+            process.destroy();
+        }
+    }
+}
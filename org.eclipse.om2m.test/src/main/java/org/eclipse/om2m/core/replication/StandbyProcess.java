@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.replication;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.core.dao.InMemoryStorageEngine;
+import org.eclipse.om2m.core.dao.StorageEngine;
+
+/**
+ * Standby SCL process run by {@link ReplicationManagerTest}: follows the log directory given as argument,
+ * then prints its sequence and whether it holds the replicated container once it takes over.
+ */
+public class StandbyProcess {
+    public static void main(String[] args) throws Exception {
+        ReplicationManager manager = new ReplicationManager(new File(args[0]), null, 1 << 20, 2, 10);
+        StorageEngine engine = manager.replicate(new InMemoryStorageEngine());
+        System.out.println(manager.getRole());
+        final CountDownLatch promoted = new CountDownLatch(1);
+        manager.follow(engine, new Runnable() {
+            public void run() {
+                promoted.countDown();
+            }
+        });
+        if (promoted.await(60, TimeUnit.SECONDS)) {
+            System.out.println(manager.getRole() + " " + manager.getSequence() + " "
+                    + (engine.find(Container.class, args[1]) != null));
+        }
+        System.exit(0);
+    }
+}
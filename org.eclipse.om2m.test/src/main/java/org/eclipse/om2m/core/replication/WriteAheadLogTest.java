@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.replication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.Resource;
+import org.eclipse.om2m.core.dao.InMemoryStorageEngine;
+import org.eclipse.om2m.core.dao.ReplicatingStorageEngine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the commits, the recovery and the rolling of the write-ahead log, and its replay by a follower.
+ */
+public class WriteAheadLogTest {
+    private File directory;
+
+    static <T extends Resource> T resource(T resource, String uri) {
+        resource.setUri(uri);
+        return resource;
+    }
+
+    static void delete(File directory) {
+        if (directory.exists()) {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Before
+    public void createDirectory() {
+        directory = new File(System.getProperty("java.io.tmpdir"), "om2m-wal-" + System.nanoTime());
+    }
+
+    @After
+    public void deleteDirectory() {
+        delete(directory);
+    }
+
+    @Test
+    public void reopenDropsTheUncommittedTail() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(directory, 1 << 20, 2);
+        log.append(LogRecord.DELETE, "nscl/applications/app1", LogRecord.EMPTY);
+        log.commit();
+        log.append(LogRecord.DELETE, "nscl/applications/app2", LogRecord.EMPTY);
+        log.close();
+        File file = WriteAheadLog.list(directory).get(0);
+        long committed = file.length();
+        // Torn record of a leader stopped while writing
+        FileOutputStream out = new FileOutputStream(file, true);
+        out.write(new byte[] {0, 0, 0, 40, 0, 0, 0});
+        out.close();
+
+        log = WriteAheadLog.open(directory, 1 << 20, 2);
+        assertEquals(2, log.getSequence());
+        assertEquals(committed, file.length());
+        log.append(LogRecord.DELETE, "nscl/applications/app3", LogRecord.EMPTY);
+        log.commit();
+        log.close();
+
+        Follower follower = new Follower(directory, new InMemoryStorageEngine(), null);
+        assertEquals(2, follower.poll());
+        assertEquals(4, follower.getApplied());
+        follower.close();
+    }
+
+    @Test
+    public void reopenStopsAtACorruptedRecord() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(directory, 1 << 20, 2);
+        log.append(LogRecord.DELETE, "nscl/applications/app1", LogRecord.EMPTY);
+        log.commit();
+        File file = WriteAheadLog.list(directory).get(0);
+        long committed = file.length();
+        log.append(LogRecord.DELETE, "nscl/applications/app2", LogRecord.EMPTY);
+        log.commit();
+        log.close();
+        // Complete record whose uri was damaged on the disk
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        out.seek(committed + 4 + 8 + 8 + 1 + 2 + "nscl/applications/app".length());
+        out.write('x');
+        out.close();
+
+        Follower follower = new Follower(directory, new InMemoryStorageEngine(), null);
+        try {
+            follower.poll();
+            fail("Corrupted record applied");
+        } catch (IOException e) {
+            // Detected by its checksum, after the previous transaction
+            assertEquals(2, follower.getApplied());
+        }
+        follower.close();
+
+        log = WriteAheadLog.open(directory, 1 << 20, 2);
+        assertEquals(2, log.getSequence());
+        assertEquals(committed, file.length());
+        log.close();
+    }
+
+    @Test
+    public void followerWithoutPositionNeedsTheFirstFile() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(directory, 64, 2);
+        for (int i = 0; i < 5; i++) {
+            log.append(LogRecord.DELETE, "nscl/applications/app" + i, LogRecord.EMPTY);
+            log.commit();
+        }
+        log.close();
+
+        Follower follower = new Follower(directory, new InMemoryStorageEngine(), null);
+        try {
+            follower.poll();
+            fail("Replica started in the middle of the log");
+        } catch (IllegalStateException e) {
+            // Must be restarted from a copy of the leader database
+        }
+        follower.close();
+    }
+
+    @Test
+    public void rollsAndKeepsTheLatestFiles() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(directory, 64, 2);
+        for (int i = 0; i < 5; i++) {
+            log.append(LogRecord.DELETE, "nscl/applications/app" + i, LogRecord.EMPTY);
+            log.commit();
+        }
+        List<File> files = WriteAheadLog.list(directory);
+        assertEquals(2, files.size());
+        assertEquals(9, WriteAheadLog.firstSequence(files.get(0)));
+        assertEquals(11, WriteAheadLog.firstSequence(files.get(1)));
+        log.close();
+    }
+
+    @Test
+    public void followerReplaysTheCommittedMutations() throws IOException {
+        ReplicatingStorageEngine leader = new ReplicatingStorageEngine(new InMemoryStorageEngine());
+        leader.attach(WriteAheadLog.open(directory, 1 << 20, 2));
+        leader.store(resource(new Application(), "nscl/applications/app1"));
+        leader.store(resource(new Container(), "nscl/applications/app1/containers/c"));
+        leader.store(resource(new Application(), "nscl/applications/app2"));
+        leader.commit();
+
+        InMemoryStorageEngine replica = new InMemoryStorageEngine();
+        File position = new File(directory, "position");
+        Follower follower = new Follower(directory, replica, position);
+        assertEquals(1, follower.poll());
+        assertNotNull(replica.find(Container.class, "nscl/applications/app1/containers/c"));
+
+        leader.deleteSubtree("nscl/applications/app1");
+        assertEquals(0, follower.poll());
+        assertNotNull(replica.find(Application.class, "nscl/applications/app1"));
+        leader.delete(leader.find(Application.class, "nscl/applications/app2"));
+        leader.commit();
+        follower.close();
+
+        // Resumes after the transactions it applied
+        follower = new Follower(directory, replica, position);
+        assertEquals(1, follower.poll());
+        assertNull(replica.find(Container.class, "nscl/applications/app1/containers/c"));
+        assertNull(replica.find(Application.class, "nscl/applications/app2"));
+        assertNull(leader.find(Resource.class, "nscl/applications/app1"));
+        follower.close();
+        leader.close();
+    }
+}
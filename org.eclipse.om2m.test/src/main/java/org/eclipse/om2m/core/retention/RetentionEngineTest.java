@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.retention;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.ContentInstances;
+import org.eclipse.om2m.commons.utils.DateConverter;
+import org.eclipse.om2m.core.dao.CommitCoordinator;
+import org.eclipse.om2m.core.dao.DAO;
+import org.eclipse.om2m.core.dao.DAOFactory;
+import org.eclipse.om2m.core.metrics.StorageMetrics;
+import org.junit.Test;
+
+/**
+ * Checks that the retention sweeps evict the oldest contentInstances beyond the container limits.
+ */
+public class RetentionEngineTest {
+
+    /**
+     * Stores a container with its collection and instances of 10 bytes, the first ones created
+     * two minutes ago.
+     */
+    private static String container(String id, Long maxNrOfInstances, Long maxByteSize, Long maxInstanceAge, int count, int old) {
+        Container container = new Container();
+        container.setUri("nscl/applications/retention/containers/" + id);
+        container.setMaxNrOfInstances(maxNrOfInstances);
+        container.setMaxByteSize(maxByteSize);
+        container.setMaxInstanceAge(maxInstanceAge);
+        DAO.DB.store(container);
+        ContentInstances contentInstances = new ContentInstances();
+        contentInstances.setUri(container.getUri() + "/contentInstances");
+        contentInstances.setCurrentNrOfInstances(0L);
+        contentInstances.setCurrentByteSize(0L);
+        DAOFactory.getContentInstancesDAO().create(contentInstances);
+        for (int i = 0; i < count; i++) {
+            ContentInstance contentInstance = new ContentInstance("CI_" + i, new byte[10]);
+            contentInstance.setUri(contentInstances.getUri() + "/CI_" + i);
+            contentInstance.setContentSize(10L);
+            long created = System.currentTimeMillis() - (i < old ? 120000 : 0);
+            contentInstance.setCreationTime(DateConverter.toXMLGregorianCalendar(new Date(created)).toString());
+            DAOFactory.getContentInstanceDAO().create(contentInstance);
+        }
+        // Sessions read the committed collections
+        CommitCoordinator.getInstance().flush();
+        return contentInstances.getUri();
+    }
+
+    private static void assertKept(String uri, long count, String oldest) {
+        assertEquals(Long.valueOf(count), DAOFactory.getContentInstancesDAO().lazyFind(uri).getCurrentNrOfInstances());
+        assertEquals(uri + "/" + oldest, DAOFactory.getContentInstanceDAO().find(uri + "/oldest").getUri());
+    }
+
+    @Test
+    public void enforcesAllLimits() {
+        RetentionEngine engine = new RetentionEngine(1000);
+        engine.sweep();
+        String byNumber = container("number", 5L, null, null, 20, 0);
+        String bySize = container("size", null, 35L, null, 10, 0);
+        String byAge = container("age", null, null, 60L, 6, 4);
+        String unlimited = container("unlimited", null, null, null, 6, 6);
+        engine.written(byNumber);
+        engine.written(bySize);
+        engine.written(byAge);
+        engine.written(unlimited);
+        long evictions = StorageMetrics.getInstance().getEvictions();
+
+        assertEquals(15 + 7 + 4, engine.sweep());
+        assertKept(byNumber, 5, "CI_15");
+        assertKept(bySize, 3, "CI_7");
+        assertKept(byAge, 2, "CI_4");
+        assertKept(unlimited, 6, "CI_0");
+        assertEquals(evictions + 26, StorageMetrics.getInstance().getEvictions());
+    }
+
+    @Test
+    public void leavesLargeEvictionsToNextSweeps() {
+        RetentionEngine engine = new RetentionEngine(4);
+        engine.sweep();
+        String uri = container("batch", 5L, null, null, 15, 0);
+        engine.written(uri);
+
+        assertEquals(4, engine.sweep());
+        assertKept(uri, 11, "CI_4");
+        assertEquals(4, engine.sweep());
+        assertEquals(2, engine.sweep());
+        assertKept(uri, 5, "CI_10");
+        assertEquals(0, engine.sweep());
+    }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.controller.ContainerAnncController;
+import org.eclipse.om2m.core.controller.ContainerController;
+import org.eclipse.om2m.core.controller.ContainersController;
+import org.eclipse.om2m.core.controller.Controller;
+import org.eclipse.om2m.core.controller.ControllerRegistry;
+import org.junit.Test;
+
+/**
+ * Checks that the Router dispatches requests to shared controller instances.
+ */
+public class DispatchTableTest {
+
+    private static final String CONTAINERS = Constants.SCL_ID + "/applications/app1/containers";
+
+    @Test
+    public void sharesControllersAcrossRequests() {
+        Router router = new Router();
+        for (RequestMethod method : RequestMethod.values()) {
+            for (ResourceType type : ResourceType.values()) {
+                Controller first = DispatchTable.getInstance().lookup(type, method, null);
+                for (int i = 0; i < 1000; i++) {
+                    assertSame(first, DispatchTable.getInstance().lookup(type, method, null));
+                }
+            }
+            Controller first = router.getResourceController(CONTAINERS, method.getValue(), "");
+            for (int i = 0; i < 1000; i++) {
+                assertSame(first, new Router().getResourceController(CONTAINERS, method.getValue(), ""));
+            }
+        }
+    }
+
+    @Test
+    public void dispatchesByTypeAndMethod() {
+        ControllerRegistry registry = ControllerRegistry.getInstance();
+        DispatchTable table = DispatchTable.getInstance();
+        assertSame(registry.getController(ContainersController.class), table.lookup(ResourceType.CONTAINERS, RequestMethod.RETRIEVE, null));
+        assertSame(registry.getController(ContainerController.class), table.lookup(ResourceType.CONTAINERS, RequestMethod.CREATE, "<om2m:container/>"));
+        assertSame(registry.getController(ContainerAnncController.class), table.lookup(ResourceType.CONTAINERS, RequestMethod.CREATE, "<om2m:containerAnnc/>"));
+        assertSame(registry.getController(ContainerController.class), table.lookup(ResourceType.CONTAINER, RequestMethod.DELETE, null));
+        assertNull(table.lookup(ResourceType.CONTAINER, RequestMethod.CREATE, null));
+        assertNotNull(table.lookup(ResourceType.CONTAINER, null, null));
+        assertEquals(RequestMethod.EXECUTE, RequestMethod.fromValue(Constants.METHOD_EXECUTE));
+        assertNull(RequestMethod.fromValue("PATCH"));
+    }
+}
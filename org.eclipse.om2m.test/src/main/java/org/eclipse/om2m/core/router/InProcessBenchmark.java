@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import org.eclipse.om2m.commons.resource.Application;
+import org.eclipse.om2m.commons.resource.Container;
+import org.eclipse.om2m.commons.resource.ContentInstance;
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.commons.rest.RequestIndication;
+import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.eclipse.om2m.commons.utils.XmlMapper;
+import org.eclipse.om2m.core.Activator;
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.dao.CommitCoordinator;
+
+/**
+ * Simulates IPUs pushing contentInstances to the local SCL, as SampleMonitor does, first with XML
+ * representations as they were before, then with resource objects copied by the controllers.
+ * Run it in an empty working directory, it creates the SclBase in the database there.
+ * Usage: InProcessBenchmark [contentInstances per mode] [IPU threads]
+ */
+public class InProcessBenchmark {
+    private static final String APPLICATIONS = Constants.SCL_ID + "/applications";
+
+    private static void create(String targetID, Object resource) {
+        RequestIndication requestIndication = resource instanceof String
+                ? new RequestIndication(Constants.METHOD_CREATE, targetID, Constants.ADMIN_REQUESTING_ENTITY, (String) resource)
+                : new RequestIndication(Constants.METHOD_CREATE, targetID, Constants.ADMIN_REQUESTING_ENTITY, (org.eclipse.om2m.commons.resource.Resource) resource);
+        ResponseConfirm responseConfirm = new Router().doRequest(requestIndication);
+        if (responseConfirm.getStatusCode() != StatusCode.STATUS_CREATED) {
+            throw new IllegalStateException(targetID + ": " + responseConfirm.getRepresentation());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int contentInstances = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        Activator.initSclBase();
+        Activator.initAccessRight();
+        CommitCoordinator.getInstance().flush();
+        for (final String mode : new String[] { "xml", "objects", "xml", "objects" }) {
+            final String[] targets = new String[threads];
+            for (int t = 0; t < threads; t++) {
+                String appId = "bench_" + mode + "_" + System.nanoTime();
+                create(APPLICATIONS, new Application(appId));
+                // Reads only see the writes once committed
+                CommitCoordinator.getInstance().flush();
+                create(APPLICATIONS + "/" + appId + "/containers", new Container("data"));
+                targets[t] = APPLICATIONS + "/" + appId + "/containers/data/contentInstances";
+            }
+            CommitCoordinator.getInstance().flush();
+            Thread[] ipus = new Thread[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                final String target = targets[t];
+                final int count = contentInstances / threads;
+                ipus[t] = new Thread() {
+                    public void run() {
+                        for (int i = 0; i < count; i++) {
+                            ContentInstance contentInstance = new ContentInstance(("<obj><int name=\"temperature\" val=\"" + i % 40 + "\"/></obj>").getBytes());
+                            create(target, "xml".equals(mode) ? XmlMapper.getInstance().objectToXml(contentInstance) : contentInstance);
+                        }
+                    }
+                };
+                ipus[t].start();
+            }
+            for (Thread ipu : ipus) {
+                ipu.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%-8s %8d contentInstances %10.0f contentInstances/s", mode, contentInstances, contentInstances / seconds));
+        }
+        System.exit(0);
+    }
+}
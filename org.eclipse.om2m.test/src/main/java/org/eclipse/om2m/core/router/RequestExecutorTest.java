@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.om2m.commons.resource.StatusCode;
+import org.eclipse.om2m.commons.rest.RequestIndication;
+import org.eclipse.om2m.commons.rest.ResponseConfirm;
+import org.junit.Test;
+
+/**
+ * Checks the asynchronous request handling of the Router.
+ */
+public class RequestExecutorTest {
+
+    @Test
+    public void rejectsWhenSaturated() throws Exception {
+        RequestExecutor executor = new RequestExecutor("test", 1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<ResponseConfirm> blocked = new Callable<ResponseConfirm>() {
+            public ResponseConfirm call() throws Exception {
+                release.await();
+                return new ResponseConfirm(StatusCode.STATUS_OK);
+            }
+        };
+        Future<ResponseConfirm> running = executor.submit(blocked);
+        Future<ResponseConfirm> queued = executor.submit(blocked);
+        Future<ResponseConfirm> rejected = executor.submit(blocked);
+        assertTrue(rejected.isDone());
+        assertEquals(StatusCode.STATUS_SERVICE_UNAVAILABLE, rejected.get().getStatusCode());
+        release.countDown();
+        assertEquals(StatusCode.STATUS_OK, running.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(StatusCode.STATUS_OK, queued.get(5, TimeUnit.SECONDS).getStatusCode());
+    }
+
+    @Test
+    public void answersInvalidRequestsImmediately() throws Exception {
+        RequestIndication requestIndication = new RequestIndication("RETRIEVE", "/nscl/", null, (String) null);
+        Future<ResponseConfirm> response = new Router().doRequestAsync(requestIndication);
+        assertTrue(response.isDone());
+        assertEquals(StatusCode.STATUS_AUTHORIZATION_NOT_ADDED, response.get().getStatusCode());
+    }
+}
@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.eclipse.om2m.core.constants.Constants;
+import org.eclipse.om2m.core.controller.APocController;
+import org.eclipse.om2m.core.controller.AccessRightAnncController;
+import org.eclipse.om2m.core.controller.AccessRightController;
+import org.eclipse.om2m.core.controller.AccessRightsController;
+import org.eclipse.om2m.core.controller.ApplicationAnncController;
+import org.eclipse.om2m.core.controller.ApplicationController;
+import org.eclipse.om2m.core.controller.ApplicationsController;
+import org.eclipse.om2m.core.controller.AttachedDeviceController;
+import org.eclipse.om2m.core.controller.AttachedDevicesController;
+import org.eclipse.om2m.core.controller.ContainerAnncController;
+import org.eclipse.om2m.core.controller.ContainerController;
+import org.eclipse.om2m.core.controller.ContainersController;
+import org.eclipse.om2m.core.controller.ContentController;
+import org.eclipse.om2m.core.controller.ContentInstanceController;
+import org.eclipse.om2m.core.controller.ContentInstancesController;
+import org.eclipse.om2m.core.controller.Controller;
+import org.eclipse.om2m.core.controller.DiscoveryController;
+import org.eclipse.om2m.core.controller.ExecInstanceController;
+import org.eclipse.om2m.core.controller.ExecInstancesController;
+import org.eclipse.om2m.core.controller.GroupAnncController;
+import org.eclipse.om2m.core.controller.GroupController;
+import org.eclipse.om2m.core.controller.GroupsController;
+import org.eclipse.om2m.core.controller.LocationContainerAnncController;
+import org.eclipse.om2m.core.controller.LocationContainerController;
+import org.eclipse.om2m.core.controller.M2MPocController;
+import org.eclipse.om2m.core.controller.M2MPocsController;
+import org.eclipse.om2m.core.controller.MembersContentController;
+import org.eclipse.om2m.core.controller.MgmtCmdController;
+import org.eclipse.om2m.core.controller.MgmtObjController;
+import org.eclipse.om2m.core.controller.MgmtObjsController;
+import org.eclipse.om2m.core.controller.NotificationChannelController;
+import org.eclipse.om2m.core.controller.NotificationChannelsController;
+import org.eclipse.om2m.core.controller.ParametersController;
+import org.eclipse.om2m.core.controller.SclBaseController;
+import org.eclipse.om2m.core.controller.SclController;
+import org.eclipse.om2m.core.controller.SclsController;
+import org.eclipse.om2m.core.controller.SubscriptionController;
+import org.eclipse.om2m.core.controller.SubscriptionsController;
+import org.junit.Test;
+
+/**
+ * Differential test of the {@link RouteTable} based Router against the historical regex uri patterns,
+ * run on a generated uri corpus.
+ */
+public class RouteTableTest {
+
+    private static final String[] METHODS = {Constants.METHOD_RETREIVE, Constants.METHOD_CREATE,
+        Constants.METHOD_UPDATE, Constants.METHOD_DELETE, Constants.METHOD_EXECUTE};
+
+    private static final String[] REPRESENTATIONS = {"", "<om2m:application/>", "<om2m:applicationAnnc/>",
+        "<om2m:containerAnnc/>", "<om2m:accessRightAnnc/>", "<om2m:groupAnnc/>"};
+
+    private static final String[] LITERALS = {"scls", "applications", "containers", "contentInstances", "content",
+        "subscriptions", "accessRights", "groups", "discovery", "mgmtObjs", "attachedDevices", "notificationChannels",
+        "m2mPocs", "parameters", "execInstances"};
+
+    private static final String[] IDS = {"gscl", "app1", "MY_APP", "c1", "CI_12345", "latest", "oldest", "AR_ADMIN",
+        "sub1", "g1", "membersContent", "dev1", "nc1", "poc1", "xAnnc", "appAnnc", "c1Loc", "c1LocAnnc", "cLocAnnc",
+        "fooObj", "fooCmd", "Annc", "1Annc", "containerAnnc", "sclX", "containerX", "applicationsX", "discoveryX",
+        "groupX", "a-b", "a.b", "café", "xéy", "ipu", "lamps", "LAMP_0", Constants.SCL_ID, "nsclx", ""};
+
+    /** Children hints used to generate deep uris following the resource tree. */
+    private static final String[][] HINTS = {
+        {"scls", "id"}, {"applications", "id", "annc", "mgmtObjs", "subscriptions"},
+        {"containers", "id", "annc", "subscriptions"}, {"contentInstances", "id", "subscriptions"},
+        {"content"}, {"subscriptions", "id"}, {"accessRights", "id", "annc", "subscriptions"},
+        {"groups", "id", "annc", "subscriptions"}, {"attachedDevices", "id", "subscriptions"},
+        {"notificationChannels", "id"}, {"m2mPocs", "id"}, {"mgmtObjs", "subscriptions"}};
+
+    @Test
+    public void sameRoutesAsLegacyPatterns() {
+        Router router = new Router();
+        Random random = new Random(20141201L);
+        for (int i = 0; i < 100000; i++) {
+            String uri = generateUri(random);
+            assertEquals(uri, LegacyPatterns.isRetargeting(uri), RouteTable.getInstance().isRetargeting(uri));
+            for (String method : METHODS) {
+                String representation = REPRESENTATIONS[random.nextInt(REPRESENTATIONS.length)];
+                Class<?> expected = LegacyPatterns.getResourceController(uri, method, representation);
+                Controller controller = router.getResourceController(uri, method, representation);
+                assertEquals(method + " " + uri + " " + representation, expected, controller == null ? null : controller.getClass());
+            }
+        }
+    }
+
+    @Test
+    public void parsesPathVariables() {
+        String sclId = Constants.SCL_ID;
+        RouteMatch route = RouteTable.getInstance().match(sclId + "/scls/gscl/applications/app1/containers/c1/contentInstances/latest/content/");
+        assertEquals(ResourceType.CONTENT, route.getType());
+        assertEquals("gscl", route.getVariable(RouteMatch.SCL_ID));
+        assertEquals("app1", route.getVariable(RouteMatch.APPLICATION_ID));
+        assertEquals("c1", route.getVariable(RouteMatch.CONTAINER_ID));
+        assertEquals("latest", route.getVariable(RouteMatch.CONTENT_INSTANCE_ID));
+
+        route = RouteTable.getInstance().match(sclId + "//applications/lamps/lamp_0/power");
+        assertEquals(ResourceType.APOC, route.getType());
+        assertEquals("lamps", route.getVariable(RouteMatch.APPLICATION_ID));
+        assertEquals("lamp_0/power", route.getVariable(RouteMatch.APOC_PATH));
+
+        route = RouteTable.getInstance().match(sclId + "/applications/xAnnc/groups/gAnnc");
+        assertEquals(ResourceType.GROUP_ANNC, route.getType());
+        assertEquals("xAnnc", route.getVariable(RouteMatch.APPLICATION_ID));
+        assertEquals("gAnnc", route.getVariable(RouteMatch.GROUP_ID));
+
+        assertNull(RouteTable.getInstance().match(sclId + "/applications/containerX"));
+        assertNull(RouteTable.getInstance().match("/" + sclId));
+    }
+
+    private static String generateUri(Random random) {
+        StringBuilder uri = new StringBuilder();
+        int start = random.nextInt(20);
+        uri.append(start == 0 ? "gscl" : start == 1 ? "/" + Constants.SCL_ID : start == 2 ? Constants.SCL_ID + "x" : Constants.SCL_ID);
+        int depth = random.nextInt(12);
+        String previous = null;
+        for (int i = 0; i < depth; i++) {
+            uri.append(random.nextInt(8) == 0 ? "//" : "/");
+            String token = nextToken(random, previous);
+            uri.append(token);
+            previous = token;
+        }
+        int trailing = random.nextInt(6);
+        if (trailing == 0) {
+            uri.append("/");
+        } else if (trailing == 1) {
+            uri.append("//");
+        } else if (trailing == 2) {
+            uri.append(random.nextBoolean() ? "\n" : "-x");
+        }
+        return uri.toString();
+    }
+
+    private static String nextToken(Random random, String previous) {
+        if (random.nextInt(6) != 0) {
+            for (String[] hint : HINTS) {
+                if (hint[0].equals(previous) || (previous != null && !isLiteral(previous) && random.nextBoolean())) {
+                    String choice = hint.length == 1 || !hint[0].equals(previous) ? hint[0] : hint[1 + random.nextInt(hint.length - 1)];
+                    if ("id".equals(choice)) {
+                        return IDS[random.nextInt(IDS.length)];
+                    }
+                    if ("annc".equals(choice)) {
+                        return IDS[random.nextInt(IDS.length)] + "Annc";
+                    }
+                    return choice;
+                }
+            }
+        }
+        return random.nextBoolean() ? LITERALS[random.nextInt(LITERALS.length)] : IDS[random.nextInt(IDS.length)];
+    }
+
+    private static boolean isLiteral(String token) {
+        for (String literal : LITERALS) {
+            if (literal.equals(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Historical regex uri patterns and controller cascade of the Router, used as reference. */
+    private static class LegacyPatterns {
+        private static String idPattern="(?!(sclBase|scls|scl|applications|application|applicationAnnc|containers|container|content|subscriptions|subscription|"
+                + "groups|group|accessRights|accessRight|discovery|mgmtObjs|mgmtObj|mgmtCmd|attahchedDevices|attachedDevice|notificationChannels|"
+                + "notificationChannel|execInstances|execInstance|parameters|parameter|m2mPocs|m2mPoc))\\b\\w+\\b";
+        private static String idAnncPattern = "\\w+";
+        private static Pattern sclBasePattern= Pattern.compile(Constants.SCL_ID+"/*");
+        private static Pattern retargetingPattern= Pattern.compile("(?!"+Constants.SCL_ID+")\\b\\w+\\b/*.*");
+        private static Pattern sclsPattern= Pattern.compile(sclBasePattern+"/+scls/*");
+        private static Pattern sclPattern= Pattern.compile(sclsPattern+"/+"+idPattern+"/*");
+        private static Pattern applicationsPattern= Pattern.compile("("+sclBasePattern+"|"+sclPattern+")"+"/+applications/*");
+        private static Pattern applicationPattern= Pattern.compile(applicationsPattern+"/+"+idPattern+"(?<!Annc)/*");
+        private static Pattern ipuPattern= Pattern.compile(applicationPattern+"/"+idPattern+"/*.*");
+        private static Pattern applicationAnncPattern= Pattern.compile(applicationsPattern+"/+"+idAnncPattern+"Annc/*");
+        private static Pattern containersPattern= Pattern.compile("("+sclBasePattern+"|"+sclPattern+"|"+applicationPattern+"|"+applicationAnncPattern+")"+"/+containers/*");
+        private static Pattern containerPattern= Pattern.compile(containersPattern+"/+"+idPattern+"(?<!Annc)(?<!Loc)(?<!LocAnnc)/*");
+        private static Pattern containerAnncPattern= Pattern.compile(containersPattern+"/+"+idAnncPattern+"(?<!Loc)(?<!LocAnnc)Annc/*");
+        private static Pattern locationContainerPattern= Pattern.compile(containersPattern+"/+"+idPattern+"Loc/*");
+        private static Pattern locationContainerAnncPattern= Pattern.compile(containersPattern+"/+"+idPattern+"LocAnnc/*");
+        private static Pattern contentInstancesPattern= Pattern.compile("("+containerPattern+"|"+locationContainerPattern+")"+"/+contentInstances/*");
+        private static Pattern contentInstancePattern= Pattern.compile(contentInstancesPattern+"/+"+idPattern+"/*");
+        private static Pattern contentPattern= Pattern.compile(contentInstancePattern+"/+content/*");
+        private static Pattern accessRightsPattern= Pattern.compile("("+sclBasePattern+"|"+sclPattern+"|"+applicationPattern+"|"+applicationAnncPattern+")"+"/+accessRights/*");
+        private static Pattern accessRightPattern= Pattern.compile(accessRightsPattern+"/+"+idPattern+"(?<!Annc)/*");
+        private static Pattern accessRightAnncPattern= Pattern.compile(accessRightsPattern+"/+"+idAnncPattern+"Annc/*");
+        private static Pattern groupsPattern= Pattern.compile("("+sclBasePattern+"|"+sclPattern+"|"+applicationPattern+"|"+applicationAnncPattern+")"+"/+groups/*");
+        private static Pattern groupPattern= Pattern.compile(groupsPattern+"/+"+idPattern+"(?<!Annc)/*");
+        private static Pattern membersContentPattern= Pattern.compile(groupPattern+"/+"+idPattern+"/*");
+        private static Pattern groupAnncPattern= Pattern.compile(groupsPattern+"/+"+idAnncPattern+"Annc/*");
+        private static Pattern discoveryPattern= Pattern.compile(sclBasePattern+"/+discovery/*.*");
+        private static Pattern attachedDevicesPattern= Pattern.compile(sclPattern+"/+attachedDevices/*");
+        private static Pattern attachedDevicePattern= Pattern.compile(attachedDevicesPattern+"/+"+idPattern+"/*");
+        private static Pattern mgmtObjsPattern= Pattern.compile("("+sclsPattern+"|"+sclPattern+"|"+applicationsPattern+"|"+attachedDevicePattern+")"+"/+mgmtObjs/*");
+        private static Pattern mgmtObjPattern= Pattern.compile(mgmtObjsPattern+"/+"+idPattern+"Obj/*");
+        private static Pattern parametersPattern= Pattern.compile(mgmtObjPattern+"/+parameters/*");
+        private static Pattern parameterPattern= Pattern.compile(parametersPattern+"/+"+idPattern+"/*");
+        private static Pattern mgmtCmdPattern= Pattern.compile(mgmtObjsPattern+"/+"+idPattern+"Cmd/*");
+        private static Pattern execInstancesPattern= Pattern.compile(mgmtCmdPattern+"/+execInstances/*");
+        private static Pattern execInstancePattern= Pattern.compile(execInstancesPattern+"/+"+idPattern+"/*");
+        private static Pattern notificationChannelsPattern= Pattern.compile("("+sclPattern+"|"+applicationPattern+")"+"/+notificationChannels/*");
+        private static Pattern notificationChannelPattern= Pattern.compile(notificationChannelsPattern+"/+"+idPattern+"/*");
+        private static Pattern m2mPocsPattern= Pattern.compile(sclPattern+"/+m2mPocs/*");
+        private static Pattern m2mPocPattern= Pattern.compile(m2mPocsPattern+"/+"+idPattern+"/*");
+        private static Pattern subscriptionsPattern= Pattern.compile("("+sclBasePattern+"|"+sclPattern+"|"+sclsPattern+"|"+applicationsPattern+"|"+applicationPattern+
+                "|"+containersPattern+"|"+containerPattern+"|"+contentInstancesPattern+"|"+accessRightsPattern+"|"+accessRightPattern+
+                "|"+groupsPattern+"|"+groupPattern+"|"+mgmtObjsPattern+"|"+mgmtObjPattern+"|"+mgmtCmdPattern+"|"+attachedDevicesPattern+
+                "|"+attachedDevicePattern+"|"+parametersPattern+"|"+parameterPattern+"|"+execInstancesPattern+"|"+execInstancePattern+
+                "|"+locationContainerPattern+")"+"/+subscriptions/*");
+        private static Pattern subscriptionPattern= Pattern.compile(subscriptionsPattern+"/+"+idPattern+"/*");
+
+        static boolean isRetargeting(String uri) {
+            return match(retargetingPattern, uri);
+        }
+
+        static Class<?> getResourceController(String uri, String method, String representation){
+            if(match(sclBasePattern,uri)){
+                return SclBaseController.class;
+            }
+            if(match(sclsPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
+                return SclsController.class;
+            }
+            if(match(sclPattern,uri) && !method.equals(Constants.METHOD_CREATE)|| (match(sclsPattern,uri) && method.equals(Constants.METHOD_CREATE))){
+                return SclController.class;
+            }
+            if(match(applicationsPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
+                return ApplicationsController.class;
+            }
+            if(match(applicationPattern,uri) && !method.equals(Constants.METHOD_CREATE) || (match(applicationsPattern,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":applicationAnnc"))){
+                return ApplicationController.class;
+            }
+            if(match(applicationAnncPattern,uri) && !method.equals(Constants.METHOD_CREATE) || (match(applicationsPattern,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":applicationAnnc"))){
+                return ApplicationAnncController.class;
+            }
+            if(match(ipuPattern,uri)){
+                return APocController.class;
+            }
+            if(match(containersPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
+                return ContainersController.class;
+            }
+            if(match(containerPattern,uri) && !method.equals(Constants.METHOD_CREATE)|| (match(containersPattern,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":containerAnnc"))){
+                return ContainerController.class;
+            }
+            if(match(containerAnncPattern,uri)&& !method.equals(Constants.METHOD_CREATE) || (match(containersPattern,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":containerAnnc"))){
+                return ContainerAnncController.class;
+            }
+            if(match(locationContainerPattern,uri)){
+                return LocationContainerController.class;
+            }
+            if(match(locationContainerAnncPattern,uri)){
+                return LocationContainerAnncController.class;
+            }
+            if(match(contentInstancesPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
+                return ContentInstancesController.class;
+            }
+            if(match(contentInstancePattern,uri) && !method.equals(Constants.METHOD_CREATE)|| (match(contentInstancesPattern,uri) && method.equals(Constants.METHOD_CREATE))){
+                return ContentInstanceController.class;
+            }
+            if(match(contentPattern,uri)){
+                return ContentController.class;
+            }
+            if(match(subscriptionsPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
+                return SubscriptionsController.class;
+            }
+            if(match(subscriptionPattern,uri) && !method.equals(Constants.METHOD_CREATE)|| (match(subscriptionsPattern,uri) && method.equals(Constants.METHOD_CREATE))){
+                return SubscriptionController.class;
+            }
+            if(match(accessRightsPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
+                return AccessRightsController.class;
+            }
+            if(match(accessRightPattern,uri) && !method.equals(Constants.METHOD_CREATE) || (match(accessRightsPattern,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":accessRightAnnc"))){
+                return AccessRightController.class;
+            }
+            if(match(accessRightAnncPattern,uri) && !method.equals(Constants.METHOD_CREATE) || (match(accessRightsPattern,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":accessRightAnnc"))){
+                return AccessRightAnncController.class;
+            }
+            if(match(groupsPattern,uri) && !method.equals(Constants.METHOD_CREATE)){
+                return GroupsController.class;
+            }
+            if(match(groupPattern,uri)&& !method.equals(Constants.METHOD_CREATE) || (match(groupsPattern,uri) && method.equals(Constants.METHOD_CREATE) && !representation.contains(":groupAnnc"))){
+                return GroupController.class;
+            }
+            if(match(groupAnncPattern,uri) && !method.equals(Constants.METHOD_CREATE) || (match(groupsPattern,uri) && method.equals(Constants.METHOD_CREATE) && representation.contains(":groupAnnc"))){
+                return GroupAnncController.class;
+            }
+            if(match(membersContentPattern,uri)){
+                return MembersContentController.class;
+            }
+            if(match(discoveryPattern,uri)){
+                return DiscoveryController.class;
+            }
+            if(match(mgmtObjsPattern,uri)){
+                return MgmtObjsController.class;
+            }
+            if(match(mgmtObjPattern,uri)){
+                return MgmtObjController.class;
+            }
+            if(match(parametersPattern,uri)){
+                return ParametersController.class;
+            }
+            if(match(parameterPattern,uri)){
+                return null;
+            }
+            if(match(mgmtCmdPattern,uri)){
+                return MgmtCmdController.class;
+            }
+            if(match(execInstancesPattern,uri)){
+                return ExecInstancesController.class;
+            }
+            if(match(execInstancePattern,uri)){
+                return ExecInstanceController.class;
+            }
+            if(match(attachedDevicesPattern,uri)){
+                return AttachedDevicesController.class;
+            }
+            if(match(attachedDevicePattern,uri)){
+                return AttachedDeviceController.class;
+            }
+            if(match(notificationChannelsPattern,uri)){
+                return NotificationChannelsController.class;
+            }
+            if(match(notificationChannelPattern,uri)){
+                return NotificationChannelController.class;
+            }
+            if(match(m2mPocsPattern,uri)){
+                return M2MPocsController.class;
+            }
+            if(match(m2mPocPattern,uri)){
+                return M2MPocController.class;
+            }
+            return null;
+        }
+
+        private static boolean match(Pattern pattern, String uri) {
+            return pattern.matcher(uri).matches();
+        }
+    }
+}
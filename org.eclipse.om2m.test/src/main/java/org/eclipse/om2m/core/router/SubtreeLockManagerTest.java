@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 LAAS-CNRS (www.laas.fr) 7 Colonel Roche 31077 Toulouse - France
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Thierry Monteil (Project co-founder) - Management and initial specification, conception and documentation.
+ *     Mahdi Ben Alaya (Project co-founder) - Management and initial specification, conception, implementation, test and documentation.
+ *     Christophe Chassot - Management and initial specification.
+ *     Khalil Drira - Management and initial specification.
+ *     Yassine Banouar - Initial specification, conception, implementation, test and documentation.
+ ******************************************************************************/
+package org.eclipse.om2m.core.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+/**
+ * Concurrency stress test of the {@link SubtreeLockManager}: requests with nested requests issued
+ * from other threads, concurrent subtree and node maintenance.
+ */
+public class SubtreeLockManagerTest {
+
+    private static final String[] SUBTREES = {"nscl/applications/app0", "nscl/applications/app1",
+        "nscl/containers/c0", "nscl/groups/g0", "nscl/scls/gscl/applications/app0", "nscl/scls/gscl"};
+
+    /** Resources within each subtree */
+    private static final String[] RESOURCES = {"nscl/applications/app0/containers/c0", "nscl/applications/app1/groups/g",
+        "nscl/containers/c0/contentInstances/latest", "nscl/groups/g0/membersContent", "nscl/scls/gscl/applications/app0/containers",
+        "nscl/scls/gscl/subscriptions"};
+
+    @Test
+    public void groupsUrisBySubtree() {
+        SubtreeLockManager manager = new SubtreeLockManager(1 << 16);
+        assertEquals(manager.stripe("nscl/applications/app1"), manager.stripe("nscl/applications/app1/containers/c/contentInstances"));
+        assertEquals(manager.stripe("nscl/applications/app1"), manager.stripe("nscl//applications/app1/"));
+        assertEquals(manager.stripe("nscl"), manager.stripe("nscl/applications"));
+        assertEquals(manager.stripe("nscl/scls/gscl"), manager.stripe("nscl/scls/gscl/applications"));
+        assertEquals(manager.stripe("nscl/scls/gscl/applications/a"), manager.stripe("nscl/scls/gscl/applications/a/containers"));
+        assertNotEquals(manager.stripe("nscl/applications/app1"), manager.stripe("nscl/applications/app2"));
+        assertNotEquals(manager.stripe("nscl/scls/gscl/applications/app1"), manager.stripe("nscl/applications/app1"));
+    }
+
+    @Test
+    public void quiescesOneSubtreeOnly() throws Exception {
+        final SubtreeLockManager manager = new SubtreeLockManager(1 << 16);
+        manager.quiesce(SUBTREES[0]);
+        try {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<?> other = executor.submit(new Runnable() {
+                public void run() {
+                    manager.lockShared(SUBTREES[1] + "/containers/c");
+                    manager.unlockShared(SUBTREES[1] + "/containers/c");
+                }
+            });
+            other.get(5, TimeUnit.SECONDS);
+            Future<?> same = executor.submit(new Runnable() {
+                public void run() {
+                    manager.lockShared(SUBTREES[0] + "/containers/c");
+                    manager.unlockShared(SUBTREES[0] + "/containers/c");
+                }
+            });
+            Thread.sleep(100);
+            assertFalse(same.isDone());
+            manager.resume(SUBTREES[0]);
+            same.get(5, TimeUnit.SECONDS);
+            executor.shutdown();
+        } catch (Exception e) {
+            manager.resume(SUBTREES[0]);
+            throw e;
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void quiescesUnderContinuousLoad() throws Exception {
+        final SubtreeLockManager manager = new SubtreeLockManager(4);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        // Overlapping requests, so that the node is never idle
+        for (int w = 0; w < 8; w++) {
+            final Random random = new Random(w);
+            futures.add(workers.submit(new Runnable() {
+                public void run() {
+                    while (running.get()) {
+                        String uri = RESOURCES[random.nextInt(RESOURCES.length)];
+                        manager.lockShared(uri);
+                        active.incrementAndGet();
+                        try {
+                            // Nested request served by the same thread
+                            String nestedUri = RESOURCES[random.nextInt(RESOURCES.length)];
+                            manager.lockShared(nestedUri);
+                            manager.unlockShared(nestedUri);
+                            Thread.sleep(2);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            active.decrementAndGet();
+                            manager.unlockShared(uri);
+                        }
+                    }
+                }
+            }));
+        }
+        try {
+            Thread.sleep(100);
+            for (int i = 0; i < 5; i++) {
+                long start = System.nanoTime();
+                manager.quiesceNode();
+                try {
+                    assertEquals(0, active.get());
+                } finally {
+                    manager.resumeNode();
+                }
+                assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+                manager.quiesce(SUBTREES[i]);
+                manager.resume(SUBTREES[i]);
+            }
+        } finally {
+            running.set(false);
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        workers.shutdown();
+    }
+
+    @Test(timeout = 60000)
+    public void stress() throws Exception {
+        final SubtreeLockManager manager = new SubtreeLockManager(4);
+        final AtomicIntegerArray active = new AtomicIntegerArray(SUBTREES.length);
+        final AtomicInteger violations = new AtomicInteger();
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        // Nested requests run on a separate pool, as the group fan-out does
+        final ExecutorService nested = Executors.newFixedThreadPool(8);
+        ExecutorService workers = Executors.newFixedThreadPool(12);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        for (int w = 0; w < 8; w++) {
+            final Random random = new Random(w);
+            futures.add(workers.submit(new Runnable() {
+                public void run() {
+                    while (running.get()) {
+                        final int subtree = random.nextInt(SUBTREES.length);
+                        final int child = random.nextInt(SUBTREES.length);
+                        String uri = RESOURCES[subtree];
+                        manager.lockShared(uri);
+                        active.incrementAndGet(subtree);
+                        try {
+                            Future<?> fanOut = nested.submit(new Runnable() {
+                                public void run() {
+                                    String childUri = RESOURCES[child];
+                                    manager.lockShared(childUri);
+                                    active.incrementAndGet(child);
+                                    active.decrementAndGet(child);
+                                    manager.unlockShared(childUri);
+                                }
+                            });
+                            fanOut.get();
+                            requests.incrementAndGet();
+                        } catch (Exception e) {
+                            violations.incrementAndGet();
+                        } finally {
+                            active.decrementAndGet(subtree);
+                            manager.unlockShared(uri);
+                        }
+                    }
+                }
+            }));
+        }
+        for (int m = 0; m < 3; m++) {
+            final Random random = new Random(100 + m);
+            futures.add(workers.submit(new Runnable() {
+                public void run() {
+                    while (running.get()) {
+                        int subtree = random.nextInt(SUBTREES.length);
+                        manager.quiesce(SUBTREES[subtree]);
+                        if (active.get(subtree) != 0) {
+                            violations.incrementAndGet();
+                        }
+                        manager.resume(SUBTREES[subtree]);
+                    }
+                }
+            }));
+        }
+        futures.add(workers.submit(new Runnable() {
+            public void run() {
+                while (running.get()) {
+                    manager.quiesceNode();
+                    for (int i = 0; i < SUBTREES.length; i++) {
+                        if (active.get(i) != 0) {
+                            violations.incrementAndGet();
+                        }
+                    }
+                    manager.resumeNode();
+                }
+            }
+        }));
+
+        Thread.sleep(3000);
+        running.set(false);
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        workers.shutdown();
+        nested.shutdown();
+        assertEquals(0, violations.get());
+        assertTrue(requests.get() > 0);
+    }
+}